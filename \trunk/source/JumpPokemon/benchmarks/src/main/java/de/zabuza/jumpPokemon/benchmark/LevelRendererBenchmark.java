@@ -0,0 +1,153 @@
+package de.zabuza.jumpPokemon.benchmark;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.zabuza.jumpPokemon.Art;
+import de.zabuza.jumpPokemon.Commons;
+import de.zabuza.jumpPokemon.level.Level;
+import de.zabuza.jumpPokemon.level.LevelRenderer;
+import de.zabuza.jumpPokemon.level.TileWindow;
+import de.zabuza.soundEngine.FakeSoundEngine;
+
+/**
+ * JMH benchmarks of the {@link LevelRenderer} on level1. The camera scrolls
+ * through the level by a few pixel per operation. Measures copying the
+ * visible chunks, rendering them after setting the camera and repainting an
+ * area, which renders its chunks again.
+ * 
+ * @author Zabuza
+ * 
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class LevelRendererBenchmark {
+
+	/**
+	 * Pixel the camera moves per operation.
+	 */
+	private static final int SCROLL_SPEED = 4;
+	/**
+	 * Width and height of the repainted area as tiles.
+	 */
+	private static final int REPAINT_TILES = 3;
+
+	/**
+	 * Rendered level.
+	 */
+	private Level level;
+	/**
+	 * Renderer of the level.
+	 */
+	private LevelRenderer renderer;
+	/**
+	 * Window of the copy benchmark.
+	 */
+	private TileWindow window;
+	/**
+	 * Image which is rendered into.
+	 */
+	private BufferedImage image;
+	/**
+	 * Graphics of the image.
+	 */
+	private Graphics g;
+	/**
+	 * Current left x-coord of the camera.
+	 */
+	private int camX;
+
+	/**
+	 * Loads the level and creates the renderer.
+	 */
+	@Setup
+	public final void setUp() {
+		Art.init(null, new FakeSoundEngine());
+		level = Art.level1;
+		renderer = new LevelRenderer(level, null, Commons.WIDTH,
+				Commons.HEIGHT);
+		window = new TileWindow();
+		image = new BufferedImage(Commons.WIDTH, Commons.HEIGHT,
+				BufferedImage.TYPE_INT_RGB);
+		g = image.getGraphics();
+	}
+
+	/**
+	 * Releases the graphics of the image.
+	 */
+	@TearDown
+	public final void tearDown() {
+		g.dispose();
+	}
+
+	/**
+	 * Copies the visible chunks at the next camera position, the part of
+	 * rendering done by the game thread.
+	 * 
+	 * @return The copied window
+	 */
+	@Benchmark
+	public final TileWindow copyVisible() {
+		renderer.copyVisible(scroll(), 0, window);
+		return window;
+	}
+
+	/**
+	 * Sets the camera to the next position and renders the level.
+	 * 
+	 * @return The rendered image
+	 */
+	@Benchmark
+	public final BufferedImage setCamRender() {
+		renderer.setCam(scroll(), 0);
+		renderer.render(g, 0);
+		return image;
+	}
+
+	/**
+	 * Repaints an area in the middle of the screen and renders the level at
+	 * the next camera position.
+	 * 
+	 * @return The rendered image
+	 */
+	@Benchmark
+	public final BufferedImage repaintRender() {
+		int x = scroll();
+		renderer.repaint((x + Commons.WIDTH / 2) / Commons.TILE_SIZE,
+				level.getHeight() / 2, REPAINT_TILES, REPAINT_TILES);
+		renderer.setCam(x, 0);
+		renderer.render(g, 0);
+		return image;
+	}
+
+	/**
+	 * Moves the camera to its next position, it jumps back to the start at
+	 * the end of the level.
+	 * 
+	 * @return Left x-coord of the camera
+	 */
+	private int scroll() {
+		camX += SCROLL_SPEED;
+		if (camX > level.getWidth() * Commons.TILE_SIZE - Commons.WIDTH) {
+			camX = 0;
+		}
+		return camX;
+	}
+}
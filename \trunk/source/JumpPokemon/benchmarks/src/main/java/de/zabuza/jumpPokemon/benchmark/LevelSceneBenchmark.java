@@ -0,0 +1,112 @@
+package de.zabuza.jumpPokemon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.zabuza.jumpPokemon.Commons;
+import de.zabuza.jumpPokemon.Simulation;
+import de.zabuza.jumpPokemon.scenes.LevelScene;
+import de.zabuza.jumpPokemon.scenes.Scene;
+import de.zabuza.jumpPokemon.sprites.Testball;
+
+/**
+ * JMH benchmarks of the tick of the {@link LevelScene} on level1, with
+ * additional sprites and with rendering while the camera scrolls.
+ * 
+ * @author Zabuza
+ * 
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class LevelSceneBenchmark {
+
+	/**
+	 * Ticks after which the player changes its direction while scrolling.
+	 */
+	private static final int SCROLL_TURN_TICKS = 200;
+
+	/**
+	 * Amount of additional sprites in the scene.
+	 */
+	@Param({ "0", "100" })
+	private int sprites;
+
+	/**
+	 * Simulation which only ticks.
+	 */
+	private Simulation simulation;
+	/**
+	 * Simulation which renders after every tick.
+	 */
+	private Simulation renderedSimulation;
+
+	/**
+	 * Creates both simulations with the additional sprites.
+	 */
+	@Setup
+	public final void setUp() {
+		simulation = createSimulation(false);
+		renderedSimulation = createSimulation(true);
+	}
+
+	/**
+	 * Simulates one tick.
+	 * 
+	 * @return Amount of simulated ticks
+	 */
+	@Benchmark
+	public final long tick() {
+		simulation.tick();
+		return simulation.getTicks();
+	}
+
+	/**
+	 * Simulates and renders one tick while the player runs back and forth, so
+	 * the camera scrolls the level.
+	 * 
+	 * @return Amount of simulated ticks
+	 */
+	@Benchmark
+	public final long tickRenderScrolling() {
+		long turns = renderedSimulation.getTicks() / SCROLL_TURN_TICKS;
+		boolean right = turns % 2 == 0;
+		Scene.getKeys()[Commons.KEY_RIGHT] = right;
+		Scene.getKeys()[Commons.KEY_LEFT] = !right;
+		renderedSimulation.tick();
+		return renderedSimulation.getTicks();
+	}
+
+	/**
+	 * Creates a simulation of level1 with the additional sprites.
+	 * 
+	 * @param rendering
+	 *            True if the simulation renders after every tick
+	 * @return Initialized simulation
+	 */
+	private Simulation createSimulation(final boolean rendering) {
+		Simulation created = new Simulation();
+		created.setRendering(rendering);
+		created.init();
+		LevelScene scene = (LevelScene) created.getScene();
+		for (int i = 0; i < sprites; i++) {
+			scene.addSprite(new Testball(scene, i * Commons.TILE_SIZE,
+					Commons.HEIGHT / 2));
+		}
+		return created;
+	}
+}
@@ -0,0 +1,160 @@
+package de.zabuza.jumpPokemon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.zabuza.soundEngine.FixedSoundSource;
+import de.zabuza.soundEngine.SoundListener;
+import de.zabuza.soundEngine.SoundSource;
+import de.zabuza.soundEngine.mixer.ListenerMixer;
+import de.zabuza.soundEngine.sample.SampleLoader;
+import de.zabuza.soundEngine.sample.SamplePlayer;
+import de.zabuza.soundEngine.sample.SoundSample;
+
+/**
+ * JMH benchmarks of mixing one buffer with the {@link ListenerMixer}. Keeps
+ * a fixed amount of voices playing the shipped samples, either all at the
+ * listener or mostly far away from it.
+ * 
+ * @author Zabuza
+ * 
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ListenerMixerBenchmark {
+
+	/**
+	 * Shipped samples which are played.
+	 */
+	private static final String[] SAMPLES = { "/res/snd/coin.wav",
+			"/res/snd/jump.wav", "/res/snd/firepunch.wav",
+			"/res/snd/firebeam.wav", "/res/snd/bump.wav",
+			"/res/snd/levelup.wav" };
+	/**
+	 * Maximal sound channels of the mixer.
+	 */
+	private static final int CHANNELS = 64;
+	/**
+	 * Reading rate of the mixer.
+	 */
+	private static final int RATE = 44100;
+	/**
+	 * Size of a buffer, 10 milliseconds.
+	 */
+	private static final int BUFFER_SIZE = RATE / 100;
+	/**
+	 * Amount of audible voices in the off-screen benchmark.
+	 */
+	private static final int AUDIBLE_VOICES = 4;
+	/**
+	 * Distance of the far away voices of the off-screen benchmark, beyond
+	 * the cull distance.
+	 */
+	private static final float FAR_DISTANCE = 10000;
+
+	/**
+	 * Amount of voices the mixer keeps playing.
+	 */
+	@Param({ "32" })
+	private int voices;
+	/**
+	 * Interpolation of the voices, {@link SamplePlayer#LINEAR} or
+	 * {@link SamplePlayer#SINC}.
+	 */
+	@Param({ "0", "1" })
+	private int interpolation;
+
+	/**
+	 * Benchmarked mixer.
+	 */
+	private ListenerMixer mixer;
+	/**
+	 * Played samples.
+	 */
+	private SoundSample[] samples;
+	/**
+	 * Source of the far away voices.
+	 */
+	private SoundSource farSource = new FixedSoundSource(FAR_DISTANCE, 0);
+	/**
+	 * Left and right buffer to mix into.
+	 */
+	private float[] leftBuf = new float[BUFFER_SIZE],
+			rightBuf = new float[BUFFER_SIZE];
+
+	/**
+	 * Loads the samples and creates the mixer with a listener at the origin.
+	 * 
+	 * @throws Exception
+	 *             If a sample could not be loaded
+	 */
+	@Setup
+	public final void setUp() throws Exception {
+		samples = new SoundSample[SAMPLES.length];
+		for (int i = 0; i < SAMPLES.length; i++) {
+			samples[i] = SampleLoader.loadSample(SAMPLES[i]);
+		}
+		mixer = new ListenerMixer(CHANNELS, interpolation);
+		mixer.setSoundListener(new SoundListener() {
+			@Override
+			public float getX() {
+				return 0;
+			}
+
+			@Override
+			public float getY() {
+				return 0;
+			}
+		});
+	}
+
+	/**
+	 * Mixes one buffer with all voices at the listener, finished voices are
+	 * replaced.
+	 * 
+	 * @return Peak of the buffer
+	 */
+	@Benchmark
+	public final float read() {
+		mixer.update();
+		for (int i = mixer.getVoiceCount(); i < voices; i++) {
+			mixer.play(samples[i % samples.length], 1,
+					mixer.getSoundListener(), 1, 1);
+		}
+		return mixer.read(leftBuf, rightBuf, RATE);
+	}
+
+	/**
+	 * Mixes one buffer with few voices at the listener and all others far
+	 * away, finished voices are replaced.
+	 * 
+	 * @return Peak of the buffer
+	 */
+	@Benchmark
+	public final float readOffscreen() {
+		mixer.update();
+		for (int i = mixer.getAudibleVoiceCount(); i < AUDIBLE_VOICES; i++) {
+			mixer.play(samples[i % samples.length], 1,
+					mixer.getSoundListener(), 1, 1);
+		}
+		for (int i = mixer.getVoiceCount(); i < voices; i++) {
+			mixer.play(samples[i % samples.length], 1, farSource, 1, 1);
+		}
+		return mixer.read(leftBuf, rightBuf, RATE);
+	}
+}
@@ -0,0 +1,86 @@
+package de.zabuza.jumpPokemon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.zabuza.jumpPokemon.Commons;
+import de.zabuza.jumpPokemon.scenes.LevelScene;
+import de.zabuza.physicEngine.EntityStore;
+import de.zabuza.physicEngine.PhysicEngine;
+import de.zabuza.physicEngine.forms.Form;
+import de.zabuza.physicEngine.forms.Normal;
+
+/**
+ * JMH benchmark of moving many batch entities of an {@link EntityStore} at
+ * once with {@link PhysicEngine#integrate(EntityStore)}.
+ * 
+ * @author Zabuza
+ * 
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class PhysicEngineBenchmark {
+
+	/**
+	 * Amount of batch entities in the store.
+	 */
+	@Param({ "10000" })
+	private int entities;
+
+	/**
+	 * Benchmarked engine.
+	 */
+	private PhysicEngine physic;
+	/**
+	 * Store with the batch entities.
+	 */
+	private EntityStore store;
+
+	/**
+	 * Creates the store with falling batch entities of a normal form.
+	 */
+	@Setup
+	public final void setUp() {
+		physic = new PhysicEngine();
+		store = new EntityStore();
+		Form form = new Normal();
+		for (int i = 0; i < entities; i++) {
+			int entity = store.allocate();
+			store.setForm(entity, form);
+			store.setFlag(entity, EntityStore.FLAG_BATCH, true);
+		}
+	}
+
+	/**
+	 * Integrates all entities once. The entities are thrown up again before
+	 * they fall below the ground.
+	 * 
+	 * @return Y-coord of the first entity
+	 */
+	@Benchmark
+	public final float integrate() {
+		if (store.getY(0) < LevelScene.GROUND_HEIGHT) {
+			for (int i = 0; i < entities; i++) {
+				store.setY(i, Commons.HEIGHT);
+				store.setXA(i, i % Commons.TILE_SIZE);
+			}
+		}
+		physic.integrate(store);
+		return store.getY(0);
+	}
+}
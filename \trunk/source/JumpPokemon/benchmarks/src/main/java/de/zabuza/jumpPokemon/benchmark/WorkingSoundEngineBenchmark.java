@@ -0,0 +1,180 @@
+package de.zabuza.jumpPokemon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.zabuza.soundEngine.FixedSoundSource;
+import de.zabuza.soundEngine.SoundListener;
+import de.zabuza.soundEngine.SoundSource;
+import de.zabuza.soundEngine.WorkingSoundEngine;
+import de.zabuza.soundEngine.sample.SoundSample;
+import de.zabuza.soundEngine.sink.MemorySink;
+
+/**
+ * JMH benchmarks of rendering buffers with an offline
+ * {@link WorkingSoundEngine} into a {@link MemorySink}, like the game plays.
+ * The engine keeps as many voices playing as it has channels. Reports the
+ * rendered buffers per second and the mixed voices per millisecond.
+ * 
+ * @author Zabuza
+ * 
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class WorkingSoundEngineBenchmark {
+
+	/**
+	 * Counter of the mixed voices, reported per time unit next to the
+	 * rendered buffers.
+	 * 
+	 * @author Zabuza
+	 * 
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class VoiceCounter {
+		/**
+		 * Amount of mixed voices in the current iteration.
+		 */
+		private long mixedVoices;
+
+		/**
+		 * Gets the amount of mixed voices in the current iteration.
+		 * 
+		 * @return Amount of mixed voices
+		 */
+		public final long voices() {
+			return mixedVoices;
+		}
+
+		/**
+		 * Resets the counter before every iteration.
+		 */
+		@Setup(Level.Iteration)
+		public final void reset() {
+			mixedVoices = 0;
+		}
+	}
+
+	/**
+	 * Shipped samples which are played.
+	 */
+	private static final String[] SAMPLES = { "/res/snd/coin.wav",
+			"/res/snd/jump.wav", "/res/snd/firepunch.wav",
+			"/res/snd/firebeam.wav", "/res/snd/bump.wav",
+			"/res/snd/levelup.wav" };
+	/**
+	 * Size of a buffer in frames, 10 milliseconds.
+	 */
+	private static final int BUFFER_SIZE = 44100 / 100;
+	/**
+	 * Bytes of a stereo frame with 16 bit samples, as rendered by the engine.
+	 */
+	private static final int FRAME_BYTES = 4;
+
+	/**
+	 * Amount of voices the engine keeps playing and of its channels. Sizes
+	 * the MAX_CHANNELS of the game.
+	 */
+	@Param({ "8", "16", "32", "64", "128" })
+	private int voices;
+
+	/**
+	 * Benchmarked engine.
+	 */
+	private WorkingSoundEngine engine;
+	/**
+	 * Sink the engine renders into.
+	 */
+	private MemorySink memory;
+	/**
+	 * Played samples.
+	 */
+	private SoundSample[] samples;
+	/**
+	 * Source of all voices, at the listener.
+	 */
+	private SoundSource source = new FixedSoundSource(0, 0);
+
+	/**
+	 * Creates the offline engine with a listener at the origin and loads the
+	 * samples.
+	 */
+	@Setup
+	public final void setUp() {
+		memory = new MemorySink(BUFFER_SIZE * FRAME_BYTES);
+		engine = new WorkingSoundEngine(voices, memory);
+		engine.setListener(new SoundListener() {
+			@Override
+			public float getX() {
+				return 0;
+			}
+
+			@Override
+			public float getY() {
+				return 0;
+			}
+		});
+		samples = new SoundSample[SAMPLES.length];
+		for (int i = 0; i < SAMPLES.length; i++) {
+			samples[i] = engine.loadSample(SAMPLES[i]);
+		}
+	}
+
+	/**
+	 * Renders one buffer, finished voices are replaced.
+	 * 
+	 * @return Size of the rendered sound in bytes
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public final int render() {
+		return renderBuffer();
+	}
+
+	/**
+	 * Renders one buffer like {@link #render()} and counts its voices, so the
+	 * voices are reported per millisecond.
+	 * 
+	 * @param counter
+	 *            Counter of the mixed voices
+	 * @return Size of the rendered sound in bytes
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public final int renderVoices(final VoiceCounter counter) {
+		counter.mixedVoices += voices;
+		return renderBuffer();
+	}
+
+	/**
+	 * Renders one buffer after replacing the finished voices.
+	 * 
+	 * @return Size of the rendered sound in bytes
+	 */
+	private int renderBuffer() {
+		memory.clear();
+		engine.clientTick();
+		for (int i = engine.getVoiceCount(); i < voices; i++) {
+			engine.play(samples[i % samples.length], source, 1, 1);
+		}
+		engine.render(1);
+		return memory.getSize();
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * This is the package for the JMH benchmarks of the hot paths of the game.
+ */
+package de.zabuza.jumpPokemon.benchmark;
@@ -0,0 +1,71 @@
+package de.zabuza.soundEngine.sample;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of decoding the shipped samples with the
+ * {@link SampleLoader}. The files are read once, so only building the
+ * samples from their contents is measured. Lies in the package of the
+ * SampleLoader to reach its file based loading.
+ * 
+ * @author Zabuza
+ * 
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class SampleLoaderBenchmark {
+
+	/**
+	 * Shipped sample to decode.
+	 */
+	@Param({ "/res/snd/coin.wav", "/res/snd/jump.wav",
+			"/res/snd/firepunch.wav", "/res/snd/firebeam.wav",
+			"/res/snd/bump.wav", "/res/snd/levelup.wav" })
+	private String sample;
+
+	/**
+	 * Contents of the sample file.
+	 */
+	private ByteBuffer file;
+
+	/**
+	 * Reads the sample file.
+	 * 
+	 * @throws Exception
+	 *             If the file could not be read
+	 */
+	@Setup
+	public final void setUp() throws Exception {
+		file = SampleLoader.read(sample);
+	}
+
+	/**
+	 * Builds the sample from the file contents, always decoded and never
+	 * streamed.
+	 * 
+	 * @return Built sample
+	 * @throws Exception
+	 *             If the sample is not supported
+	 */
+	@Benchmark
+	public final SoundSample buildSample() throws Exception {
+		return SampleLoader.loadSample(file, Long.MAX_VALUE);
+	}
+}
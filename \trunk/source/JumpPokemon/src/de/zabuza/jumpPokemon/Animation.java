@@ -126,7 +126,88 @@ public class Animation {
 	 */
 	public Animation(final Sheet sheet, final int row, final int thatIntervall,
 			final int thatLoops, final int thatStart, final int thatEnd) {
+		reset(sheet, row, thatIntervall, thatLoops, thatStart, thatEnd);
+	}
+
+	/**
+	 * Resets the animation to an infinity animation over the whole Image[].
+	 * Used instead of creating a new animation if a sprite changes its sheet.
+	 * 
+	 * @param sheet
+	 *            Sheet which contains the Image[] for usage
+	 * @param row
+	 *            Row of the Image[] for usage in the sheet
+	 * @param thatIntervall
+	 *            Interval between the images of the Image[] in ticks
+	 */
+	public final void reset(final Sheet sheet, final int row,
+			final int thatIntervall) {
+		reset(sheet, row, thatIntervall, INFINITY_LOOPS, 0, sheet
+				.getImageRow(row).length - 1);
+	}
+
+	/**
+	 * Resets the animation to custom loops over the whole Image[].
+	 * 
+	 * @param sheet
+	 *            Sheet which contains the Image[] for usage
+	 * @param row
+	 *            Row of the Image[] for usage in the sheet
+	 * @param thatIntervall
+	 *            Interval between the images of the Image[] in ticks
+	 * @param thatLoops
+	 *            Loops over the Image[], 0 for infinity
+	 */
+	public final void reset(final Sheet sheet, final int row,
+			final int thatIntervall, final int thatLoops) {
+		reset(sheet, row, thatIntervall, thatLoops, 0,
+				sheet.getImageRow(row).length - 1);
+	}
+
+	/**
+	 * Resets the animation to custom loops from start to the ending index of
+	 * the Image[].
+	 * 
+	 * @param sheet
+	 *            Sheet which contains the Image[] for usage
+	 * @param row
+	 *            Row of the Image[] for usage in the sheet
+	 * @param thatIntervall
+	 *            Interval between the images of the Image[] in ticks
+	 * @param thatLoops
+	 *            Loops over the Image[], 0 for infinity
+	 * @param thatStart
+	 *            Starting index of the Image[] for the animation
+	 */
+	public final void reset(final Sheet sheet, final int row,
+			final int thatIntervall, final int thatLoops, final int thatStart) {
+		reset(sheet, row, thatIntervall, thatLoops, thatStart, sheet
+				.getImageRow(row).length - 1);
+	}
+
+	/**
+	 * Resets the animation to custom loops from start to end index of the
+	 * Image[].
+	 * 
+	 * @param sheet
+	 *            Sheet which contains the Image[] for usage
+	 * @param row
+	 *            Row of the Image[] for usage in the sheet
+	 * @param thatIntervall
+	 *            Interval between the images of the Image[] in ticks
+	 * @param thatLoops
+	 *            Loops over the Image[], 0 for infinity
+	 * @param thatStart
+	 *            Starting index of the Image[] for the animation
+	 * @param thatEnd
+	 *            Ending index of the Image[] for the animation
+	 */
+	public final void reset(final Sheet sheet, final int row,
+			final int thatIntervall, final int thatLoops, final int thatStart,
+			final int thatEnd) {
 		finished = false;
+		tick = 0;
+		curLoops = 0;
 		images = sheet.getImageRow(row);
 		this.intervall = thatIntervall;
 		setLoops(thatLoops);
@@ -1,6 +1,7 @@
 package de.zabuza.jumpPokemon;
 
 import java.awt.AlphaComposite;
+import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GraphicsConfiguration;
 import java.awt.Image;
@@ -8,6 +9,8 @@ import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Paths;
 
 import javax.imageio.ImageIO;
 import javax.sound.midi.Sequence;
@@ -52,6 +55,14 @@ public final class Art {
 	 * Sample for evolving.
 	 */
 	public static final int SAMPLE_EVOLVE = 5;
+	/**
+	 * Amount of samples.
+	 */
+	public static final int SAMPLE_AMOUNT = 6;
+	/**
+	 * Character offset to the font Image[].
+	 */
+	private static final int CHAR_OFFSET = 32;
 
 	/**
 	 * Sheets for Feurigel.
@@ -101,18 +112,63 @@ public final class Art {
 	/**
 	 * Contains all {@link SoundSample}s.
 	 */
-	public static SoundSample[] samples = new SoundSample[100];
+	public static SoundSample[] samples = new SoundSample[SAMPLE_AMOUNT];
 
 	/**
 	 * Contains all {@link Sequence}s.
 	 */
 	public static final Sequence[] songs = new Sequence[2];
 
+	/**
+	 * Creates an image with a bitmask transparency. Uses the given
+	 * {@link GraphicsConfiguration} if there is one, else a plain
+	 * {@link BufferedImage} is created, e.g. if the game runs headless.
+	 * 
+	 * @param gc
+	 *            Components {@link GraphicsConfiguration}, may be null
+	 * @param width
+	 *            Width of the image
+	 * @param height
+	 *            Height of the image
+	 * @return Created image
+	 */
+	public static Image createImage(final GraphicsConfiguration gc,
+			final int width, final int height) {
+		if (gc == null) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		}
+		return gc.createCompatibleImage(width, height, Transparency.BITMASK);
+	}
+
+	/**
+	 * Uses the font ressource to draw a String in single images.
+	 * 
+	 * @param g
+	 *            Graphics to draw with
+	 * @param text
+	 *            String which should be drawed
+	 * @param x
+	 *            X-Coord to draw the string
+	 * @param y
+	 *            Y-Coord to draw the string
+	 * @param c
+	 *            Row-Index of the font
+	 */
+	public static void drawString(final Graphics g, final String text,
+			final int x, final int y, final int c) {
+		char[] ch = text.toCharArray();
+		for (int i = 0; i < ch.length; i++) {
+			g.drawImage(font[c][ch[i] - CHAR_OFFSET], x + i
+					* font[c][0].getWidth(null), y, null);
+		}
+	}
+
 	/**
 	 * Loads all ressources.
 	 * 
 	 * @param gc
-	 *            Components {@link GraphicsConfiguration}
+	 *            Components {@link GraphicsConfiguration}, null if the game
+	 *            runs headless
 	 * @param sound
 	 *            Components {@link SoundEngine}
 	 */
@@ -218,8 +274,13 @@ public final class Art {
 
 			Level.loadBehaviors(new DataInputStream(Art.class
 					.getResourceAsStream("/res/tiles.dat")));
-			level1 = Level.load(new DataInputStream(Art.class
-					.getResourceAsStream("/res/level1.lvl")));
+			// Map the level if it lies in the filesystem
+			URL levelUrl = Art.class.getResource("/res/level1.lvl");
+			if ("file".equals(levelUrl.getProtocol())) {
+				level1 = Level.map(Paths.get(levelUrl.toURI()));
+			} else {
+				level1 = Level.load(new DataInputStream(levelUrl.openStream()));
+			}
 
 			// XXX Debug Markierung
 			System.out.println(System.currentTimeMillis() - debugTime
@@ -253,8 +314,7 @@ public final class Art {
 				.getWidth(null) / xSize];
 		for (int y = 0; y < source.getHeight(null) / ySize; y++) {
 			for (int x = 0; x < source.getWidth(null) / xSize; x++) {
-				Image image = gc.createCompatibleImage(xSize, ySize,
-						Transparency.BITMASK);
+				Image image = createImage(gc, xSize, ySize);
 				Graphics2D g = (Graphics2D) image.getGraphics();
 				g.setComposite(AlphaComposite.Src);
 				g.drawImage(source, -x * xSize, -y * ySize, null);
@@ -282,8 +342,7 @@ public final class Art {
 
 		BufferedImage source = ImageIO.read(Art.class
 				.getResourceAsStream(imageName));
-		Image image = gc.createCompatibleImage(source.getWidth(),
-				source.getHeight(), Transparency.BITMASK);
+		Image image = createImage(gc, source.getWidth(), source.getHeight());
 		Graphics2D g = (Graphics2D) image.getGraphics();
 		g.setComposite(AlphaComposite.Src);
 		g.drawImage(source, 0, 0, null);
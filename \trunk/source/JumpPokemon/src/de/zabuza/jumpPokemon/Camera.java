@@ -68,6 +68,11 @@ public class Camera {
 		setX((int) sprite.getX() - (width / 2));
 		setY((int) sprite.getY() - (height / 2));
 
+		// Load the chunks of a mapped level before the camera reaches them
+		// and drop the ones it left behind
+		int xTile = getX() / Commons.TILE_SIZE;
+		level.retain(xTile - Level.CHUNK_WIDTH, xTile + width
+				/ Commons.TILE_SIZE + Level.CHUNK_WIDTH);
 	}
 
 	/**
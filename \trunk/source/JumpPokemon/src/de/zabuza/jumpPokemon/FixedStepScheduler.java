@@ -0,0 +1,107 @@
+package de.zabuza.jumpPokemon;
+
+/**
+ * Fixed timestep scheduler of the game loop. Accumulates the passed time of
+ * the monotonic {@link System#nanoTime()} in integer nanoseconds and releases
+ * a tick for every full step. The time is accumulated multiplied with the
+ * ticks per second, so steps which are no whole nanoseconds do not drift.
+ * After a long stall only a limited amount of ticks is caught up, the rest
+ * of the time is dropped, so slow ticks can not cause more and more ticks.
+ * The dropped ticks are counted and exposed via JMX.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class FixedStepScheduler implements FixedStepSchedulerMXBean {
+
+	/**
+	 * Converts seconds into nanoseconds if multiplied with.
+	 */
+	private static final long SECOND_TO_NANO = 1000000000L;
+
+	/**
+	 * Amount of ticks per second.
+	 */
+	private final int ticksPerSecond;
+	/**
+	 * Maximal amount of ticks which are released at once.
+	 */
+	private final int maxCatchUpTicks;
+	/**
+	 * Time of the last advance in nanoseconds.
+	 */
+	private long lastTime;
+	/**
+	 * Accumulated time which is not ticked yet, in nanoseconds multiplied
+	 * with the ticks per second. Always less than a second after an advance.
+	 */
+	private long accumulator = 0;
+	/**
+	 * Amount of ticks which were dropped after stalls.
+	 */
+	private volatile long droppedTicks = 0;
+
+	/**
+	 * Creates a new FixedStepScheduler which starts now.
+	 * 
+	 * @param thatTicksPerSecond
+	 *            Amount of ticks per second
+	 * @param thatMaxCatchUpTicks
+	 *            Maximal amount of ticks which are released at once
+	 */
+	public FixedStepScheduler(final int thatTicksPerSecond,
+			final int thatMaxCatchUpTicks) {
+		this.ticksPerSecond = thatTicksPerSecond;
+		this.maxCatchUpTicks = thatMaxCatchUpTicks;
+		this.lastTime = System.nanoTime();
+	}
+
+	/**
+	 * Accumulates the time passed since the last advance and releases the
+	 * ticks which are due. Ticks beyond the maximal catch up are dropped.
+	 * 
+	 * @param now
+	 *            Current time of {@link System#nanoTime()}
+	 * @return Amount of ticks to execute
+	 */
+	public final int advance(final long now) {
+		long passed = now - lastTime;
+		lastTime = now;
+		if (passed > 0) {
+			accumulator += passed * ticksPerSecond;
+		}
+
+		long due = accumulator / SECOND_TO_NANO;
+		accumulator -= due * SECOND_TO_NANO;
+		if (due > maxCatchUpTicks) {
+			droppedTicks += due - maxCatchUpTicks;
+			due = maxCatchUpTicks;
+		}
+		return (int) due;
+	}
+
+	/**
+	 * Gets the time when the last released tick was due. Snapshots of a tick
+	 * are interpolated starting at this time.
+	 * 
+	 * @return Time of {@link System#nanoTime()}
+	 */
+	public final long getLastTickTime() {
+		return lastTime - accumulator / ticksPerSecond;
+	}
+
+	/**
+	 * Gets the time when the next tick is due.
+	 * 
+	 * @return Time of {@link System#nanoTime()}
+	 */
+	public final long getNextTickTime() {
+		return lastTime + (SECOND_TO_NANO - accumulator + ticksPerSecond - 1)
+				/ ticksPerSecond;
+	}
+
+	@Override
+	public final long getDroppedTicks() {
+		return droppedTicks;
+	}
+}
@@ -0,0 +1,17 @@
+package de.zabuza.jumpPokemon;
+
+/**
+ * Management interface of a {@link FixedStepScheduler}, exposed via JMX.
+ * Shows if the catch up limit of the game loop had to drop ticks.
+ * 
+ * @author Zabuza
+ * 
+ */
+public interface FixedStepSchedulerMXBean {
+	/**
+	 * Gets the amount of ticks which were dropped after stalls.
+	 * 
+	 * @return Amount of dropped ticks
+	 */
+	long getDroppedTicks();
+}
@@ -2,6 +2,7 @@ package de.zabuza.jumpPokemon;
 
 import java.awt.Dimension;
 import java.awt.Toolkit;
+import java.nio.file.Paths;
 
 import javax.swing.JFrame;
 
@@ -20,15 +21,19 @@ public final class FrameLauncher {
 	private static final int BORDER_WIDTH = 10;
 
 	/**
-	 * Starts the game in a {@link JFrame}.
+	 * Starts the game in a {@link JFrame}. The optional first argument is a
+	 * file into which the input of every started level is recorded.
 	 * 
 	 * @param args
-	 *            No arguments are provided
+	 *            Optional file of the recording
 	 */
 	public static void main(final String[] args) {
 		JFrame frame = new JFrame("Jump Pokemon!");
 		JumpPkmnComponent runPkmn = new JumpPkmnComponent(Commons.WIDTH,
 				Commons.HEIGHT);
+		if (args.length > 0) {
+			runPkmn.setRecordFile(Paths.get(args[0]));
+		}
 		frame.getContentPane().add(runPkmn);
 		frame.pack();
 		frame.setResizable(false);
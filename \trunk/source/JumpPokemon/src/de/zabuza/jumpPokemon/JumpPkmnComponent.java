@@ -3,23 +3,35 @@ package de.zabuza.jumpPokemon;
 import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.DisplayMode;
 import java.awt.Graphics;
 import java.awt.GraphicsConfiguration;
+import java.awt.Toolkit;
 import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.image.BufferStrategy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.locks.LockSupport;
 
+import javax.management.JMException;
 import javax.sound.sampled.LineUnavailableException;
 
 import de.zabuza.jumpPokemon.menu.Menu;
+import de.zabuza.jumpPokemon.metrics.FrameMetrics;
+import de.zabuza.jumpPokemon.metrics.PhaseMetricsMXBean;
+import de.zabuza.jumpPokemon.render.FrameSnapshot;
+import de.zabuza.jumpPokemon.render.SnapshotBuffer;
+import de.zabuza.jumpPokemon.replay.InputRecorder;
 import de.zabuza.jumpPokemon.scenes.LevelScene;
 import de.zabuza.jumpPokemon.scenes.Scene;
 import de.zabuza.jumpPokemon.scenes.TitleScene;
 import de.zabuza.physicEngine.PhysicEngine;
 import de.zabuza.soundEngine.FakeSoundEngine;
 import de.zabuza.soundEngine.SoundEngine;
+import de.zabuza.soundEngine.SoundEngineMXBean;
 import de.zabuza.soundEngine.WorkingSoundEngine;
 
 /**
@@ -32,29 +44,40 @@ public class JumpPkmnComponent extends Canvas implements Runnable, KeyListener,
 		FocusListener {
 
 	/**
-	 * Versions UID.
+	 * Presentation mode which renders frames as fast as possible, used for
+	 * benchmarking.
 	 */
-	private static final long serialVersionUID = 4421312591970156136L;
+	public static final int PRESENT_UNCAPPED = 0;
 	/**
-	 * Maximal sound channels.
+	 * Presentation mode which renders at most the target fps.
 	 */
-	private static final int MAX_CHANNELS = 64;
+	public static final int PRESENT_CAPPED = 1;
 	/**
-	 * Character offset to the font Image[].
+	 * Presentation mode which renders a frame per refresh of the display.
 	 */
-	private static final int CHAR_OFFSET = 32;
+	public static final int PRESENT_VSYNC = 2;
 	/**
-	 * Converts seconds into nanoseconds if multiplied with.
+	 * Amount of presentation modes.
 	 */
-	private static final double SECOND_TO_NANO = 1000000000.0;
+	public static final int PRESENT_MODES = 3;
 	/**
-	 * Returns 90% if multiplied with.
+	 * Names of all presentation modes.
 	 */
-	private static final float NINETY_PERCENT = 0.9f;
+	private static final String[] PRESENT_MODE_NAMES = { "uncapped", "capped",
+			"vsync" };
+	/**
+	 * Versions UID.
+	 */
+	private static final long serialVersionUID = 4421312591970156136L;
+	/**
+	 * Maximal sound channels.
+	 */
+	private static final int MAX_CHANNELS = 64;
 	/**
-	 * Returns 10% if multiplied with.
+	 * Maximal amount of ticks which are caught up after a stall, the rest of
+	 * the stall is dropped.
 	 */
-	private static final float TEN_PERCENT = 0.1f;
+	private static final int MAX_CATCH_UP_TICKS = 5;
 	/**
 	 * Index of the black row in the font.
 	 */
@@ -68,14 +91,45 @@ public class JumpPkmnComponent extends Canvas implements Runnable, KeyListener,
 	 */
 	private static final int FPS_XY = 5;
 	/**
-	 * Game loop delay which is used in Thread.sleep(milis).
+	 * Y-coordinate of the first line of the metrics overlay.
 	 */
-	private static final int GAME_LOOP_DELAY = 5;
+	private static final int METRICS_Y = 17;
+	/**
+	 * Height of a line of the metrics overlay.
+	 */
+	private static final int METRICS_LINE_HEIGHT = 10;
+	/**
+	 * Converts nanoseconds into microseconds if divided by.
+	 */
+	private static final long NANO_TO_MICRO = 1000;
+	/**
+	 * Converts seconds into nanoseconds if multiplied with.
+	 */
+	private static final long SECOND_TO_NANO = 1000000000L;
+	/**
+	 * Target fps of the capped presentation mode if nothing else is set.
+	 */
+	private static final int DEFAULT_TARGET_FPS = 60;
+	/**
+	 * Refresh rate which is assumed if the display does not report it.
+	 */
+	private static final int DEFAULT_REFRESH_RATE = 60;
+	/**
+	 * Minimal wait of the render loop in nanoseconds after it skipped an
+	 * unchanged frame, prevents spinning in the uncapped presentation mode.
+	 */
+	private static final long IDLE_NANOS = 1000000L;
+	/**
+	 * Phases which are measured by the render thread.
+	 */
+	private static final int[] RENDER_PHASES = { FrameMetrics.RENDER,
+			FrameMetrics.LEVEL_RENDER, FrameMetrics.SPRITE_RENDER,
+			FrameMetrics.SHOW };
 
 	/**
 	 * True if the game is running.
 	 */
-	private boolean running = false;
+	private volatile boolean running = false;
 	/**
 	 * True if the game is paused.
 	 */
@@ -119,6 +173,60 @@ public class JumpPkmnComponent extends Canvas implements Runnable, KeyListener,
 	 * True if can enter Menu.
 	 */
 	private boolean canMenu = true;
+	/**
+	 * True if the metrics overlay is displayed.
+	 */
+	private volatile boolean showMetrics = false;
+	/**
+	 * Passes the snapshots of the ticks from the game thread to the render
+	 * thread.
+	 */
+	private final SnapshotBuffer snapshots = new SnapshotBuffer();
+	/**
+	 * Current presentation mode, decides how often frames are rendered.
+	 */
+	private volatile int presentMode = PRESENT_VSYNC;
+	/**
+	 * Maximal fps of the capped presentation mode.
+	 */
+	private volatile int targetFps = DEFAULT_TARGET_FPS;
+	/**
+	 * True if the render thread must draw the next frame even if the
+	 * snapshot did not change, for example after the window was exposed.
+	 */
+	private volatile boolean redraw = true;
+	/**
+	 * Scene of the last published snapshot.
+	 */
+	private Scene publishedScene;
+	/**
+	 * Version of the scene of the last published snapshot.
+	 */
+	private int publishedSceneVersion;
+	/**
+	 * Version of the menu of the last published snapshot.
+	 */
+	private int publishedMenuVersion;
+	/**
+	 * Lines of the metrics overlay, updated once per second. The last lines
+	 * contain the dropped ticks of the game loop and the counters of the
+	 * sound engine.
+	 */
+	private String[] metricsText = new String[FrameMetrics.PHASES + 2];
+	/**
+	 * Scheduler of the game loop, null until the game runs.
+	 */
+	private volatile FixedStepScheduler scheduler;
+	/**
+	 * File into which the input of every started level is recorded, null if
+	 * nothing is recorded.
+	 */
+	private Path recordFile;
+	/**
+	 * Recorder of the input of the current level, null if nothing is
+	 * recorded.
+	 */
+	private InputRecorder recorder;
 
 	/**
 	 * Inits the Game component. Use method start() to start the component.
@@ -174,11 +282,15 @@ public class JumpPkmnComponent extends Canvas implements Runnable, KeyListener,
 	 */
 	public final void drawString(final Graphics g, final String text,
 			final int x, final int y, final int c) {
-		char[] ch = text.toCharArray();
-		for (int i = 0; i < ch.length; i++) {
-			g.drawImage(Art.font[c][ch[i] - CHAR_OFFSET], x + i
-					* Art.font[c][0].getWidth(null), y, null);
-		}
+		Art.drawString(g, text, x, y, c);
+	}
+
+	/**
+	 * Switches to the next presentation mode and saves it in the settings.
+	 */
+	public final void cyclePresentMode() {
+		setPresentMode((presentMode + 1) % PRESENT_MODES);
+		settings.saveSettings(this);
 	}
 
 	@Override
@@ -190,9 +302,27 @@ public class JumpPkmnComponent extends Canvas implements Runnable, KeyListener,
 	public final void focusLost(final FocusEvent e) {
 		focused = false;
 		// Reset all keys if focus lost
-		for (int i = 0; i < Scene.getKeys().length; i++) {
-			Scene.getKeys()[i] = false;
-		}
+		Scene.releaseKeys();
+	}
+
+	/**
+	 * Gets the name of a presentation mode.
+	 * 
+	 * @param mode
+	 *            Presentation mode constant
+	 * @return Name of the presentation mode
+	 */
+	public static String getPresentModeName(final int mode) {
+		return PRESENT_MODE_NAMES[mode];
+	}
+
+	/**
+	 * Gets the current presentation mode.
+	 * 
+	 * @return Presentation mode constant
+	 */
+	public final int getPresentMode() {
+		return presentMode;
 	}
 
 	/**
@@ -227,33 +357,93 @@ public class JumpPkmnComponent extends Canvas implements Runnable, KeyListener,
 	}
 
 	@Override
-	public void paint(final Graphics g) {
+	public final void paint(final Graphics g) {
+		// The window was exposed, the render thread has to show a frame even
+		// if nothing changed
+		redraw = true;
 	}
 
 	/**
-	 * Renders the component on a {@link Graphics} object.
+	 * Gets the maximal fps of the capped presentation mode.
 	 * 
-	 * @param g
-	 *            Graphics object to draw on
-	 * @param alpha
-	 *            1 if all ticks for second are done, 0 if none is done, 0.5 if
-	 *            half etc.
+	 * @return Target fps
+	 */
+	public final int getTargetFps() {
+		return targetFps;
+	}
+
+	/**
+	 * Sets the presentation mode which decides how often frames are rendered.
+	 * 
+	 * @param thatPresentMode
+	 *            One of {@link #PRESENT_UNCAPPED}, {@link #PRESENT_CAPPED} or
+	 *            {@link #PRESENT_VSYNC}
+	 */
+	public final void setPresentMode(final int thatPresentMode) {
+		if (thatPresentMode < 0 || thatPresentMode >= PRESENT_MODES) {
+			throw new IllegalArgumentException("Unknown presentation mode: "
+					+ thatPresentMode);
+		}
+		this.presentMode = thatPresentMode;
+		redraw = true;
+	}
+
+	/**
+	 * Sets the file into which the input of every started level is recorded,
+	 * replacing the recording of the previous level. The recording can be
+	 * replayed headless by the {@link Simulation}. Must be set before start().
+	 * 
+	 * @param thatRecordFile
+	 *            File of the recording or null to record nothing
+	 */
+	public final void setRecordFile(final Path thatRecordFile) {
+		this.recordFile = thatRecordFile;
+	}
+
+	/**
+	 * Sets the maximal fps of the capped presentation mode.
+	 * 
+	 * @param thatTargetFps
+	 *            Target fps, at least 1
 	 */
-	public final void render(final Graphics g, final float alpha) {
-		scene.render(g, alpha);
+	public final void setTargetFps(final int thatTargetFps) {
+		if (thatTargetFps < 1) {
+			throw new IllegalArgumentException("Target fps must be positive: "
+					+ thatTargetFps);
+		}
+		this.targetFps = thatTargetFps;
+	}
+
+	/**
+	 * Toggles the metrics overlay which displays the durations of the game
+	 * loop phases.
+	 */
+	public final void toggleMetrics() {
+		showMetrics = !showMetrics;
+		redraw = true;
+	}
+
+	/**
+	 * Records the scene and the menu into the snapshot of the current tick.
+	 * 
+	 * @param frame
+	 *            Snapshot to record into
+	 */
+	public final void snapshot(final FrameSnapshot frame) {
+		scene.snapshot(frame);
 		if (menu.isVisible()) {
-			menu.render(g, alpha);
+			menu.snapshot(frame);
 		}
 	}
 
 	/**
-	 * Game loop, invoked by the start method.
+	 * Game loop, invoked by the start method. Ticks the scene and publishes a
+	 * snapshot of every tick, the snapshots are drawn by a separate render
+	 * thread.
 	 */
 	@Override
 	public final void run() {
 		createBufferStrategy(2);
-		BufferStrategy bs = getBufferStrategy();
-		Graphics g = bs.getDrawGraphics();
 		gc = getGraphicsConfiguration();
 		// Init all ressources
 		Art.init(gc, sound);
@@ -261,88 +451,80 @@ public class JumpPkmnComponent extends Canvas implements Runnable, KeyListener,
 		settings.loadSettings(this);
 		menu = new Menu(this);
 
-		int lastTick = -1;
-		int renderedFrames = 0;
-		int fps = 0;
-
-		// Current time
-		double time = System.nanoTime() / SECOND_TO_NANO;
-		double now = time;
-		double averagePassedTime = 0;
+		long ticks = 0;
 
 		// Start listening to events
 		addKeyListener(this);
 		addFocusListener(this);
 
-		// Indicates if the processor timing is correct
-		boolean naiveTiming = true;
-
 		toTitle();
 
-		// Game Loop
-		while (running) {
-			double lastTime = time;
-			time = System.nanoTime() / SECOND_TO_NANO;
-			double passedTime = time - lastTime;
-
-			// Time running backwards, this sometimes happens on dual core amds
-			if (passedTime < 0) {
-				naiveTiming = false;
-			}
-			averagePassedTime = averagePassedTime * NINETY_PERCENT + passedTime
-					* TEN_PERCENT;
-			if (naiveTiming) {
-				now = time;
-			} else {
-				// Use the average time if calculating current time isn't safe
-				now += averagePassedTime;
+		scheduler = new FixedStepScheduler(Commons.TICKS_PER_SECOND,
+				MAX_CATCH_UP_TICKS);
+		try {
+			FrameMetrics.registerMBeans();
+			FrameMetrics.registerSchedulerMBean(scheduler);
+			if (sound instanceof SoundEngineMXBean) {
+				FrameMetrics.registerSoundMBean((SoundEngineMXBean) sound);
 			}
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+		updateMetricsText();
 
-			int tick = (int) (now * Commons.TICKS_PER_SECOND);
-			// Starting condition in the first run
-			if (lastTick == -1) {
-				lastTick = tick;
+		Thread renderThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				renderLoop();
 			}
-			// Triggered everytime the tick goes one up
-			while (lastTick < tick) {
+		}, "Render Thread");
+		renderThread.start();
 
+		// Game Loop
+		while (running) {
+			int dueTicks = scheduler.advance(System.nanoTime());
+			for (int i = 0; i < dueTicks; i++) {
+				long start = FrameMetrics.start();
 				tick();
-				lastTick++;
+				FrameMetrics.stop(FrameMetrics.TICK, start);
+				ticks++;
 
 				// Triggered everytime the tick reaches the ticks per second
-				if (lastTick % Commons.TICKS_PER_SECOND == 0) {
-					// Calculate current fps
-					fps = renderedFrames;
-					renderedFrames = 0;
+				if (ticks % Commons.TICKS_PER_SECOND == 0) {
+					FrameMetrics.publish(FrameMetrics.TICK);
+					FrameMetrics.publish(FrameMetrics.SOUND_TICK);
 				}
 			}
 
-			sound.clientTick();
-
-			float alpha = (float) (now * Commons.TICKS_PER_SECOND - tick);
-
-			// First color all white
-			g.setColor(Color.WHITE);
-			g.fillRect(0, 0, Commons.WIDTH, Commons.HEIGHT);
-
-			render(g, alpha);
-
-			// Display current fps
-			g.setColor(Color.BLACK);
-			drawString(g, "FPS: " + fps, FPS_XY, FPS_XY, FONT_WHITE_ROW);
-			drawString(g, "FPS: " + fps, FPS_XY - 1, FPS_XY - 1, FONT_BLACK_ROW);
-
-			bs.show();
+			if (dueTicks > 0) {
+				// Hand the state of the last tick over to the render thread,
+				// unchanged states are not recorded again
+				if (isChanged()) {
+					FrameSnapshot frame = snapshots.getRecording();
+					frame.clear(scheduler.getLastTickTime());
+					snapshot(frame);
+					snapshots.publish();
+				}
 
-			renderedFrames++;
+				long start = FrameMetrics.start();
+				sound.clientTick();
+				FrameMetrics.stop(FrameMetrics.SOUND_TICK, start);
+			}
 
-			// Game loop delay
-			try {
-				Thread.sleep(GAME_LOOP_DELAY);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+			// Wait until the next tick is due
+			long next = scheduler.getNextTickTime();
+			long now = System.nanoTime();
+			while (now < next && running) {
+				LockSupport.parkNanos(next - now);
+				now = System.nanoTime();
 			}
 		}
+		try {
+			renderThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		stopRecording();
 		sound.stopMusic();
 	}
 
@@ -364,6 +546,18 @@ public class JumpPkmnComponent extends Canvas implements Runnable, KeyListener,
 		scene.setSound(sound);
 		physic.setScene(scene);
 		scene.init();
+
+		stopRecording();
+		if (recordFile != null) {
+			try {
+				recorder = new InputRecorder(recordFile,
+						Scene.getKeys().length);
+			} catch (IOException e) {
+				System.out.println("Failed to record the level into "
+						+ recordFile);
+				e.printStackTrace();
+			}
+		}
 	}
 
 	/**
@@ -378,6 +572,8 @@ public class JumpPkmnComponent extends Canvas implements Runnable, KeyListener,
 	 * Logic of the component, will trigger {@link Scene}s tick.
 	 */
 	public final void tick() {
+		// Every part of the tick and the recording see the same keys
+		Scene.pollKeys();
 		if (Scene.getKeys()[Commons.KEY_MENU] && !paused && !inMenu && canMenu) {
 			canMenu = false;
 			openMenu();
@@ -388,6 +584,9 @@ public class JumpPkmnComponent extends Canvas implements Runnable, KeyListener,
 		}
 
 		if (!paused) {
+			if (recorder != null) {
+				recorder.record(Scene.getKeys());
+			}
 			scene.tick();
 		}
 
@@ -400,6 +599,7 @@ public class JumpPkmnComponent extends Canvas implements Runnable, KeyListener,
 	 * Creates the Titlescreen.
 	 */
 	public final void toTitle() {
+		stopRecording();
 		scene = new TitleScene(this);
 		scene.setSound(sound);
 		physic.setScene(scene);
@@ -410,6 +610,198 @@ public class JumpPkmnComponent extends Canvas implements Runnable, KeyListener,
 	public void update(final Graphics g) {
 	}
 
+	/**
+	 * Draws the metrics overlay below the fps.
+	 * 
+	 * @param g
+	 *            Graphics to draw with
+	 */
+	private void drawMetrics(final Graphics g) {
+		for (int i = 0; i < metricsText.length; i++) {
+			int y = METRICS_Y + i * METRICS_LINE_HEIGHT;
+			drawString(g, metricsText[i], FPS_XY, y, FONT_WHITE_ROW);
+			drawString(g, metricsText[i], FPS_XY - 1, y - 1, FONT_BLACK_ROW);
+		}
+	}
+
+	/**
+	 * Gets the interval between the starts of two frames in the current
+	 * presentation mode.
+	 * 
+	 * @param refreshRate
+	 *            Refresh rate of the display in Hz
+	 * @return Interval in nanoseconds, 0 if frames are not limited
+	 */
+	private long getFrameNanos(final int refreshRate) {
+		if (presentMode == PRESENT_CAPPED) {
+			return SECOND_TO_NANO / targetFps;
+		}
+		if (presentMode == PRESENT_VSYNC) {
+			return SECOND_TO_NANO / refreshRate;
+		}
+		return 0;
+	}
+
+	/**
+	 * Gets the refresh rate of the display which shows the component.
+	 * 
+	 * @return Refresh rate in Hz, {@link #DEFAULT_REFRESH_RATE} if the display
+	 *         does not report it
+	 */
+	private int getRefreshRate() {
+		// Ask for the current configuration, the window may have been moved
+		// to another display since the start
+		GraphicsConfiguration config = getGraphicsConfiguration();
+		if (config == null) {
+			return DEFAULT_REFRESH_RATE;
+		}
+		DisplayMode mode = config.getDevice().getDisplayMode();
+		if (mode.getRefreshRate() == DisplayMode.REFRESH_RATE_UNKNOWN) {
+			return DEFAULT_REFRESH_RATE;
+		}
+		return mode.getRefreshRate();
+	}
+
+	/**
+	 * Checks if the scene or the menu changed since the last published
+	 * snapshot and remembers the current state as published.
+	 * 
+	 * @return True if a new snapshot has to be published
+	 */
+	private boolean isChanged() {
+		boolean changed = scene != publishedScene
+				|| scene.getVersion() != publishedSceneVersion
+				|| menu.getVersion() != publishedMenuVersion;
+		publishedScene = scene;
+		publishedSceneVersion = scene.getVersion();
+		publishedMenuVersion = menu.getVersion();
+		return changed;
+	}
+
+	/**
+	 * Render loop, draws the latest snapshot of the game thread. The images
+	 * of the snapshot are interpolated between the previous and the current
+	 * tick by the time which passed since the tick was due. How often frames
+	 * are drawn depends on the presentation mode. Frames which would look
+	 * like the shown one are skipped.
+	 */
+	private void renderLoop() {
+		BufferStrategy bs = getBufferStrategy();
+		Graphics g = bs.getDrawGraphics();
+
+		int renderedFrames = 0;
+		String fpsText = "FPS: 0";
+		int refreshRate = getRefreshRate();
+		long secondStart = System.nanoTime();
+		long frameDeadline = secondStart;
+		// Tick time and alpha of the shown frame
+		long shownTickTime = 0;
+		float shownAlpha = 0;
+
+		while (running) {
+			FrameSnapshot frame = snapshots.take();
+			float alpha = 0;
+			if (frame != null) {
+				long sinceTick = System.nanoTime() - frame.getTickTime();
+				alpha = sinceTick * Commons.TICKS_PER_SECOND
+						/ (float) SECOND_TO_NANO;
+				alpha = Math.max(0, Math.min(1, alpha));
+			}
+			// Skip the frame if the shown one already displays the fully
+			// interpolated snapshot
+			boolean unchanged = frame == null
+					|| (frame.getTickTime() == shownTickTime
+							&& shownAlpha == 1 && !redraw);
+			if (!unchanged) {
+				redraw = false;
+				shownTickTime = frame.getTickTime();
+				shownAlpha = alpha;
+
+				// First color all white
+				g.setColor(Color.WHITE);
+				g.fillRect(0, 0, Commons.WIDTH, Commons.HEIGHT);
+
+				long start = FrameMetrics.start();
+				frame.render(g, alpha);
+				FrameMetrics.stop(FrameMetrics.RENDER, start);
+
+				// Display current fps
+				g.setColor(Color.BLACK);
+				drawString(g, fpsText, FPS_XY, FPS_XY, FONT_WHITE_ROW);
+				drawString(g, fpsText, FPS_XY - 1, FPS_XY - 1,
+						FONT_BLACK_ROW);
+				if (showMetrics) {
+					drawMetrics(g);
+				}
+
+				start = FrameMetrics.start();
+				bs.show();
+				if (presentMode == PRESENT_VSYNC) {
+					// Flush the queued drawing of the window system, so the
+					// frame is not delayed further. This does not wait for
+					// the vertical blank, frames are only paced by the
+					// refresh rate.
+					Toolkit.getDefaultToolkit().sync();
+				}
+				FrameMetrics.stop(FrameMetrics.SHOW, start);
+				if (bs.contentsLost()) {
+					// The frame did not reach the display, draw it again
+					redraw = true;
+				}
+
+				renderedFrames++;
+			}
+
+			// Triggered every second, calculates the current fps
+			long now = System.nanoTime();
+			if (now - secondStart >= SECOND_TO_NANO) {
+				secondStart = now;
+				String lastFpsText = fpsText;
+				fpsText = "FPS: " + renderedFrames + " "
+						+ getPresentModeName(presentMode);
+				if (!fpsText.equals(lastFpsText)) {
+					redraw = true;
+				}
+				renderedFrames = 0;
+				// The window may have been moved to another display
+				refreshRate = getRefreshRate();
+				for (int phase : RENDER_PHASES) {
+					FrameMetrics.publish(phase);
+				}
+				if (showMetrics) {
+					updateMetricsText();
+					redraw = true;
+				}
+			}
+
+			// Wait for the deadline of the next frame, late frames do not
+			// shorten the following ones
+			if (unchanged) {
+				frameDeadline += Math.max(IDLE_NANOS,
+						getFrameNanos(refreshRate));
+			} else {
+				frameDeadline += getFrameNanos(refreshRate);
+			}
+			if (frameDeadline < now) {
+				frameDeadline = now;
+			}
+			while (now < frameDeadline && running) {
+				LockSupport.parkNanos(frameDeadline - now);
+				now = System.nanoTime();
+			}
+		}
+	}
+
+	/**
+	 * Ends the recording of the current level, if any.
+	 */
+	private void stopRecording() {
+		if (recorder != null) {
+			recorder.close();
+			recorder = null;
+		}
+	}
+
 	/**
 	 * Key Controller.
 	 * 
@@ -452,5 +844,37 @@ public class JumpPkmnComponent extends Canvas implements Runnable, KeyListener,
 		if (keyCode == KeyEvent.VK_ENTER) {
 			scene.toggleKey(Commons.KEY_ENTER, isPressed);
 		}
+		if (keyCode == KeyEvent.VK_F3 && !isPressed) {
+			toggleMetrics();
+		}
+		if (keyCode == KeyEvent.VK_F4 && !isPressed) {
+			cyclePresentMode();
+		}
+	}
+
+	/**
+	 * Updates the lines of the metrics overlay with the last published
+	 * durations in microseconds, the dropped ticks of the game loop and the
+	 * counters of the sound engine.
+	 */
+	private void updateMetricsText() {
+		for (int i = 0; i < FrameMetrics.PHASES; i++) {
+			PhaseMetricsMXBean phase = FrameMetrics.getPhase(i);
+			metricsText[i] = FrameMetrics.getName(i) + " p50: "
+					+ phase.getP50Nanos() / NANO_TO_MICRO + "us p99: "
+					+ phase.getP99Nanos() / NANO_TO_MICRO + "us max: "
+					+ phase.getMaxNanos() / NANO_TO_MICRO + "us";
+		}
+		metricsText[FrameMetrics.PHASES] = "dropped ticks: "
+				+ scheduler.getDroppedTicks();
+		if (sound instanceof SoundEngineMXBean) {
+			SoundEngineMXBean soundMetrics = (SoundEngineMXBean) sound;
+			metricsText[FrameMetrics.PHASES + 1] = "audio underruns: "
+					+ soundMetrics.getUnderruns() + " overloads: "
+					+ soundMetrics.getOverloads() + " latency: "
+					+ Math.round(soundMetrics.getLatencyMillis()) + "ms";
+		} else {
+			metricsText[FrameMetrics.PHASES + 1] = "audio off";
+		}
 	}
 }
@@ -8,6 +8,8 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.util.Properties;
 
+import de.zabuza.soundEngine.SoundEngine;
+
 /**
  * Class for the game settings. Filepath is "../settings.properties".
  * 
@@ -35,7 +37,8 @@ public class Settings {
 
 	/**
 	 * Loads settings of the saved file and applies the properties to the game
-	 * settings.
+	 * settings. Every missing or invalid property keeps the current setting
+	 * of the game, the other properties are applied anyway.
 	 * 
 	 * @param comp
 	 *            Component which settings will be affected
@@ -49,18 +52,93 @@ public class Settings {
 				saveSettings(comp);
 				properties.load(new FileInputStream(filepath));
 			}
-
-			float musicVolume = Float.parseFloat((String) properties
-					.get("musicVolume"));
-			float soundVolume = Float.parseFloat((String) properties
-					.get("soundVolume"));
-
-			comp.getSoundEngine().setMusicVolume(musicVolume);
-			comp.getSoundEngine().setSoundVolume(soundVolume);
-		} catch (NullPointerException | IOException e) {
+		} catch (IOException e) {
 			System.out.println("Error while loading settings of : " + filepath);
 			e.printStackTrace();
 		}
+
+		SoundEngine sound = comp.getSoundEngine();
+		float musicVolume = getFloat("musicVolume", sound.getMusicVolume());
+		float soundVolume = getFloat("soundVolume", sound.getSoundVolume());
+		// Older settings files have no software music
+		String softwareMusic = properties.getProperty("softwareMusic");
+		// Older settings files have no presentation mode
+		String presentMode = properties.getProperty("presentMode");
+		int targetFps = getInt("targetFps", comp.getTargetFps());
+
+		if (softwareMusic != null) {
+			sound.setSoftwareMusic(Boolean.parseBoolean(softwareMusic));
+		}
+		if (presentMode != null) {
+			for (int i = 0; i < JumpPkmnComponent.PRESENT_MODES; i++) {
+				if (JumpPkmnComponent.getPresentModeName(i).equals(
+						presentMode)) {
+					comp.setPresentMode(i);
+				}
+			}
+		}
+		if (targetFps >= 1) {
+			comp.setTargetFps(targetFps);
+		} else {
+			printInvalid("targetFps");
+		}
+		sound.setMusicVolume(musicVolume);
+		sound.setSoundVolume(soundVolume);
+	}
+
+	/**
+	 * Gets a float property of the settings.
+	 * 
+	 * @param key
+	 *            Key of the property
+	 * @param defaultValue
+	 *            Value if the property is missing or invalid
+	 * @return Value of the property or the default value
+	 */
+	private float getFloat(final String key, final float defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Float.parseFloat(value);
+		} catch (NumberFormatException e) {
+			printInvalid(key);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Gets an int property of the settings.
+	 * 
+	 * @param key
+	 *            Key of the property
+	 * @param defaultValue
+	 *            Value if the property is missing or invalid
+	 * @return Value of the property or the default value
+	 */
+	private int getInt(final String key, final int defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			printInvalid(key);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Prints that a property of the settings is invalid and is not applied.
+	 * 
+	 * @param key
+	 *            Key of the property
+	 */
+	private void printInvalid(final String key) {
+		System.out.println("Invalid setting " + key + " in : " + filepath
+				+ ", keeping the current one");
 	}
 
 	/**
@@ -75,9 +153,17 @@ public class Settings {
 		try {
 			String musicVolume = "" + comp.getSoundEngine().getMusicVolume();
 			String soundVolume = "" + comp.getSoundEngine().getSoundVolume();
+			String softwareMusic = ""
+					+ comp.getSoundEngine().isSoftwareMusic();
+			String presentMode = JumpPkmnComponent.getPresentModeName(comp
+					.getPresentMode());
+			String targetFps = "" + comp.getTargetFps();
 
 			properties.put("musicVolume", musicVolume);
 			properties.put("soundVolume", soundVolume);
+			properties.put("softwareMusic", softwareMusic);
+			properties.put("presentMode", presentMode);
+			properties.put("targetFps", targetFps);
 
 			// URL url = Settings.class.getResource(filepath);
 			// properties.store(new FileOutputStream(
@@ -0,0 +1,291 @@
+package de.zabuza.jumpPokemon;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import de.zabuza.jumpPokemon.metrics.FrameMetrics;
+import de.zabuza.jumpPokemon.metrics.PhaseMetricsMXBean;
+import de.zabuza.jumpPokemon.render.FrameSnapshot;
+import de.zabuza.jumpPokemon.replay.InputReplay;
+import de.zabuza.jumpPokemon.scenes.LevelScene;
+import de.zabuza.jumpPokemon.scenes.Scene;
+import de.zabuza.physicEngine.PhysicEngine;
+import de.zabuza.soundEngine.FakeSoundEngine;
+import de.zabuza.soundEngine.SoundEngine;
+
+/**
+ * Headless simulation of a {@link LevelScene}. Ticks the scene with a fixed
+ * step of {@link Commons#TICKS_PER_SECOND} as fast as the processor allows,
+ * without needing a display. Rendering and sound are optional. Can be used to
+ * soak-test the game logic and to measure the raw tick throughput. The input
+ * of a recorded level can be replayed, which makes the recorded session a
+ * reproducible workload.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class Simulation {
+
+	/**
+	 * Default amount of simulated minutes if no argument is provided.
+	 */
+	private static final int DEFAULT_MINUTES = 10;
+	/**
+	 * Seconds of a minute.
+	 */
+	private static final int SECONDS_PER_MINUTE = 60;
+	/**
+	 * Converts nanoseconds into seconds if multiplied with.
+	 */
+	private static final double NANO_TO_SECOND = 1 / 1000000000.0;
+
+	/**
+	 * Starts a headless simulation of the level. The first argument is the
+	 * amount of simulated minutes or "replay" followed by a recording of
+	 * {@link JumpPkmnComponent#setRecordFile(java.nio.file.Path)}, which is
+	 * simulated as long as it was recorded. The optional last argument
+	 * "render" enables rendering into an offscreen image.
+	 * 
+	 * @param args
+	 *            Simulated minutes or "replay" and file, optional "render"
+	 * @throws IOException
+	 *             If the recording could not be read
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (System.getProperty("java.awt.headless") == null) {
+			System.setProperty("java.awt.headless", "true");
+		}
+		int minutes = DEFAULT_MINUTES;
+		InputReplay replay = null;
+		int renderArg = 1;
+		if (args.length > 1 && args[0].equals("replay")) {
+			replay = new InputReplay(Paths.get(args[1]));
+			renderArg = 2;
+		} else if (args.length > 0) {
+			minutes = Integer.parseInt(args[0]);
+		}
+
+		Simulation simulation = new Simulation();
+		simulation.setRendering(args.length > renderArg
+				&& args[renderArg].equals("render"));
+		simulation.setReplay(replay);
+		simulation.init();
+
+		long ticks = (long) minutes * SECONDS_PER_MINUTE
+				* Commons.TICKS_PER_SECOND;
+		if (replay != null) {
+			ticks = replay.getLength();
+		}
+		long passedNanos = simulation.run(ticks);
+		double passedSeconds = passedNanos * NANO_TO_SECOND;
+
+		if (replay != null) {
+			System.out.println("Replayed " + args[1] + " (" + ticks
+					+ " ticks) in " + passedSeconds + " seconds.");
+		} else {
+			System.out.println("Simulated " + minutes + " minutes (" + ticks
+					+ " ticks) in " + passedSeconds + " seconds.");
+		}
+		System.out.println("Ticks per second: " + (ticks / passedSeconds));
+		System.out.println("Simulated seconds per second: "
+				+ (ticks / (double) Commons.TICKS_PER_SECOND / passedSeconds));
+
+		// Display the durations of all measured phases
+		FrameMetrics.publish();
+		for (int i = 0; i < FrameMetrics.PHASES; i++) {
+			PhaseMetricsMXBean phase = FrameMetrics.getPhase(i);
+			if (phase.getCount() > 0) {
+				System.out.println(FrameMetrics.getName(i) + " p50: "
+						+ phase.getP50Nanos() + "ns p99: "
+						+ phase.getP99Nanos() + "ns max: "
+						+ phase.getMaxNanos() + "ns");
+			}
+		}
+	}
+
+	/**
+	 * SoundEngine of the simulation.
+	 */
+	private SoundEngine sound;
+	/**
+	 * PhysicEngine of the simulation.
+	 */
+	private PhysicEngine physic;
+	/**
+	 * Simulated scene.
+	 */
+	private Scene scene;
+	/**
+	 * True if the scene should be rendered after every tick.
+	 */
+	private boolean rendering = false;
+	/**
+	 * True if the SoundEngine should be ticked after every tick.
+	 */
+	private boolean soundTicking = false;
+	/**
+	 * Offscreen image where the scene is rendered into, if rendering is
+	 * enabled.
+	 */
+	private BufferedImage image;
+	/**
+	 * Graphics object of the offscreen image.
+	 */
+	private Graphics g;
+	/**
+	 * Snapshot of the scene which is recorded and drawn after every tick, if
+	 * rendering is enabled.
+	 */
+	private final FrameSnapshot frame = new FrameSnapshot();
+	/**
+	 * Amount of all simulated ticks.
+	 */
+	private long ticks;
+	/**
+	 * Replay which sets the keys before every tick, null if the keys are not
+	 * touched.
+	 */
+	private InputReplay replay;
+
+	/**
+	 * Creates a new simulation without sound.
+	 */
+	public Simulation() {
+		this(new FakeSoundEngine());
+	}
+
+	/**
+	 * Creates a new simulation which uses a custom SoundEngine.
+	 * 
+	 * @param thatSound
+	 *            SoundEngine to use
+	 */
+	public Simulation(final SoundEngine thatSound) {
+		this.sound = thatSound;
+		physic = new PhysicEngine();
+	}
+
+	/**
+	 * Gets the amount of all simulated ticks.
+	 * 
+	 * @return Amount of all simulated ticks
+	 */
+	public final long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * Gets the simulated scene.
+	 * 
+	 * @return Simulated scene
+	 */
+	public final Scene getScene() {
+		return scene;
+	}
+
+	/**
+	 * Gets the SoundEngine of the simulation.
+	 * 
+	 * @return SoundEngine of the simulation
+	 */
+	public final SoundEngine getSoundEngine() {
+		return sound;
+	}
+
+	/**
+	 * Loads all ressources headless and creates the simulated
+	 * {@link LevelScene}.
+	 */
+	public final void init() {
+		Art.init(null, sound);
+
+		scene = new LevelScene(null, null, physic);
+		scene.setSound(sound);
+		physic.setScene(scene);
+		scene.init();
+
+		if (rendering) {
+			image = new BufferedImage(Commons.WIDTH, Commons.HEIGHT,
+					BufferedImage.TYPE_INT_RGB);
+			g = image.getGraphics();
+		}
+	}
+
+	/**
+	 * Simulates a given amount of ticks as fast as possible.
+	 * 
+	 * @param amount
+	 *            Amount of ticks to simulate
+	 * @return Passed time in nanoseconds
+	 */
+	public final long run(final long amount) {
+		long start = System.nanoTime();
+		for (long i = 0; i < amount; i++) {
+			tick();
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Sets if the scene should be rendered into an offscreen image after every
+	 * tick. Must be set before init().
+	 * 
+	 * @param thatRendering
+	 *            True if the scene should be rendered
+	 */
+	public final void setRendering(final boolean thatRendering) {
+		this.rendering = thatRendering;
+	}
+
+	/**
+	 * Sets the replay which sets the keys before every tick. The replay must
+	 * be at its start when the scene is created by init().
+	 * 
+	 * @param thatReplay
+	 *            Replay to play or null to leave the keys untouched
+	 */
+	public final void setReplay(final InputReplay thatReplay) {
+		this.replay = thatReplay;
+	}
+
+	/**
+	 * Sets if the SoundEngine should be ticked after every tick.
+	 * 
+	 * @param thatSoundTicking
+	 *            True if the SoundEngine should be ticked
+	 */
+	public final void setSoundTicking(final boolean thatSoundTicking) {
+		this.soundTicking = thatSoundTicking;
+	}
+
+	/**
+	 * Simulates a single tick.
+	 */
+	public final void tick() {
+		if (replay != null) {
+			replay.next(Scene.getKeys());
+		}
+		long start = FrameMetrics.start();
+		scene.tick();
+		FrameMetrics.stop(FrameMetrics.TICK, start);
+		ticks++;
+
+		if (soundTicking) {
+			start = FrameMetrics.start();
+			sound.clientTick();
+			FrameMetrics.stop(FrameMetrics.SOUND_TICK, start);
+		}
+		if (rendering) {
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, Commons.WIDTH, Commons.HEIGHT);
+			start = FrameMetrics.start();
+			frame.clear(System.nanoTime());
+			scene.snapshot(frame);
+			frame.render(g, 1);
+			FrameMetrics.stop(FrameMetrics.RENDER, start);
+		}
+	}
+}
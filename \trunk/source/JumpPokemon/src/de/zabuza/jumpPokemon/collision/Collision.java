@@ -1,5 +1,6 @@
 package de.zabuza.jumpPokemon.collision;
 
+import de.zabuza.jumpPokemon.Commons;
 import de.zabuza.jumpPokemon.level.Level;
 
 public class Collision {
@@ -14,13 +15,214 @@ public class Collision {
 	public static final int BOTTOM = 3;
 	public static final int LEFT = 4;
 	
+	private static final int HEX_FF = 0xFF;
+	
 	public static int spriteCollidesLevel(final Hitbox hitbox,
 										final Level level) {
+		return spriteCollidesLevel(hitbox, level, null);
+	}
+	
+	public static int spriteCollidesLevel(final Hitbox hitbox,
+			final Level level, final TileContact contact) {
+		if (contact != null) {
+			contact.clear();
+		}
+		// Sweep the hitbox from its old to its current coords. Tile rows
+		// grow downwards, so the sweep uses screen coords where u is
+		// Commons.HEIGHT - y and du is -ya.
+		float dx = hitbox.getXA();
+		float du = -hitbox.getYA();
+		if (dx == 0 && du == 0) {
+			return NO_COLLIDE;
+		}
+		float size = Commons.TILE_SIZE;
+		float width = hitbox.getWidth();
+		float height = hitbox.getHeight();
+		float left = hitbox.getX() - dx;
+		float top = Commons.HEIGHT - (hitbox.getY() - hitbox.getYA()) - height;
+		
+		// Walk the tile borders crossed by the leading edges in order of
+		// their crossing time, like a DDA walks the cells of a ray
+		int column = 0;
+		int stepX = 0;
+		float nextX = Float.MAX_VALUE;
+		float deltaX = 0;
+		if (dx > 0) {
+			int border = (int) Math.ceil((left + width) / size);
+			column = border;
+			stepX = 1;
+			nextX = (border * size - (left + width)) / dx;
+			deltaX = size / dx;
+		} else if (dx < 0) {
+			int border = (int) Math.floor(left / size);
+			column = border - 1;
+			stepX = -1;
+			nextX = (border * size - left) / dx;
+			deltaX = -size / dx;
+		}
+		int row = 0;
+		int stepU = 0;
+		float nextU = Float.MAX_VALUE;
+		float deltaU = 0;
+		if (du > 0) {
+			int border = (int) Math.ceil((top + height) / size);
+			row = border;
+			stepU = 1;
+			nextU = (border * size - (top + height)) / du;
+			deltaU = size / du;
+		} else if (du < 0) {
+			int border = (int) Math.floor(top / size);
+			row = border - 1;
+			stepU = -1;
+			nextU = (border * size - top) / du;
+			deltaU = -size / du;
+		}
+		
+		while (nextX <= 1 || nextU <= 1) {
+			if (nextX <= nextU) {
+				// Leading edge enters a new column, only full blocks stop
+				// horizontal movement
+				float t = nextX;
+				int hitRow = findBlocking(level, column, true, top + du * t,
+						height, Level.BIT_BLOCK_ALL);
+				if (hitRow >= 0) {
+					int side;
+					float position;
+					if (stepX > 0) {
+						side = RIGHT;
+						position = column * size - width;
+					} else {
+						side = LEFT;
+						position = (column + 1) * size;
+					}
+					if (contact != null) {
+						contact.set(side, t, column, hitRow, position);
+					}
+					return side;
+				}
+				column += stepX;
+				nextX += deltaX;
+			} else {
+				// Leading edge enters a new row, falling is stopped by the
+				// upper side of a tile and rising by its lower side
+				float t = nextU;
+				int mask = Level.BIT_BLOCK_ALL;
+				if (stepU > 0) {
+					mask |= Level.BIT_BLOCK_UPPER;
+				} else {
+					mask |= Level.BIT_BLOCK_LOWER;
+				}
+				int hitColumn = findBlocking(level, row, false,
+						left + dx * t, width, mask);
+				if (hitColumn >= 0) {
+					int side;
+					float position;
+					if (stepU > 0) {
+						side = BOTTOM;
+						position = Commons.HEIGHT - row * size;
+					} else {
+						side = TOP;
+						position = Commons.HEIGHT - (row + 1) * size - height;
+					}
+					if (contact != null) {
+						contact.set(side, t, hitColumn, row, position);
+					}
+					return side;
+				}
+				row += stepU;
+				nextU += deltaU;
+			}
+		}
 		return NO_COLLIDE;
 	}
 	
+	private static int findBlocking(final Level level, final int line,
+			final boolean isColumn, final float start, final float length,
+			final int mask) {
+		// Search the tiles of a column or row which are overlapped by
+		// the span, touching a tile is no overlap
+		float size = Commons.TILE_SIZE;
+		int lineAmount;
+		int spanAmount;
+		if (isColumn) {
+			lineAmount = level.getWidth();
+			spanAmount = level.getHeight();
+		} else {
+			lineAmount = level.getHeight();
+			spanAmount = level.getWidth();
+		}
+		if (line < 0 || line >= lineAmount) {
+			return -1;
+		}
+		int first = Math.max((int) Math.floor(start / size), 0);
+		int last = Math.min((int) Math.ceil((start + length) / size) - 1,
+				spanAmount - 1);
+		if (first > last) {
+			return -1;
+		}
+		// The span is clipped to the level, so its columns are loaded once
+		// and read without bounds checks
+		if (isColumn) {
+			level.prefetch(line, line);
+		} else {
+			level.prefetch(first, last);
+		}
+		for (int i = first; i <= last; i++) {
+			byte block;
+			if (isColumn) {
+				block = level.getBlockUnchecked(line, i);
+			} else {
+				block = level.getBlockUnchecked(i, line);
+			}
+			if ((Level.getTileBehaviors(block & HEX_FF) & mask) != 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
 	public static int spriteCollideSprite(final Hitbox hitbox1,
 										final Hitbox hitbox2) {
-		return NO_COLLIDE;
+		float overlapX = Math.min(hitbox1.getX() + hitbox1.getWidth(),
+				hitbox2.getX() + hitbox2.getWidth())
+				- Math.max(hitbox1.getX(), hitbox2.getX());
+		float overlapY = Math.min(hitbox1.getY() + hitbox1.getHeight(),
+				hitbox2.getY() + hitbox2.getHeight())
+				- Math.max(hitbox1.getY(), hitbox2.getY());
+		if (overlapX <= 0 || overlapY <= 0) {
+			return NO_COLLIDE;
+		}
+		
+		// The axis with the smaller overlap is the side where
+		// hitbox1 is hit, y grows upwards
+		float centerX1 = hitbox1.getX() + hitbox1.getWidth() / 2f;
+		float centerX2 = hitbox2.getX() + hitbox2.getWidth() / 2f;
+		float centerY1 = hitbox1.getY() + hitbox1.getHeight() / 2f;
+		float centerY2 = hitbox2.getY() + hitbox2.getHeight() / 2f;
+		if (overlapX < overlapY) {
+			if (centerX1 < centerX2) {
+				return RIGHT;
+			}
+			return LEFT;
+		}
+		if (centerY1 < centerY2) {
+			return TOP;
+		}
+		return BOTTOM;
+	}
+	
+	public static int oppositeSide(final int side) {
+		switch (side) {
+		case TOP:
+			return BOTTOM;
+		case RIGHT:
+			return LEFT;
+		case BOTTOM:
+			return TOP;
+		case LEFT:
+			return RIGHT;
+		default:
+			return NO_COLLIDE;
+		}
 	}
 }
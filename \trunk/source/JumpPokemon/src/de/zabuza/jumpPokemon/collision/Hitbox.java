@@ -11,6 +11,10 @@ public interface Hitbox {
 	public float getXA();
 	public float getYA();
 	public int getWidth();
+	public int getHeight();
 	public int getImageWidth();
 	public Image getImage();
+	public int getProxy();
+	public void setProxy(int proxy);
+	public void collide(Hitbox other, int side);
 }
@@ -0,0 +1,22 @@
+package de.zabuza.jumpPokemon.collision;
+
+/**
+ * Interface for PairHandlers. Receives the candidate pairs of a
+ * {@link SpatialGrid} for narrow-phase testing.
+ * 
+ * @author Zabuza
+ * 
+ */
+public interface PairHandler {
+
+	/**
+	 * Handles a pair of hitboxes which share a cell of the grid. Every pair
+	 * is handled only once per search.
+	 * 
+	 * @param hitbox1
+	 *            First hitbox of the pair
+	 * @param hitbox2
+	 *            Second hitbox of the pair
+	 */
+	void handle(Hitbox hitbox1, Hitbox hitbox2);
+}
@@ -0,0 +1,330 @@
+package de.zabuza.jumpPokemon.collision;
+
+import java.util.Arrays;
+
+/**
+ * SpatialGrid class. Broad-phase for collisions between {@link Hitbox}es. The
+ * world is divided into a uniform grid of cells and every hitbox is stored in
+ * all cells it overlaps. Only hitboxes which share a cell are candidates for a
+ * collision, so the costs grow linear with the amount of hitboxes as long as
+ * they are spread over the world. Hitboxes outside of the grid are stored in
+ * its border cells.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class SpatialGrid {
+
+	/**
+	 * Initial amount of proxies.
+	 */
+	private static final int INITIAL_PROXIES = 64;
+	/**
+	 * Initial capacity of a cell.
+	 */
+	private static final int INITIAL_CELL_CAPACITY = 4;
+
+	/**
+	 * Width and height of a cell.
+	 */
+	private final int cellSize;
+	/**
+	 * Amount of cell columns.
+	 */
+	private final int columns;
+	/**
+	 * Amount of cell rows.
+	 */
+	private final int rows;
+	/**
+	 * Proxies stored in every cell, the cell at column, row is at index
+	 * column * rows + row. Cells are created when they are used the first
+	 * time.
+	 */
+	private final int[][] cells;
+	/**
+	 * Amount of proxies stored in every cell.
+	 */
+	private final int[] cellSizes;
+
+	/**
+	 * Hitbox of every proxy, null if the proxy is free.
+	 */
+	private Hitbox[] hitboxes;
+	/**
+	 * Cell range of every proxy.
+	 */
+	private int[] minColumns, minRows, maxColumns, maxRows;
+	/**
+	 * Stamp of the last update of every proxy.
+	 */
+	private long[] stamps;
+	/**
+	 * Stack of free proxies below the proxy limit.
+	 */
+	private int[] freeProxies;
+	/**
+	 * Amount of free proxies on the stack.
+	 */
+	private int freeAmount;
+	/**
+	 * Limit of all used proxies, proxies above are free.
+	 */
+	private int proxyLimit;
+	/**
+	 * Amount of hitboxes in the grid.
+	 */
+	private int size;
+
+	/**
+	 * Creates a new SpatialGrid which covers a custom area.
+	 * 
+	 * @param width
+	 *            Width of the covered area
+	 * @param height
+	 *            Height of the covered area
+	 * @param thatCellSize
+	 *            Width and height of a cell, should be about the size of a
+	 *            hitbox
+	 */
+	public SpatialGrid(final int width, final int height,
+			final int thatCellSize) {
+		this.cellSize = thatCellSize;
+		this.columns = Math.max(width / thatCellSize + 1, 1);
+		this.rows = Math.max(height / thatCellSize + 1, 1);
+		cells = new int[columns * rows][];
+		cellSizes = new int[columns * rows];
+
+		hitboxes = new Hitbox[INITIAL_PROXIES];
+		minColumns = new int[INITIAL_PROXIES];
+		minRows = new int[INITIAL_PROXIES];
+		maxColumns = new int[INITIAL_PROXIES];
+		maxRows = new int[INITIAL_PROXIES];
+		stamps = new long[INITIAL_PROXIES];
+		freeProxies = new int[INITIAL_PROXIES];
+	}
+
+	/**
+	 * Searches all pairs of hitboxes which share a cell. A pair which shares
+	 * more than one cell is only handled in the first shared cell.
+	 * 
+	 * @param handler
+	 *            Handler which receives the pairs
+	 */
+	public final void findPairs(final PairHandler handler) {
+		// Visit only the cells of used proxies, most cells are empty
+		for (int proxy1 = 0; proxy1 < proxyLimit; proxy1++) {
+			if (hitboxes[proxy1] == null) {
+				continue;
+			}
+			for (int column = minColumns[proxy1]; column <= maxColumns[proxy1]; column++) {
+				for (int row = minRows[proxy1]; row <= maxRows[proxy1]; row++) {
+					int cellIndex = column * rows + row;
+					int[] cell = cells[cellIndex];
+					int amount = cellSizes[cellIndex];
+					for (int i = 0; i < amount; i++) {
+						int proxy2 = cell[i];
+						// Each pair is handled by its lower proxy in the
+						// first corner of the intersection of both ranges
+						if (proxy2 > proxy1
+								&& Math.max(minColumns[proxy1],
+										minColumns[proxy2]) == column
+								&& Math.max(minRows[proxy1], minRows[proxy2]) == row) {
+							handler.handle(hitboxes[proxy1], hitboxes[proxy2]);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes a hitbox from the grid.
+	 * 
+	 * @param hitbox
+	 *            Hitbox to remove, does nothing if it is not in the grid
+	 */
+	public final void remove(final Hitbox hitbox) {
+		int proxy = hitbox.getProxy();
+		if (proxy < 0 || proxy >= proxyLimit || hitboxes[proxy] != hitbox) {
+			return;
+		}
+		removeProxy(proxy);
+	}
+
+	/**
+	 * Removes all hitboxes from the grid which were not updated with a custom
+	 * stamp.
+	 * 
+	 * @param stamp
+	 *            Stamp of the last update, e.g. the current tick
+	 */
+	public final void retain(final long stamp) {
+		for (int proxy = 0; proxy < proxyLimit; proxy++) {
+			if (hitboxes[proxy] != null && stamps[proxy] != stamp) {
+				removeProxy(proxy);
+			}
+		}
+	}
+
+	/**
+	 * Gets the amount of hitboxes in the grid.
+	 * 
+	 * @return Amount of hitboxes in the grid
+	 */
+	public final int size() {
+		return size;
+	}
+
+	/**
+	 * Adds a hitbox to the grid or updates its cells if it already is in the
+	 * grid. Cells are only changed if the hitbox moved into other cells. A
+	 * hitbox can only be in one grid at once.
+	 * 
+	 * @param hitbox
+	 *            Hitbox to add or update
+	 * @param stamp
+	 *            Stamp of the update, e.g. the current tick
+	 */
+	public final void update(final Hitbox hitbox, final long stamp) {
+		int minColumn = clamp((int) (hitbox.getX() / cellSize), columns);
+		int minRow = clamp((int) (hitbox.getY() / cellSize), rows);
+		int maxColumn = clamp(
+				(int) ((hitbox.getX() + hitbox.getWidth()) / cellSize), columns);
+		int maxRow = clamp(
+				(int) ((hitbox.getY() + hitbox.getHeight()) / cellSize), rows);
+
+		int proxy = hitbox.getProxy();
+		if (proxy < 0 || proxy >= proxyLimit || hitboxes[proxy] != hitbox) {
+			proxy = allocateProxy();
+			hitboxes[proxy] = hitbox;
+			hitbox.setProxy(proxy);
+			size++;
+			insertProxy(proxy, minColumn, minRow, maxColumn, maxRow);
+		} else if (minColumns[proxy] != minColumn || minRows[proxy] != minRow
+				|| maxColumns[proxy] != maxColumn || maxRows[proxy] != maxRow) {
+			removeFromCells(proxy);
+			insertProxy(proxy, minColumn, minRow, maxColumn, maxRow);
+		}
+		stamps[proxy] = stamp;
+	}
+
+	/**
+	 * Clamps a cell coord into the grid.
+	 * 
+	 * @param value
+	 *            Cell coord to clamp
+	 * @param amount
+	 *            Amount of cells in this dimension
+	 * @return Clamped cell coord
+	 */
+	private static int clamp(final int value, final int amount) {
+		if (value < 0) {
+			return 0;
+		} else if (value >= amount) {
+			return amount - 1;
+		}
+		return value;
+	}
+
+	/**
+	 * Allocates a free proxy, grows the proxy arrays if all are used.
+	 * 
+	 * @return Free proxy
+	 */
+	private int allocateProxy() {
+		if (freeAmount > 0) {
+			freeAmount--;
+			return freeProxies[freeAmount];
+		}
+		if (proxyLimit == hitboxes.length) {
+			int capacity = hitboxes.length * 2;
+			hitboxes = Arrays.copyOf(hitboxes, capacity);
+			minColumns = Arrays.copyOf(minColumns, capacity);
+			minRows = Arrays.copyOf(minRows, capacity);
+			maxColumns = Arrays.copyOf(maxColumns, capacity);
+			maxRows = Arrays.copyOf(maxRows, capacity);
+			stamps = Arrays.copyOf(stamps, capacity);
+			freeProxies = Arrays.copyOf(freeProxies, capacity);
+		}
+		proxyLimit++;
+		return proxyLimit - 1;
+	}
+
+	/**
+	 * Inserts a proxy into all cells of a range.
+	 * 
+	 * @param proxy
+	 *            Proxy to insert
+	 * @param minColumn
+	 *            First column of the range
+	 * @param minRow
+	 *            First row of the range
+	 * @param maxColumn
+	 *            Last column of the range
+	 * @param maxRow
+	 *            Last row of the range
+	 */
+	private void insertProxy(final int proxy, final int minColumn,
+			final int minRow, final int maxColumn, final int maxRow) {
+		minColumns[proxy] = minColumn;
+		minRows[proxy] = minRow;
+		maxColumns[proxy] = maxColumn;
+		maxRows[proxy] = maxRow;
+		for (int column = minColumn; column <= maxColumn; column++) {
+			for (int row = minRow; row <= maxRow; row++) {
+				int cellIndex = column * rows + row;
+				int[] cell = cells[cellIndex];
+				if (cell == null) {
+					cell = new int[INITIAL_CELL_CAPACITY];
+					cells[cellIndex] = cell;
+				} else if (cellSizes[cellIndex] == cell.length) {
+					cell = Arrays.copyOf(cell, cell.length * 2);
+					cells[cellIndex] = cell;
+				}
+				cell[cellSizes[cellIndex]] = proxy;
+				cellSizes[cellIndex]++;
+			}
+		}
+	}
+
+	/**
+	 * Removes a proxy from all cells of its range.
+	 * 
+	 * @param proxy
+	 *            Proxy to remove
+	 */
+	private void removeFromCells(final int proxy) {
+		for (int column = minColumns[proxy]; column <= maxColumns[proxy]; column++) {
+			for (int row = minRows[proxy]; row <= maxRows[proxy]; row++) {
+				int cellIndex = column * rows + row;
+				int[] cell = cells[cellIndex];
+				int amount = cellSizes[cellIndex];
+				for (int i = 0; i < amount; i++) {
+					if (cell[i] == proxy) {
+						// Order in a cell does not matter, fill the gap with
+						// the last proxy
+						cell[i] = cell[amount - 1];
+						cellSizes[cellIndex]--;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes a proxy from the grid and frees it.
+	 * 
+	 * @param proxy
+	 *            Proxy to remove
+	 */
+	private void removeProxy(final int proxy) {
+		removeFromCells(proxy);
+		hitboxes[proxy].setProxy(-1);
+		hitboxes[proxy] = null;
+		freeProxies[freeAmount] = proxy;
+		freeAmount++;
+		size--;
+	}
+}
@@ -0,0 +1,118 @@
+package de.zabuza.jumpPokemon.collision;
+
+/**
+ * TileContact class. Result of a sweep of a {@link Hitbox} through the tiles
+ * of a level, reused for every sweep to stay allocation-free.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class TileContact {
+
+	/**
+	 * Side of the hitbox which hit a tile, a side of {@link Collision}.
+	 */
+	private int side;
+	/**
+	 * Part of the movement which was done before the contact, between 0 and
+	 * 1.
+	 */
+	private float time;
+	/**
+	 * X-coord of the hit tile as tiles.
+	 */
+	private int tileX;
+	/**
+	 * Y-coord of the hit tile as tiles.
+	 */
+	private int tileY;
+	/**
+	 * Coord of the hitbox on the blocked axis where it touches the tile. An
+	 * x-coord for the sides left and right, else an y-coord.
+	 */
+	private float position;
+
+	/**
+	 * Creates a new TileContact without a contact.
+	 */
+	public TileContact() {
+		clear();
+	}
+
+	/**
+	 * Gets the coord of the hitbox on the blocked axis where it touches the
+	 * tile. An x-coord for the sides left and right, else an y-coord.
+	 * 
+	 * @return Coord of the hitbox where it touches the tile
+	 */
+	public final float getPosition() {
+		return position;
+	}
+
+	/**
+	 * Gets the side of the hitbox which hit a tile.
+	 * 
+	 * @return Side of the hitbox, {@link Collision#NO_COLLIDE} if there is no
+	 *         contact
+	 */
+	public final int getSide() {
+		return side;
+	}
+
+	/**
+	 * Gets the x-coord of the hit tile.
+	 * 
+	 * @return X-coord of the hit tile as tiles
+	 */
+	public final int getTileX() {
+		return tileX;
+	}
+
+	/**
+	 * Gets the y-coord of the hit tile.
+	 * 
+	 * @return Y-coord of the hit tile as tiles
+	 */
+	public final int getTileY() {
+		return tileY;
+	}
+
+	/**
+	 * Gets the part of the movement which was done before the contact.
+	 * 
+	 * @return Part of the movement between 0 and 1
+	 */
+	public final float getTime() {
+		return time;
+	}
+
+	/**
+	 * Clears the contact.
+	 */
+	final void clear() {
+		set(Collision.NO_COLLIDE, 1, -1, -1, 0);
+	}
+
+	/**
+	 * Sets the contact.
+	 * 
+	 * @param thatSide
+	 *            Side of the hitbox which hit a tile
+	 * @param thatTime
+	 *            Part of the movement which was done before the contact
+	 * @param thatTileX
+	 *            X-coord of the hit tile as tiles
+	 * @param thatTileY
+	 *            Y-coord of the hit tile as tiles
+	 * @param thatPosition
+	 *            Coord of the hitbox on the blocked axis
+	 */
+	final void set(final int thatSide, final float thatTime,
+			final int thatTileX, final int thatTileY, final float thatPosition) {
+		this.side = thatSide;
+		this.time = thatTime;
+		this.tileX = thatTileX;
+		this.tileY = thatTileY;
+		this.position = thatPosition;
+	}
+}
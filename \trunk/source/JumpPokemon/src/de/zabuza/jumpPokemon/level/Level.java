@@ -3,6 +3,10 @@ package de.zabuza.jumpPokemon.level;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import de.zabuza.jumpPokemon.Art;
 
@@ -107,6 +111,27 @@ public class Level {
 	 * File header of levels stored in the filesystem as .lvl.
 	 */
 	private static final int FILE_HEADER = 0xba11ade9;
+	/**
+	 * File version which stores the level column by column.
+	 */
+	private static final int VERSION_COLUMNS = 0;
+	/**
+	 * File version which stores the level in chunks with a chunk index.
+	 */
+	private static final int VERSION_CHUNKED = 1;
+	/**
+	 * Amount of columns stored in one chunk of a chunked level file.
+	 */
+	public static final int CHUNK_WIDTH = 64;
+	/**
+	 * Alignment of chunks in a chunked level file, a chunk starts at a memory
+	 * page so only pages of used chunks are read from the file.
+	 */
+	private static final int CHUNK_ALIGNMENT = 4096;
+	/**
+	 * Size of the header of a chunked level file without the chunk index.
+	 */
+	private static final int CHUNKED_HEADER_SIZE = 19;
 
 	/**
 	 * Gets the behaviors of a tile at custom index from ressources image.
@@ -121,6 +146,7 @@ public class Level {
 
 	/**
 	 * Loads and returns a new level from a stream, e.g. from the filesystem.
+	 * Supports column and chunked level files.
 	 * 
 	 * @param dis
 	 *            DataInputStream from where the level should be loaded
@@ -133,24 +159,132 @@ public class Level {
 		if (header != Level.FILE_HEADER) {
 			throw new IOException("Bad level header");
 		}
-		// XXX Remove suppress unused, evtl. in it will be used in future
-		// but now the alert icon annoys
-		@SuppressWarnings("unused")
 		int version = dis.read() & HEX_FF;
 
 		int width = dis.readShort() & HEX_FFFF;
 		int height = dis.readShort() & HEX_FFFF;
 		Level level = new Level(width, height);
-		level.map = new byte[width][height];
-		level.data = new byte[width][height];
-		for (int i = 0; i < width; i++) {
-			dis.readFully(level.map[i]);
-			dis.readFully(level.data[i]);
+
+		if (version == VERSION_COLUMNS) {
+			for (int i = 0; i < width; i++) {
+				int chunk = i / CHUNK_WIDTH;
+				int start = (i % CHUNK_WIDTH) * height;
+				dis.readFully(level.mapChunks[chunk], start, height);
+				dis.readFully(level.dataChunks[chunk], start, height);
+			}
+		} else if (version == VERSION_CHUNKED) {
+			int[] chunkOffsets = readChunkIndex(dis, width);
+			long position = CHUNKED_HEADER_SIZE + chunkOffsets.length * 4L;
+			for (int i = 0; i < chunkOffsets.length; i++) {
+				// Chunks are stored in order, skip the alignment padding
+				dis.skipBytes((int) (chunkOffsets[i] - position));
+				int length = level.getChunkColumns(i) * height;
+				dis.readFully(level.mapChunks[i], 0, length);
+				dis.readFully(level.dataChunks[i], 0, length);
+				position = chunkOffsets[i] + 2L * length;
+			}
+		} else {
+			throw new IOException("Unsupported level version " + version);
 		}
 
 		return level;
 	}
 
+	/**
+	 * Maps a level file into memory and returns a new level for it. Chunks of
+	 * chunked level files are copied into the level not before they are used
+	 * and unchanged chunks are dropped again by {@link #retain(int, int)}, so
+	 * only the chunks near the camera are held on the heap. Column level
+	 * files are copied at once.
+	 * 
+	 * @param path
+	 *            Path of the level file
+	 * @return New level object with the files data
+	 * @throws IOException
+	 *             If an IOException occured
+	 */
+	public static Level map(final Path path) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.READ)) {
+			// The mapping stays valid after the channel is closed
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		}
+
+		long header = buffer.getLong();
+		if (header != Level.FILE_HEADER) {
+			throw new IOException("Bad level header");
+		}
+		int version = buffer.get() & HEX_FF;
+
+		int width = buffer.getShort() & HEX_FFFF;
+		int height = buffer.getShort() & HEX_FFFF;
+
+		Level level;
+		if (version == VERSION_COLUMNS) {
+			level = new Level(width, height);
+			for (int i = 0; i < width; i++) {
+				int chunk = i / CHUNK_WIDTH;
+				int start = (i % CHUNK_WIDTH) * height;
+				buffer.get(level.mapChunks[chunk], start, height);
+				buffer.get(level.dataChunks[chunk], start, height);
+			}
+		} else if (version == VERSION_CHUNKED) {
+			int chunkWidth = buffer.getShort() & HEX_FFFF;
+			int chunkAmount = buffer.getInt();
+			if (chunkWidth != CHUNK_WIDTH
+					|| chunkAmount != getChunkAmount(width)) {
+				throw new IOException("Bad level chunk index");
+			}
+			int[] chunkOffsets = new int[chunkAmount];
+			for (int i = 0; i < chunkAmount; i++) {
+				chunkOffsets[i] = buffer.getInt();
+			}
+			level = new Level(width, height, buffer, chunkOffsets);
+		} else {
+			throw new IOException("Unsupported level version " + version);
+		}
+
+		return level;
+	}
+
+	/**
+	 * Gets the amount of chunks of a level with a given width.
+	 * 
+	 * @param width
+	 *            Width of the level
+	 * @return Amount of chunks
+	 */
+	private static int getChunkAmount(final int width) {
+		return (width + CHUNK_WIDTH - 1) / CHUNK_WIDTH;
+	}
+
+	/**
+	 * Reads and validates the chunk index of a chunked level file.
+	 * 
+	 * @param dis
+	 *            DataInputStream which is positioned behind the levels size
+	 * @param width
+	 *            Width of the level
+	 * @return Offsets of all chunks in the file
+	 * @throws IOException
+	 *             If an IOException occured or the index is invalid
+	 */
+	private static int[] readChunkIndex(final DataInputStream dis,
+			final int width) throws IOException {
+		int chunkWidth = dis.readShort() & HEX_FFFF;
+		int chunkAmount = dis.readInt();
+		if (chunkWidth != CHUNK_WIDTH || chunkAmount != getChunkAmount(width)) {
+			throw new IOException("Bad level chunk index");
+		}
+		int[] chunkOffsets = new int[chunkAmount];
+		for (int i = 0; i < chunkAmount; i++) {
+			chunkOffsets[i] = dis.readInt();
+		}
+		return chunkOffsets;
+	}
+
 	/**
 	 * Loads the tile behaviors from a stream, e.g. from the filesystem.
 	 * 
@@ -202,14 +336,32 @@ public class Level {
 	private int height;
 
 	/**
-	 * Array which contains all level tiles as byte[x][y].
+	 * Tiles of all chunks, each chunk contains {@link #CHUNK_WIDTH} columns
+	 * column by column. The tile at x, y is in chunk x / CHUNK_WIDTH at index
+	 * (x % CHUNK_WIDTH) * height + y. Chunks of a mapped level are null until
+	 * they are loaded.
 	 */
-	private byte[][] map;
+	private byte[][] mapChunks;
 
 	/**
-	 * Array which contains the data of all level tiles as byte[x][y].
+	 * Data of the tiles of all chunks, indexed like {@link #mapChunks}.
 	 */
-	private byte[][] data;
+	private byte[][] dataChunks;
+
+	/**
+	 * Mapped level file from where chunks are loaded, null if the level is
+	 * held on the heap completely.
+	 */
+	private ByteBuffer source;
+	/**
+	 * Offsets of all chunks in the mapped level file.
+	 */
+	private int[] chunkOffsets;
+	/**
+	 * True for every loaded chunk which was changed since it was loaded and
+	 * thus must not be dropped.
+	 */
+	private boolean[] chunksChanged;
 
 	/**
 	 * Creates a new level with custom width and height.
@@ -223,12 +375,78 @@ public class Level {
 		this.width = thatWidth;
 		this.height = thatHeight;
 
-		map = new byte[thatWidth][thatHeight];
-		data = new byte[thatWidth][thatHeight];
+		int chunkAmount = getChunkAmount(thatWidth);
+		mapChunks = new byte[chunkAmount][];
+		dataChunks = new byte[chunkAmount][];
+		for (int i = 0; i < chunkAmount; i++) {
+			mapChunks[i] = new byte[getChunkColumns(i) * thatHeight];
+			dataChunks[i] = new byte[getChunkColumns(i) * thatHeight];
+		}
+	}
+
+	/**
+	 * Creates a new level whose chunks are loaded from a mapped level file
+	 * when they are used.
+	 * 
+	 * @param thatWidth
+	 *            Width of the new level
+	 * @param thatHeight
+	 *            Height of the new level
+	 * @param thatSource
+	 *            Mapped level file
+	 * @param thatChunkOffsets
+	 *            Offsets of all chunks in the mapped level file
+	 */
+	private Level(final int thatWidth, final int thatHeight,
+			final ByteBuffer thatSource, final int[] thatChunkOffsets) {
+		this.width = thatWidth;
+		this.height = thatHeight;
+
+		this.source = thatSource;
+		this.chunkOffsets = thatChunkOffsets;
+		mapChunks = new byte[thatChunkOffsets.length][];
+		dataChunks = new byte[thatChunkOffsets.length][];
+		chunksChanged = new boolean[thatChunkOffsets.length];
 	}
 
 	/**
-	 * Gets the tile at custom coordinates.
+	 * Visits all tiles of a rectangle column by column. The rectangle is
+	 * clipped to the level bounds once, tiles outside of the level are not
+	 * visited.
+	 * 
+	 * @param x0
+	 *            Left x-coord of the rectangle as tiles, inclusive
+	 * @param y0
+	 *            Top y-coord of the rectangle as tiles, inclusive
+	 * @param x1
+	 *            Right x-coord of the rectangle as tiles, inclusive
+	 * @param y1
+	 *            Bottom y-coord of the rectangle as tiles, inclusive
+	 * @param visitor
+	 *            Visitor which is called for every tile of the rectangle
+	 */
+	public final void forEachBlock(final int x0, final int y0, final int x1,
+			final int y1, final TileVisitor visitor) {
+		int xStart = Math.max(x0, 0);
+		int yStart = Math.max(y0, 0);
+		int xEnd = Math.min(x1, width - 1);
+		int yEnd = Math.min(y1, height - 1);
+		prefetch(xStart, xEnd);
+		for (int x = xStart; x <= xEnd; x++) {
+			byte[] chunk = mapChunks[x / CHUNK_WIDTH];
+			int column = (x % CHUNK_WIDTH) * height;
+			for (int y = yStart; y <= yEnd; y++) {
+				visitor.visit(x, y, chunk[column + y]);
+			}
+		}
+	}
+
+	/**
+	 * Gets the tile at custom coordinates. Coordinates outside of the level
+	 * are clamped to the level bounds. Loads the chunk of a mapped level
+	 * under its lock, loops over many tiles should clip and
+	 * {@link #prefetch(int, int)} their range once and use
+	 * {@link #getBlockUnchecked(int, int)} instead.
 	 * 
 	 * @param thatX
 	 *            X-coord of the tile
@@ -251,8 +469,103 @@ public class Level {
 		} else if (thatY >= height) {
 			y = height - 1;
 		}
-		
-		return map[x][y];
+		prefetch(x, x);
+
+		return getBlockUnchecked(x, y);
+	}
+
+	/**
+	 * Gets the tile at custom coordinates without checking the level bounds.
+	 * Fast path for loops which clipped their range to the level and
+	 * prefetched it before.
+	 * 
+	 * @param x
+	 *            X-coord of the tile, must be inside of the level
+	 * @param y
+	 *            Y-coord of the tile, must be inside of the level
+	 * @return Tile at custom coordinates
+	 */
+	public final byte getBlockUnchecked(final int x, final int y) {
+		return mapChunks[x / CHUNK_WIDTH][(x % CHUNK_WIDTH) * height + y];
+	}
+
+	/**
+	 * Gets the data of the tile at custom coordinates without checking the
+	 * level bounds.
+	 * 
+	 * @param x
+	 *            X-coord of the tile, must be inside of the level
+	 * @param y
+	 *            Y-coord of the tile, must be inside of the level
+	 * @return Data of the tile at custom coordinates
+	 */
+	public final byte getBlockDataUnchecked(final int x, final int y) {
+		return dataChunks[x / CHUNK_WIDTH][(x % CHUNK_WIDTH) * height + y];
+	}
+
+	/**
+	 * Copies a span of a tile column into an array.
+	 * 
+	 * @param x
+	 *            X-coord of the column
+	 * @param y
+	 *            Top y-coord of the span
+	 * @param dest
+	 *            Array to copy the tiles into
+	 * @param offset
+	 *            Offset in the destination array
+	 * @param length
+	 *            Amount of tiles to copy
+	 */
+	public final void copyColumn(final int x, final int y, final byte[] dest,
+			final int offset, final int length) {
+		prefetch(x, x);
+		System.arraycopy(mapChunks[x / CHUNK_WIDTH], (x % CHUNK_WIDTH)
+				* height + y, dest, offset, length);
+	}
+
+	/**
+	 * Copies a span of a tile row into an array.
+	 * 
+	 * @param x
+	 *            Left x-coord of the span
+	 * @param y
+	 *            Y-coord of the row
+	 * @param dest
+	 *            Array to copy the tiles into
+	 * @param offset
+	 *            Offset in the destination array
+	 * @param length
+	 *            Amount of tiles to copy
+	 */
+	public final void copyRow(final int x, final int y, final byte[] dest,
+			final int offset, final int length) {
+		prefetch(x, x + length - 1);
+		for (int i = 0; i < length; i++) {
+			dest[offset + i] = getBlockUnchecked(x + i, y);
+		}
+	}
+
+	/**
+	 * Overwrites a span of a tile column with the tiles of an array.
+	 * 
+	 * @param x
+	 *            X-coord of the column
+	 * @param y
+	 *            Top y-coord of the span
+	 * @param src
+	 *            Array which contains the tiles
+	 * @param offset
+	 *            Offset in the source array
+	 * @param length
+	 *            Amount of tiles to copy
+	 */
+	public final void setColumn(final int x, final int y, final byte[] src,
+			final int offset, final int length) {
+		prefetch(x, x);
+		markChanged(x);
+		System.arraycopy(src, offset, mapChunks[x / CHUNK_WIDTH],
+				(x % CHUNK_WIDTH) * height + y, length);
 	}
 
 	/**
@@ -299,7 +612,66 @@ public class Level {
 	}
 
 	/**
-	 * Saves the level into a stream, e.g. to the filesystem.
+	 * Copies all chunks which contain columns of a range from the mapped level
+	 * file into the level, if they are not loaded yet. Must be used before
+	 * the unchecked accessors read a range of a mapped level. Loading is
+	 * thread-safe.
+	 * 
+	 * @param x0
+	 *            Left x-coord of the range as tiles, inclusive
+	 * @param x1
+	 *            Right x-coord of the range as tiles, inclusive
+	 */
+	public final void prefetch(final int x0, final int x1) {
+		if (source == null) {
+			return;
+		}
+		synchronized (this) {
+			int firstChunk = Math.max(x0, 0) / CHUNK_WIDTH;
+			int lastChunk = Math.min(x1, width - 1) / CHUNK_WIDTH;
+			for (int i = firstChunk; i <= lastChunk; i++) {
+				if (mapChunks[i] == null) {
+					loadChunk(i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Keeps only the chunks of a range of a mapped level on the heap. Loads
+	 * the chunks of the range and drops all unchanged chunks outside of it,
+	 * they are loaded again from the mapped level file when they are used.
+	 * Changed chunks are never dropped. Must be called by the thread which
+	 * reads the level, because reads of dropped chunks fail.
+	 * 
+	 * @param x0
+	 *            Left x-coord of the range as tiles, inclusive
+	 * @param x1
+	 *            Right x-coord of the range as tiles, inclusive
+	 */
+	public final void retain(final int x0, final int x1) {
+		if (source == null) {
+			return;
+		}
+		synchronized (this) {
+			int firstChunk = Math.max(x0, 0) / CHUNK_WIDTH;
+			int lastChunk = Math.min(x1, width - 1) / CHUNK_WIDTH;
+			for (int i = 0; i < mapChunks.length; i++) {
+				if (i >= firstChunk && i <= lastChunk) {
+					if (mapChunks[i] == null) {
+						loadChunk(i);
+					}
+				} else if (!chunksChanged[i]) {
+					mapChunks[i] = null;
+					dataChunks[i] = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Saves the level into a stream, e.g. to the filesystem. Uses the chunked
+	 * level file version.
 	 * 
 	 * @param dos
 	 *            DataOutputStream to where the level should be saved, e.g. the
@@ -308,15 +680,34 @@ public class Level {
 	 *             If an IOException occured
 	 */
 	public final void save(final DataOutputStream dos) throws IOException {
+		prefetch(0, width - 1);
+		int chunkAmount = getChunkAmount(width);
+
 		dos.writeLong(Level.FILE_HEADER);
-		dos.write((byte) 0);
+		dos.write((byte) VERSION_CHUNKED);
 
 		dos.writeShort((short) width);
 		dos.writeShort((short) height);
+		dos.writeShort((short) CHUNK_WIDTH);
+		dos.writeInt(chunkAmount);
+
+		// Every chunk starts aligned behind its predecessor
+		int[] offsets = new int[chunkAmount];
+		int position = CHUNKED_HEADER_SIZE + chunkAmount * 4;
+		for (int i = 0; i < chunkAmount; i++) {
+			position = align(position);
+			offsets[i] = position;
+			position += 2 * getChunkColumns(i) * height;
+			dos.writeInt(offsets[i]);
+		}
 
-		for (int i = 0; i < width; i++) {
-			dos.write(map[i]);
-			dos.write(data[i]);
+		position = CHUNKED_HEADER_SIZE + chunkAmount * 4;
+		for (int i = 0; i < chunkAmount; i++) {
+			dos.write(new byte[offsets[i] - position]);
+			int length = getChunkColumns(i) * height;
+			dos.write(mapChunks[i], 0, length);
+			dos.write(dataChunks[i], 0, length);
+			position = offsets[i] + 2 * length;
 		}
 	}
 
@@ -343,7 +734,9 @@ public class Level {
 		if (y >= height) {
 			return;
 		}
-		map[x][y] = b;
+		prefetch(x, x);
+		markChanged(x);
+		mapChunks[x / CHUNK_WIDTH][(x % CHUNK_WIDTH) * height + y] = b;
 	}
 
 	/**
@@ -369,6 +762,68 @@ public class Level {
 		if (y >= height) {
 			return;
 		}
-		data[x][y] = b;
+		prefetch(x, x);
+		markChanged(x);
+		dataChunks[x / CHUNK_WIDTH][(x % CHUNK_WIDTH) * height + y] = b;
+	}
+
+	/**
+	 * Aligns a file position to the next chunk alignment.
+	 * 
+	 * @param position
+	 *            Position in the file
+	 * @return Next aligned position
+	 */
+	private static int align(final int position) {
+		return (position + CHUNK_ALIGNMENT - 1) / CHUNK_ALIGNMENT
+				* CHUNK_ALIGNMENT;
+	}
+
+	/**
+	 * Gets the amount of columns of a chunk, the last chunk may be smaller.
+	 * 
+	 * @param chunk
+	 *            Index of the chunk
+	 * @return Amount of columns of the chunk
+	 */
+	private int getChunkColumns(final int chunk) {
+		return Math.min(CHUNK_WIDTH, width - chunk * CHUNK_WIDTH);
+	}
+
+	/**
+	 * Copies a chunk from the mapped level file into the level. Must be called
+	 * while holding the lock of the level.
+	 * 
+	 * @param chunk
+	 *            Index of the chunk
+	 */
+	private void loadChunk(final int chunk) {
+		int length = getChunkColumns(chunk) * height;
+		byte[] chunkMap = new byte[length];
+		byte[] chunkData = new byte[length];
+		ByteBuffer chunkBuffer = source.duplicate();
+		chunkBuffer.position(chunkOffsets[chunk]);
+		chunkBuffer.get(chunkMap);
+		chunkBuffer.get(chunkData);
+
+		// Publish the chunk not before it is filled
+		dataChunks[chunk] = chunkData;
+		mapChunks[chunk] = chunkMap;
+		chunksChanged[chunk] = false;
+	}
+
+	/**
+	 * Marks the chunk of a column as changed, so it is not dropped from a
+	 * mapped level.
+	 * 
+	 * @param x
+	 *            X-coord of the column
+	 */
+	private void markChanged(final int x) {
+		if (source != null) {
+			synchronized (this) {
+				chunksChanged[x / CHUNK_WIDTH] = true;
+			}
+		}
 	}
 }
\ No newline at end of file
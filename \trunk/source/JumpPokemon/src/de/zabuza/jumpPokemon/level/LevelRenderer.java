@@ -6,14 +6,25 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GraphicsConfiguration;
 import java.awt.Image;
-import java.awt.Transparency;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import de.zabuza.jumpPokemon.Art;
 import de.zabuza.jumpPokemon.Camera;
 import de.zabuza.jumpPokemon.Commons;
 
 /**
- * LevelRenderer class. Renders a level. Has camera support.
+ * LevelRenderer class. Renders a level. Has camera support. The level is
+ * pre-rendered in chunks of tiles which are cached until their tiles are
+ * repainted, scrolling only draws the visible chunks.<br/>
+ * <br/>
+ * Rendering is split between two threads. The thread which owns the level
+ * copies the visible chunks into a {@link TileWindow} with
+ * {@link #copyVisible(int, int, TileWindow)} and counts the versions of
+ * repainted chunks. The render thread draws windows with
+ * {@link #render(Graphics, TileWindow)} and owns the chunk cache, it never
+ * reads the level. {@link #render(Graphics, float)} does both on one thread.
  * 
  * @author Zabuza
  * 
@@ -28,6 +39,22 @@ public class LevelRenderer {
 	 * Height of the tile data rects.
 	 */
 	private static final int RECT_HEIGHT = 4;
+	/**
+	 * Width and height of a chunk as tiles.
+	 */
+	public static final int CHUNK_TILES = 8;
+	/**
+	 * Width and height of a chunk in pixel.
+	 */
+	private static final int CHUNK_SIZE = CHUNK_TILES * Commons.TILE_SIZE;
+	/**
+	 * Memory used by the image of one chunk in bytes.
+	 */
+	private static final long CHUNK_BYTES = 4L * CHUNK_SIZE * CHUNK_SIZE;
+	/**
+	 * Default memory budget of the chunk cache in bytes.
+	 */
+	public static final long DEFAULT_CACHE_BUDGET = 16L * 1024 * 1024;
 
 	/**
 	 * X-coord of the camera.
@@ -38,13 +65,45 @@ public class LevelRenderer {
 	 */
 	private int camY;
 	/**
-	 * Image in which all rendering is done.
+	 * Current used Configuration for the chunk images, null if rendering
+	 * headless.
+	 */
+	private GraphicsConfiguration graphicsConfiguration;
+	/**
+	 * Cache of the pre-rendered chunks by their index, ordered from least to
+	 * most recently used. Only accessed by the render thread.
+	 */
+	private Map<Integer, CachedChunk> chunks;
+	/**
+	 * Generation of the level whose chunks are cached.
+	 */
+	private int cachedGeneration;
+	/**
+	 * Maximal amount of chunks in the cache.
+	 */
+	private int maxChunks;
+	/**
+	 * Chunk which was removed from the cache and whose image can be reused
+	 * for the next rendered chunk, null if there is none.
+	 */
+	private CachedChunk spareChunk;
+	/**
+	 * Amount of chunk rows of the level.
+	 */
+	private int chunkRows;
+	/**
+	 * Versions of all chunks of the level, counted up when a chunk is
+	 * repainted. Only accessed by the thread which owns the level.
 	 */
-	private Image image;
+	private int[] chunkVersions;
 	/**
-	 * Graphics object of the rendering image.
+	 * Generation of the level, counted up when another level is set.
 	 */
-	private Graphics2D g;
+	private int generation;
+	/**
+	 * Window of {@link #render(Graphics, float)}.
+	 */
+	private final TileWindow window = new TileWindow();
 	/**
 	 * Transparent color.
 	 */
@@ -75,7 +134,7 @@ public class LevelRenderer {
 	 * @param thatLevel
 	 *            Level to render
 	 * @param graphicsConfiguration
-	 *            Current used Configuration
+	 *            Current used Configuration, null if rendering headless
 	 * @param thatWidth
 	 *            Width of the camera
 	 * @param thatHeight
@@ -87,13 +146,44 @@ public class LevelRenderer {
 		this.width = thatWidth;
 		this.height = thatHeight;
 
-		this.level = thatLevel;
-		image = graphicsConfiguration.createCompatibleImage(thatWidth,
-				thatHeight, Transparency.BITMASK);
-		g = (Graphics2D) image.getGraphics();
-		g.setComposite(AlphaComposite.Src);
+		this.graphicsConfiguration = graphicsConfiguration;
+		this.chunks = new LinkedHashMap<Integer, CachedChunk>(16, 0.75f,
+				true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<Integer, CachedChunk> eldest) {
+				if (size() > maxChunks) {
+					spareChunk = eldest.getValue();
+					return true;
+				}
+				return false;
+			}
+		};
+		setCacheBudget(DEFAULT_CACHE_BUDGET);
+		setLevel(thatLevel);
+	}
 
-		updateArea(0, 0, thatWidth, thatHeight);
+	/**
+	 * Copies the chunks which are visible at a camera position into a window,
+	 * called by the thread which owns the level.
+	 * 
+	 * @param x
+	 *            Left x-coord of the watching area
+	 * @param y
+	 *            Top y-coord of the watching area
+	 * @param thatWindow
+	 *            Window to fill, must not be rendered meanwhile
+	 */
+	public final void copyVisible(final int x, final int y,
+			final TileWindow thatWindow) {
+		thatWindow.set(x, y, generation, renderBehaviors);
+		thatWindow.copy(level, chunkVersions, chunkRows,
+				Math.max(x / CHUNK_SIZE, 0), Math.max(y / CHUNK_SIZE, 0),
+				Math.min((x + width) / CHUNK_SIZE, (level.getWidth() - 1)
+						/ CHUNK_TILES), Math.min((y + height) / CHUNK_SIZE,
+						chunkRows - 1));
 	}
 
 	/**
@@ -106,84 +196,121 @@ public class LevelRenderer {
 	 *            if half etc.
 	 */
 	public final void render(final Graphics thatG, final float alpha) {
-		thatG.drawImage(image, 0, 0, null);
+		copyVisible(camX, camY, window);
+		render(thatG, window);
+	}
+
+	/**
+	 * Renders a window of the level on a {@link Graphics} object, called by
+	 * the render thread.
+	 * 
+	 * @param thatG
+	 *            Graphics object to draw on
+	 * @param thatWindow
+	 *            Window with the visible chunks of the level
+	 */
+	public final void render(final Graphics thatG,
+			final TileWindow thatWindow) {
+		if (thatWindow.getGeneration() != cachedGeneration) {
+			// Another level was set, the cached chunks are outdated
+			clearCache();
+			cachedGeneration = thatWindow.getGeneration();
+		}
+		int xCam = thatWindow.getCamX();
+		int yCam = thatWindow.getCamY();
+		for (int x = 0; x < thatWindow.getChunkColumns(); x++) {
+			for (int y = 0; y < thatWindow.getChunkRows(); y++) {
+				thatG.drawImage(getChunk(thatWindow, x, y),
+						((thatWindow.getXChunkStart() + x) * CHUNK_SIZE)
+								- xCam,
+						((thatWindow.getYChunkStart() + y) * CHUNK_SIZE)
+								- yCam, null);
+			}
+		}
 
-		for (int x = camX / Commons.TILE_SIZE; x <= (camX + width)
-				/ Commons.TILE_SIZE; x++) {
-			for (int y = camY / Commons.TILE_SIZE; y <= (camY + height)
-					/ Commons.TILE_SIZE; y++) {
-				byte b = level.getBlock(x, y);
+		if (!thatWindow.isRenderBehaviors()) {
+			return;
+		}
 
-				if (renderBehaviors) {
-					if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_BLOCK_UPPER) > 0) {
-						thatG.setColor(Color.RED);
-						thatG.fillRect((x * Commons.TILE_SIZE) - camX,
-								(y * Commons.TILE_SIZE) - camY,
-								Commons.TILE_SIZE, RECT_HEIGHT);
-					}
-					if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_BLOCK_ALL) > 0) {
-						thatG.setColor(Color.RED);
-						thatG.fillRect((x * Commons.TILE_SIZE) - camX,
-								(y * Commons.TILE_SIZE) - camY,
-								Commons.TILE_SIZE, RECT_HEIGHT);
-						thatG.fillRect((x * Commons.TILE_SIZE) - camX,
-								(y * Commons.TILE_SIZE) - camY
-										+ Commons.TILE_SIZE - RECT_HEIGHT,
-								Commons.TILE_SIZE, RECT_HEIGHT);
-						thatG.fillRect((x * Commons.TILE_SIZE) - camX,
-								(y * Commons.TILE_SIZE) - camY, RECT_HEIGHT,
-								Commons.TILE_SIZE);
-						thatG.fillRect((x * Commons.TILE_SIZE) - camX
-								+ Commons.TILE_SIZE - RECT_HEIGHT,
-								(y * Commons.TILE_SIZE) - camY, RECT_HEIGHT,
-								Commons.TILE_SIZE);
-					}
-					if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_BLOCK_LOWER) > 0) {
-						thatG.setColor(Color.RED);
-						thatG.fillRect((x * Commons.TILE_SIZE) - camX,
-								(y * Commons.TILE_SIZE) - camY
-										+ Commons.TILE_SIZE - RECT_HEIGHT,
-								Commons.TILE_SIZE, RECT_HEIGHT);
-					}
-					if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_SPECIAL) > 0) {
-						thatG.setColor(Color.PINK);
-						thatG.fillRect((x * Commons.TILE_SIZE) - camX
-								+ RECT_HEIGHT + RECT_HEIGHT + 2,
-								(y * Commons.TILE_SIZE) - camY + RECT_HEIGHT
-										+ (RECT_HEIGHT * 2), RECT_HEIGHT * 2,
-								RECT_HEIGHT * 2);
-					}
-					if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_BUMPABLE) > 0) {
-						thatG.setColor(Color.BLUE);
-						thatG.fillRect((x * Commons.TILE_SIZE) - camX
-								+ RECT_HEIGHT, (y * Commons.TILE_SIZE) - camY
-								+ RECT_HEIGHT, RECT_HEIGHT * 2, RECT_HEIGHT * 2);
-					}
-					if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_BREAKABLE) > 0) {
-						thatG.setColor(Color.GREEN);
-						thatG.fillRect((x * Commons.TILE_SIZE) - camX
-								+ RECT_HEIGHT + (RECT_HEIGHT * 2),
-								(y * Commons.TILE_SIZE) - camY + RECT_HEIGHT,
-								RECT_HEIGHT * 2, RECT_HEIGHT * 2);
-					}
-					if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_PICKUPABLE) > 0) {
-						thatG.setColor(Color.YELLOW);
-						thatG.fillRect((x * Commons.TILE_SIZE) - camX
-								+ RECT_HEIGHT, (y * Commons.TILE_SIZE) - camY
-								+ RECT_HEIGHT + (RECT_HEIGHT * 2),
-								RECT_HEIGHT * 2, RECT_HEIGHT * 2);
-					}
-					if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_ANIMATED) > 0) {
-						return;
-					}
-				}
+		int xTileStart = Math.max(xCam / Commons.TILE_SIZE, 0);
+		int yTileStart = Math.max(yCam / Commons.TILE_SIZE, 0);
+		int xTileEnd = Math.min((xCam + width) / Commons.TILE_SIZE,
+				thatWindow.getXEnd() - 1);
+		int yTileEnd = Math.min((yCam + height) / Commons.TILE_SIZE,
+				thatWindow.getYEnd() - 1);
+		for (int x = xTileStart; x <= xTileEnd; x++) {
+			for (int y = yTileStart; y <= yTileEnd; y++) {
+				byte b = thatWindow.getBlock(x, y);
 
+				if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_BLOCK_UPPER) > 0) {
+					thatG.setColor(Color.RED);
+					thatG.fillRect((x * Commons.TILE_SIZE) - xCam,
+							(y * Commons.TILE_SIZE) - yCam,
+							Commons.TILE_SIZE, RECT_HEIGHT);
+				}
+				if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_BLOCK_ALL) > 0) {
+					thatG.setColor(Color.RED);
+					thatG.fillRect((x * Commons.TILE_SIZE) - xCam,
+							(y * Commons.TILE_SIZE) - yCam,
+							Commons.TILE_SIZE, RECT_HEIGHT);
+					thatG.fillRect((x * Commons.TILE_SIZE) - xCam,
+							(y * Commons.TILE_SIZE) - yCam
+									+ Commons.TILE_SIZE - RECT_HEIGHT,
+							Commons.TILE_SIZE, RECT_HEIGHT);
+					thatG.fillRect((x * Commons.TILE_SIZE) - xCam,
+							(y * Commons.TILE_SIZE) - yCam, RECT_HEIGHT,
+							Commons.TILE_SIZE);
+					thatG.fillRect((x * Commons.TILE_SIZE) - xCam
+							+ Commons.TILE_SIZE - RECT_HEIGHT,
+							(y * Commons.TILE_SIZE) - yCam, RECT_HEIGHT,
+							Commons.TILE_SIZE);
+				}
+				if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_BLOCK_LOWER) > 0) {
+					thatG.setColor(Color.RED);
+					thatG.fillRect((x * Commons.TILE_SIZE) - xCam,
+							(y * Commons.TILE_SIZE) - yCam
+									+ Commons.TILE_SIZE - RECT_HEIGHT,
+							Commons.TILE_SIZE, RECT_HEIGHT);
+				}
+				if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_SPECIAL) > 0) {
+					thatG.setColor(Color.PINK);
+					thatG.fillRect((x * Commons.TILE_SIZE) - xCam
+							+ RECT_HEIGHT + RECT_HEIGHT + 2,
+							(y * Commons.TILE_SIZE) - yCam + RECT_HEIGHT
+									+ (RECT_HEIGHT * 2), RECT_HEIGHT * 2,
+							RECT_HEIGHT * 2);
+				}
+				if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_BUMPABLE) > 0) {
+					thatG.setColor(Color.BLUE);
+					thatG.fillRect((x * Commons.TILE_SIZE) - xCam
+							+ RECT_HEIGHT, (y * Commons.TILE_SIZE) - yCam
+							+ RECT_HEIGHT, RECT_HEIGHT * 2, RECT_HEIGHT * 2);
+				}
+				if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_BREAKABLE) > 0) {
+					thatG.setColor(Color.GREEN);
+					thatG.fillRect((x * Commons.TILE_SIZE) - xCam
+							+ RECT_HEIGHT + (RECT_HEIGHT * 2),
+							(y * Commons.TILE_SIZE) - yCam + RECT_HEIGHT,
+							RECT_HEIGHT * 2, RECT_HEIGHT * 2);
+				}
+				if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_PICKUPABLE) > 0) {
+					thatG.setColor(Color.YELLOW);
+					thatG.fillRect((x * Commons.TILE_SIZE) - xCam
+							+ RECT_HEIGHT, (y * Commons.TILE_SIZE) - yCam
+							+ RECT_HEIGHT + (RECT_HEIGHT * 2),
+							RECT_HEIGHT * 2, RECT_HEIGHT * 2);
+				}
+				if (((Level.getTileBehaviors(b & HEX_FF)) & Level.BIT_ANIMATED) > 0) {
+					return;
+				}
 			}
 		}
 	}
 
 	/**
-	 * Repaints the component.
+	 * Repaints an area of the level. Counts up the versions of all chunks
+	 * which contain tiles of the area, they are rendered again when they are
+	 * visible the next time. Called by the thread which owns the level.
 	 * 
 	 * @param x0
 	 *            Left x-coord of the area as tiles
@@ -196,9 +323,35 @@ public class LevelRenderer {
 	 */
 	public final void repaint(final int x0, final int y0, final int w,
 			final int h) {
-		updateArea(x0 * Commons.TILE_SIZE - camX,
-				y0 * Commons.TILE_SIZE - camY, w * Commons.TILE_SIZE, h
-						* Commons.TILE_SIZE);
+		int xChunkStart = Math.max(x0, 0) / CHUNK_TILES;
+		int yChunkStart = Math.max(y0, 0) / CHUNK_TILES;
+		int xChunkEnd = Math.min(Math.max(x0 + w - 1, 0) / CHUNK_TILES,
+				(level.getWidth() - 1) / CHUNK_TILES);
+		int yChunkEnd = Math.min(Math.max(y0 + h - 1, 0) / CHUNK_TILES,
+				chunkRows - 1);
+		for (int x = xChunkStart; x <= xChunkEnd; x++) {
+			for (int y = yChunkStart; y <= yChunkEnd; y++) {
+				chunkVersions[x * chunkRows + y]++;
+			}
+		}
+	}
+
+	/**
+	 * Sets the memory budget of the chunk cache. The least recently used
+	 * chunks are removed if the cache exceeds the budget, but at least one
+	 * chunk is cached. Called by the render thread.
+	 * 
+	 * @param budget
+	 *            Memory budget in bytes
+	 */
+	public final void setCacheBudget(final long budget) {
+		maxChunks = (int) Math.max(Math.min(budget / CHUNK_BYTES,
+				Integer.MAX_VALUE), 1);
+		Iterator<CachedChunk> iter = chunks.values().iterator();
+		while (chunks.size() > maxChunks && iter.hasNext()) {
+			spareChunk = iter.next();
+			iter.remove();
+		}
 	}
 
 	/**
@@ -208,50 +361,35 @@ public class LevelRenderer {
 	 *            Cameras watching area to render
 	 */
 	public final void setCam(final Camera cam) {
+		setCam(cam.getX(), cam.getY());
+	}
 
-		int xCamD = this.camX - cam.getX();
-		int yCamD = this.camY - cam.getY();
-
-		this.camX = cam.getX();
-		this.camY = cam.getY();
-
-		g.setComposite(AlphaComposite.Src);
-		g.copyArea(0, 0, width, height, xCamD, yCamD);
-
-		if (xCamD < 0) {
-			if (xCamD < -width) {
-				xCamD = -width;
-			}
-			updateArea(width + xCamD, 0, -xCamD, height);
-		} else if (xCamD > 0) {
-			if (xCamD > width) {
-				xCamD = width;
-			}
-			updateArea(0, 0, xCamD, height);
-		}
-
-		if (yCamD < 0) {
-			if (yCamD < -width) {
-				yCamD = -width;
-			}
-			updateArea(0, height + yCamD, width, -yCamD);
-		} else if (yCamD > 0) {
-			if (yCamD > width) {
-				yCamD = width;
-			}
-			updateArea(0, 0, width, yCamD);
-		}
+	/**
+	 * Sets the position of the cameras watching area to render.
+	 * 
+	 * @param x
+	 *            Left x-coord of the watching area
+	 * @param y
+	 *            Top y-coord of the watching area
+	 */
+	public final void setCam(final int x, final int y) {
+		this.camX = x;
+		this.camY = y;
 	}
 
 	/**
-	 * Sets the level to render.
+	 * Sets the level to render. The chunk cache is cleared when the first
+	 * window of the level is rendered.
 	 * 
 	 * @param thatLevel
 	 *            Level to set
 	 */
 	public final void setLevel(final Level thatLevel) {
 		this.level = thatLevel;
-		updateArea(0, 0, width, height);
+		chunkRows = (thatLevel.getHeight() + CHUNK_TILES - 1) / CHUNK_TILES;
+		chunkVersions = new int[((thatLevel.getWidth() + CHUNK_TILES - 1)
+				/ CHUNK_TILES) * chunkRows];
+		generation++;
 	}
 
 	/**
@@ -266,33 +404,111 @@ public class LevelRenderer {
 	}
 
 	/**
-	 * Updates the current displayed area by drawing into the rendering image.
+	 * Removes all chunks from the cache.
+	 */
+	private void clearCache() {
+		Iterator<CachedChunk> iter = chunks.values().iterator();
+		while (iter.hasNext()) {
+			spareChunk = iter.next();
+			iter.remove();
+		}
+	}
+
+	/**
+	 * Gets the image of a chunk of a window from the cache, renders it if it
+	 * is not cached or was repainted.
 	 * 
-	 * @param x0
-	 *            Left x-coord of the area
-	 * @param y0
-	 *            Bottom y-coord of the area
-	 * @param w
-	 *            Width of the area
-	 * @param h
-	 *            Height of the area
+	 * @param thatWindow
+	 *            Window which contains the chunk
+	 * @param x
+	 *            X-coord of the chunk in the window as chunks
+	 * @param y
+	 *            Y-coord of the chunk in the window as chunks
+	 * @return Image of the chunk
 	 */
-	private void updateArea(final int x0, final int y0, final int w, final int h) {
+	private Image getChunk(final TileWindow thatWindow, final int x,
+			final int y) {
+		Integer index = thatWindow.getChunkIndex(x, y);
+		int version = thatWindow.getVersion(x, y);
+		CachedChunk chunk = chunks.get(index);
+		if (chunk == null) {
+			if (spareChunk != null) {
+				chunk = spareChunk;
+				spareChunk = null;
+			} else {
+				chunk = new CachedChunk(Art.createImage(
+						graphicsConfiguration, CHUNK_SIZE, CHUNK_SIZE));
+			}
+			renderChunk(chunk, thatWindow, x, y);
+			chunks.put(index, chunk);
+		} else if (chunk.version != version) {
+			renderChunk(chunk, thatWindow, x, y);
+		}
+		return chunk.image;
+	}
+
+	/**
+	 * Renders the tiles of a chunk of a window into its image.
+	 * 
+	 * @param chunk
+	 *            Cached chunk to render into
+	 * @param thatWindow
+	 *            Window which contains the chunk
+	 * @param xChunk
+	 *            X-coord of the chunk in the window as chunks
+	 * @param yChunk
+	 *            Y-coord of the chunk in the window as chunks
+	 */
+	private void renderChunk(final CachedChunk chunk,
+			final TileWindow thatWindow, final int xChunk, final int yChunk) {
+		chunk.version = thatWindow.getVersion(xChunk, yChunk);
+		Graphics2D g = (Graphics2D) chunk.image.getGraphics();
+		g.setComposite(AlphaComposite.Src);
 		g.setBackground(TRANSPARENT);
-		g.clearRect(x0, y0, w, h);
-		int xTileStart = (x0 + camX) / Commons.TILE_SIZE;
-		int yTileStart = (y0 + camY) / Commons.TILE_SIZE;
-		int xTileEnd = (x0 + camX + w) / Commons.TILE_SIZE;
-		int yTileEnd = (y0 + camY + h) / Commons.TILE_SIZE;
-		for (int x = xTileStart; x <= xTileEnd; x++) {
-			for (int y = yTileStart; y <= yTileEnd; y++) {
-				int b = level.getBlock(x, y) & HEX_FF;
+		g.clearRect(0, 0, CHUNK_SIZE, CHUNK_SIZE);
+		int x0 = (thatWindow.getXChunkStart() + xChunk) * CHUNK_TILES;
+		int y0 = (thatWindow.getYChunkStart() + yChunk) * CHUNK_TILES;
+		// Clip the chunk to the level once, chunks at the border may be cut
+		int xTileEnd = Math.min(x0 + CHUNK_TILES, thatWindow.getXEnd()) - 1;
+		int yTileEnd = Math.min(y0 + CHUNK_TILES, thatWindow.getYEnd()) - 1;
+		for (int x = x0; x <= xTileEnd; x++) {
+			for (int y = y0; y <= yTileEnd; y++) {
+				int b = thatWindow.getBlock(x, y) & HEX_FF;
 				if (((Level.getTileBehaviors(b)) & Level.BIT_ANIMATED) == 0) {
 					g.drawImage(Art.level[b / Art.level.length][b
-							% Art.level[0].length], (x * Commons.TILE_SIZE)
-							- camX, (y * Commons.TILE_SIZE) - camY, null);
+							% Art.level[0].length], (x - x0)
+							* Commons.TILE_SIZE, (y - y0) * Commons.TILE_SIZE,
+							null);
 				}
 			}
 		}
+		g.dispose();
+	}
+
+	/**
+	 * Pre-rendered image of a chunk with the version of the chunk it shows.
+	 * 
+	 * @author Zabuza
+	 * 
+	 */
+	private static class CachedChunk {
+		/**
+		 * Image of the chunk.
+		 */
+		private final Image image;
+		/**
+		 * Version of the chunk which the image shows.
+		 */
+		private int version;
+
+		/**
+		 * Creates a new CachedChunk with an image.
+		 * 
+		 * @param thatImage
+		 *            Image of the chunk
+		 */
+		public CachedChunk(final Image thatImage) {
+			this.image = thatImage;
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package de.zabuza.jumpPokemon.level;
+
+/**
+ * Interface for TileVisitors. Used to iterate over the tiles of a rectangle in
+ * a {@link Level}.
+ * 
+ * @author Zabuza
+ * 
+ */
+public interface TileVisitor {
+
+	/**
+	 * Visits a tile.
+	 * 
+	 * @param x
+	 *            X-coord of the tile
+	 * @param y
+	 *            Y-coord of the tile
+	 * @param block
+	 *            Tile as byte
+	 */
+	void visit(int x, int y, byte block);
+}
@@ -0,0 +1,275 @@
+package de.zabuza.jumpPokemon.level;
+
+/**
+ * TileWindow class. Copy of the tiles of the chunks a {@link LevelRenderer}
+ * shows at a camera position, together with the versions of the chunks. The
+ * game thread fills a window with
+ * {@link LevelRenderer#copyVisible(int, int, TileWindow)}, the render thread
+ * draws it with {@link LevelRenderer#render(java.awt.Graphics, TileWindow)}
+ * and never reads the level itself. A window is reused for later frames.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class TileWindow {
+
+	/**
+	 * Left x-coord of the camera.
+	 */
+	private int camX;
+	/**
+	 * Top y-coord of the camera.
+	 */
+	private int camY;
+	/**
+	 * Left x- and top y-coord of the first chunk as chunks.
+	 */
+	private int xChunkStart, yChunkStart;
+	/**
+	 * Amount of chunk columns and rows of the window.
+	 */
+	private int chunkColumns, chunkRows;
+	/**
+	 * Amount of chunk rows of the whole level, used to number the chunks.
+	 */
+	private int levelChunkRows;
+	/**
+	 * Right x- and bottom y-coord behind the last tile of the window as tiles,
+	 * chunks at the border of the level are cut.
+	 */
+	private int xEnd, yEnd;
+	/**
+	 * Amount of tile rows of the window.
+	 */
+	private int rows;
+	/**
+	 * Tiles of the window column by column.
+	 */
+	private byte[] tiles = new byte[0];
+	/**
+	 * Versions of the chunks column by column.
+	 */
+	private int[] versions = new int[0];
+	/**
+	 * Generation of the level of the renderer when the window was filled.
+	 */
+	private int generation;
+	/**
+	 * True if tiles data should be rendered.
+	 */
+	private boolean renderBehaviors;
+
+	/**
+	 * Copies the tiles and versions of a range of chunks from a level, called
+	 * by the game thread.
+	 * 
+	 * @param level
+	 *            Level to copy from
+	 * @param chunkVersions
+	 *            Versions of all chunks of the level
+	 * @param thatLevelChunkRows
+	 *            Amount of chunk rows of the level
+	 * @param thatXChunkStart
+	 *            Left x-coord of the first chunk as chunks
+	 * @param thatYChunkStart
+	 *            Top y-coord of the first chunk as chunks
+	 * @param xChunkEnd
+	 *            Right x-coord of the last chunk as chunks, inclusive
+	 * @param yChunkEnd
+	 *            Bottom y-coord of the last chunk as chunks, inclusive
+	 */
+	final void copy(final Level level, final int[] chunkVersions,
+			final int thatLevelChunkRows, final int thatXChunkStart,
+			final int thatYChunkStart, final int xChunkEnd,
+			final int yChunkEnd) {
+		this.levelChunkRows = thatLevelChunkRows;
+		this.xChunkStart = thatXChunkStart;
+		this.yChunkStart = thatYChunkStart;
+		this.chunkColumns = Math.max(xChunkEnd - thatXChunkStart + 1, 0);
+		this.chunkRows = Math.max(yChunkEnd - thatYChunkStart + 1, 0);
+		int x0 = thatXChunkStart * LevelRenderer.CHUNK_TILES;
+		int y0 = thatYChunkStart * LevelRenderer.CHUNK_TILES;
+		this.xEnd = Math.max(Math.min((xChunkEnd + 1)
+				* LevelRenderer.CHUNK_TILES, level.getWidth()), x0);
+		this.yEnd = Math.max(Math.min((yChunkEnd + 1)
+				* LevelRenderer.CHUNK_TILES, level.getHeight()), y0);
+		this.rows = yEnd - y0;
+
+		int columns = xEnd - x0;
+		if (tiles.length < columns * rows) {
+			tiles = new byte[columns * rows];
+		}
+		if (columns > 0) {
+			level.prefetch(x0, xEnd - 1);
+		}
+		for (int x = 0; x < columns; x++) {
+			for (int y = 0; y < rows; y++) {
+				tiles[x * rows + y] = level.getBlockUnchecked(x0 + x, y0 + y);
+			}
+		}
+
+		if (versions.length < chunkColumns * chunkRows) {
+			versions = new int[chunkColumns * chunkRows];
+		}
+		for (int x = 0; x < chunkColumns; x++) {
+			for (int y = 0; y < chunkRows; y++) {
+				versions[x * chunkRows + y] = chunkVersions[getChunkIndex(x,
+						y)];
+			}
+		}
+	}
+
+	/**
+	 * Gets a tile of the window.
+	 * 
+	 * @param x
+	 *            X-coord of the tile in the level, must be inside of the
+	 *            window
+	 * @param y
+	 *            Y-coord of the tile in the level, must be inside of the
+	 *            window
+	 * @return Tile as byte
+	 */
+	final byte getBlock(final int x, final int y) {
+		return tiles[(x - xChunkStart * LevelRenderer.CHUNK_TILES) * rows + y
+				- yChunkStart * LevelRenderer.CHUNK_TILES];
+	}
+
+	/**
+	 * Gets the left x-coord of the camera.
+	 * 
+	 * @return Left x-coord of the camera
+	 */
+	final int getCamX() {
+		return camX;
+	}
+
+	/**
+	 * Gets the top y-coord of the camera.
+	 * 
+	 * @return Top y-coord of the camera
+	 */
+	final int getCamY() {
+		return camY;
+	}
+
+	/**
+	 * Gets the amount of chunk columns of the window.
+	 * 
+	 * @return Amount of chunk columns
+	 */
+	final int getChunkColumns() {
+		return chunkColumns;
+	}
+
+	/**
+	 * Gets the amount of chunk rows of the window.
+	 * 
+	 * @return Amount of chunk rows
+	 */
+	final int getChunkRows() {
+		return chunkRows;
+	}
+
+	/**
+	 * Gets the generation of the level of the renderer when the window was
+	 * filled.
+	 * 
+	 * @return Generation of the level
+	 */
+	final int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Gets the index of a chunk in the whole level.
+	 * 
+	 * @param x
+	 *            X-coord of the chunk in the window as chunks
+	 * @param y
+	 *            Y-coord of the chunk in the window as chunks
+	 * @return Index of the chunk
+	 */
+	final int getChunkIndex(final int x, final int y) {
+		return (xChunkStart + x) * levelChunkRows + yChunkStart + y;
+	}
+
+	/**
+	 * Gets the version of a chunk of the window.
+	 * 
+	 * @param x
+	 *            X-coord of the chunk in the window as chunks
+	 * @param y
+	 *            Y-coord of the chunk in the window as chunks
+	 * @return Version of the chunk
+	 */
+	final int getVersion(final int x, final int y) {
+		return versions[x * chunkRows + y];
+	}
+
+	/**
+	 * Gets the left x-coord of the first chunk as chunks.
+	 * 
+	 * @return Left x-coord of the first chunk
+	 */
+	final int getXChunkStart() {
+		return xChunkStart;
+	}
+
+	/**
+	 * Gets the right x-coord behind the last tile of the window.
+	 * 
+	 * @return Right x-coord as tiles, exclusive
+	 */
+	final int getXEnd() {
+		return xEnd;
+	}
+
+	/**
+	 * Gets the top y-coord of the first chunk as chunks.
+	 * 
+	 * @return Top y-coord of the first chunk
+	 */
+	final int getYChunkStart() {
+		return yChunkStart;
+	}
+
+	/**
+	 * Gets the bottom y-coord behind the last tile of the window.
+	 * 
+	 * @return Bottom y-coord as tiles, exclusive
+	 */
+	final int getYEnd() {
+		return yEnd;
+	}
+
+	/**
+	 * Gets if tiles data should be rendered.
+	 * 
+	 * @return True if tiles data should be rendered
+	 */
+	final boolean isRenderBehaviors() {
+		return renderBehaviors;
+	}
+
+	/**
+	 * Sets the camera position, the generation of the level and if tiles data
+	 * should be rendered, called by the game thread.
+	 * 
+	 * @param thatCamX
+	 *            Left x-coord of the camera
+	 * @param thatCamY
+	 *            Top y-coord of the camera
+	 * @param thatGeneration
+	 *            Generation of the level of the renderer
+	 * @param thatRenderBehaviors
+	 *            True if tiles data should be rendered
+	 */
+	final void set(final int thatCamX, final int thatCamY,
+			final int thatGeneration, final boolean thatRenderBehaviors) {
+		this.camX = thatCamX;
+		this.camY = thatCamY;
+		this.generation = thatGeneration;
+		this.renderBehaviors = thatRenderBehaviors;
+	}
+}
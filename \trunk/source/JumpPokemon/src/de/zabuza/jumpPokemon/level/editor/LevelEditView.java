@@ -96,6 +96,8 @@ public class LevelEditView extends JComponent implements MouseListener,
 				level.getWidth() * Commons.TILE_SIZE, level.getHeight()
 						* Commons.TILE_SIZE);
 		levelRenderer.setRenderBehaviors(true);
+		// The whole level is visible, so keep all of its chunks cached
+		levelRenderer.setCacheBudget(Long.MAX_VALUE);
 	}
 
 	/**
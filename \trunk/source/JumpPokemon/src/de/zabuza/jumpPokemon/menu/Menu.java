@@ -1,10 +1,10 @@
 package de.zabuza.jumpPokemon.menu;
 
 import java.awt.Color;
-import java.awt.Graphics;
 
 import de.zabuza.jumpPokemon.Commons;
 import de.zabuza.jumpPokemon.JumpPkmnComponent;
+import de.zabuza.jumpPokemon.render.FrameSnapshot;
 import de.zabuza.jumpPokemon.scenes.Scene;
 
 //TODO Checkstyle vorerst bersprungen da sowieso nur Provisorium und nicht Endlsung.
@@ -39,6 +39,7 @@ public class Menu {
 	private boolean canUp = true;
 	private boolean canEnter = true;
 	private boolean canMenu = true;
+	private int version;
 
 	public boolean visible;
 
@@ -54,6 +55,16 @@ public class Menu {
 		y = (Commons.HEIGHT / 2) - (height / 2);
 	}
 
+	/**
+	 * Gets the version of the visible state, changes whenever the menu looks
+	 * different
+	 * 
+	 * @return Version of the visible state
+	 */
+	public int getVersion() {
+		return version;
+	}
+
 	/**
 	 * Gets the visibility of the menu
 	 * 
@@ -64,31 +75,26 @@ public class Menu {
 	}
 
 	/**
-	 * Renders the menu on a {@link Graphics} object
+	 * Records the menu into the snapshot of the current tick
 	 * 
-	 * @param g
-	 *            Graphics object to draw on
-	 * @param alpha
-	 *            1 if all ticks for second are done, 0 if none is done, 0.5 if
-	 *            half etc.
+	 * @param frame
+	 *            Snapshot to record into
 	 */
-	public void render(Graphics g, float alpha) {
-		g.setColor(Color.BLACK);
-		g.fillRect(x, y, width, height);
-		comp.drawString(g, "CurOption : " + curOption, x + 5, y + 5, 7);
-		comp.drawString(g, "CurLayer : " + curLayer, x + 5, y + 30, 7);
+	public void snapshot(FrameSnapshot frame) {
+		frame.fillRect(Color.BLACK, x, y, width, height);
+		frame.drawString("CurOption : " + curOption, x + 5, y + 5, 7);
+		frame.drawString("CurLayer : " + curLayer, x + 5, y + 30, 7);
 
 		// Draw sound and music volume
-		g.setColor(Color.WHITE);
-		g.drawRect(x + 19, y + 99, 202, 42);
-		g.drawRect(x + 19, y + 179, 202, 42);
-		g.setColor(Color.GREEN.darker().darker());
-		g.fillRect(x + 20, y + 100, (int) (comp.getSoundEngine()
-				.getMusicVolume() * 200), 40);
-		g.fillRect(x + 20, y + 180, (int) (comp.getSoundEngine()
-				.getSoundVolume() * 200), 40);
-		comp.drawString(g, "MusicVolume", x + 80, y + 115, 7);
-		comp.drawString(g, "SoundVolume", x + 80, y + 195, 7);
+		frame.drawRect(Color.WHITE, x + 19, y + 99, 202, 42);
+		frame.drawRect(Color.WHITE, x + 19, y + 179, 202, 42);
+		Color volumeColor = Color.GREEN.darker().darker();
+		frame.fillRect(volumeColor, x + 20, y + 100, (int) (comp
+				.getSoundEngine().getMusicVolume() * 200), 40);
+		frame.fillRect(volumeColor, x + 20, y + 180, (int) (comp
+				.getSoundEngine().getSoundVolume() * 200), 40);
+		frame.drawString("MusicVolume", x + 80, y + 115, 7);
+		frame.drawString("SoundVolume", x + 80, y + 195, 7);
 	}
 
 	/**
@@ -99,6 +105,7 @@ public class Menu {
 	 */
 	public void setVisible(boolean visible) {
 		this.visible = visible;
+		version++;
 	}
 
 	/**
@@ -115,13 +122,14 @@ public class Menu {
 				if (curOption < 0) {
 					curOption = OPTION_VOLUME;
 				}
+				version++;
 			} else if (Scene.getKeys()[Commons.KEY_UP] && canUp) {
 				canUp = false;
 				curOption++;
 				if (curOption > OPTION_VOLUME) {
 					curOption = OPTION_BACK;
 				}
-
+				version++;
 			} else if (Scene.getKeys()[Commons.KEY_ENTER] && canEnter) {
 				canEnter = false;
 				if (curLayer == LAYER_MENU && curOption == OPTION_BACK) {
@@ -129,6 +137,7 @@ public class Menu {
 					comp.closeMenu();
 				} else {
 					curLayer = curOption;
+					version++;
 				}
 			} else if (Scene.getKeys()[Commons.KEY_MENU] && canMenu) {
 				canMenu = false;
@@ -137,6 +146,7 @@ public class Menu {
 					comp.closeMenu();
 				} else {
 					curLayer--;
+					version++;
 				}
 			}
 
@@ -159,11 +169,13 @@ public class Menu {
 						comp.getSoundEngine().getMusicVolume() + 0.01f);
 				comp.getSoundEngine().setSoundVolume(
 						comp.getSoundEngine().getSoundVolume() + 0.01f);
+				version++;
 			} else if (Scene.getKeys()[Commons.KEY_LEFT]) {
 				comp.getSoundEngine().setMusicVolume(
 						comp.getSoundEngine().getMusicVolume() - 0.01f);
 				comp.getSoundEngine().setSoundVolume(
 						comp.getSoundEngine().getSoundVolume() - 0.01f);
+				version++;
 			}
 		}
 	}
@@ -0,0 +1,210 @@
+package de.zabuza.jumpPokemon.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import de.zabuza.jumpPokemon.FixedStepSchedulerMXBean;
+import de.zabuza.soundEngine.SoundEngineMXBean;
+
+/**
+ * FrameMetrics class. Registry for the durations of the phases of the game
+ * loop. A phase is measured by {@link #start()} and {@link #stop(int, long)},
+ * the durations are collected in a {@link LatencyHistogram} per phase until
+ * {@link #publish()} completes the interval. The published values can be read
+ * with {@link #getPhase(int)} or via JMX once {@link #registerMBeans()} was
+ * called. Each phase must be measured and published by a single thread, the
+ * ticks are measured by the game thread and the drawing by the render thread.
+ * 
+ * @author Zabuza
+ * 
+ */
+public abstract class FrameMetrics {
+
+	/**
+	 * Phase of a single tick of the scene.
+	 */
+	public static final int TICK = 0;
+	/**
+	 * Phase of rendering the scene and the menu.
+	 */
+	public static final int RENDER = 1;
+	/**
+	 * Phase of positioning and rendering the level layer, part of
+	 * {@link #RENDER}.
+	 */
+	public static final int LEVEL_RENDER = 2;
+	/**
+	 * Phase of rendering all sprites, part of {@link #RENDER}.
+	 */
+	public static final int SPRITE_RENDER = 3;
+	/**
+	 * Phase of showing the rendered buffer.
+	 */
+	public static final int SHOW = 4;
+	/**
+	 * Phase of the sound engines client tick.
+	 */
+	public static final int SOUND_TICK = 5;
+	/**
+	 * Amount of phases.
+	 */
+	public static final int PHASES = 6;
+	/**
+	 * Domain and type of the registered MBeans.
+	 */
+	private static final String MBEAN_PREFIX = "de.zabuza.jumpPokemon:type=FrameMetrics,name=";
+	/**
+	 * Name of the registered sound engine MBean.
+	 */
+	private static final String SOUND_MBEAN_NAME = "de.zabuza.jumpPokemon:type=SoundEngine";
+	/**
+	 * Name of the registered scheduler MBean.
+	 */
+	private static final String SCHEDULER_MBEAN_NAME = "de.zabuza.jumpPokemon:type=FixedStepScheduler";
+
+	/**
+	 * Names of all phases.
+	 */
+	private static final String[] NAMES = { "tick", "render", "level",
+			"sprites", "show", "sound" };
+	/**
+	 * Histograms of the current interval for all phases.
+	 */
+	private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[PHASES];
+	/**
+	 * Published values of the last interval for all phases.
+	 */
+	private static final PhaseMetrics[] PHASE_METRICS = new PhaseMetrics[PHASES];
+
+	static {
+		for (int i = 0; i < PHASES; i++) {
+			HISTOGRAMS[i] = new LatencyHistogram();
+			PHASE_METRICS[i] = new PhaseMetrics();
+		}
+	}
+
+	/**
+	 * Gets the name of a phase.
+	 * 
+	 * @param phase
+	 *            Phase constant
+	 * @return Name of the phase
+	 */
+	public static String getName(final int phase) {
+		return NAMES[phase];
+	}
+
+	/**
+	 * Gets the published values of a phase.
+	 * 
+	 * @param phase
+	 *            Phase constant
+	 * @return Values of the last completed interval
+	 */
+	public static PhaseMetricsMXBean getPhase(final int phase) {
+		return PHASE_METRICS[phase];
+	}
+
+	/**
+	 * Completes the current interval. The durations of all phases get
+	 * published and the histograms start empty again.
+	 */
+	public static void publish() {
+		for (int i = 0; i < PHASES; i++) {
+			publish(i);
+		}
+	}
+
+	/**
+	 * Completes the current interval of a single phase. Must be called by the
+	 * thread which measures the phase.
+	 * 
+	 * @param phase
+	 *            Phase constant
+	 */
+	public static void publish(final int phase) {
+		PHASE_METRICS[phase].publish(HISTOGRAMS[phase]);
+		HISTOGRAMS[phase].reset();
+	}
+
+	/**
+	 * Registers the values of all phases at the platform MBean server. Does
+	 * nothing for phases which are already registered.
+	 * 
+	 * @throws JMException
+	 *             If the registration failed
+	 */
+	public static void registerMBeans() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for (int i = 0; i < PHASES; i++) {
+			ObjectName name = new ObjectName(MBEAN_PREFIX + NAMES[i]);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(PHASE_METRICS[i], name);
+			}
+		}
+	}
+
+	/**
+	 * Registers the dropped ticks counter of the scheduler of the game loop
+	 * at the platform MBean server, next to the phases. Replaces a previously
+	 * registered scheduler.
+	 * 
+	 * @param scheduler
+	 *            Scheduler to register
+	 * @throws JMException
+	 *             If the registration failed
+	 */
+	public static void registerSchedulerMBean(
+			final FixedStepSchedulerMXBean scheduler) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(SCHEDULER_MBEAN_NAME);
+		if (server.isRegistered(name)) {
+			server.unregisterMBean(name);
+		}
+		server.registerMBean(scheduler, name);
+	}
+
+	/**
+	 * Registers the underrun and overload counters of a sound engine at the
+	 * platform MBean server, next to the phases. Replaces a previously
+	 * registered sound engine.
+	 * 
+	 * @param soundEngine
+	 *            Sound engine to register
+	 * @throws JMException
+	 *             If the registration failed
+	 */
+	public static void registerSoundMBean(final SoundEngineMXBean soundEngine)
+			throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(SOUND_MBEAN_NAME);
+		if (server.isRegistered(name)) {
+			server.unregisterMBean(name);
+		}
+		server.registerMBean(soundEngine, name);
+	}
+
+	/**
+	 * Starts measuring a phase.
+	 * 
+	 * @return Start time which must be passed to {@link #stop(int, long)}
+	 */
+	public static long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Stops measuring a phase and records its duration.
+	 * 
+	 * @param phase
+	 *            Phase constant
+	 * @param start
+	 *            Start time returned by {@link #start()}
+	 */
+	public static void stop(final int phase, final long start) {
+		HISTOGRAMS[phase].record(System.nanoTime() - start);
+	}
+}
@@ -0,0 +1,162 @@
+package de.zabuza.jumpPokemon.metrics;
+
+import java.util.Arrays;
+
+/**
+ * LatencyHistogram class. Records durations in nanoseconds into buckets with a
+ * bounded relative error, similar to a HDR histogram. Values below
+ * {@link #SUB_BUCKETS} have an own bucket, every higher power of two is split
+ * into {@link #SUB_BUCKETS} / 2 linear buckets. So the error of a percentile
+ * is at most 1/64 of its value while recording is a constant time operation
+ * which does not allocate.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Amount of bits which are resolved linear.
+	 */
+	private static final int SUB_BUCKET_BITS = 7;
+	/**
+	 * Amount of buckets for values below the first power of two which is
+	 * split.
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/**
+	 * Amount of buckets for every higher power of two.
+	 */
+	private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+	/**
+	 * Maximal amount of bits values are shifted, covers durations up to about
+	 * two minutes. Higher values are counted in the last bucket.
+	 */
+	private static final int MAX_SHIFT = 30;
+	/**
+	 * Amount of bits of a long.
+	 */
+	private static final int LONG_BITS = 64;
+	/**
+	 * Converts percent into a fraction if multiplied with.
+	 */
+	private static final double PERCENT_TO_FRACTION = 0.01;
+
+	/**
+	 * Amount of recorded values in every bucket.
+	 */
+	private final long[] counts = new long[SUB_BUCKETS + MAX_SHIFT
+			* HALF_SUB_BUCKETS];
+	/**
+	 * Amount of all recorded values.
+	 */
+	private long count;
+	/**
+	 * Highest recorded value.
+	 */
+	private long max;
+
+	/**
+	 * Gets the amount of recorded values.
+	 * 
+	 * @return Amount of recorded values
+	 */
+	public final long getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the highest recorded value.
+	 * 
+	 * @return Highest recorded value, 0 if nothing was recorded
+	 */
+	public final long getMax() {
+		return max;
+	}
+
+	/**
+	 * Gets the value below which a given percentage of all recorded values
+	 * lies. The result is the highest value of the matching bucket but never
+	 * above the highest recorded value.
+	 * 
+	 * @param percentile
+	 *            Percentage between 0 and 100
+	 * @return Value at the percentile, 0 if nothing was recorded
+	 */
+	public final long getValueAtPercentile(final double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(percentile * PERCENT_TO_FRACTION * count);
+		rank = Math.max(1, Math.min(count, rank));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(max, highestValueOf(i));
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Records a value.
+	 * 
+	 * @param value
+	 *            Value to record, negative values are recorded as 0
+	 */
+	public final void record(final long value) {
+		long v = Math.max(0, value);
+		counts[indexOf(v)]++;
+		count++;
+		if (v > max) {
+			max = v;
+		}
+	}
+
+	/**
+	 * Removes all recorded values.
+	 */
+	public final void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		max = 0;
+	}
+
+	/**
+	 * Gets the highest value which is counted in a bucket.
+	 * 
+	 * @param index
+	 *            Index of the bucket
+	 * @return Highest value of the bucket
+	 */
+	private long highestValueOf(final int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+		long mantissa = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS
+				+ HALF_SUB_BUCKETS;
+		return ((mantissa + 1) << shift) - 1;
+	}
+
+	/**
+	 * Gets the index of the bucket which counts a value.
+	 * 
+	 * @param value
+	 *            Not negative value
+	 * @return Index of the bucket
+	 */
+	private int indexOf(final long value) {
+		int shift = LONG_BITS - Long.numberOfLeadingZeros(value)
+				- SUB_BUCKET_BITS;
+		if (shift <= 0) {
+			return (int) value;
+		}
+		if (shift > MAX_SHIFT) {
+			return counts.length - 1;
+		}
+		return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS
+				+ (int) (value >>> shift) - HALF_SUB_BUCKETS;
+	}
+}
@@ -0,0 +1,71 @@
+package de.zabuza.jumpPokemon.metrics;
+
+/**
+ * PhaseMetrics class. Holds the published durations of one phase of the game
+ * loop. The values are written by the game thread and may be read by any
+ * thread.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class PhaseMetrics implements PhaseMetricsMXBean {
+
+	/**
+	 * Percentile of the median.
+	 */
+	private static final double P50 = 50;
+	/**
+	 * Percentile of the 99th percentile.
+	 */
+	private static final double P99 = 99;
+
+	/**
+	 * Amount of measurements.
+	 */
+	private volatile long count;
+	/**
+	 * Longest duration in nanoseconds.
+	 */
+	private volatile long maxNanos;
+	/**
+	 * Median in nanoseconds.
+	 */
+	private volatile long p50Nanos;
+	/**
+	 * 99th percentile in nanoseconds.
+	 */
+	private volatile long p99Nanos;
+
+	@Override
+	public final long getCount() {
+		return count;
+	}
+
+	@Override
+	public final long getMaxNanos() {
+		return maxNanos;
+	}
+
+	@Override
+	public final long getP50Nanos() {
+		return p50Nanos;
+	}
+
+	@Override
+	public final long getP99Nanos() {
+		return p99Nanos;
+	}
+
+	/**
+	 * Takes over the values of a histogram.
+	 * 
+	 * @param histogram
+	 *            Histogram of the completed interval
+	 */
+	final void publish(final LatencyHistogram histogram) {
+		p50Nanos = histogram.getValueAtPercentile(P50);
+		p99Nanos = histogram.getValueAtPercentile(P99);
+		maxNanos = histogram.getMax();
+		count = histogram.getCount();
+	}
+}
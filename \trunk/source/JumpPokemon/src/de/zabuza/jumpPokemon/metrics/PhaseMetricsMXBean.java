@@ -0,0 +1,38 @@
+package de.zabuza.jumpPokemon.metrics;
+
+/**
+ * Management interface of a {@link PhaseMetrics}, exposed via JMX. All values
+ * belong to the last completed interval of {@link FrameMetrics#publish()}.
+ * 
+ * @author Zabuza
+ * 
+ */
+public interface PhaseMetricsMXBean {
+	/**
+	 * Gets the amount of measurements.
+	 * 
+	 * @return Amount of measurements
+	 */
+	long getCount();
+
+	/**
+	 * Gets the longest measured duration.
+	 * 
+	 * @return Longest duration in nanoseconds
+	 */
+	long getMaxNanos();
+
+	/**
+	 * Gets the median of the measured durations.
+	 * 
+	 * @return Median in nanoseconds
+	 */
+	long getP50Nanos();
+
+	/**
+	 * Gets the 99th percentile of the measured durations.
+	 * 
+	 * @return 99th percentile in nanoseconds
+	 */
+	long getP99Nanos();
+}
@@ -0,0 +1,4 @@
+/**
+ * This is the package for timing measurements of the game loop.
+ */
+package de.zabuza.jumpPokemon.metrics;
@@ -0,0 +1,421 @@
+package de.zabuza.jumpPokemon.render;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.util.Arrays;
+
+import de.zabuza.jumpPokemon.Art;
+import de.zabuza.jumpPokemon.level.LevelRenderer;
+import de.zabuza.jumpPokemon.level.TileWindow;
+import de.zabuza.jumpPokemon.metrics.FrameMetrics;
+
+/**
+ * FrameSnapshot class. Picture of a tick, recorded by the simulation as a
+ * list of draw commands and drawn by the render thread. Images keep their
+ * position of the previous and of the current tick, so the render thread
+ * interpolates between both. A snapshot is not changed while it is drawn and
+ * is reused for a later tick afterwards. The level is recorded as a copy of
+ * its visible tiles, so the render thread never reads the simulated level.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class FrameSnapshot {
+
+	/**
+	 * Command which fills a rectangle.
+	 */
+	private static final int FILL_RECT = 0;
+	/**
+	 * Command which draws the outline of a rectangle.
+	 */
+	private static final int DRAW_RECT = 1;
+	/**
+	 * Command which draws an interpolated image.
+	 */
+	private static final int IMAGE = 2;
+	/**
+	 * Command which draws a region of an image into a rectangle.
+	 */
+	private static final int IMAGE_REGION = 3;
+	/**
+	 * Command which draws a text with the font.
+	 */
+	private static final int STRING = 4;
+	/**
+	 * Command which translates the origin.
+	 */
+	private static final int TRANSLATE = 5;
+	/**
+	 * Command which renders the recorded tiles of a level.
+	 */
+	private static final int LEVEL = 6;
+	/**
+	 * Command which starts to measure a phase.
+	 */
+	private static final int PHASE_START = 7;
+	/**
+	 * Command which stops to measure a phase.
+	 */
+	private static final int PHASE_STOP = 8;
+	/**
+	 * Amount of parameters of a command.
+	 */
+	private static final int PARAMS = 8;
+	/**
+	 * Initial capacity of commands.
+	 */
+	private static final int INITIAL_CAPACITY = 256;
+
+	/**
+	 * Types of the commands.
+	 */
+	private int[] types = new int[INITIAL_CAPACITY];
+	/**
+	 * Objects of the commands like images, colors or texts.
+	 */
+	private Object[] objects = new Object[INITIAL_CAPACITY];
+	/**
+	 * Parameters of the commands, {@link #PARAMS} per command.
+	 */
+	private float[] params = new float[INITIAL_CAPACITY * PARAMS];
+	/**
+	 * Amount of commands.
+	 */
+	private int size = 0;
+	/**
+	 * Copies of the visible tiles of the recorded levels, reused by later
+	 * recordings.
+	 */
+	private TileWindow[] windows = new TileWindow[1];
+	/**
+	 * Amount of recorded levels.
+	 */
+	private int levels = 0;
+	/**
+	 * Start times of the measured phases.
+	 */
+	private long[] phaseStarts = new long[FrameMetrics.PHASES];
+	/**
+	 * Time of {@link System#nanoTime()} when the tick of the snapshot was due.
+	 */
+	private long tickTime;
+
+	/**
+	 * Removes all commands before a new recording.
+	 * 
+	 * @param thatTickTime
+	 *            Time of {@link System#nanoTime()} when the recorded tick was
+	 *            due
+	 */
+	public final void clear(final long thatTickTime) {
+		// Release the images and texts of the last recording
+		Arrays.fill(objects, 0, size, null);
+		size = 0;
+		levels = 0;
+		this.tickTime = thatTickTime;
+	}
+
+	/**
+	 * Records the outline of a rectangle.
+	 * 
+	 * @param color
+	 *            Color of the outline
+	 * @param x
+	 *            X-coord of the rectangle
+	 * @param y
+	 *            Y-coord of the rectangle
+	 * @param width
+	 *            Width of the rectangle
+	 * @param height
+	 *            Height of the rectangle
+	 */
+	public final void drawRect(final Color color, final int x, final int y,
+			final int width, final int height) {
+		int p = add(DRAW_RECT, color);
+		params[p] = x;
+		params[p + 1] = y;
+		params[p + 2] = width;
+		params[p + 3] = height;
+	}
+
+	/**
+	 * Records an image at a fixed position.
+	 * 
+	 * @param image
+	 *            Image to draw
+	 * @param x
+	 *            X-coord of the image
+	 * @param y
+	 *            Y-coord of the image
+	 */
+	public final void drawImage(final Image image, final int x, final int y) {
+		drawImage(image, x, y, x, y, image.getWidth(null),
+				image.getHeight(null), false);
+	}
+
+	/**
+	 * Records an image which moves from its position of the previous tick to
+	 * the position of the current tick.
+	 * 
+	 * @param image
+	 *            Image to draw
+	 * @param xOld
+	 *            X-coord of the image in the previous tick
+	 * @param yOld
+	 *            Y-coord of the image in the previous tick
+	 * @param x
+	 *            X-coord of the image in the current tick
+	 * @param y
+	 *            Y-coord of the image in the current tick
+	 * @param width
+	 *            Width of the image
+	 * @param height
+	 *            Height of the image
+	 * @param mirrored
+	 *            True if the image is mirrored horizontally
+	 */
+	public final void drawImage(final Image image, final float xOld,
+			final float yOld, final float x, final float y, final int width,
+			final int height, final boolean mirrored) {
+		int p = add(IMAGE, image);
+		params[p] = xOld;
+		params[p + 1] = yOld;
+		params[p + 2] = x;
+		params[p + 3] = y;
+		params[p + 4] = width;
+		params[p + 5] = height;
+		if (mirrored) {
+			params[p + 6] = 1;
+		} else {
+			params[p + 6] = 0;
+		}
+	}
+
+	/**
+	 * Records a region of an image which is drawn into a rectangle.
+	 * 
+	 * @param image
+	 *            Image to draw
+	 * @param dx1
+	 *            X-coord of the first corner of the rectangle
+	 * @param dy1
+	 *            Y-coord of the first corner of the rectangle
+	 * @param dx2
+	 *            X-coord of the second corner of the rectangle
+	 * @param dy2
+	 *            Y-coord of the second corner of the rectangle
+	 * @param sx1
+	 *            X-coord of the first corner of the region
+	 * @param sy1
+	 *            Y-coord of the first corner of the region
+	 * @param sx2
+	 *            X-coord of the second corner of the region
+	 * @param sy2
+	 *            Y-coord of the second corner of the region
+	 */
+	public final void drawImageRegion(final Image image, final int dx1,
+			final int dy1, final int dx2, final int dy2, final int sx1,
+			final int sy1, final int sx2, final int sy2) {
+		int p = add(IMAGE_REGION, image);
+		params[p] = dx1;
+		params[p + 1] = dy1;
+		params[p + 2] = dx2;
+		params[p + 3] = dy2;
+		params[p + 4] = sx1;
+		params[p + 5] = sy1;
+		params[p + 6] = sx2;
+		params[p + 7] = sy2;
+	}
+
+	/**
+	 * Records the level seen from a camera position. The visible tiles are
+	 * copied now, the render thread only uses the LevelRenderer to draw the
+	 * copy.
+	 * 
+	 * @param layer
+	 *            LevelRenderer of the level
+	 * @param camX
+	 *            Left x-coord of the camera
+	 * @param camY
+	 *            Top y-coord of the camera
+	 */
+	public final void drawLevel(final LevelRenderer layer, final int camX,
+			final int camY) {
+		if (levels == windows.length) {
+			windows = Arrays.copyOf(windows, levels * 2);
+		}
+		if (windows[levels] == null) {
+			windows[levels] = new TileWindow();
+		}
+		layer.copyVisible(camX, camY, windows[levels]);
+		params[add(LEVEL, layer)] = levels;
+		levels++;
+	}
+
+	/**
+	 * Records a text which is drawn with the font, see
+	 * {@link Art#drawString(Graphics, String, int, int, int)}.
+	 * 
+	 * @param text
+	 *            Text to draw
+	 * @param x
+	 *            X-coord of the text
+	 * @param y
+	 *            Y-coord of the text
+	 * @param row
+	 *            Row-Index of the font
+	 */
+	public final void drawString(final String text, final int x, final int y,
+			final int row) {
+		int p = add(STRING, text);
+		params[p] = x;
+		params[p + 1] = y;
+		params[p + 2] = row;
+	}
+
+	/**
+	 * Records a filled rectangle.
+	 * 
+	 * @param color
+	 *            Color of the rectangle
+	 * @param x
+	 *            X-coord of the rectangle
+	 * @param y
+	 *            Y-coord of the rectangle
+	 * @param width
+	 *            Width of the rectangle
+	 * @param height
+	 *            Height of the rectangle
+	 */
+	public final void fillRect(final Color color, final int x, final int y,
+			final int width, final int height) {
+		int p = add(FILL_RECT, color);
+		params[p] = x;
+		params[p + 1] = y;
+		params[p + 2] = width;
+		params[p + 3] = height;
+	}
+
+	/**
+	 * Gets the time when the tick of the snapshot was due.
+	 * 
+	 * @return Time of {@link System#nanoTime()}
+	 */
+	public final long getTickTime() {
+		return tickTime;
+	}
+
+	/**
+	 * Draws all recorded commands.
+	 * 
+	 * @param g
+	 *            Graphics object to draw on
+	 * @param alpha
+	 *            0 to draw the images at their position of the previous tick,
+	 *            1 for the current tick and fractions in between
+	 */
+	public final void render(final Graphics g, final float alpha) {
+		for (int i = 0; i < size; i++) {
+			int p = i * PARAMS;
+			int type = types[i];
+			if (type == FILL_RECT) {
+				g.setColor((Color) objects[i]);
+				g.fillRect((int) params[p], (int) params[p + 1],
+						(int) params[p + 2], (int) params[p + 3]);
+			} else if (type == DRAW_RECT) {
+				g.setColor((Color) objects[i]);
+				g.drawRect((int) params[p], (int) params[p + 1],
+						(int) params[p + 2], (int) params[p + 3]);
+			} else if (type == IMAGE) {
+				int x = (int) (params[p] + (params[p + 2] - params[p]) * alpha);
+				int y = (int) (params[p + 1] + (params[p + 3] - params[p + 1])
+						* alpha);
+				int width = (int) params[p + 4];
+				int height = (int) params[p + 5];
+				if (params[p + 6] == 0) {
+					g.drawImage((Image) objects[i], x, y, null);
+				} else {
+					g.drawImage((Image) objects[i], x, y, x + width, y + height,
+							width, 0, 0, height, null);
+				}
+			} else if (type == IMAGE_REGION) {
+				g.drawImage((Image) objects[i], (int) params[p],
+						(int) params[p + 1], (int) params[p + 2],
+						(int) params[p + 3], (int) params[p + 4],
+						(int) params[p + 5], (int) params[p + 6],
+						(int) params[p + 7], null);
+			} else if (type == STRING) {
+				Art.drawString(g, (String) objects[i], (int) params[p],
+						(int) params[p + 1], (int) params[p + 2]);
+			} else if (type == TRANSLATE) {
+				g.translate((int) params[p], (int) params[p + 1]);
+			} else if (type == LEVEL) {
+				LevelRenderer layer = (LevelRenderer) objects[i];
+				layer.render(g, windows[(int) params[p]]);
+			} else if (type == PHASE_START) {
+				phaseStarts[(int) params[p]] = FrameMetrics.start();
+			} else {
+				FrameMetrics.stop((int) params[p],
+						phaseStarts[(int) params[p]]);
+			}
+		}
+	}
+
+	/**
+	 * Records the start of a phase whose drawing is measured, see
+	 * {@link FrameMetrics}.
+	 * 
+	 * @param phase
+	 *            Phase to measure
+	 */
+	public final void startPhase(final int phase) {
+		params[add(PHASE_START, null)] = phase;
+	}
+
+	/**
+	 * Records the end of a phase whose drawing is measured.
+	 * 
+	 * @param phase
+	 *            Measured phase
+	 */
+	public final void stopPhase(final int phase) {
+		params[add(PHASE_STOP, null)] = phase;
+	}
+
+	/**
+	 * Records a translation of the origin.
+	 * 
+	 * @param x
+	 *            Translation of the x-coord
+	 * @param y
+	 *            Translation of the y-coord
+	 */
+	public final void translate(final int x, final int y) {
+		int p = add(TRANSLATE, null);
+		params[p] = x;
+		params[p + 1] = y;
+	}
+
+	/**
+	 * Adds a command and grows the storage if needed.
+	 * 
+	 * @param type
+	 *            Type of the command
+	 * @param object
+	 *            Object of the command or null
+	 * @return Index of the first parameter of the command
+	 */
+	private int add(final int type, final Object object) {
+		if (size == types.length) {
+			types = Arrays.copyOf(types, size * 2);
+			objects = Arrays.copyOf(objects, size * 2);
+			params = Arrays.copyOf(params, size * 2 * PARAMS);
+		}
+		types[size] = type;
+		objects[size] = object;
+		size++;
+		return (size - 1) * PARAMS;
+	}
+}
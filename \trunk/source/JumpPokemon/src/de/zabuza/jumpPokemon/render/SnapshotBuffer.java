@@ -0,0 +1,95 @@
+package de.zabuza.jumpPokemon.render;
+
+/**
+ * SnapshotBuffer class. Passes {@link FrameSnapshot}s from the simulation to
+ * the render thread without letting either wait for the other. Besides the
+ * snapshot which is recorded and the one which is drawn a third one holds the
+ * latest published snapshot, so the simulation never overwrites a snapshot
+ * while it is drawn and the render thread always gets the newest one.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class SnapshotBuffer {
+
+	/**
+	 * Amount of snapshots.
+	 */
+	private static final int SLOTS = 3;
+
+	/**
+	 * All snapshots.
+	 */
+	private final FrameSnapshot[] snapshots = new FrameSnapshot[SLOTS];
+	/**
+	 * Index of the snapshot which is recorded by the simulation.
+	 */
+	private int writeSlot = 0;
+	/**
+	 * Index of the latest published snapshot.
+	 */
+	private int readySlot = 1;
+	/**
+	 * Index of the snapshot which is drawn by the render thread.
+	 */
+	private int drawSlot = 2;
+	/**
+	 * True if a snapshot was published since the render thread took the last
+	 * one.
+	 */
+	private boolean fresh = false;
+	/**
+	 * True if at least one snapshot was published.
+	 */
+	private boolean published = false;
+
+	/**
+	 * Creates a new SnapshotBuffer.
+	 */
+	public SnapshotBuffer() {
+		for (int i = 0; i < SLOTS; i++) {
+			snapshots[i] = new FrameSnapshot();
+		}
+	}
+
+	/**
+	 * Gets the snapshot which is recorded by the simulation. Must only be
+	 * called by the simulation.
+	 * 
+	 * @return Snapshot to record
+	 */
+	public final synchronized FrameSnapshot getRecording() {
+		return snapshots[writeSlot];
+	}
+
+	/**
+	 * Publishes the recorded snapshot. Afterwards {@link #getRecording()}
+	 * returns another snapshot. Must only be called by the simulation.
+	 */
+	public final synchronized void publish() {
+		int slot = readySlot;
+		readySlot = writeSlot;
+		writeSlot = slot;
+		fresh = true;
+		published = true;
+	}
+
+	/**
+	 * Gets the latest published snapshot to draw. The snapshot stays valid
+	 * until the next call. Must only be called by the render thread.
+	 * 
+	 * @return Latest published snapshot or null if nothing was published yet
+	 */
+	public final synchronized FrameSnapshot take() {
+		if (fresh) {
+			int slot = drawSlot;
+			drawSlot = readySlot;
+			readySlot = slot;
+			fresh = false;
+		}
+		if (!published) {
+			return null;
+		}
+		return snapshots[drawSlot];
+	}
+}
@@ -0,0 +1,5 @@
+/**
+ * This is the package for the snapshots which are passed from the simulation
+ * to the render thread.
+ */
+package de.zabuza.jumpPokemon.render;
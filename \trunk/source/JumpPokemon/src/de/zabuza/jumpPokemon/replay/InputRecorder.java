@@ -0,0 +1,166 @@
+package de.zabuza.jumpPokemon.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * InputRecorder class. Records the state of all keys once per tick into a
+ * replay file, which can be played back by an {@link InputReplay}. Only
+ * changes are stored: the amount of ticks since the last change and the bits
+ * of the keys which changed, both as variable length numbers. An entry
+ * without changed keys marks the end of the recording.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class InputRecorder {
+
+	/**
+	 * Magic number at the start of a replay file, "JPRP".
+	 */
+	static final int MAGIC = 0x4A505250;
+	/**
+	 * Version of the replay format.
+	 */
+	static final int VERSION = 1;
+	/**
+	 * Bits of a variable length number per byte.
+	 */
+	static final int VARINT_BITS = 7;
+	/**
+	 * Mask of the bits of a variable length number in a byte.
+	 */
+	static final int VARINT_MASK = 0x7F;
+	/**
+	 * Flag of a byte which is followed by more bytes of the number.
+	 */
+	static final int VARINT_MORE = 0x80;
+
+	/**
+	 * Stream to the replay file, null if the recording is closed or failed.
+	 */
+	private DataOutputStream out;
+	/**
+	 * Amount of recorded ticks.
+	 */
+	private int ticks = 0;
+	/**
+	 * Tick of the last change.
+	 */
+	private int lastChangeTick = 0;
+	/**
+	 * Key state of the last change, one bit per key.
+	 */
+	private int lastMask = 0;
+
+	/**
+	 * Creates a new InputRecorder and writes the header of the replay file.
+	 * An existing file is replaced.
+	 * 
+	 * @param path
+	 *            Path of the replay file
+	 * @param keyCount
+	 *            Amount of recorded keys, less than {@link Integer#SIZE}
+	 * @throws IOException
+	 *             If the file could not be created
+	 */
+	public InputRecorder(final Path path, final int keyCount)
+			throws IOException {
+		if (keyCount >= Integer.SIZE) {
+			throw new IllegalArgumentException("Too many keys: " + keyCount);
+		}
+		out = new DataOutputStream(new BufferedOutputStream(
+				Files.newOutputStream(path)));
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeByte(keyCount);
+	}
+
+	/**
+	 * Ends the recording and closes the replay file.
+	 */
+	public final void close() {
+		if (out == null) {
+			return;
+		}
+		try {
+			writeVarint(ticks - lastChangeTick);
+			writeVarint(0);
+			out.close();
+		} catch (IOException e) {
+			System.out.println("Failed to complete the replay");
+			e.printStackTrace();
+		}
+		out = null;
+	}
+
+	/**
+	 * Gets the amount of recorded ticks.
+	 * 
+	 * @return Amount of recorded ticks
+	 */
+	public final int getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * Records the key state of the next tick. Changes are flushed at once,
+	 * so a replay of an aborted game only loses its last unchanged ticks.
+	 * 
+	 * @param keys
+	 *            Key state of the tick, indexed by the keys of
+	 *            {@link de.zabuza.jumpPokemon.Commons}
+	 */
+	public final void record(final boolean[] keys) {
+		if (out == null) {
+			return;
+		}
+		int mask = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i]) {
+				mask |= 1 << i;
+			}
+		}
+		if (mask != lastMask) {
+			try {
+				writeVarint(ticks - lastChangeTick);
+				writeVarint(mask ^ lastMask);
+				out.flush();
+			} catch (IOException e) {
+				System.out.println("Failed to record the replay");
+				e.printStackTrace();
+				try {
+					out.close();
+				} catch (IOException e2) {
+					e2.printStackTrace();
+				}
+				out = null;
+				return;
+			}
+			lastMask = mask;
+			lastChangeTick = ticks;
+		}
+		ticks++;
+	}
+
+	/**
+	 * Writes an unsigned number with as few bytes as possible, seven bits
+	 * per byte starting with the lowest.
+	 * 
+	 * @param value
+	 *            Number to write
+	 * @throws IOException
+	 *             If an IO Exception occurred
+	 */
+	private void writeVarint(final int value) throws IOException {
+		int rest = value;
+		while ((rest & ~VARINT_MASK) != 0) {
+			out.writeByte((rest & VARINT_MASK) | VARINT_MORE);
+			rest >>>= VARINT_BITS;
+		}
+		out.writeByte(rest);
+	}
+}
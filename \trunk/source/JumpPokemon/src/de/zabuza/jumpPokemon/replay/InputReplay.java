@@ -0,0 +1,181 @@
+package de.zabuza.jumpPokemon.replay;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * InputReplay class. Plays back a replay file of an {@link InputRecorder}
+ * tick by tick. The file is decoded completely when it is loaded. A replay
+ * whose recording was aborted ends with its last change.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class InputReplay {
+
+	/**
+	 * Initial capacity of the changes.
+	 */
+	private static final int INITIAL_CHANGES = 64;
+
+	/**
+	 * Amount of keys of the replay.
+	 */
+	private final int keyCount;
+	/**
+	 * Ticks of the changes.
+	 */
+	private int[] changeTicks = new int[INITIAL_CHANGES];
+	/**
+	 * Bits of the keys which changed, parallel to {@link #changeTicks}.
+	 */
+	private int[] changeMasks = new int[INITIAL_CHANGES];
+	/**
+	 * Amount of changes.
+	 */
+	private int changes = 0;
+	/**
+	 * Amount of ticks of the replay.
+	 */
+	private int length;
+	/**
+	 * Next tick to play.
+	 */
+	private int tick = 0;
+	/**
+	 * Index of the next change to apply.
+	 */
+	private int nextChange = 0;
+	/**
+	 * Current key state, one bit per key.
+	 */
+	private int mask = 0;
+	/**
+	 * Position in the file while it is decoded.
+	 */
+	private int readPos;
+
+	/**
+	 * Loads a replay file.
+	 * 
+	 * @param path
+	 *            Path of the replay file
+	 * @throws IOException
+	 *             If the file could not be read or is no replay file
+	 */
+	public InputReplay(final Path path) throws IOException {
+		byte[] data = Files.readAllBytes(path);
+		// Magic number, version and amount of keys
+		int pos = Integer.SIZE / Byte.SIZE + 2;
+		if (data.length < pos || readMagic(data) != InputRecorder.MAGIC
+				|| data[pos - 2] != InputRecorder.VERSION) {
+			throw new IOException("Not a replay file: " + path);
+		}
+		keyCount = data[pos - 1];
+
+		readPos = pos;
+		int changeTick = 0;
+		length = 0;
+		while (true) {
+			int delta = readVarint(data);
+			int changed = readVarint(data);
+			if (delta < 0 || changed < 0) {
+				// The recording was aborted
+				return;
+			}
+			changeTick += delta;
+			if (changed == 0) {
+				length = changeTick;
+				return;
+			}
+			if (changes == changeTicks.length) {
+				changeTicks = Arrays.copyOf(changeTicks, changes * 2);
+				changeMasks = Arrays.copyOf(changeMasks, changes * 2);
+			}
+			changeTicks[changes] = changeTick;
+			changeMasks[changes] = changed;
+			changes++;
+			length = changeTick + 1;
+		}
+	}
+
+	/**
+	 * Gets the amount of ticks of the replay.
+	 * 
+	 * @return Amount of ticks
+	 */
+	public final int getLength() {
+		return length;
+	}
+
+	/**
+	 * Gets the amount of played ticks.
+	 * 
+	 * @return Amount of played ticks
+	 */
+	public final int getTicks() {
+		return tick;
+	}
+
+	/**
+	 * Plays the next tick by setting the key state.
+	 * 
+	 * @param keys
+	 *            Key state to set, indexed by the keys of
+	 *            {@link de.zabuza.jumpPokemon.Commons}
+	 * @return True if the tick was played, false if the replay has ended
+	 */
+	public final boolean next(final boolean[] keys) {
+		if (tick >= length) {
+			return false;
+		}
+		while (nextChange < changes && changeTicks[nextChange] == tick) {
+			mask ^= changeMasks[nextChange];
+			nextChange++;
+		}
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = i < keyCount && (mask & (1 << i)) != 0;
+		}
+		tick++;
+		return true;
+	}
+
+	/**
+	 * Reads the magic number at the start of a replay file.
+	 * 
+	 * @param data
+	 *            Contents of the file
+	 * @return Magic number
+	 */
+	private static int readMagic(final byte[] data) {
+		int magic = 0;
+		for (int i = 0; i < Integer.SIZE / Byte.SIZE; i++) {
+			magic = (magic << Byte.SIZE) | (data[i] & 0xFF);
+		}
+		return magic;
+	}
+
+	/**
+	 * Reads an unsigned number written by the {@link InputRecorder} at the
+	 * read position and moves the position after it.
+	 * 
+	 * @param data
+	 *            Contents of the file
+	 * @return Number or -1 if the file ends before
+	 */
+	private int readVarint(final byte[] data) {
+		int value = 0;
+		int shift = 0;
+		while (readPos < data.length) {
+			byte b = data[readPos++];
+			value |= (b & InputRecorder.VARINT_MASK) << shift;
+			if ((b & InputRecorder.VARINT_MORE) == 0) {
+				return value;
+			}
+			shift += InputRecorder.VARINT_BITS;
+		}
+		return -1;
+	}
+}
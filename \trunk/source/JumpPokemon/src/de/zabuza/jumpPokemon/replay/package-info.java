@@ -0,0 +1,5 @@
+/**
+ * This is the package for recording the input of the game and replaying it
+ * headless.
+ */
+package de.zabuza.jumpPokemon.replay;
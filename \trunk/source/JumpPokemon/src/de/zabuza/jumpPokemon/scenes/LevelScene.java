@@ -1,18 +1,27 @@
 package de.zabuza.jumpPokemon.scenes;
 
 import java.awt.Color;
-import java.awt.Graphics;
 import java.awt.GraphicsConfiguration;
 
 import de.zabuza.jumpPokemon.Art;
 import de.zabuza.jumpPokemon.Camera;
 import de.zabuza.jumpPokemon.Commons;
 import de.zabuza.jumpPokemon.JumpPkmnComponent;
+import de.zabuza.jumpPokemon.collision.Collision;
+import de.zabuza.jumpPokemon.collision.Hitbox;
+import de.zabuza.jumpPokemon.collision.PairHandler;
+import de.zabuza.jumpPokemon.collision.SpatialGrid;
+import de.zabuza.jumpPokemon.collision.TileContact;
 import de.zabuza.jumpPokemon.level.Level;
 import de.zabuza.jumpPokemon.level.LevelRenderer;
+import de.zabuza.jumpPokemon.metrics.FrameMetrics;
+import de.zabuza.jumpPokemon.render.FrameSnapshot;
+import de.zabuza.jumpPokemon.sprites.Firebeam;
 import de.zabuza.jumpPokemon.sprites.Player;
+import de.zabuza.jumpPokemon.sprites.Punch;
 import de.zabuza.jumpPokemon.sprites.Sprite;
 import de.zabuza.jumpPokemon.sprites.Testball;
+import de.zabuza.physicEngine.EntityStore;
 import de.zabuza.physicEngine.PhysicEngine;
 
 /**
@@ -51,6 +60,14 @@ public class LevelScene extends Scene {
 	 * Y-coord of balls starting position.
 	 */
 	private static final int TESTBALL_START_Y = 450;
+	/**
+	 * Size of a cell of the collision grid, about the size of a sprite.
+	 */
+	private static final int COLLISION_CELL_SIZE = Commons.TILE_SIZE * 4;
+	/**
+	 * Amount of tile checks per sprite and tick, one for each axis.
+	 */
+	private static final int BLOCK_PASSES = 2;
 
 	/**
 	 * Component which created the Scene.
@@ -78,6 +95,11 @@ public class LevelScene extends Scene {
 	 * PhysicEngine which will affect all sprites in the LevelScene.
 	 */
 	private PhysicEngine physic;
+	/**
+	 * Store which contains the physical state of all sprites in the
+	 * LevelScene.
+	 */
+	private final EntityStore entities = new EntityStore();
 	/**
 	 * LevelRenderer which renders the level.
 	 */
@@ -86,14 +108,42 @@ public class LevelScene extends Scene {
 	 * Current used Configuration.
 	 */
 	private GraphicsConfiguration gc;
+	/**
+	 * Broad-phase for collisions between all sprites of the LevelScene.
+	 */
+	private SpatialGrid grid;
+	/**
+	 * Current collision tick, stamps the sprites updated in the grid.
+	 */
+	private long collisionTick;
+	/**
+	 * Contact of the last tile check, reused for all sprites.
+	 */
+	private final TileContact contact = new TileContact();
+	/**
+	 * Narrow-phase for the candidate pairs of the grid. Notifies both
+	 * sprites of a pair if they collide.
+	 */
+	private final PairHandler narrowPhase = new PairHandler() {
+		@Override
+		public void handle(final Hitbox hitbox1, final Hitbox hitbox2) {
+			int side = Collision.spriteCollideSprite(hitbox1, hitbox2);
+			if (side != Collision.NO_COLLIDE) {
+				hitbox1.collide(hitbox2, side);
+				hitbox2.collide(hitbox1, Collision.oppositeSide(side));
+			}
+		}
+	};
 
 	/**
 	 * Creates a new LevelScene.
 	 * 
 	 * @param thatComponent
-	 *            Component which contains the {@link Scene}s
+	 *            Component which contains the {@link Scene}s, null if the
+	 *            scene is simulated headless
 	 * @param thatGc
-	 *            Current used configuration
+	 *            Current used configuration, null if the scene is simulated
+	 *            headless
 	 * @param thatPhysic
 	 *            PhysicEngine for the LevelScene
 	 */
@@ -104,6 +154,16 @@ public class LevelScene extends Scene {
 		this.physic = thatPhysic;
 	}
 
+	/**
+	 * Gets the store which contains the physical state of all sprites in the
+	 * LevelScene.
+	 * 
+	 * @return Store of the LevelScene
+	 */
+	public final EntityStore getEntityStore() {
+		return entities;
+	}
+
 	/**
 	 * Gets the current used PhysicEngine.
 	 * 
@@ -115,12 +175,19 @@ public class LevelScene extends Scene {
 
 	@Override
 	public final float getX() {
-		return 0;
+		if (cam == null) {
+			return 0;
+		}
+		// Listen from the center of the screen
+		return cam.getX() + cam.getWidth() / 2f;
 	}
 
 	@Override
 	public final float getY() {
-		return 0;
+		if (cam == null) {
+			return 0;
+		}
+		return cam.getY() + cam.getHeight() / 2f;
 	}
 
 	@Override
@@ -144,34 +211,37 @@ public class LevelScene extends Scene {
 		addSprite(player);
 
 		cam = new Camera(level, player, Commons.WIDTH, Commons.HEIGHT);
+		grid = new SpatialGrid(level.getWidth() * Commons.TILE_SIZE,
+				Commons.HEIGHT, COLLISION_CELL_SIZE);
 	}
 
 	@Override
-	public final void render(final Graphics g, final float alpha) {
+	public final void snapshot(final FrameSnapshot frame) {
 
-		layer.setCam(cam);
-		layer.render(g, alpha);
+		frame.startPhase(FrameMetrics.LEVEL_RENDER);
+		frame.drawLevel(layer, cam.getX(), cam.getY());
+		frame.stopPhase(FrameMetrics.LEVEL_RENDER);
 
 		// Draw a black Line on the ground
-		g.setColor(Color.BLACK);
-		g.fillRect(0, Commons.HEIGHT - GROUND_HEIGHT, cam.getWidth(),
-				GROUND_HEIGHT);
+		frame.fillRect(Color.BLACK, 0, Commons.HEIGHT - GROUND_HEIGHT,
+				cam.getWidth(), GROUND_HEIGHT);
 
-		g.translate(-cam.getX(), -cam.getY());
+		frame.translate(-cam.getX(), -cam.getY());
 
 		// Draw gray stripes as scala on the black ground
-		g.setColor(Color.GRAY);
 		for (int x = 0; x < (level.getWidth() * Commons.TILE_SIZE); x += (GROUND_STRIPES_WIDTH * 2)) {
-			g.fillRect(x, Commons.HEIGHT - GROUND_HEIGHT, GROUND_STRIPES_WIDTH,
-					GROUND_HEIGHT);
+			frame.fillRect(Color.GRAY, x, Commons.HEIGHT - GROUND_HEIGHT,
+					GROUND_STRIPES_WIDTH, GROUND_HEIGHT);
 		}
 
 		// Draw sprites
+		frame.startPhase(FrameMetrics.SPRITE_RENDER);
 		for (Sprite sprite : getSprites()) {
-			sprite.render(g, alpha);
+			sprite.snapshot(frame);
 		}
+		frame.stopPhase(FrameMetrics.SPRITE_RENDER);
 
-		g.translate(cam.getX(), cam.getY());
+		frame.translate(cam.getX(), cam.getY());
 
 		/*
 		// TODO Checkstyle debugging area
@@ -232,58 +302,76 @@ public class LevelScene extends Scene {
 		// Trigger tick of all sprites
 		for (Sprite sprite : getSprites()) {
 			sprite.tick();
+		}
+		// Move all batch sprites at once, before any sprite is checked
+		// against the tiles
+		physic.integrate(entities);
+		for (Sprite sprite : getSprites()) {
 			checkBlocks(sprite);
 			checkLevelBounds(sprite);
 		}
+		checkCollisions();
 		cam.follow();
+		// Sprites animate and move nearly every tick
+		markChanged();
 	}
 
 	/**
-	 * Checks if a sprite is blocked by a tile.
-	 * If true it resets its coords to its old coords.
-	 * @param sprite Sprite to check
+	 * Updates all living sprites, punchs and firebeams in the collision grid
+	 * and removes dead ones. Then tests all candidate pairs of the grid for
+	 * collisions.
 	 */
-	private void checkBlocks(Sprite sprite) {
-		boolean blocking;
-		int thatX;
-		int thatY;
-		
-		//Falls Sprite nach rechts oder
-		//garnicht beschleunigt wird, nehme rechtes Ende,
-		//Ansonsten nehme linkes Ende.
-		if(sprite.getXA() >= 0) {
-			thatX = (int) ((sprite.getX() + sprite.getWidth()) / Commons.TILE_SIZE);
-		} else {
-			thatX = (int) (sprite.getX() / Commons.TILE_SIZE);
+	private void checkCollisions() {
+		collisionTick++;
+		for (Sprite sprite : getSprites()) {
+			if (!sprite.isDead()) {
+				grid.update(sprite, collisionTick);
+			}
 		}
-		//Falls Sprite nach oben beschleunigt wird,
-		//nehme oberes Ende, ansonsten unteres Ende.
-		if(sprite.getYA() > 0) {
-			thatY = (int) ((Commons.HEIGHT - sprite.getY() - sprite.getHeight())
-					/ Commons.TILE_SIZE);
-		} else {
-			thatY = (int) ((Commons.HEIGHT - sprite.getY()) / Commons.TILE_SIZE);
+		for (Punch punch : player.getPunchlist()) {
+			if (!punch.isDead()) {
+				grid.update(punch, collisionTick);
+			}
 		}
-		
-		blocking = level.isBlocking(thatX, thatY, sprite.getXA(), sprite.getYA());
-		
-		//XXX DEBUGGING
-		blocking = false;
-		
-		if(blocking) {
-			//TODO Ab hier muss Sprite bernehmen, nur es weiss was zu tun bei einem block.
-			//Vllt. methode blocked(indicator) zweiteres gibt Richtung an, top,bottom,left,right
-			//Oder man nutzt gleich das gesamte Polygon und berprft fr die gesamte Weite alle Blcke
-			//Es muss das Polygon OUTLINE berprft werden, alle Punkte auf diesem Pfad mssen auf
-			//Block getestet werden. Jedoch nur jeder "neue" Block muss getestet werden, da mehrere Punkte
-			//in einem Block liegen. Mit dem Sprite Mittelpunkt kann dann die Location des Blocks bestimmt
-			//werden (z.b. top). Es muss solange geprft werden bis ein Block=true erscheint oder alle
-			//Punkte durch sind (Fall fr Rekursion?)
-			sprite.setX(sprite.getXOld());
-			sprite.setY(sprite.getYOld());
-			sprite.setYA(0);
-			sprite.setOnGround(true);
-			sprite.setJumping(false);
+		for (Firebeam beam : player.getFirebeamlist()) {
+			if (!beam.isDead()) {
+				grid.update(beam, collisionTick);
+			}
+		}
+		grid.retain(collisionTick);
+		grid.findPairs(narrowPhase);
+	}
+
+	/**
+	 * Checks if a sprite is blocked by a tile on its way in this tick. If true
+	 * it moves the sprite back to the contact and stops it on the blocked
+	 * axis, then checks the remaining movement on the other axis. A sprite
+	 * which moves down without landing on a tile is no longer on the ground.
+	 * 
+	 * @param sprite
+	 *            Sprite to check
+	 */
+	private void checkBlocks(final Sprite sprite) {
+		for (int i = 0; i < BLOCK_PASSES; i++) {
+			int side = Collision.spriteCollidesLevel(sprite, level, contact);
+			if (side == Collision.NO_COLLIDE) {
+				if (sprite.getYA() < 0) {
+					sprite.setOnGround(false);
+				}
+				return;
+			}
+			if (side == Collision.LEFT || side == Collision.RIGHT) {
+				sprite.setX(contact.getPosition());
+				sprite.setXA(0);
+			} else {
+				// Landing or bumping the head both end a jump
+				sprite.setY(contact.getPosition());
+				sprite.setYA(0);
+				sprite.setJumping(false);
+				if (side == Collision.BOTTOM) {
+					sprite.setOnGround(true);
+				}
+			}
 		}
 	}
 
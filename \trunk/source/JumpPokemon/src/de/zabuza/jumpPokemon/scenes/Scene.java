@@ -1,10 +1,11 @@
 package de.zabuza.jumpPokemon.scenes;
 
-import java.awt.Graphics;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import de.zabuza.jumpPokemon.Commons;
+import de.zabuza.jumpPokemon.render.FrameSnapshot;
 import de.zabuza.jumpPokemon.sprites.Sprite;
 import de.zabuza.soundEngine.SoundEngine;
 import de.zabuza.soundEngine.SoundListener;
@@ -23,13 +24,21 @@ public abstract class Scene implements SoundListener {
 	private static final int KEY_CONTAINER_SIZE = 11;
 
 	/**
-	 * Key container, true for pressed, false for released.
+	 * Key container, true for pressed, false for released. Holds the keys of
+	 * the current tick, copied from {@link #pressedKeys} by
+	 * {@link #pollKeys()}.
 	 */
 	private static boolean[] keys = new boolean[KEY_CONTAINER_SIZE];
+	/**
+	 * Live key container, written by the event thread. Also used as lock.
+	 */
+	private static final boolean[] pressedKeys =
+			new boolean[KEY_CONTAINER_SIZE];
 
 	/**
 	 * Gets the key container of the scene, true for pressed, false for
-	 * released.
+	 * released. It only changes with {@link #pollKeys()}, so a tick sees the
+	 * same keys from start to end.
 	 * 
 	 * @return Key container of the scene
 	 */
@@ -37,6 +46,25 @@ public abstract class Scene implements SoundListener {
 		return keys;
 	}
 
+	/**
+	 * Copies the currently pressed keys into the key container. Called by
+	 * the game thread once at the start of every tick.
+	 */
+	public static void pollKeys() {
+		synchronized (pressedKeys) {
+			System.arraycopy(pressedKeys, 0, keys, 0, keys.length);
+		}
+	}
+
+	/**
+	 * Releases all currently pressed keys.
+	 */
+	public static void releaseKeys() {
+		synchronized (pressedKeys) {
+			Arrays.fill(pressedKeys, false);
+		}
+	}
+
 	/**
 	 * Current used SoundEngine of the scene.
 	 */
@@ -46,6 +74,11 @@ public abstract class Scene implements SoundListener {
 	 * Sprites container for the scene.
 	 */
 	private List<Sprite> sprites = new ArrayList<Sprite>();
+	/**
+	 * Version of the visible state, changes whenever the scene looks
+	 * different.
+	 */
+	private int version = 0;
 
 	/**
 	 * Adds a sprite to the scene.
@@ -67,32 +100,45 @@ public abstract class Scene implements SoundListener {
 		return sound;
 	}
 
+	/**
+	 * Gets the version of the visible state. The version changes whenever the
+	 * scene looks different, a snapshot of the same version looks the same.
+	 * 
+	 * @return Version of the visible state
+	 */
+	public final int getVersion() {
+		return version;
+	}
+
 	/**
 	 * Inits the scene.
 	 */
 	public abstract void init();
 
 	/**
-	 * Removes a sprite from the scene.
+	 * Removes a sprite from the scene and releases its entity.
 	 * 
 	 * @param sprite
 	 *            Sprite to remove
 	 * @return True if sprite was removed from the scene
 	 */
 	public final boolean removeSprite(final Sprite sprite) {
-		return sprites.remove(sprite);
+		if (sprites.remove(sprite)) {
+			// The sprite is no longer ticked, free its entity
+			sprite.release();
+			return true;
+		}
+		return false;
 	}
 
 	/**
-	 * Renders the scene on a {@link Graphics} object.
+	 * Records the scene into the snapshot of the current tick, which is drawn
+	 * by the render thread.
 	 * 
-	 * @param g
-	 *            Graphics object to draw on
-	 * @param alpha
-	 *            1 if all ticks for the second are done, 0 if none is done, 0.5
-	 *            if half etc.
+	 * @param frame
+	 *            Snapshot to record into
 	 */
-	public abstract void render(Graphics g, float alpha);
+	public abstract void snapshot(FrameSnapshot frame);
 
 	/**
 	 * Sets the SoundEngine for the scene. Adds the scene to the listener list
@@ -112,7 +158,8 @@ public abstract class Scene implements SoundListener {
 	public abstract void tick();
 
 	/**
-	 * Toogles a key and saves it in the keys[] container.
+	 * Toogles a key and saves it in the live key container, the tick sees it
+	 * with the next {@link #pollKeys()}.
 	 * 
 	 * @param key
 	 *            Key index specified by {@link Commons} which is toogled
@@ -120,7 +167,9 @@ public abstract class Scene implements SoundListener {
 	 *            True for pressed, false for released
 	 */
 	public final void toggleKey(final int key, final boolean isPressed) {
-		keys[key] = isPressed;
+		synchronized (pressedKeys) {
+			pressedKeys[key] = isPressed;
+		}
 	}
 
 	/**
@@ -131,4 +180,12 @@ public abstract class Scene implements SoundListener {
 	protected final List<Sprite> getSprites() {
 		return sprites;
 	}
+
+	/**
+	 * Marks that the scene looks different, must be called by the tick
+	 * whenever something visible changed.
+	 */
+	protected final void markChanged() {
+		version++;
+	}
 }
\ No newline at end of file
@@ -1,12 +1,12 @@
 package de.zabuza.jumpPokemon.scenes;
 
 import java.awt.Color;
-import java.awt.Graphics;
 import java.awt.Image;
 
 import de.zabuza.jumpPokemon.Art;
 import de.zabuza.jumpPokemon.Commons;
 import de.zabuza.jumpPokemon.JumpPkmnComponent;
+import de.zabuza.jumpPokemon.render.FrameSnapshot;
 
 /**
  * TitleScene of the game.
@@ -108,28 +108,27 @@ public class TitleScene extends Scene {
 	}
 
 	@Override
-	public final void render(final Graphics g, final float alpha) {
+	public final void snapshot(final FrameSnapshot frame) {
 		// First color all black
-		g.setColor(Color.BLACK);
-		g.fillRect(0, 0, Commons.WIDTH, Commons.HEIGHT);
+		frame.fillRect(Color.BLACK, 0, 0, Commons.WIDTH, Commons.HEIGHT);
 
 		// Draw background image centered, use camY to display
 		// the max visible part, beginning at left bottom
-		g.drawImage(pic, midX - (pic.getWidth(null) / 2), 0,
+		frame.drawImageRegion(pic, midX - (pic.getWidth(null) / 2), 0,
 				midX + (pic.getWidth(null) / 2), Commons.HEIGHT, 0, camY,
-				pic.getWidth(null), camY + Commons.HEIGHT, null);
+				pic.getWidth(null), camY + Commons.HEIGHT);
 
 		// Draw titleFont centered
-		g.drawImage(Art.titleFont, midX - (Art.titleFont.getWidth(null) / 2),
-				TITLE_FONT_Y, null);
+		frame.drawImage(Art.titleFont,
+				midX - (Art.titleFont.getWidth(null) / 2), TITLE_FONT_Y);
 
 		// Create blinking text centered
 		if ((tick / TEXT_BLINK_INTERVALL) % 2 == 0 && scrolling) {
 			String msg = "Press Space";
-			component.drawString(g, msg,
+			frame.drawString(msg,
 					midX - msg.length() * (Art.font[0][0].getWidth(null) / 2)
 							+ 1, midY + TEXT_Y_OFFSET + 1, FONT_BLACK_ROW);
-			component.drawString(g, msg,
+			frame.drawString(msg,
 					midX - msg.length() * (Art.font[0][0].getWidth(null) / 2),
 					midY + TEXT_Y_OFFSET, FONT_WHITE_ROW);
 		}
@@ -157,11 +156,17 @@ public class TitleScene extends Scene {
 			// Beginn to scroll after 3 seconds
 			if (tick / Commons.TICKS_PER_SECOND >= SCROLL_START && !scrolling) {
 				scrolling = true;
+				markChanged();
 			}
 			// Scroll displayed part by decreasing camY
 			if (scrolling && camY > 2) {
 				camY -= 2;
+				markChanged();
 			}
 		}
+		// The starting text blinks
+		if (scrolling && tick % TEXT_BLINK_INTERVALL == 0) {
+			markChanged();
+		}
 	}
 }
@@ -1,11 +1,10 @@
 package de.zabuza.jumpPokemon.sprites;
 
-import java.awt.Graphics;
-
 import de.zabuza.jumpPokemon.Animation;
 import de.zabuza.jumpPokemon.Art;
 import de.zabuza.jumpPokemon.Commons;
 import de.zabuza.jumpPokemon.Sheet;
+import de.zabuza.jumpPokemon.render.FrameSnapshot;
 import de.zabuza.physicEngine.forms.NoPhysic;
 
 /**
@@ -76,16 +75,35 @@ public class Firebeam extends Sprite {
 		this.player = thatPlayer;
 		setLevelScene(thatPlayer.getLevelScene());
 		setForm(new NoPhysic());
+		setBatch(true);
 
 		setSheet(thatPlayer.getTier());
 		setAnim(new Animation(getSheet(), 0, ANIM_INTERVALL));
-		
-		setDir(thatPlayer.getDir());
+		spawn(y);
+	}
+
+	/**
+	 * Spawns the Firebeam at the given y-coord. Used by the constructor and to
+	 * reuse a dead Firebeam of the players pool.
+	 * 
+	 * @param y
+	 *            Y-coord of the Firebeam
+	 */
+	final void spawn(final float y) {
+		tick = 0;
+		soundTick = (int) (Commons.TICKS_PER_SECOND * SOUND_LENGTH);
+		setSheet(player.getTier());
+		getAnim().reset(getSheet(), 0, ANIM_INTERVALL);
+		setWidth(getAnim().getWidth());
+		setHeight(getAnim().getHeight());
+		setDir(player.getDir());
 		setY(y - getAnim().getHeight());
 		// Used to calculate the x-coord
 		move();
+		setXOld(getX());
+		setYOld(getY());
 
-		setVisible(true);
+		revive();
 		getLevelScene().getSound().play(
 				Art.samples[Art.SAMPLE_PLAYER_FIREBEAM], this, 1, 1);
 	}
@@ -124,19 +142,20 @@ public class Firebeam extends Sprite {
 	}
 
 	@Override
-	public final void render(final Graphics g, final float alpha) {
-		setAnimX(getXOld() + (getX() - getXOld()) * alpha);
-		setAnimY((getYOld() + (getY() - getYOld()) * alpha) - playerYOffset);
+	public final void snapshot(final FrameSnapshot frame) {
+		setAnimX(getX());
+		setAnimY(getY() - playerYOffset);
 
 		if (isVisible()) {
-			if (getDir() >= 0) {
-				g.drawImage(getAnim().getImage(), (int) getAnimX(), (int) getAnimY(), null);
-			} else {
-				g.drawImage(getAnim().getImage(), (int) (getAnimX()
-						- getAnim().getWidth()), (int) getAnimY(), (int) getAnimX(),
-						(int) (getAnimY() + getAnim().getHeight()), getAnim()
-								.getWidth(), 0, 0, getAnim().getHeight(), null);
+			// Mirrored images are drawn to the left of the position
+			int offset = 0;
+			if (getDir() < 0) {
+				offset = getAnim().getWidth();
 			}
+			frame.drawImage(getAnim().getImage(), getXOld() - offset,
+					getYOld() - playerYOffset, getX() - offset, getY()
+							- playerYOffset, getAnim().getWidth(), getAnim()
+							.getHeight(), getDir() < 0);
 		}
 	}
 
@@ -153,7 +172,6 @@ public class Firebeam extends Sprite {
 			soundTick += (int) (Commons.TICKS_PER_SECOND * SOUND_LENGTH);
 		}
 		move();
-		updateCoords();
 		animate();
 	}
 
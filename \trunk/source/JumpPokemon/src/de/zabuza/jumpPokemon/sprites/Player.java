@@ -1,7 +1,8 @@
 package de.zabuza.jumpPokemon.sprites;
 
-import java.awt.Graphics;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Random;
 
@@ -9,6 +10,7 @@ import de.zabuza.jumpPokemon.Animation;
 import de.zabuza.jumpPokemon.Art;
 import de.zabuza.jumpPokemon.Commons;
 import de.zabuza.jumpPokemon.Sheet;
+import de.zabuza.jumpPokemon.render.FrameSnapshot;
 import de.zabuza.jumpPokemon.scenes.LevelScene;
 import de.zabuza.jumpPokemon.scenes.Scene;
 import de.zabuza.physicEngine.PhysicEngine;
@@ -152,6 +154,11 @@ public class Player extends Sprite {
 	 * Punchs random factor which affects its y-coord.
 	 */
 	private static final float PUNCH_RANDOM_FACTOR = 0.2f;
+	/**
+	 * Seed of the random generator, fixed so recorded input is replayed
+	 * equally.
+	 */
+	private static final long RANDOM_SEED = 42;
 
 	/**
 	 * Key container of the scene where the player is located.
@@ -209,6 +216,18 @@ public class Player extends Sprite {
 	 * Container for all current displayed firebeams.
 	 */
 	private List<Firebeam> firebeamlist = new ArrayList<Firebeam>();
+	/**
+	 * Pool of dead punchs which are reused by the next atacks.
+	 */
+	private Deque<Punch> punchPool = new ArrayDeque<Punch>();
+	/**
+	 * Pool of dead firebeams which are reused by the next atacks.
+	 */
+	private Deque<Firebeam> firebeamPool = new ArrayDeque<Firebeam>();
+	/**
+	 * Random generator for the y-coord of punchs.
+	 */
+	private Random random = new Random(RANDOM_SEED);
 
 	/**
 	 * Creates a new Player at a custom starting position.
@@ -477,7 +496,7 @@ public class Player extends Sprite {
 	}
 
 	@Override
-	public final void render(final Graphics g, final float alpha) {
+	public final void snapshot(final FrameSnapshot frame) {
 		
 //		setAnimX((int) ((getXOld() + (getX() - getXOld()) * alpha) - (getAnim()
 //				.getWidth() * renderCorrection)));
@@ -486,23 +505,18 @@ public class Player extends Sprite {
 		setAnimY(getY());
 		
 		if (isVisible()) {
-			if (getDir() < 0) {
-				g.drawImage(getAnim().getImage(), (int) getAnimX(), (int) (Commons.HEIGHT
-						- getAnim().getHeight() - getAnimY()), null);
-			} else {
-				g.drawImage(getAnim().getImage(), (int) getAnimX(), (int) (Commons.HEIGHT
-						- getAnim().getHeight() - getAnimY()), (int) (getAnimX()
-						+ getAnim().getWidth()), (int) (Commons.HEIGHT - getAnimY()),
-						getAnim().getWidth(), 0, 0, getAnim().getHeight(), null);
-			}
+			float y = Commons.HEIGHT - getAnim().getHeight() - getAnimY();
+			frame.drawImage(getAnim().getImage(), getAnimX(), y, getAnimX(),
+					y, getAnim().getWidth(), getAnim().getHeight(),
+					getDir() >= 0);
 		}
 		// TODO All animations must look default to right
 
 		for (Punch punch : punchlist) {
-			punch.render(g, alpha);
+			punch.snapshot(frame);
 		}
 		for (Firebeam beam : firebeamlist) {
-			beam.render(g, alpha);
+			beam.snapshot(frame);
 		}
 	}
 
@@ -515,6 +529,7 @@ public class Player extends Sprite {
 		if (tick > STARTING_TICK) {
 			move();
 			updateCoords();
+			checkFalling();
 			checkAtack();
 			checkEvolve();
 			checkPunchs();
@@ -538,7 +553,7 @@ public class Player extends Sprite {
 		// TODO while jumping, so atack1Sprite is there most time
 		if (getSheet() != getThatSheet("atack1")) {
 			setSheet(getThatSheet("atack1"));
-			setAnim(new Animation(getSheet(), 0, ANIM_ATACK_INTERVALL, 1));
+			getAnim().reset(getSheet(), 0, ANIM_ATACK_INTERVALL, 1);
 			generatePunch();
 		}
 		if (getAnim().isFinished()) {
@@ -555,16 +570,16 @@ public class Player extends Sprite {
 			setSheet(getThatSheet("atack2"));
 			switch (tier) {
 			case 0:
-				setAnim(new Animation(getSheet(), 0, ANIM_ATACK_INTERVALL, 1,
-						0, ANIM_ATACK2_START_0 - 1));
+				getAnim().reset(getSheet(), 0, ANIM_ATACK_INTERVALL, 1,
+						0, ANIM_ATACK2_START_0 - 1);
 				break;
 			case 1:
-				setAnim(new Animation(getSheet(), 0, ANIM_ATACK_INTERVALL, 1,
-						0, ANIM_ATACK2_START_1 - 1));
+				getAnim().reset(getSheet(), 0, ANIM_ATACK_INTERVALL, 1,
+						0, ANIM_ATACK2_START_1 - 1);
 				break;
 			case 2:
-				setAnim(new Animation(getSheet(), 0, ANIM_ATACK_INTERVALL, 1,
-						0, ANIM_ATACK2_START_2 - 1));
+				getAnim().reset(getSheet(), 0, ANIM_ATACK_INTERVALL, 1,
+						0, ANIM_ATACK2_START_2 - 1);
 				break;
 			default:
 				break;
@@ -575,18 +590,18 @@ public class Player extends Sprite {
 		if (getAnim().isFinished() && keys[Commons.KEY_ATACK2]) {
 			switch (tier) {
 			case 0:
-				setAnim(new Animation(getSheet(), 0, ANIM_ATACK_INTERVALL,
-						Animation.INFINITY_LOOPS, ANIM_ATACK2_START_0));
+				getAnim().reset(getSheet(), 0, ANIM_ATACK_INTERVALL,
+						Animation.INFINITY_LOOPS, ANIM_ATACK2_START_0);
 				generateFirebeam();
 				break;
 			case 1:
-				setAnim(new Animation(getSheet(), 0, ANIM_ATACK_INTERVALL,
-						Animation.INFINITY_LOOPS, ANIM_ATACK2_START_1));
+				getAnim().reset(getSheet(), 0, ANIM_ATACK_INTERVALL,
+						Animation.INFINITY_LOOPS, ANIM_ATACK2_START_1);
 				generateFirebeam();
 				break;
 			case 2:
-				setAnim(new Animation(getSheet(), 0, ANIM_ATACK_INTERVALL,
-						Animation.INFINITY_LOOPS, ANIM_ATACK2_START_2));
+				getAnim().reset(getSheet(), 0, ANIM_ATACK_INTERVALL,
+						Animation.INFINITY_LOOPS, ANIM_ATACK2_START_2);
 				generateFirebeam();
 				break;
 			default:
@@ -620,7 +635,7 @@ public class Player extends Sprite {
 		// If standing still and sheet is not the idle sprite, set it
 		if (isStanding() && isOnGround() && getSheet() != getThatSheet("idle")) {
 			setSheet(getThatSheet("idle"));
-			setAnim(new Animation(getSheet(), 0, ANIM_INTERVALL));
+			getAnim().reset(getSheet(), 0, ANIM_INTERVALL);
 			// If walking on ground and sheet is not the walking sprite, set it
 		} else if (!isStanding() && isOnGround()
 				&& getSheet() != getThatSheet("walking")) {
@@ -628,7 +643,7 @@ public class Player extends Sprite {
 			// GETRIGGERED DA JUMP == WALKINGSPRITE!!!
 			// TODO NEED JUMP SPRITE
 			setSheet(getThatSheet("walking"));
-			setAnim(new Animation(getSheet(), 0, ANIM_INTERVALL));
+			getAnim().reset(getSheet(), 0, ANIM_INTERVALL);
 		}
 	}
 
@@ -663,33 +678,40 @@ public class Player extends Sprite {
 	}
 
 	/**
-	 * Checks all {@link Firebeam}s and removes them from the list if they are
-	 * dead.
+	 * Uses the falling animation if the player started to fall and is not
+	 * atacking.
 	 */
-	private void checkFirebeams() {
-		List<Firebeam> copy = new ArrayList<Firebeam>();
-		for (Firebeam beam : firebeamlist) {
-			copy.add(beam);
+	private void checkFalling() {
+		// If not atacking in air use walking sprite
+		// xPic 2 for falling animation
+		if (isFalling() && curAtack == ATACK_NO) {
+			setSheet(getThatSheet("walking"));
+			getAnim().reset(getSheet(), 0, ANIM_INTERVALL, 1, 2, 2);
 		}
-		for (Firebeam beam : copy) {
-			if (beam.isDead()) {
-				firebeamlist.remove(beam);
+	}
+
+	/**
+	 * Checks all {@link Firebeam}s and moves them from the list into the pool
+	 * if they are dead.
+	 */
+	private void checkFirebeams() {
+		// Iterate backwards so removing does not skip an element
+		for (int i = firebeamlist.size() - 1; i >= 0; i--) {
+			if (firebeamlist.get(i).isDead()) {
+				firebeamPool.push(firebeamlist.remove(i));
 			}
 		}
 	}
 
 	/**
-	 * Checks all {@link Punch}s and removes them from the list if they are
-	 * dead.
+	 * Checks all {@link Punch}s and moves them from the list into the pool if
+	 * they are dead.
 	 */
 	private void checkPunchs() {
-		List<Punch> copy = new ArrayList<Punch>();
-		for (Punch punch : punchlist) {
-			copy.add(punch);
-		}
-		for (Punch punch : copy) {
-			if (punch.isDead()) {
-				punchlist.remove(punch);
+		// Iterate backwards so removing does not skip an element
+		for (int i = punchlist.size() - 1; i >= 0; i--) {
+			if (punchlist.get(i).isDead()) {
+				punchPool.push(punchlist.remove(i));
 			}
 		}
 	}
@@ -716,7 +738,13 @@ public class Player extends Sprite {
 			default:
 				break;
 			}
-			firebeamlist.add(new Firebeam(this, beamY));
+			Firebeam beam = firebeamPool.poll();
+			if (beam == null) {
+				beam = new Firebeam(this, beamY);
+			} else {
+				beam.spawn(beamY);
+			}
+			firebeamlist.add(beam);
 		}
 	}
 
@@ -728,13 +756,18 @@ public class Player extends Sprite {
 			return;
 		} else {
 			// TODO Y-Coord should be calculated by the punch, not player
-			Random rnd = new Random();
 			float punchY = Commons.HEIGHT
 					- getY()
 					- (getAnim().getHeight() * PUNCH_Y_OFFSET)
-					+ (rnd.nextFloat() * PUNCH_RANDOM_FACTOR * getAnim()
+					+ (random.nextFloat() * PUNCH_RANDOM_FACTOR * getAnim()
 							.getHeight());
-			punchlist.add(new Punch(this, punchY));
+			Punch punch = punchPool.poll();
+			if (punch == null) {
+				punch = new Punch(this, punchY);
+			} else {
+				punch.spawn(punchY);
+			}
+			punchlist.add(punch);
 		}
 	}
 
@@ -749,7 +782,7 @@ public class Player extends Sprite {
 		setOnGround(false);
 		// Walking sprite xPic 1 for jumping animation
 		setSheet(getThatSheet("walking"));
-		setAnim(new Animation(getSheet(), 0, ANIM_INTERVALL, 1, 1, 1));
+		getAnim().reset(getSheet(), 0, ANIM_INTERVALL, 1, 1, 1);
 		// Ticks for jumping-acceleration
 		jumpTime = JUMPTICKS;
 	}
@@ -813,7 +846,7 @@ public class Player extends Sprite {
 			// xPic 2 for falling animation
 			if (curAtack == ATACK_NO) {
 				setSheet(getThatSheet("walking"));
-				setAnim(new Animation(getSheet(), 0, ANIM_INTERVALL, 1, 2, 2));
+				getAnim().reset(getSheet(), 0, ANIM_INTERVALL, 1, 2, 2);
 			}
 			// Begin to accelerate downwards till speed limit is reached
 		} else if (getYA() < 0 && getYA() > getForm().getFallingSpeedLimit()
@@ -1,10 +1,9 @@
 package de.zabuza.jumpPokemon.sprites;
 
-import java.awt.Graphics;
-
 import de.zabuza.jumpPokemon.Animation;
 import de.zabuza.jumpPokemon.Art;
 import de.zabuza.jumpPokemon.Sheet;
+import de.zabuza.jumpPokemon.render.FrameSnapshot;
 import de.zabuza.physicEngine.forms.NoPhysic;
 
 /**
@@ -46,15 +45,33 @@ public class Punch extends Sprite {
 		this.player = thatPlayer;
 		setLevelScene(thatPlayer.getLevelScene());
 		setForm(new NoPhysic());
+		setBatch(true);
 
 		setSheet(thatPlayer.getTier());
 		setAnim(new Animation(getSheet(), 0, ANIM_INTERVALL, 1));
-		setDir(thatPlayer.getDir());
+		spawn(y);
+	}
+
+	/**
+	 * Spawns the Punch at the given y-coord. Used by the constructor and to
+	 * reuse a dead Punch of the players pool.
+	 * 
+	 * @param y
+	 *            Y-coord of the Punch
+	 */
+	final void spawn(final float y) {
+		setSheet(player.getTier());
+		getAnim().reset(getSheet(), 0, ANIM_INTERVALL, 1);
+		setWidth(getAnim().getWidth());
+		setHeight(getAnim().getHeight());
+		setDir(player.getDir());
 		setY(y - getAnim().getHeight());
 		// Used to calculate the x-coord
 		move();
+		setXOld(getX());
+		setYOld(getY());
 
-		setVisible(true);
+		revive();
 		getLevelScene().getSound().play(Art.samples[Art.SAMPLE_PLAYER_PUNCH],
 				this, 1, 1);
 	}
@@ -78,20 +95,20 @@ public class Punch extends Sprite {
 	}
 
 	@Override
-	public final void render(final Graphics g, final float alpha) {
-		setAnimX(getXOld() + (getX() - getXOld()) * alpha);
-		setAnimY(getYOld() + (getY() - getYOld()) * alpha);
+	public final void snapshot(final FrameSnapshot frame) {
+		setAnimX(getX());
+		setAnimY(getY());
 
 		//TODO Player and Testballs animY is relative to bottom corner and not absolute
 		if (isVisible()) {
-			if (getDir() >= 0) {
-				g.drawImage(getAnim().getImage(), (int) getAnimX(), (int) getAnimY(), null);
-			} else {
-				g.drawImage(getAnim().getImage(), (int) (getAnimX()
-						- getAnim().getWidth()), (int) getAnimY(), (int) getAnimX(),
-						(int) (getAnimY() + getAnim().getHeight()), getAnim()
-								.getWidth(), 0, 0, getAnim().getHeight(), null);
+			// Mirrored images are drawn to the left of the position
+			int offset = 0;
+			if (getDir() < 0) {
+				offset = getAnim().getWidth();
 			}
+			frame.drawImage(getAnim().getImage(), getXOld() - offset,
+					getYOld(), getX() - offset, getY(), getAnim().getWidth(),
+					getAnim().getHeight(), getDir() < 0);
 		}
 	}
 
@@ -100,7 +117,6 @@ public class Punch extends Sprite {
 		setXOld(getX());
 		setYOld(getY());
 		move();
-		updateCoords();
 		animate();
 	}
 
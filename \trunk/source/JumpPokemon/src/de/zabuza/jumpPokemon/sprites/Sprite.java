@@ -1,12 +1,13 @@
 package de.zabuza.jumpPokemon.sprites;
 
-import java.awt.Graphics;
 import java.awt.Image;
 
 import de.zabuza.jumpPokemon.Animation;
 import de.zabuza.jumpPokemon.Sheet;
 import de.zabuza.jumpPokemon.collision.Hitbox;
+import de.zabuza.jumpPokemon.render.FrameSnapshot;
 import de.zabuza.jumpPokemon.scenes.LevelScene;
+import de.zabuza.physicEngine.EntityStore;
 import de.zabuza.physicEngine.PhysicEngine;
 import de.zabuza.physicEngine.forms.Form;
 import de.zabuza.soundEngine.SoundSource;
@@ -37,10 +38,14 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 */
 	private Form form;
 	/**
-	 * X, y are current coords, xOld and yOld are old coords, xa, ya will be
-	 * added to x and y.
+	 * Store which contains the coords, accelerations and states of the
+	 * sprite. The sprite is a view on its entity in the store.
 	 */
-	private float x, y, xOld, yOld, xa, ya;
+	private EntityStore entities;
+	/**
+	 * Index of the sprites entity in the store.
+	 */
+	private int entity;
 	/**
 	 * Width of the sprite.
 	 */
@@ -54,19 +59,6 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 */
 	private float animX, animY;
 
-	/**
-	 * True if the sprite is standing still.
-	 */
-	private boolean standing;
-	/**
-	 * True if the sprite is jumping.
-	 */
-	private boolean jumping;
-	/**
-	 * True if the sprite is on the ground and not in the air.
-	 */
-	private boolean onGround;
-
 	/**
 	 * Dir of Sprite -1 for left, 1 for right.
 	 */
@@ -79,6 +71,10 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 * True if the sprite is dead.
 	 */
 	private boolean dead;
+	/**
+	 * Proxy of the sprite in the collision grid, -1 if it is not in the grid.
+	 */
+	private int proxy = -1;
 
 	/**
 	 * Animation of the Sprite.
@@ -136,7 +132,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 
 	@Override
 	public final float getX() {
-		return x;
+		return entities.getX(entity);
 	}
 
 	/**
@@ -146,7 +142,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 */
 	@Override
 	public final float getXA() {
-		return xa;
+		return entities.getXA(entity);
 	}
 
 	/**
@@ -155,12 +151,12 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 * @return Current old x-coord
 	 */
 	public final float getXOld() {
-		return xOld;
+		return entities.getXOld(entity);
 	}
 
 	@Override
 	public final float getY() {
-		return y;
+		return entities.getY(entity);
 	}
 
 	/**
@@ -170,7 +166,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 */
 	@Override
 	public final float getYA() {
-		return ya;
+		return entities.getYA(entity);
 	}
 
 	/**
@@ -179,7 +175,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 * @return Current old y-coord
 	 */
 	public final float getYOld() {
-		return yOld;
+		return entities.getYOld(entity);
 	}
 
 	/**
@@ -197,7 +193,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 * @return True if sprite is jumping
 	 */
 	public final boolean isJumping() {
-		return jumping;
+		return entities.getFlag(entity, EntityStore.FLAG_JUMPING);
 	}
 
 	/**
@@ -206,7 +202,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 * @return True if sprite is on the ground
 	 */
 	public final boolean isOnGround() {
-		return onGround;
+		return entities.getFlag(entity, EntityStore.FLAG_ON_GROUND);
 	}
 
 	/**
@@ -215,7 +211,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 * @return True if sprite is standing
 	 */
 	public final boolean isStanding() {
-		return standing;
+		return entities.getFlag(entity, EntityStore.FLAG_STANDING);
 	}
 
 	/**
@@ -229,20 +225,19 @@ public abstract class Sprite implements SoundSource, Hitbox {
 
 	/**
 	 * Movement of Sprite, mostly it will affect xa and ya before using
-	 * updateCoords().
+	 * updateCoords() or before the batch is integrated.
 	 */
 	public abstract void move();
 
 	/**
-	 * Renders the Sprite on a {@link Graphics} object.
+	 * Records the Sprite into the snapshot of the current tick, which is
+	 * drawn by the render thread. Images keep their position of the previous
+	 * tick to be interpolated.
 	 * 
-	 * @param g
-	 *            Graphics object to draw on
-	 * @param alpha
-	 *            1 if all ticks for the second are done, 0 if none is done, 0.5
-	 *            if half etc.
+	 * @param frame
+	 *            Snapshot to record into
 	 */
-	public abstract void render(Graphics g, float alpha);
+	public abstract void snapshot(FrameSnapshot frame);
 
 	/**
 	 * Sets the current Animation.
@@ -263,7 +258,19 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 *            True if sprite is jumping
 	 */
 	public final void setJumping(final boolean thatJumping) {
-		this.jumping = thatJumping;
+		entities.setFlag(entity, EntityStore.FLAG_JUMPING, thatJumping);
+	}
+
+	/**
+	 * Sets if the sprite is moved by {@link PhysicEngine#integrate} together
+	 * with all other batch entities of its LevelScene, instead of by
+	 * updateCoords().
+	 * 
+	 * @param thatBatch
+	 *            True if the sprite is moved in the batch
+	 */
+	protected final void setBatch(final boolean thatBatch) {
+		entities.setFlag(entity, EntityStore.FLAG_BATCH, thatBatch);
 	}
 
 	/**
@@ -273,7 +280,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 *            True if sprite is on the ground
 	 */
 	public final void setOnGround(final boolean thatOnGround) {
-		this.onGround = thatOnGround;
+		entities.setFlag(entity, EntityStore.FLAG_ON_GROUND, thatOnGround);
 	}
 
 	/**
@@ -295,7 +302,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 *            True if sprite is standing
 	 */
 	public final void setStanding(final boolean thatStanding) {
-		this.standing = thatStanding;
+		entities.setFlag(entity, EntityStore.FLAG_STANDING, thatStanding);
 	}
 
 	/**
@@ -305,7 +312,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 *            X-coord to set
 	 */
 	public final void setX(final float thatX) {
-		this.x = thatX;
+		entities.setX(entity, thatX);
 	}
 
 	/**
@@ -315,7 +322,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 *            XA to set
 	 */
 	public final void setXA(final float thatXA) {
-		this.xa = thatXA;
+		entities.setXA(entity, thatXA);
 	}
 
 	/**
@@ -325,7 +332,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 *            Y-coord to set
 	 */
 	public final void setY(final float thatY) {
-		this.y = thatY;
+		entities.setY(entity, thatY);
 	}
 
 	/**
@@ -335,7 +342,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 *            YA to set
 	 */
 	public final void setYA(final float thatYA) {
-		this.ya = thatYA;
+		entities.setYA(entity, thatYA);
 	}
 
 	/**
@@ -350,8 +357,45 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	public final void updateCoords() {
 		levelScene.getPhysicEngine().affect(this);
 		// Update the coords by adding xa and xy
-		setX(getX() + xa);
-		setY(getY() + ya);
+		setX(getX() + getXA());
+		setY(getY() + getYA());
+	}
+
+	/**
+	 * Returns if the sprite started to fall in its last update of the
+	 * coordinates.
+	 * 
+	 * @return True if the sprite started to fall
+	 */
+	public final boolean isFalling() {
+		return entities.getFlag(entity, EntityStore.FLAG_FALLING);
+	}
+
+	/**
+	 * Gets the store which contains the sprites entity.
+	 * 
+	 * @return Store which contains the sprites entity
+	 */
+	public final EntityStore getEntities() {
+		return entities;
+	}
+
+	/**
+	 * Gets the index of the sprites entity in its store.
+	 * 
+	 * @return Index of the sprites entity
+	 */
+	public final int getEntity() {
+		return entity;
+	}
+
+	/**
+	 * Releases the sprites entity in its store. Must be used after the
+	 * sprite was removed and is no longer ticked, the sprite can not be used
+	 * afterwards.
+	 */
+	public final void release() {
+		entities.release(entity);
 	}
 
 	/**
@@ -362,6 +406,14 @@ public abstract class Sprite implements SoundSource, Hitbox {
 		dead = true;
 	}
 
+	/**
+	 * Revives a dead Sprite, e.g. if it is reused from a pool.
+	 */
+	protected final void revive() {
+		setVisible(true);
+		dead = false;
+	}
+
 	//TODO Should be protected and not public, for testing purpose
 	/**
 	 * Gets the current Animation.
@@ -425,16 +477,20 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 */
 	protected final void setForm(final Form thatForm) {
 		this.form = thatForm;
+		entities.setForm(entity, thatForm);
 	}
 
 	/**
-	 * Sets the current LevelScene.
+	 * Sets the current LevelScene and allocates the sprites entity in the
+	 * store of the LevelScene. Must be used before all other setters.
 	 * 
 	 * @param thatLevelScene
 	 *            Levelscene to set
 	 */
 	protected final void setLevelScene(final LevelScene thatLevelScene) {
 		this.levelScene = thatLevelScene;
+		this.entities = thatLevelScene.getEntityStore();
+		this.entity = entities.allocate();
 	}
 
 	/**
@@ -455,7 +511,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 *            Old x-coord to set
 	 */
 	protected final void setXOld(final float thatXOld) {
-		this.xOld = thatXOld;
+		entities.setXOld(entity, thatXOld);
 	}
 
 	/**
@@ -465,7 +521,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 *            Old y-coord to set
 	 */
 	protected final void setYOld(final float thatYOld) {
-		this.yOld = thatYOld;
+		entities.setYOld(entity, thatYOld);
 	}
 
 	/**
@@ -489,6 +545,7 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	 * Gets sprites height.
 	 * @return The height
 	 */
+	@Override
 	public int getHeight() {
 		return height;
 	}
@@ -510,4 +567,28 @@ public abstract class Sprite implements SoundSource, Hitbox {
 	public int getImageWidth() {
 		return getImage().getWidth(null);
 	}
+
+	@Override
+	public final int getProxy() {
+		return proxy;
+	}
+
+	@Override
+	public final void setProxy(final int thatProxy) {
+		this.proxy = thatProxy;
+	}
+
+	/**
+	 * Triggered if the sprite collides with another hitbox. Does nothing by
+	 * default.
+	 * 
+	 * @param other
+	 *            Hitbox which collides with the sprite
+	 * @param side
+	 *            Side of the sprite which is hit, a side of
+	 *            {@link de.zabuza.jumpPokemon.collision.Collision}
+	 */
+	@Override
+	public void collide(final Hitbox other, final int side) {
+	}
 }
@@ -1,10 +1,9 @@
 package de.zabuza.jumpPokemon.sprites;
 
-import java.awt.Graphics;
-
 import de.zabuza.jumpPokemon.Animation;
 import de.zabuza.jumpPokemon.Art;
 import de.zabuza.jumpPokemon.Commons;
+import de.zabuza.jumpPokemon.render.FrameSnapshot;
 import de.zabuza.jumpPokemon.scenes.LevelScene;
 import de.zabuza.jumpPokemon.scenes.Scene;
 import de.zabuza.physicEngine.PhysicEngine;
@@ -75,6 +74,7 @@ public class Testball extends Sprite {
 	public Testball(final LevelScene level, final int x, final int y) {
 		setLevelScene(level);
 		setForm(new Ball());
+		setBatch(true);
 
 		keys = Scene.getKeys();
 
@@ -136,14 +136,15 @@ public class Testball extends Sprite {
 	}
 
 	@Override
-	public final void render(final Graphics g, final float alpha) {
-
-		setAnimX(getXOld() + (getX() - getXOld()) * alpha);
-		setAnimY(getYOld() + (getY() - getYOld()) * alpha);
+	public final void snapshot(final FrameSnapshot frame) {
+		setAnimX(getX());
+		setAnimY(getY());
 
 		if (isVisible()) {
-			g.drawImage(getAnim().getImage(), (int) getAnimX(), (int) (Commons.HEIGHT
-					- getAnim().getHeight() - getAnimY()), null);
+			int height = getAnim().getHeight();
+			frame.drawImage(getAnim().getImage(), getXOld(), Commons.HEIGHT
+					- height - getYOld(), getX(), Commons.HEIGHT - height
+					- getY(), getAnim().getWidth(), height, false);
 		}
 	}
 
@@ -152,7 +153,6 @@ public class Testball extends Sprite {
 		setXOld(getX());
 		setYOld(getY());
 		move();
-		updateCoords();
 		animate();
 	}
 
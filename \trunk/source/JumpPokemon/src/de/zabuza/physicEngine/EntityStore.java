@@ -0,0 +1,367 @@
+package de.zabuza.physicEngine;
+
+import java.util.Arrays;
+
+import de.zabuza.physicEngine.forms.Form;
+import de.zabuza.physicEngine.forms.NoPhysic;
+
+/**
+ * EntityStore class. Stores the physical state of many entities as parallel
+ * arrays, an entity is an index into them. The {@link PhysicEngine} can
+ * integrate all entities of a store in one loop without following references
+ * and without calls to {@link Form}s, their constants are copied into the
+ * store.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class EntityStore {
+
+	/**
+	 * Flag of used entities.
+	 */
+	public static final int FLAG_USED = 1;
+	/**
+	 * Flag of entities which are affected by physics, false for
+	 * {@link NoPhysic}.
+	 */
+	public static final int FLAG_PHYSIC = 1 << 1;
+	/**
+	 * Flag of jumping entities.
+	 */
+	public static final int FLAG_JUMPING = 1 << 2;
+	/**
+	 * Flag of entities which are on the ground and not in the air.
+	 */
+	public static final int FLAG_ON_GROUND = 1 << 3;
+	/**
+	 * Flag of entities which are standing still.
+	 */
+	public static final int FLAG_STANDING = 1 << 4;
+	/**
+	 * Flag of entities which started to fall in their last integration.
+	 */
+	public static final int FLAG_FALLING = 1 << 5;
+	/**
+	 * Flag of entities which are moved by {@link PhysicEngine#integrate}
+	 * instead of their own logic.
+	 */
+	public static final int FLAG_BATCH = 1 << 6;
+
+	/**
+	 * Initial amount of entities.
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * X, y are current coords, xOld and yOld are old coords, xa, ya will be
+	 * added to x and y.
+	 */
+	float[] x, y, xOld, yOld, xa, ya;
+	/**
+	 * Constants of the entities {@link Form}s.
+	 */
+	float[] downwaySpeed, fallingSpeedLimit, groundInertia, airInertia;
+	/**
+	 * Flags of the entities.
+	 */
+	int[] flags;
+
+	/**
+	 * Limit of all used entities, entities above are free.
+	 */
+	private int limit;
+	/**
+	 * Stack of free entities below the limit.
+	 */
+	private int[] free;
+	/**
+	 * Amount of free entities on the stack.
+	 */
+	private int freeAmount;
+
+	/**
+	 * Creates a new empty EntityStore.
+	 */
+	public EntityStore() {
+		x = new float[INITIAL_CAPACITY];
+		y = new float[INITIAL_CAPACITY];
+		xOld = new float[INITIAL_CAPACITY];
+		yOld = new float[INITIAL_CAPACITY];
+		xa = new float[INITIAL_CAPACITY];
+		ya = new float[INITIAL_CAPACITY];
+		downwaySpeed = new float[INITIAL_CAPACITY];
+		fallingSpeedLimit = new float[INITIAL_CAPACITY];
+		groundInertia = new float[INITIAL_CAPACITY];
+		airInertia = new float[INITIAL_CAPACITY];
+		flags = new int[INITIAL_CAPACITY];
+		free = new int[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Allocates a new entity with zero coords and no flags except
+	 * {@link #FLAG_USED}.
+	 * 
+	 * @return Index of the entity
+	 */
+	public final int allocate() {
+		int entity;
+		if (freeAmount > 0) {
+			freeAmount--;
+			entity = free[freeAmount];
+		} else {
+			if (limit == flags.length) {
+				grow();
+			}
+			entity = limit;
+			limit++;
+		}
+		x[entity] = 0;
+		y[entity] = 0;
+		xOld[entity] = 0;
+		yOld[entity] = 0;
+		xa[entity] = 0;
+		ya[entity] = 0;
+		flags[entity] = FLAG_USED;
+		return entity;
+	}
+
+	/**
+	 * Gets the limit of all used entities, entities at and above are free.
+	 * 
+	 * @return Limit of all used entities
+	 */
+	public final int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Gets the amount of used entities.
+	 * 
+	 * @return Amount of used entities
+	 */
+	public final int size() {
+		return limit - freeAmount;
+	}
+
+	/**
+	 * Releases an entity, its index can be reused by the next allocation.
+	 * Must not be used while the entity is still ticked.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 */
+	public final void release(final int entity) {
+		if ((flags[entity] & FLAG_USED) == 0) {
+			return;
+		}
+		flags[entity] = 0;
+		free[freeAmount] = entity;
+		freeAmount++;
+	}
+
+	/**
+	 * Gets a flag of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @param flag
+	 *            Flag to get
+	 * @return True if the flag is set
+	 */
+	public final boolean getFlag(final int entity, final int flag) {
+		return (flags[entity] & flag) != 0;
+	}
+
+	/**
+	 * Sets a flag of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @param flag
+	 *            Flag to set
+	 * @param value
+	 *            True to set the flag, false to clear it
+	 */
+	public final void setFlag(final int entity, final int flag,
+			final boolean value) {
+		if (value) {
+			flags[entity] |= flag;
+		} else {
+			flags[entity] &= ~flag;
+		}
+	}
+
+	/**
+	 * Sets the {@link Form} of an entity by copying its constants.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @param form
+	 *            Form to set
+	 */
+	public final void setForm(final int entity, final Form form) {
+		setFlag(entity, FLAG_PHYSIC, !(form instanceof NoPhysic));
+		downwaySpeed[entity] = form.getDownwaySpeed();
+		fallingSpeedLimit[entity] = form.getFallingSpeedLimit();
+		groundInertia[entity] = form.getGroundInertia();
+		airInertia[entity] = form.getAirInertia();
+	}
+
+	/**
+	 * Gets the x-coord of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @return X-coord of the entity
+	 */
+	public final float getX(final int entity) {
+		return x[entity];
+	}
+
+	/**
+	 * Sets the x-coord of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @param value
+	 *            X-coord to set
+	 */
+	public final void setX(final int entity, final float value) {
+		x[entity] = value;
+	}
+
+	/**
+	 * Gets the y-coord of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @return Y-coord of the entity
+	 */
+	public final float getY(final int entity) {
+		return y[entity];
+	}
+
+	/**
+	 * Sets the y-coord of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @param value
+	 *            Y-coord to set
+	 */
+	public final void setY(final int entity, final float value) {
+		y[entity] = value;
+	}
+
+	/**
+	 * Gets the old x-coord of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @return Old x-coord of the entity
+	 */
+	public final float getXOld(final int entity) {
+		return xOld[entity];
+	}
+
+	/**
+	 * Sets the old x-coord of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @param value
+	 *            Old x-coord to set
+	 */
+	public final void setXOld(final int entity, final float value) {
+		xOld[entity] = value;
+	}
+
+	/**
+	 * Gets the old y-coord of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @return Old y-coord of the entity
+	 */
+	public final float getYOld(final int entity) {
+		return yOld[entity];
+	}
+
+	/**
+	 * Sets the old y-coord of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @param value
+	 *            Old y-coord to set
+	 */
+	public final void setYOld(final int entity, final float value) {
+		yOld[entity] = value;
+	}
+
+	/**
+	 * Gets the xa of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @return XA of the entity
+	 */
+	public final float getXA(final int entity) {
+		return xa[entity];
+	}
+
+	/**
+	 * Sets the xa of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @param value
+	 *            XA to set
+	 */
+	public final void setXA(final int entity, final float value) {
+		xa[entity] = value;
+	}
+
+	/**
+	 * Gets the ya of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @return YA of the entity
+	 */
+	public final float getYA(final int entity) {
+		return ya[entity];
+	}
+
+	/**
+	 * Sets the ya of an entity.
+	 * 
+	 * @param entity
+	 *            Index of the entity
+	 * @param value
+	 *            YA to set
+	 */
+	public final void setYA(final int entity, final float value) {
+		ya[entity] = value;
+	}
+
+	/**
+	 * Doubles the capacity of all arrays.
+	 */
+	private void grow() {
+		int capacity = flags.length * 2;
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		xOld = Arrays.copyOf(xOld, capacity);
+		yOld = Arrays.copyOf(yOld, capacity);
+		xa = Arrays.copyOf(xa, capacity);
+		ya = Arrays.copyOf(ya, capacity);
+		downwaySpeed = Arrays.copyOf(downwaySpeed, capacity);
+		fallingSpeedLimit = Arrays.copyOf(fallingSpeedLimit, capacity);
+		groundInertia = Arrays.copyOf(groundInertia, capacity);
+		airInertia = Arrays.copyOf(airInertia, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+		free = Arrays.copyOf(free, capacity);
+	}
+}
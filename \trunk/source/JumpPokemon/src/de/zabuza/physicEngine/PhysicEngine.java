@@ -1,17 +1,15 @@
 package de.zabuza.physicEngine;
 
-import de.zabuza.jumpPokemon.Animation;
 import de.zabuza.jumpPokemon.scenes.LevelScene;
 import de.zabuza.jumpPokemon.scenes.Scene;
-import de.zabuza.jumpPokemon.sprites.Player;
 import de.zabuza.jumpPokemon.sprites.Sprite;
-import de.zabuza.physicEngine.forms.NoPhysic;
 
 //TODO Muss mehr portable sein, darf nix auerhalb des package importieren,
 //sollte Schnittstellen haben die dann z.B. von Sprite extended werden.
 /**
  * Portable PhysicEngine. Uses {@link forms.Form}s which contains many
- * constants. Use affect(Sprite) to change its coordinates with the engine.
+ * constants. Use affect(Sprite) to change its coordinates with the engine or
+ * integrate(EntityStore) to move many entities at once.
  * 
  * @author Zabuza
  * 
@@ -32,10 +30,6 @@ public class PhysicEngine {
 	 * Limit of inertia.
 	 */
 	private static final float INERTIA_LIMIT = 0.5f;
-	/**
-	 * Intervall for players animations in ticks.
-	 */
-	private static final int ANIM_INTERVALL = 4;
 
 	// XXX Remove suppress unused in future, evtl. it will be needed
 	/**
@@ -59,12 +53,23 @@ public class PhysicEngine {
 	 *            Sprite to affect
 	 */
 	public final void affect(final Sprite sprite) {
-		// Only affect if form is not NoPhysic
-		if (!(sprite.getForm() instanceof NoPhysic)) {
-			gravity(sprite);
-			inertia(sprite);
-			airDrag(sprite);
-		}
+		int entity = sprite.getEntity();
+		affect(sprite.getEntities(), entity, entity + 1, EntityStore.FLAG_USED,
+				false);
+	}
+
+	/**
+	 * Integrates all entities of a store which are flagged with
+	 * {@link EntityStore#FLAG_BATCH} in one loop. Affects them like
+	 * affect(Sprite) and adds xa and ya to their coordinates. The old
+	 * coordinates are left to the owners of the entities, which keep them
+	 * before they move.
+	 * 
+	 * @param store
+	 *            Store with the entities to integrate
+	 */
+	public final void integrate(final EntityStore store) {
+		affect(store, 0, store.getLimit(), EntityStore.FLAG_BATCH, true);
 	}
 
 	/**
@@ -78,70 +83,91 @@ public class PhysicEngine {
 	}
 
 	/**
-	 * Affects the coordinates of a Sprite by using air drag.
+	 * Affects the acceleration of a range of entities by using gravity,
+	 * inertia and air drag. Sets {@link EntityStore#FLAG_FALLING} if an
+	 * entity started to fall.
 	 * 
-	 * @param sprite
-	 *            Sprite to affect with air drag
+	 * @param store
+	 *            Store which contains the entities
+	 * @param from
+	 *            Index of the first entity, inclusive
+	 * @param to
+	 *            Index of the last entity, exclusive
+	 * @param required
+	 *            Flag which an entity needs to be affected
+	 * @param move
+	 *            True if xa and ya should be added to the coordinates
 	 */
-	private void airDrag(final Sprite sprite) {
-		// Use the air drag to decrease the
-		// acceleration in y-dir when jumping upwards
-		if (sprite.isJumping() && sprite.getYA() > 0) {
-			sprite.setYA(sprite.getYA() * AIR_DRAG);
-		}
-	}
+	private static void affect(final EntityStore store, final int from,
+			final int to, final int required, final boolean move) {
+		// Work on local references, the loop then only touches the arrays
+		int[] flagsArray = store.flags;
+		float[] x = store.x;
+		float[] y = store.y;
+		float[] xaArray = store.xa;
+		float[] yaArray = store.ya;
+		float[] downwaySpeed = store.downwaySpeed;
+		float[] fallingSpeedLimit = store.fallingSpeedLimit;
+		float[] groundInertia = store.groundInertia;
+		float[] airInertia = store.airInertia;
+		for (int i = from; i < to; i++) {
+			int flags = flagsArray[i];
+			if ((flags & required) == 0) {
+				continue;
+			}
+			flags &= ~EntityStore.FLAG_FALLING;
+			float xa = xaArray[i];
+			float ya = yaArray[i];
 
-	/**
-	 * Affects the coordinates of a Sprite by using gravity.
-	 * 
-	 * @param sprite
-	 *            Sprite to affect with gravity
-	 */
-	private void gravity(final Sprite sprite) {
-		// Generall gravity influence if not jumping
-		if (!sprite.isJumping() && sprite.getY() > LevelScene.GROUND_HEIGHT) {
-			if (sprite.getYA() > sprite.getForm().getDownwaySpeed()) {
-				// Use downwayspeed to decrement y-coord
-				sprite.setYA(sprite.getForm().getDownwaySpeed());
-				if (sprite instanceof Player) {
-					// If not atacking in air use walking sprite
-					// xPic 2 for falling animation
-					if (((Player) sprite).getCurAtack() == 0) {
-						// TODO Das sollte der Player machen, nicht die Engine
-						sprite.setSheet(((Player) sprite)
-								.getThatSheet("walking"));
-						sprite.setAnim(new Animation(sprite.getSheet(), 0,
-								ANIM_INTERVALL, 1, 2, 2));
+			// Only affect if form is not NoPhysic
+			if ((flags & EntityStore.FLAG_PHYSIC) != 0) {
+				// Generall gravity influence if not jumping
+				if ((flags & EntityStore.FLAG_JUMPING) == 0
+						&& y[i] > LevelScene.GROUND_HEIGHT) {
+					if (ya > downwaySpeed[i]) {
+						// Use downwayspeed to decrement y-coord
+						ya = downwaySpeed[i];
+						// Entities standing on a tile are pulled down too
+						// but stay on the ground, they do not start to fall
+						if ((flags & EntityStore.FLAG_ON_GROUND) == 0) {
+							flags |= EntityStore.FLAG_FALLING;
+						}
+						// Begin to accelerate downwards till speed limit is
+						// reached
+					} else if (ya < 0 && ya > fallingSpeedLimit[i]) {
+						// Use gravity to accelerate downwards
+						ya *= GRAVITY;
 					}
 				}
-				// Begin to accelerate downwards till speed limit is reached
-			} else if (sprite.getYA() < 0
-					&& sprite.getYA() > sprite.getForm().getFallingSpeedLimit()) {
-				// Use gravity to accelerate downwards
-				sprite.setYA(sprite.getYA() * GRAVITY);
-			}
-		}
-	}
 
-	/**
-	 * Affects the coordinates of a Sprite by using inertia.
-	 * 
-	 * @param sprite
-	 *            Sprite to affect with inertia
-	 */
-	private void inertia(final Sprite sprite) {
-		// Use ground and air inertia to decrease the acceleration in x-dir
-		if (sprite.isOnGround()) {
-			sprite.setXA(sprite.getXA() * sprite.getForm().getGroundInertia());
-		} else {
-			sprite.setXA(sprite.getXA() * sprite.getForm().getAirInertia());
-		}
+				// Use ground and air inertia to decrease the acceleration
+				// in x-dir
+				if ((flags & EntityStore.FLAG_ON_GROUND) != 0) {
+					xa *= groundInertia[i];
+				} else {
+					xa *= airInertia[i];
+				}
+				// Stop influence of inertia which causes
+				// sliding in x-dir when limit is reached
+				if (Math.abs(xa) < INERTIA_LIMIT) {
+					xa = 0;
+					flags |= EntityStore.FLAG_STANDING;
+				}
 
-		// Stop influence of inertia which causes
-		// sliding in x-dir when limit is reached
-		if (Math.abs(sprite.getXA()) < INERTIA_LIMIT) {
-			sprite.setXA(0);
-			sprite.setStanding(true);
+				// Use the air drag to decrease the
+				// acceleration in y-dir when jumping upwards
+				if ((flags & EntityStore.FLAG_JUMPING) != 0 && ya > 0) {
+					ya *= AIR_DRAG;
+				}
+			}
+
+			flagsArray[i] = flags;
+			xaArray[i] = xa;
+			yaArray[i] = ya;
+			if (move) {
+				x[i] += xa;
+				y[i] += ya;
+			}
 		}
 	}
 }
@@ -16,7 +16,8 @@ import de.zabuza.soundEngine.sample.SoundSample;
 /**
  * SoundEngine. Provides playing .wav mono sounds and .midi or .mid. Will create
  * a own stereo interpretation of sounds with the x- and y-coords of the
- * {@link SoundSource}.
+ * {@link SoundSource}. Music is played by the systems Midi sequencer or, with
+ * software music, by the own software synthesizer of the engine if it has one.
  * 
  * @author Zabuza
  * 
@@ -52,6 +53,15 @@ public abstract class SoundEngine implements Runnable {
 	 * Current volume of music.
 	 */
 	private float musicVolume = 1.0f;
+	/**
+	 * True if music is played by the software synthesizer instead of the
+	 * systems Midi sequencer.
+	 */
+	private boolean softwareMusic = false;
+	/**
+	 * Sequence which is currently played, null if there is none.
+	 */
+	private Sequence currentSequence;
 
 	/**
 	 * Updates the sounds and plays the next bytes. Should be triggered by a
@@ -77,6 +87,16 @@ public abstract class SoundEngine implements Runnable {
 		return soundVolume;
 	}
 
+	/**
+	 * Returns if music is played by the software synthesizer instead of the
+	 * systems Midi sequencer.
+	 * 
+	 * @return True if software music is used
+	 */
+	public final boolean isSoftwareMusic() {
+		return softwareMusic;
+	}
+
 	/**
 	 * Loads and returns a sample from an url.
 	 * 
@@ -145,6 +165,9 @@ public abstract class SoundEngine implements Runnable {
 			musicVolume = volume;
 		}
 
+		if (receiver == null) {
+			return;
+		}
 		ShortMessage volMessage = new ShortMessage();
 
 		for (int i = 0; i < MIDI_CHANNELS; i++) {
@@ -161,6 +184,27 @@ public abstract class SoundEngine implements Runnable {
 		}
 	}
 
+	/**
+	 * Sets if music is played by the software synthesizer instead of the
+	 * systems Midi sequencer. The current music is restarted with it. Without
+	 * a systems Midi sequencer software music can not be turned off.
+	 * 
+	 * @param thatSoftwareMusic
+	 *            True to use software music
+	 */
+	public final void setSoftwareMusic(final boolean thatSoftwareMusic) {
+		if (softwareMusic == thatSoftwareMusic
+				|| (!thatSoftwareMusic && sequencer == null)) {
+			return;
+		}
+		Sequence sequence = currentSequence;
+		stopMusic();
+		softwareMusic = thatSoftwareMusic;
+		if (sequence != null) {
+			startMusic(sequence);
+		}
+	}
+
 	/**
 	 * Sets the current sound volume.
 	 * 
@@ -191,6 +235,11 @@ public abstract class SoundEngine implements Runnable {
 	 */
 	public final void startMusic(final Sequence sequence) {
 		stopMusic();
+		currentSequence = sequence;
+		if (softwareMusic) {
+			startSynth(sequence);
+			return;
+		}
 		if (sequencer != null) {
 			try {
 				sequencer.open();
@@ -209,6 +258,8 @@ public abstract class SoundEngine implements Runnable {
 	 * Stops the current played Midi Sequence.
 	 */
 	public final void stopMusic() {
+		currentSequence = null;
+		stopSynth();
 		if (sequencer != null) {
 			try {
 				sequencer.stop();
@@ -283,6 +334,23 @@ public abstract class SoundEngine implements Runnable {
 		this.sequencer = thatSequencer;
 	}
 
+	/**
+	 * Starts to loop a Midi Sequence with the software synthesizer of the
+	 * engine. Has no effect on engines without a software synthesizer.
+	 * 
+	 * @param sequence
+	 *            Sequence to play
+	 */
+	protected void startSynth(final Sequence sequence) {
+	}
+
+	/**
+	 * Stops the music of the software synthesizer of the engine. Has no effect
+	 * on engines without a software synthesizer.
+	 */
+	protected void stopSynth() {
+	}
+
 	/**
 	 * Updates the sounds and plays the next bytes in SoundEngines own Thread
 	 * while its running.
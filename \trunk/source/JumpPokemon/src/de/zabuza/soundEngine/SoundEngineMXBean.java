@@ -0,0 +1,41 @@
+package de.zabuza.soundEngine;
+
+/**
+ * Management interface of a {@link SoundEngine} which plays on a line,
+ * exposed via JMX. Tells apart underruns of the line from overloads of the
+ * mixer.
+ * 
+ * @author Zabuza
+ * 
+ */
+public interface SoundEngineMXBean {
+	/**
+	 * Gets the amount of sound commands which were dropped because the mixer
+	 * fell behind.
+	 * 
+	 * @return Amount of dropped commands
+	 */
+	long getDroppedCommands();
+
+	/**
+	 * Gets the current latency, the duration of the sound which is kept
+	 * queued in the line.
+	 * 
+	 * @return Latency in milliseconds
+	 */
+	float getLatencyMillis();
+
+	/**
+	 * Gets the amount of buffers whose mixing took longer than playing them.
+	 * 
+	 * @return Amount of overloads
+	 */
+	long getOverloads();
+
+	/**
+	 * Gets the amount of times the line ran empty.
+	 * 
+	 * @return Amount of underruns
+	 */
+	long getUnderruns();
+}
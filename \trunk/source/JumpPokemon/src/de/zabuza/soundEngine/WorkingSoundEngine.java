@@ -1,31 +1,37 @@
 package de.zabuza.soundEngine;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.file.Paths;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.sound.midi.MidiSystem;
 import javax.sound.midi.MidiUnavailableException;
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Line;
+import javax.sound.midi.Sequence;
 import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.Mixer;
-import javax.sound.sampled.SourceDataLine;
 
 import de.zabuza.soundEngine.mixer.ListenerMixer;
-import de.zabuza.soundEngine.sample.SampleLoader;
-import de.zabuza.soundEngine.sample.SamplePlayer;
+import de.zabuza.soundEngine.mixer.MixKernels;
+import de.zabuza.soundEngine.sample.SampleRegistry;
 import de.zabuza.soundEngine.sample.SoundSample;
+import de.zabuza.soundEngine.sink.AudioSink;
+import de.zabuza.soundEngine.sink.LineSink;
+import de.zabuza.soundEngine.synth.MusicCache;
+import de.zabuza.soundEngine.synth.SequenceSynth;
 
 /**
  * WorkingSoundEngine. Provides playing .wav mono sounds and .midi or .mid. Will
  * create a own stereo interpretation of sounds with the x- and y-coords of the
- * {@link SoundSource}.
+ * {@link SoundSource}. The mixer thread keeps only as much sound queued in the
+ * line as the current latency allows. The latency starts at the latency target,
+ * grows after underruns and shrinks towards the safety floor while the line
+ * runs without them. With an {@link AudioSink} which is not real time the
+ * engine runs offline: it has no mixer thread and renders as fast as possible
+ * whenever {@link #render(int)} is called.
  * 
  * @author Zabuza
  * 
  */
-public class WorkingSoundEngine extends SoundEngine {
+public class WorkingSoundEngine extends SoundEngine implements
+		SoundEngineMXBean {
 
 	/**
 	 * Sounds rate.
@@ -35,10 +41,6 @@ public class WorkingSoundEngine extends SoundEngine {
 	 * Divider which converts the sound rate into the buffer size.
 	 */
 	private static final int BUF_SIZE_CONV_DIV = 100;
-	/**
-	 * Factor which increases the buffer size.
-	 */
-	private static final int BUF_SIZE_FACTOR = 4;
 	/**
 	 * Amount of sound channels, 1 for mono and 2 for stereo.
 	 */
@@ -47,6 +49,34 @@ public class WorkingSoundEngine extends SoundEngine {
 	 * The number of bits in each sample.
 	 */
 	private static final int SAMPLE_BIT_SIZE = 16;
+	/**
+	 * Amount of bytes of a frame, one sample for every channel.
+	 */
+	private static final int FRAME_BYTES = SOUND_CHANNELS * SAMPLE_BIT_SIZE
+			/ Byte.SIZE;
+	/**
+	 * Latency target in buffers, the latency never exceeds it and the line is
+	 * opened with this size.
+	 */
+	private static final int LATENCY_TARGET = 8;
+	/**
+	 * Safety floor of the latency in buffers. One buffer plays while the next
+	 * one is mixed, so the latency never falls below it.
+	 */
+	private static final int LATENCY_FLOOR = 2;
+	/**
+	 * Amount of buffers which must be played without underrun before the
+	 * latency shrinks by one buffer, 5 seconds.
+	 */
+	private static final int LATENCY_CALM_BUFFERS = 500;
+	/**
+	 * Factor which converts seconds into nanoseconds.
+	 */
+	private static final long SEC_TO_NANO = 1000000000L;
+	/**
+	 * Factor which converts milliseconds into nanoseconds.
+	 */
+	private static final long MILLI_TO_NANO = 1000000L;
 	/**
 	 * Priority of SoundEngines thread.
 	 */
@@ -63,6 +93,16 @@ public class WorkingSoundEngine extends SoundEngine {
 	 * Bounds of the left and right sound buffer.
 	 */
 	private static final int SOUND_BUF_BOUND = GAIN + SOUND_BUF_OFFSET;
+	/**
+	 * Directory of the converted samples, relative to the working directory
+	 * like the settings file.
+	 */
+	private static final String SAMPLE_CACHE_DIR = "cache/samples";
+	/**
+	 * Directory of the rendered music, relative to the working directory like
+	 * the settings file.
+	 */
+	private static final String MUSIC_CACHE_DIR = "cache/music";
 
 	/**
 	 * Silent sound sample, used if an error occured due the creation of a sound
@@ -74,22 +114,67 @@ public class WorkingSoundEngine extends SoundEngine {
 	 */
 	private int rate = SOUND_RATE;
 	/**
-	 * Mixers sound dataline, will read all bytes from there.
+	 * Sink which takes the mixed sound, usually a line.
 	 */
-	private SourceDataLine sdl;
+	private AudioSink sink;
+	/**
+	 * True if the sink plays in real time, otherwise the engine runs offline.
+	 */
+	private boolean realTime;
 	/**
 	 * ListenerMixer which contains and creates all sounds.
 	 */
 	private ListenerMixer listenerMixer;
+	/**
+	 * Loads the samples converted to the rate of the line.
+	 */
+	private SampleRegistry sampleRegistry;
+	/**
+	 * Renders the music of the software synthesizer.
+	 */
+	private MusicCache musicCache;
 	/**
 	 * Size of the buffer (10 milis).
 	 */
 	private int bufferSize = rate / BUF_SIZE_CONV_DIV;
 	/**
-	 * Buffer of the sound.
+	 * Buffer of the sound as interleaved little-endian 16 bit samples.
 	 */
-	private ByteBuffer soundBuffer = ByteBuffer.allocate(bufferSize
-			* BUF_SIZE_FACTOR);
+	private byte[] soundBuffer = new byte[bufferSize * FRAME_BYTES];
+	/**
+	 * Duration of playing one buffer in nanoseconds.
+	 */
+	private long bufferNanos = bufferSize * SEC_TO_NANO / rate;
+	/**
+	 * Size of the lines buffer in bytes.
+	 */
+	private int lineSize;
+	/**
+	 * Latency target and safety floor in bytes, fitted to the line.
+	 */
+	private int maxLatency, minLatency;
+	/**
+	 * Current latency, amount of bytes which are kept queued in the line.
+	 */
+	private volatile int latency;
+	/**
+	 * Amount of buffers which were played since the last underrun or change
+	 * of the latency.
+	 */
+	private int calmBuffers = 0;
+	/**
+	 * True if a buffer was written to the line, before the line can not run
+	 * empty.
+	 */
+	private boolean written = false;
+	/**
+	 * Amount of times the line ran empty.
+	 */
+	private volatile long underruns = 0;
+	/**
+	 * Amount of buffers whose mixing took longer than playing them.
+	 */
+	private volatile long overloads = 0;
 	/**
 	 * Left and right buffer of the sound.
 	 */
@@ -97,13 +182,14 @@ public class WorkingSoundEngine extends SoundEngine {
 	/**
 	 * True if the SoundEngine is alive and not shutted down.
 	 */
-	private boolean alive = true;
+	private volatile boolean alive = true;
 
 	// private float amplitude = 1;
 	// private float targetAmplitude = 1;
 
 	/**
-	 * Creates a new WorkingSoundEngine with given maximal channels for sounds.
+	 * Creates a new WorkingSoundEngine with given maximal channels for sounds,
+	 * which plays on a line of the systems default mixer.
 	 * 
 	 * @param maxChannels
 	 *            Maximal amount of channels for sounds
@@ -114,15 +200,39 @@ public class WorkingSoundEngine extends SoundEngine {
 	 */
 	public WorkingSoundEngine(final int maxChannels)
 			throws LineUnavailableException {
+		this(maxChannels, new LineSink(SOUND_RATE, SOUND_RATE
+				/ BUF_SIZE_CONV_DIV * FRAME_BYTES * LATENCY_TARGET));
+	}
+
+	/**
+	 * Creates a new WorkingSoundEngine with given maximal channels for sounds,
+	 * which writes into a sink. A real time sink is fed by the mixer thread.
+	 * Otherwise the engine runs offline without thread, its samples are kept
+	 * in memory only and its music is always played by the software
+	 * synthesizer, so headless runs neither need devices nor leave files. The
+	 * sink is closed by the mixer thread when the engine is shut down, offline
+	 * sinks must be closed by the caller.
+	 * 
+	 * @param maxChannels
+	 *            Maximal amount of channels for sounds
+	 * @param thatSink
+	 *            Sink which takes the mixed sound
+	 */
+	public WorkingSoundEngine(final int maxChannels, final AudioSink thatSink) {
 		silentSample = new SoundSample(new float[] { 0 }, rate);
-		Mixer mixer = AudioSystem.getMixer(null);
+		sink = thatSink;
+		realTime = sink.isRealTime();
 
-		sdl = (SourceDataLine) mixer
-				.getLine(new Line.Info(SourceDataLine.class));
-		sdl.open(new AudioFormat(rate, SAMPLE_BIT_SIZE, SOUND_CHANNELS, true,
-				false), bufferSize * 2 * 2 * 2 * 2 * 2);
-		soundBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		sdl.start();
+		if (realTime) {
+			// The line may have chosen another size
+			lineSize = sink.getBufferSize();
+			maxLatency = Math.max(
+					Math.min(soundBuffer.length * LATENCY_TARGET, lineSize),
+					soundBuffer.length);
+			minLatency = Math.min(soundBuffer.length * LATENCY_FLOOR,
+					maxLatency);
+			latency = maxLatency;
+		}
 
 		/*
 		 * try { FloatControl volumeControl = (FloatControl) sdl.getControl(
@@ -133,10 +243,18 @@ public class WorkingSoundEngine extends SoundEngine {
 		 */
 
 		listenerMixer = new ListenerMixer(maxChannels);
-
 		leftBuf = new float[bufferSize];
 		rightBuf = new float[bufferSize];
 
+		if (!realTime) {
+			sampleRegistry = new SampleRegistry(rate, null);
+			musicCache = new MusicCache(rate, null);
+			setSoftwareMusic(true);
+			return;
+		}
+		sampleRegistry = new SampleRegistry(rate, Paths.get(SAMPLE_CACHE_DIR));
+		musicCache = new MusicCache(rate, Paths.get(MUSIC_CACHE_DIR));
+
 		// Create Midi sequencer and wire it to the receiver
 		// to provide Midi-messages to it
 		try {
@@ -146,6 +264,9 @@ public class WorkingSoundEngine extends SoundEngine {
 			getSequencer().getTransmitter().setReceiver(getReceiver());
 		} catch (MidiUnavailableException e) {
 			e.printStackTrace();
+			// Play the music without the systems Midi devices
+			System.out.println("Midi unavailable. Using software music");
+			setSoftwareMusic(true);
 		}
 
 		Thread thread = new Thread(this);
@@ -162,17 +283,59 @@ public class WorkingSoundEngine extends SoundEngine {
 
 	/**
 	 * Updates the sounds and plays the next bytes. Should be triggered by a
-	 * tick-system, like 24 ticks per seconds.
+	 * tick-system, like 24 ticks per seconds. Only queues the update for the
+	 * mixer thread and does not wait for it.
 	 */
 	@Override
 	public final void clientTick() {
-		synchronized (listenerMixer) {
-			listenerMixer.update();
-		}
+		listenerMixer.setMusicVolume(getMusicVolume());
+		listenerMixer.update();
+	}
+
+	@Override
+	public final long getDroppedCommands() {
+		return listenerMixer.getDroppedCommands();
+	}
+
+	@Override
+	public final float getLatencyMillis() {
+		return latency / FRAME_BYTES * (float) SEC_TO_NANO / MILLI_TO_NANO
+				/ rate;
+	}
+
+	@Override
+	public final long getOverloads() {
+		return overloads;
+	}
+
+	/**
+	 * Gets the size of the buffers which are mixed at once.
+	 * 
+	 * @return Size of a buffer in frames
+	 */
+	public final int getBufferSize() {
+		return bufferSize;
+	}
+
+	@Override
+	public final long getUnderruns() {
+		return underruns;
 	}
 
 	/**
-	 * Loads and returns a sample from an url.
+	 * Gets the amount of voices which were playing in the last buffer. Only
+	 * reliable on the mixer thread, which is the caller of
+	 * {@link #render(int)} for offline engines.
+	 * 
+	 * @return Amount of playing voices
+	 */
+	public final int getVoiceCount() {
+		return listenerMixer.getVoiceCount();
+	}
+
+	/**
+	 * Loads and returns a sample from an url. The sample is converted to the
+	 * rate of the line and shared with all other urls of equal contents.
 	 * 
 	 * @param resourceName
 	 *            URL of the sample
@@ -181,7 +344,7 @@ public class WorkingSoundEngine extends SoundEngine {
 	@Override
 	public final SoundSample loadSample(final String resourceName) {
 		try {
-			return SampleLoader.loadSample(resourceName);
+			return sampleRegistry.get(resourceName);
 		} catch (Exception e) {
 			System.out.println("Failed to load sample " + resourceName
 					+ ". Using silent sample");
@@ -191,7 +354,8 @@ public class WorkingSoundEngine extends SoundEngine {
 	}
 
 	/**
-	 * Plays a SoundSample from a SoundSource with a rate and priority.
+	 * Plays a SoundSample from a SoundSource with a rate and priority. Only
+	 * queues the sound for the mixer thread and does not wait for it.
 	 * 
 	 * @param sample
 	 *            SoundSample to play
@@ -206,9 +370,28 @@ public class WorkingSoundEngine extends SoundEngine {
 	public final void play(final SoundSample sample,
 			final SoundSource soundSource, final float priority,
 			final float thatRate) {
-		synchronized (listenerMixer) {
-			listenerMixer.addSoundProducer(new SamplePlayer(sample, thatRate),
-					soundSource, getSoundVolume(), priority);
+		listenerMixer.play(sample, thatRate, soundSource, getSoundVolume(),
+				priority);
+	}
+
+	/**
+	 * Renders buffers into the sink of an offline engine as fast as possible.
+	 * The calling thread acts as mixer thread, commands of the game thread are
+	 * applied like in real time.
+	 * 
+	 * @param buffers
+	 *            Amount of buffers to render
+	 * @throws IllegalStateException
+	 *             If the sink plays in real time, it is fed by the mixer
+	 *             thread
+	 */
+	public final void render(final int buffers) {
+		if (realTime) {
+			throw new IllegalStateException(
+					"Real time sinks are fed by the mixer thread");
+		}
+		for (int i = 0; i < buffers && alive; i++) {
+			tick();
 		}
 	}
 
@@ -217,6 +400,7 @@ public class WorkingSoundEngine extends SoundEngine {
 		while (alive) {
 			tick();
 		}
+		sink.close();
 	}
 
 	/**
@@ -238,48 +422,86 @@ public class WorkingSoundEngine extends SoundEngine {
 		alive = false;
 	}
 
+	/**
+	 * Starts to loop a Midi Sequence with the software synthesizer in the
+	 * mixer. Rendered music from the cache is used if available, otherwise
+	 * the sequence is synthesized while playing and rendered in the
+	 * background for the next time.
+	 * 
+	 * @param sequence
+	 *            Sequence to play
+	 */
+	@Override
+	protected final void startSynth(final Sequence sequence) {
+		StereoSoundProducer music = musicCache.get(sequence);
+		if (music == null) {
+			music = new SequenceSynth(sequence, rate, true);
+			musicCache.prerender(sequence);
+		}
+		listenerMixer.setMusic(music);
+	}
+
+	@Override
+	protected final void stopSynth() {
+		if (listenerMixer != null) {
+			listenerMixer.setMusic(null);
+		}
+	}
+
 	/**
 	 * Updates the sounds and plays the next bytes in SoundEngines own Thread
-	 * while its running.
+	 * while its running. Waits until the line has room for the next buffer
+	 * within the latency, so the sounds are mixed as late as possible. Offline
+	 * sinks never wait.
 	 */
 	@Override
 	protected final void tick() {
-		soundBuffer.clear();
+		if (realTime) {
+			int queued = lineSize - sink.available();
+			while (queued + soundBuffer.length > latency && alive) {
+				LockSupport.parkNanos((queued + soundBuffer.length - latency)
+						/ FRAME_BYTES * SEC_TO_NANO / rate);
+				queued = lineSize - sink.available();
+			}
+			adaptLatency(written && queued <= 0);
+		}
 
+		long start = System.nanoTime();
 		// targetAmplitude = (targetAmplitude - 1) * 0.9f + 1;
 		// targetAmplitude = (targetAmplitude - 1) * 0.9f + 1;
-		synchronized (listenerMixer) {
-			@SuppressWarnings("unused")
-			float maxAmplitude = listenerMixer.read(leftBuf, rightBuf, rate);
-			// if (maxAmplitude > targetAmplitude) {
-			// targetAmplitude = maxAmplitude;
-			// }
-		}
+		@SuppressWarnings("unused")
+		float maxAmplitude = listenerMixer.read(leftBuf, rightBuf, rate);
+		// if (maxAmplitude > targetAmplitude) {
+		// targetAmplitude = maxAmplitude;
+		// }
 
-		soundBuffer.clear();
-		float gain = GAIN;
-		for (int i = 0; i < bufferSize; i++) {
-			// amplitude += (targetAmplitude - amplitude) / rate;
-			// amplitude = 1;
-			// float gain = 30000;
-			int l = (int) (leftBuf[i] * gain);
-			int r = (int) (rightBuf[i] * gain);
-			if (l > SOUND_BUF_BOUND) {
-				l = SOUND_BUF_BOUND;
-			}
-			if (r > SOUND_BUF_BOUND) {
-				r = SOUND_BUF_BOUND;
-			}
-			if (l < -SOUND_BUF_BOUND) {
-				l = -SOUND_BUF_BOUND;
-			}
-			if (r < -SOUND_BUF_BOUND) {
-				r = -SOUND_BUF_BOUND;
-			}
-			soundBuffer.putShort((short) l);
-			soundBuffer.putShort((short) r);
+		// amplitude += (targetAmplitude - amplitude) / rate;
+		MixKernels.toPcm16(leftBuf, rightBuf, GAIN, SOUND_BUF_BOUND,
+				soundBuffer, bufferSize);
+		if (System.nanoTime() - start > bufferNanos) {
+			overloads++;
 		}
 
-		sdl.write(soundBuffer.array(), 0, bufferSize * 2 * 2);
+		sink.write(soundBuffer, 0, soundBuffer.length);
+		written = true;
+	}
+
+	/**
+	 * Adapts the latency to the last state of the line. An underrun grows the
+	 * latency by one buffer up to the latency target, a long time without
+	 * underruns shrinks it by one buffer down to the safety floor.
+	 * 
+	 * @param underrun
+	 *            True if the line ran empty
+	 */
+	private void adaptLatency(final boolean underrun) {
+		if (underrun) {
+			underruns++;
+			latency = Math.min(latency + soundBuffer.length, maxLatency);
+			calmBuffers = 0;
+		} else if (++calmBuffers >= LATENCY_CALM_BUFFERS) {
+			latency = Math.max(latency - soundBuffer.length, minLatency);
+			calmBuffers = 0;
+		}
 	}
 }
\ No newline at end of file
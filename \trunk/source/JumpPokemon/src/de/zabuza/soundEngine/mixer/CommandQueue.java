@@ -0,0 +1,305 @@
+package de.zabuza.soundEngine.mixer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.zabuza.soundEngine.SoundProducer;
+import de.zabuza.soundEngine.sample.SoundSample;
+
+/**
+ * CommandQueue class. Lock-free ring of commands from exactly one producer
+ * thread, the game thread, to exactly one consumer thread, the mixer thread.
+ * The commands are stored in preallocated parallel arrays, so offering and
+ * polling neither blocks nor allocates. The producer publishes a command by
+ * advancing the tail after writing its slot, the consumer frees a slot by
+ * advancing the head after reading it. Commands only carry positions, never
+ * SoundSources, so the consumer does not read state of the game.
+ * 
+ * @author Zabuza
+ * 
+ */
+class CommandQueue {
+
+	/**
+	 * Type returned by {@link #peekType()} if the queue is empty.
+	 */
+	static final int NONE = -1;
+	/**
+	 * Command which starts playing a sound.
+	 */
+	static final int PLAY = 0;
+	/**
+	 * Command which updates all sounds with a new listener position.
+	 */
+	static final int UPDATE = 1;
+	/**
+	 * Command which sets the position of a tracked source.
+	 */
+	static final int POSITION = 2;
+
+	/**
+	 * Bit mask which converts a position into a slot, capacity minus one.
+	 */
+	private final int mask;
+	/**
+	 * Type of the command in every slot.
+	 */
+	private final int[] types;
+	/**
+	 * Producer of every play command, null if a sample is played.
+	 */
+	private final SoundProducer[] producers;
+	/**
+	 * Sample of every play command, null if a producer is played.
+	 */
+	private final SoundSample[] samples;
+	/**
+	 * Rate of every sample.
+	 */
+	private final float[] rates;
+	/**
+	 * Source handle of every play and position command.
+	 */
+	private final int[] handles;
+	/**
+	 * Coordinates of every command, of the source for play and position
+	 * commands, of the listener for update commands.
+	 */
+	private final float[] xs, ys;
+	/**
+	 * Volume and priority of every play command.
+	 */
+	private final float[] volumes, priorities;
+	/**
+	 * Position of the next command which will be polled, only advanced by the
+	 * consumer.
+	 */
+	private final AtomicLong head = new AtomicLong();
+	/**
+	 * Position of the next command which will be offered, only advanced by the
+	 * producer.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Creates a new empty CommandQueue.
+	 * 
+	 * @param capacity
+	 *            Maximal amount of pending commands, must be a power of two
+	 */
+	CommandQueue(final int capacity) {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException(
+					"Capacity must be a power of two: " + capacity);
+		}
+		mask = capacity - 1;
+		types = new int[capacity];
+		producers = new SoundProducer[capacity];
+		samples = new SoundSample[capacity];
+		rates = new float[capacity];
+		handles = new int[capacity];
+		xs = new float[capacity];
+		ys = new float[capacity];
+		volumes = new float[capacity];
+		priorities = new float[capacity];
+	}
+
+	/**
+	 * Offers a command which starts playing a sound. Must only be called by
+	 * the producer thread.
+	 * 
+	 * @param producer
+	 *            SoundProducer which will produce the sound, null if a sample
+	 *            should be played
+	 * @param sample
+	 *            SoundSample which will be played if there is no producer
+	 * @param rate
+	 *            Rate of the sample
+	 * @param handle
+	 *            Handle of the source of the producer or
+	 *            {@link Sound#NO_HANDLE}
+	 * @param x
+	 *            X-coord of the source
+	 * @param y
+	 *            Y-coord of the source
+	 * @param volume
+	 *            Volume of the producer
+	 * @param priority
+	 *            Priority of the producer
+	 * @return False if the queue is full and the command was dropped
+	 */
+	final boolean offerPlay(final SoundProducer producer,
+			final SoundSample sample, final float rate, final int handle,
+			final float x, final float y, final float volume,
+			final float priority) {
+		long t = tail.get();
+		if (t - head.get() > mask) {
+			return false;
+		}
+		int slot = (int) t & mask;
+		types[slot] = PLAY;
+		producers[slot] = producer;
+		samples[slot] = sample;
+		rates[slot] = rate;
+		handles[slot] = handle;
+		xs[slot] = x;
+		ys[slot] = y;
+		volumes[slot] = volume;
+		priorities[slot] = priority;
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 * Offers a command which sets the position of a tracked source. Must only
+	 * be called by the producer thread.
+	 * 
+	 * @param handle
+	 *            Handle of the source
+	 * @param x
+	 *            X-coord of the source
+	 * @param y
+	 *            Y-coord of the source
+	 * @return False if the queue is full and the command was dropped
+	 */
+	final boolean offerPosition(final int handle, final float x,
+			final float y) {
+		long t = tail.get();
+		if (t - head.get() > mask) {
+			return false;
+		}
+		int slot = (int) t & mask;
+		types[slot] = POSITION;
+		handles[slot] = handle;
+		xs[slot] = x;
+		ys[slot] = y;
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 * Offers a command which updates all sounds with a new listener position.
+	 * Must only be called by the producer thread.
+	 * 
+	 * @param x
+	 *            X-coord of the listener
+	 * @param y
+	 *            Y-coord of the listener
+	 * @return False if the queue is full and the command was dropped
+	 */
+	final boolean offerUpdate(final float x, final float y) {
+		long t = tail.get();
+		if (t - head.get() > mask) {
+			return false;
+		}
+		int slot = (int) t & mask;
+		types[slot] = UPDATE;
+		xs[slot] = x;
+		ys[slot] = y;
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 * Gets the type of the oldest command without removing it. Must only be
+	 * called by the consumer thread.
+	 * 
+	 * @return Type of the oldest command or {@link #NONE} if the queue is
+	 *         empty
+	 */
+	final int peekType() {
+		long h = head.get();
+		if (h == tail.get()) {
+			return NONE;
+		}
+		return types[(int) h & mask];
+	}
+
+	/**
+	 * Gets the source handle of the oldest command, which must be a play or
+	 * position command.
+	 * 
+	 * @return Source handle of the oldest command
+	 */
+	final int getHandle() {
+		return handles[(int) head.get() & mask];
+	}
+
+	/**
+	 * Gets the priority of the oldest command, which must be a play command.
+	 * 
+	 * @return Priority of the oldest command
+	 */
+	final float getPriority() {
+		return priorities[(int) head.get() & mask];
+	}
+
+	/**
+	 * Gets the producer of the oldest command, which must be a play command.
+	 * 
+	 * @return Producer of the oldest command
+	 */
+	final SoundProducer getProducer() {
+		return producers[(int) head.get() & mask];
+	}
+
+	/**
+	 * Gets the rate of the oldest command, which must be a play command.
+	 * 
+	 * @return Rate of the oldest command
+	 */
+	final float getRate() {
+		return rates[(int) head.get() & mask];
+	}
+
+	/**
+	 * Gets the sample of the oldest command, which must be a play command.
+	 * 
+	 * @return Sample of the oldest command
+	 */
+	final SoundSample getSample() {
+		return samples[(int) head.get() & mask];
+	}
+
+	/**
+	 * Gets the volume of the oldest command, which must be a play command.
+	 * 
+	 * @return Volume of the oldest command
+	 */
+	final float getVolume() {
+		return volumes[(int) head.get() & mask];
+	}
+
+	/**
+	 * Gets the x-coord of the oldest command, of the source for play and
+	 * position commands, of the listener for update commands.
+	 * 
+	 * @return X-coord of the oldest command
+	 */
+	final float getX() {
+		return xs[(int) head.get() & mask];
+	}
+
+	/**
+	 * Gets the y-coord of the oldest command, of the source for play and
+	 * position commands, of the listener for update commands.
+	 * 
+	 * @return Y-coord of the oldest command
+	 */
+	final float getY() {
+		return ys[(int) head.get() & mask];
+	}
+
+	/**
+	 * Removes the oldest command and frees its slot for the producer. Must
+	 * only be called by the consumer thread after {@link #peekType()} returned
+	 * a command.
+	 */
+	final void remove() {
+		long h = head.get();
+		int slot = (int) h & mask;
+		// Do not keep finished sounds reachable
+		producers[slot] = null;
+		samples[slot] = null;
+		head.lazySet(h + 1);
+	}
+}
@@ -1,19 +1,36 @@
 package de.zabuza.soundEngine.mixer;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import de.zabuza.soundEngine.SoundListener;
 import de.zabuza.soundEngine.SoundProducer;
 import de.zabuza.soundEngine.SoundSource;
 import de.zabuza.soundEngine.StereoSoundProducer;
+import de.zabuza.soundEngine.sample.SamplePlayer;
+import de.zabuza.soundEngine.sample.SoundSample;
 
 /**
  * Organisates all sounds which should be played. Produces the stereo sound out
- * of mono sounds.
+ * of mono sounds. The game thread only queues commands with {@link #play},
+ * {@link #addSoundProducer} and {@link #update()}, the mixer thread applies
+ * them at the start of {@link #read}. So neither thread waits for the
+ * other.<br/>
+ * <br/>
+ * The mixer thread never reads a {@link SoundSource} or the
+ * {@link SoundListener}, their state belongs to the game. The game thread
+ * tracks the sources of playing sounds under handles and queues their
+ * positions and the position of the listener with every update. The mixer
+ * thread counts the sounds of every handle, so the game thread knows when
+ * it can stop tracking a source.<br/>
+ * <br/>
+ * Sounds are played by a fixed amount of preallocated voices, one for every
+ * sound channel. If all voices are in use, a new sound steals the voice with
+ * the lowest score, but only if it scores higher itself. Voices of inaudible
+ * sounds are virtual, they are not mixed and get stolen first.<br/>
+ * <br/>
+ * Music from a {@link StereoSoundProducer}, like a software synthesizer, can be
+ * added to the sounds with its own volume.
  * 
  * @author Zabuza
  * 
@@ -21,21 +38,84 @@ import de.zabuza.soundEngine.StereoSoundProducer;
 public class ListenerMixer implements StereoSoundProducer {
 
 	/**
-	 * Mixers list of all sounds.
+	 * Maximal amount of pending commands.
 	 */
-	private List<Sound> sounds = new ArrayList<Sound>();
+	private static final int COMMAND_CAPACITY = 1024;
+	/**
+	 * Maximal amount of tracked sources, sounds of further sources stay at the
+	 * position where they started.
+	 */
+	private static final int SOURCE_CAPACITY = 128;
+
+	/**
+	 * Commands from the game thread to the mixer thread.
+	 */
+	private final CommandQueue commands = new CommandQueue(COMMAND_CAPACITY);
+	/**
+	 * Preallocated voices, one for every sound channel. The voices below
+	 * {@link #voiceCount} are playing, only accessed by the mixer thread.
+	 */
+	private final Sound[] voices;
+	/**
+	 * Amount of playing voices.
+	 */
+	private int voiceCount;
+	/**
+	 * Index of the playing voice with the lowest score.
+	 */
+	private int lowestVoice;
+	/**
+	 * Additional voice which takes a new sound while all voices are playing.
+	 * It gets swapped with the stolen voice.
+	 */
+	private Sound spareVoice = new Sound();
 	/**
 	 * Sound buffer.
 	 */
 	private float[] buf = new float[0];
 	/**
-	 * Maximal sound channels of the mixer.
+	 * Current SoundListener of the mixer, only accessed by the game thread.
 	 */
-	private int maxChannels;
+	private SoundListener soundListener;
 	/**
-	 * Current SoundListener of the mixer.
+	 * Tracked sources by their handle, null for free handles. Only accessed by
+	 * the game thread.
 	 */
-	private SoundListener soundListener;
+	private final SoundSource[] sources = new SoundSource[SOURCE_CAPACITY];
+	/**
+	 * Amount of queued or playing sounds for every handle, incremented by the
+	 * game thread and decremented by the mixer thread when a sound ends.
+	 */
+	private final AtomicIntegerArray sourceUses = new AtomicIntegerArray(
+			SOURCE_CAPACITY);
+	/**
+	 * Last queued coordinates of every tracked source, only accessed by the
+	 * mixer thread.
+	 */
+	private final float[] sourceXs = new float[SOURCE_CAPACITY],
+			sourceYs = new float[SOURCE_CAPACITY];
+	/**
+	 * Last queued coordinates of the listener, only accessed by the mixer
+	 * thread.
+	 */
+	private float listenerX, listenerY;
+	/**
+	 * Amount of commands which were dropped because the queue was full.
+	 */
+	private long droppedCommands;
+	/**
+	 * Music which is added to the sounds, null if there is none. Set by the
+	 * game thread, read by the mixer thread.
+	 */
+	private volatile StereoSoundProducer music;
+	/**
+	 * Volume of the music.
+	 */
+	private volatile float musicVolume = 1;
+	/**
+	 * Left and right buffer of the music.
+	 */
+	private float[] musicLeft = new float[0], musicRight = new float[0];
 
 	/**
 	 * Create a new ListenerMixer with a maximum amount of sound channels.
@@ -44,12 +124,31 @@ public class ListenerMixer implements StereoSoundProducer {
 	 *            Maximum amount of sound channels
 	 */
 	public ListenerMixer(final int thatMaxChannels) {
-		this.maxChannels = thatMaxChannels;
+		this(thatMaxChannels, SamplePlayer.LINEAR);
+	}
+
+	/**
+	 * Create a new ListenerMixer with a maximum amount of sound channels and
+	 * the interpolation its voices use to convert the rate of samples.
+	 * 
+	 * @param thatMaxChannels
+	 *            Maximum amount of sound channels
+	 * @param interpolation
+	 *            {@link SamplePlayer#LINEAR} or {@link SamplePlayer#SINC}
+	 */
+	public ListenerMixer(final int thatMaxChannels, final int interpolation) {
+		voices = new Sound[thatMaxChannels];
+		for (int i = 0; i < voices.length; i++) {
+			voices[i] = new Sound();
+			voices[i].setInterpolation(interpolation);
+		}
+		spareVoice.setInterpolation(interpolation);
 	}
 
 	/**
 	 * Adds a new sound in its SoundProducer with its SoundSource, volume and
-	 * priority.
+	 * priority. The sound is queued and starts playing with the next buffer.
+	 * Must only be called by the game thread.
 	 * 
 	 * @param producer
 	 *            SoundProducer which will produce the sound
@@ -63,54 +162,153 @@ public class ListenerMixer implements StereoSoundProducer {
 	public final void addSoundProducer(final SoundProducer producer,
 			final SoundSource soundSource, final float volume,
 			final float priority) {
-		sounds.add(new Sound(producer, soundSource, volume, priority));
+		int handle = track(soundSource);
+		if (!commands.offerPlay(producer, null, 1, handle,
+				soundSource.getX(), soundSource.getY(), volume, priority)) {
+			untrack(handle);
+			droppedCommands++;
+		}
+	}
+
+	/**
+	 * Gets the amount of commands which were dropped because the mixer thread
+	 * fell behind.
+	 * 
+	 * @return Amount of dropped commands
+	 */
+	public final long getDroppedCommands() {
+		return droppedCommands;
+	}
+
+	/**
+	 * Gets the SoundListener of the ListenerMixer.
+	 * 
+	 * @return SoundListener who listens to the sounds
+	 */
+	public final SoundListener getSoundListener() {
+		return soundListener;
+	}
+
+	/**
+	 * Gets the amount of playing voices after the last {@link #read}. Must
+	 * only be called by the mixer thread.
+	 * 
+	 * @return Amount of playing voices
+	 */
+	public final int getVoiceCount() {
+		return voiceCount;
+	}
+
+	/**
+	 * Gets the amount of audible voices after the last {@link #read}, only
+	 * those are mixed. Must only be called by the mixer thread.
+	 * 
+	 * @return Amount of audible voices
+	 */
+	public final int getAudibleVoiceCount() {
+		int audible = 0;
+		for (int i = 0; i < voiceCount; i++) {
+			if (voices[i].isAudible()) {
+				audible++;
+			}
+		}
+		return audible;
+	}
+
+	/**
+	 * Plays a SoundSample with a rate from its SoundSource with a volume and
+	 * priority. The sample is queued and played by a preallocated voice from
+	 * the next buffer on, so nothing is created. Must only be called by the
+	 * game thread.
+	 * 
+	 * @param sample
+	 *            SoundSample to play
+	 * @param rate
+	 *            Rate of the sample
+	 * @param soundSource
+	 *            SoundSource of the sample
+	 * @param volume
+	 *            Volume of the sample
+	 * @param priority
+	 *            Priority of the sample
+	 */
+	public final void play(final SoundSample sample, final float rate,
+			final SoundSource soundSource, final float volume,
+			final float priority) {
+		int handle = track(soundSource);
+		if (!commands.offerPlay(null, sample, rate, handle,
+				soundSource.getX(), soundSource.getY(), volume, priority)) {
+			untrack(handle);
+			droppedCommands++;
+		}
 	}
 
 	@Override
 	public final float read(final float[] leftBuf, final float[] rightBuf,
 			final int readRate) {
+		applyCommands();
+
 		if (buf.length != leftBuf.length) {
 			buf = new float[leftBuf.length];
 		}
 
-		if (sounds.size() > maxChannels) {
-			Collections.sort(sounds);
-		}
-
 		Arrays.fill(leftBuf, 0);
 		Arrays.fill(rightBuf, 0);
-		float maxAmplitude = 0;
-		for (int i = 0; i < sounds.size(); i++) {
-			Sound sound = sounds.get(i);
-			if (i < maxChannels) {
-				sound.read(buf, readRate);
-
-				float rp = sound.getAmplitude();
-				float lp = sound.getAmplitude();
-
-				if (sound.getPan() >= 0) {
-					rp *= (1 - sound.getPan());
-				}
-				if (sound.getPan() <= 0) {
-					lp *= (1 + sound.getPan());
-				}
-
-				for (int j = 0; j < leftBuf.length; j++) {
-					leftBuf[j] += buf[j] * lp;
-					rightBuf[j] += buf[j] * rp;
-					if (leftBuf[j] > maxAmplitude) {
-						maxAmplitude = leftBuf[j];
-					}
-					if (rightBuf[j] > maxAmplitude) {
-						maxAmplitude = rightBuf[j];
-					}
-				}
-			} else {
-				sound.skip(leftBuf.length, readRate);
+		for (int i = 0; i < voiceCount; i++) {
+			Sound sound = voices[i];
+			if (!sound.isAudible()) {
+				// Virtual voices only advance their position
+				sound.skip(buf.length, readRate);
+				continue;
 			}
+			sound.read(buf, readRate);
+
+			float rp = sound.getAmplitude();
+			float lp = sound.getAmplitude();
+
+			if (sound.getPan() >= 0) {
+				rp *= (1 - sound.getPan());
+			}
+			if (sound.getPan() <= 0) {
+				lp *= (1 + sound.getPan());
+			}
+
+			MixKernels.mix(buf, leftBuf, rightBuf, lp, rp, leftBuf.length);
+		}
+
+		StereoSoundProducer currentMusic = music;
+		if (currentMusic != null) {
+			if (musicLeft.length != leftBuf.length) {
+				musicLeft = new float[leftBuf.length];
+				musicRight = new float[leftBuf.length];
+			}
+			currentMusic.read(musicLeft, musicRight, readRate);
+			MixKernels.mixStereo(musicLeft, musicRight, leftBuf, rightBuf,
+					musicVolume, leftBuf.length);
 		}
 
-		return maxAmplitude;
+		return MixKernels.peak(leftBuf, rightBuf, leftBuf.length);
+	}
+
+	/**
+	 * Sets the music which is added to the sounds from the next buffer on. The
+	 * music must not be read by anyone else afterwards.
+	 * 
+	 * @param thatMusic
+	 *            Music to play or null for no music
+	 */
+	public final void setMusic(final StereoSoundProducer thatMusic) {
+		this.music = thatMusic;
+	}
+
+	/**
+	 * Sets the volume of the music.
+	 * 
+	 * @param volume
+	 *            Music volume from 0.0 to 1.0
+	 */
+	public final void setMusicVolume(final float volume) {
+		this.musicVolume = volume;
 	}
 
 	/**
@@ -125,22 +323,206 @@ public class ListenerMixer implements StereoSoundProducer {
 
 	@Override
 	public final void skip(final int samplesToSkip, final int readRate) {
-		for (int i = 0; i < sounds.size(); i++) {
-			Sound sound = sounds.get(i);
-			sound.skip(samplesToSkip, readRate);
+		for (int i = 0; i < voiceCount; i++) {
+			voices[i].skip(samplesToSkip, readRate);
+		}
+		StereoSoundProducer currentMusic = music;
+		if (currentMusic != null) {
+			currentMusic.skip(samplesToSkip, readRate);
 		}
 	}
 
 	/**
-	 * Updates all sounds and removes the sounds which are not alive anymore.
+	 * Queues the current positions of all tracked sources and of the
+	 * SoundListener and an update of all sounds. Stops tracking sources
+	 * without sounds. Must only be called by the game thread.
 	 */
 	public final void update() {
-		for (Iterator<Sound> it = sounds.iterator(); it.hasNext();) {
-			Sound sound = it.next();
-			sound.update(soundListener);
-			if (!sound.isLive()) {
-				it.remove();
+		for (int i = 0; i < SOURCE_CAPACITY; i++) {
+			SoundSource source = sources[i];
+			if (source == null) {
+				continue;
+			}
+			if (sourceUses.get(i) == 0) {
+				// All sounds of the source ended
+				sources[i] = null;
+			} else if (!commands.offerPosition(i, source.getX(),
+					source.getY())) {
+				droppedCommands++;
+			}
+		}
+
+		float x = 0;
+		float y = 0;
+		if (soundListener != null) {
+			x = soundListener.getX();
+			y = soundListener.getY();
+		}
+		if (!commands.offerUpdate(x, y)) {
+			droppedCommands++;
+		}
+	}
+
+	/**
+	 * Applies all queued commands, called by the mixer thread.
+	 */
+	private void applyCommands() {
+		int type = commands.peekType();
+		while (type != CommandQueue.NONE) {
+			if (type == CommandQueue.PLAY) {
+				startVoice();
+			} else if (type == CommandQueue.POSITION) {
+				sourceXs[commands.getHandle()] = commands.getX();
+				sourceYs[commands.getHandle()] = commands.getY();
+			} else {
+				listenerX = commands.getX();
+				listenerY = commands.getY();
+				updateSounds();
+			}
+			commands.remove();
+			type = commands.peekType();
+		}
+	}
+
+	/**
+	 * Frees a voice whose sound ended or was dropped and counts down the
+	 * sounds of its source, called by the mixer thread.
+	 * 
+	 * @param sound
+	 *            Voice to free
+	 */
+	private void releaseVoice(final Sound sound) {
+		if (sound.getHandle() != Sound.NO_HANDLE) {
+			sourceUses.decrementAndGet(sound.getHandle());
+		}
+		sound.clear();
+	}
+
+	/**
+	 * Gets the handle of a source and counts up its sounds, starts tracking
+	 * the source if necessary. Called by the game thread.
+	 * 
+	 * @param source
+	 *            Source of a new sound
+	 * @return Handle of the source or {@link Sound#NO_HANDLE} if all handles
+	 *         are in use
+	 */
+	private int track(final SoundSource source) {
+		int free = Sound.NO_HANDLE;
+		for (int i = 0; i < SOURCE_CAPACITY; i++) {
+			if (sources[i] == source) {
+				sourceUses.incrementAndGet(i);
+				return i;
+			}
+			if (free == Sound.NO_HANDLE && sources[i] == null) {
+				free = i;
+			}
+		}
+		if (free != Sound.NO_HANDLE) {
+			sources[free] = source;
+			sourceUses.incrementAndGet(free);
+		}
+		return free;
+	}
+
+	/**
+	 * Counts down the sounds of a handle whose play command was dropped.
+	 * Called by the game thread.
+	 * 
+	 * @param handle
+	 *            Handle of the source or {@link Sound#NO_HANDLE}
+	 */
+	private void untrack(final int handle) {
+		if (handle != Sound.NO_HANDLE) {
+			sourceUses.decrementAndGet(handle);
+		}
+	}
+
+	/**
+	 * Searches the playing voice with the lowest score.
+	 */
+	private void findLowestVoice() {
+		lowestVoice = 0;
+		for (int i = 1; i < voiceCount; i++) {
+			if (voices[i].getScore() < voices[lowestVoice].getScore()) {
+				lowestVoice = i;
+			}
+		}
+	}
+
+	/**
+	 * Starts the sound of the oldest command, which must be a play command, in
+	 * a free voice or in the voice with the lowest score.
+	 */
+	private void startVoice() {
+		int handle = commands.getHandle();
+		if (voices.length == 0) {
+			untrack(handle);
+			return;
+		}
+		if (handle != Sound.NO_HANDLE) {
+			sourceXs[handle] = commands.getX();
+			sourceYs[handle] = commands.getY();
+		}
+
+		boolean full = voiceCount == voices.length;
+		Sound sound;
+		if (full) {
+			sound = spareVoice;
+		} else {
+			sound = voices[voiceCount];
+		}
+		if (commands.getProducer() != null) {
+			sound.reset(commands.getProducer(), handle, commands.getVolume(),
+					commands.getPriority());
+		} else {
+			sound.reset(commands.getSample(), commands.getRate(), handle,
+					commands.getVolume(), commands.getPriority());
+		}
+		sound.setSourcePosition(commands.getX(), commands.getY());
+		sound.update(listenerX, listenerY);
+
+		if (!full) {
+			voiceCount++;
+			if (voiceCount == 1
+					|| sound.getScore() < voices[lowestVoice].getScore()) {
+				lowestVoice = voiceCount - 1;
+			}
+		} else if (sound.getScore() > voices[lowestVoice].getScore()) {
+			// Steal the voice with the lowest score
+			spareVoice = voices[lowestVoice];
+			releaseVoice(spareVoice);
+			voices[lowestVoice] = sound;
+			findLowestVoice();
+		} else {
+			// Not worth to steal a voice, the sound is dropped
+			releaseVoice(sound);
+		}
+	}
+
+	/**
+	 * Updates all sounds with the queued positions of the listener and their
+	 * sources and frees the voices which are not alive anymore.
+	 */
+	private void updateSounds() {
+		int i = 0;
+		while (i < voiceCount) {
+			Sound sound = voices[i];
+			int handle = sound.getHandle();
+			if (handle != Sound.NO_HANDLE) {
+				sound.setSourcePosition(sourceXs[handle], sourceYs[handle]);
+			}
+			sound.update(listenerX, listenerY);
+			if (sound.isLive()) {
+				i++;
+			} else {
+				// Swap the free voice behind the playing ones
+				releaseVoice(sound);
+				voiceCount--;
+				voices[i] = voices[voiceCount];
+				voices[voiceCount] = sound;
 			}
 		}
+		findLowestVoice();
 	}
-}
\ No newline at end of file
+}
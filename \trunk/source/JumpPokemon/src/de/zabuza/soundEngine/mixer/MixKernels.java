@@ -0,0 +1,134 @@
+package de.zabuza.soundEngine.mixer;
+
+/**
+ * Static MixKernels utility class. Contains the inner loops of the mixer. Every
+ * loop does only one thing over plain arrays without branches or calls, so the
+ * JIT compiler can unroll it and translate it into SIMD instructions.
+ * 
+ * @author Zabuza
+ * 
+ */
+public final class MixKernels {
+
+	/**
+	 * Amount of bits of a byte.
+	 */
+	private static final int BYTE_BITS = 8;
+	/**
+	 * Bytes of a stereo frame with 16 bit samples.
+	 */
+	private static final int FRAME_BYTES = 4;
+
+	/**
+	 * Adds a mono buffer with a gain for the left and right channel to a stereo
+	 * buffer.
+	 * 
+	 * @param src
+	 *            Mono buffer to add
+	 * @param leftBuf
+	 *            Left buffer to add to
+	 * @param rightBuf
+	 *            Right buffer to add to
+	 * @param leftGain
+	 *            Gain of the left channel
+	 * @param rightGain
+	 *            Gain of the right channel
+	 * @param length
+	 *            Amount of samples
+	 */
+	public static void mix(final float[] src, final float[] leftBuf,
+			final float[] rightBuf, final float leftGain,
+			final float rightGain, final int length) {
+		for (int i = 0; i < length; i++) {
+			leftBuf[i] += src[i] * leftGain;
+		}
+		for (int i = 0; i < length; i++) {
+			rightBuf[i] += src[i] * rightGain;
+		}
+	}
+
+	/**
+	 * Adds a stereo buffer with a gain to another stereo buffer.
+	 * 
+	 * @param srcLeft
+	 *            Left buffer to add
+	 * @param srcRight
+	 *            Right buffer to add
+	 * @param leftBuf
+	 *            Left buffer to add to
+	 * @param rightBuf
+	 *            Right buffer to add to
+	 * @param gain
+	 *            Gain of both channels
+	 * @param length
+	 *            Amount of samples
+	 */
+	public static void mixStereo(final float[] srcLeft,
+			final float[] srcRight, final float[] leftBuf,
+			final float[] rightBuf, final float gain, final int length) {
+		for (int i = 0; i < length; i++) {
+			leftBuf[i] += srcLeft[i] * gain;
+		}
+		for (int i = 0; i < length; i++) {
+			rightBuf[i] += srcRight[i] * gain;
+		}
+	}
+
+	/**
+	 * Gets the highest sample of a stereo buffer.
+	 * 
+	 * @param leftBuf
+	 *            Left buffer
+	 * @param rightBuf
+	 *            Right buffer
+	 * @param length
+	 *            Amount of samples
+	 * @return Highest sample, but at least 0
+	 */
+	public static float peak(final float[] leftBuf, final float[] rightBuf,
+			final int length) {
+		float max = 0;
+		for (int i = 0; i < length; i++) {
+			max = Math.max(max, Math.max(leftBuf[i], rightBuf[i]));
+		}
+		return max;
+	}
+
+	/**
+	 * Converts a stereo buffer into interleaved little-endian 16 bit samples.
+	 * The samples are scaled by a gain and clamped to a bound.
+	 * 
+	 * @param leftBuf
+	 *            Left buffer
+	 * @param rightBuf
+	 *            Right buffer
+	 * @param gain
+	 *            Gain of both channels
+	 * @param bound
+	 *            Highest absolute value of a sample
+	 * @param pcm
+	 *            Byte buffer with place for 4 bytes per sample
+	 * @param length
+	 *            Amount of samples
+	 */
+	public static void toPcm16(final float[] leftBuf, final float[] rightBuf,
+			final float gain, final int bound, final byte[] pcm,
+			final int length) {
+		for (int i = 0; i < length; i++) {
+			int l = Math.max(-bound, Math.min(bound, (int) (leftBuf[i] * gain)));
+			int r = Math.max(-bound,
+					Math.min(bound, (int) (rightBuf[i] * gain)));
+			int p = i * FRAME_BYTES;
+			pcm[p] = (byte) l;
+			pcm[p + 1] = (byte) (l >> BYTE_BITS);
+			pcm[p + 2] = (byte) r;
+			pcm[p + 3] = (byte) (r >> BYTE_BITS);
+		}
+	}
+
+	/**
+	 * Utility class, constructor has no effect.
+	 */
+	private MixKernels() {
+	}
+}
@@ -1,11 +1,17 @@
 package de.zabuza.soundEngine.mixer;
 
-import de.zabuza.soundEngine.SoundListener;
 import de.zabuza.soundEngine.SoundProducer;
-import de.zabuza.soundEngine.SoundSource;
+import de.zabuza.soundEngine.sample.SamplePlayer;
+import de.zabuza.soundEngine.sample.SoundSample;
 
 /**
- * Sound class Combines all what is needed for one sound line.
+ * Sound class Combines all what is needed for one sound line. Sounds which are
+ * further away from the listener than the audibility threshold allows, or
+ * have no volume, are virtual. They are not mixed and only advance their
+ * position.<br/>
+ * <br/>
+ * A sound never reads its SoundSource, the game thread passes the position
+ * of the source through the {@link ListenerMixer} under a handle.
  * 
  * @author Zabuza
  * 
@@ -17,9 +23,13 @@ public class Sound implements Comparable<Sound> {
 	 */
 	private static final double L10 = Math.log(10);
 	/**
-	 * Distance of sounds reference.
+	 * Attenuation in decibel from which on a sound is inaudible.
 	 */
-	private static final float REFERENCE_DISTANCE = 1;
+	private static final double AUDIBILITY_THRESHOLD = 40;
+	/**
+	 * Distance of sounds reference in pixel, closer sounds are not attenuated.
+	 */
+	private static final float REFERENCE_DISTANCE = 160;
 	/**
 	 * Sounds rolloff factor.
 	 */
@@ -40,15 +50,66 @@ public class Sound implements Comparable<Sound> {
 	 * A Divider for sounds pan calculation.
 	 */
 	private static final int PAN_DIVIDER_2 = 16;
+	/**
+	 * Distance from which on sounds are attenuated below the audibility
+	 * threshold, the inverse of the attenuation curve.
+	 */
+	private static final float CULL_DISTANCE = (float) (REFERENCE_DISTANCE
+			+ REFERENCE_DISTANCE
+			* (Math.pow(10, AUDIBILITY_THRESHOLD / DECIBEL_FACTOR) - 1)
+			/ ROLLOFF_FACTOR);
+	/**
+	 * Squared {@link #CULL_DISTANCE}, compared with squared distances so
+	 * culled sounds need no square root.
+	 */
+	private static final float CULL_DISTANCE_SQR = CULL_DISTANCE
+			* CULL_DISTANCE;
+	/**
+	 * Amount of buckets the squared distances below the
+	 * {@link #CULL_DISTANCE_SQR} are divided into.
+	 */
+	private static final int DISTANCE_SQR_BUCKETS = 16384;
+	/**
+	 * Converts a squared distance into its bucket if multiplied with.
+	 */
+	private static final float DISTANCE_SQR_TO_BUCKET = DISTANCE_SQR_BUCKETS
+			/ CULL_DISTANCE_SQR;
+	/**
+	 * Attenuation in decibel for every bucket of squared distances below the
+	 * {@link #CULL_DISTANCE_SQR}, so no square root is needed to look it up.
+	 */
+	private static final float[] ATTENUATION = createAttenuationTable();
+	/**
+	 * Linear gain of every {@link #ATTENUATION}, so the amplitude falls off
+	 * with the same curve the audibility threshold is derived from.
+	 */
+	private static final float[] GAIN = createGainTable();
+	/**
+	 * Score of virtual sounds, lower than the score of every audible sound.
+	 */
+	private static final float VIRTUAL_SCORE = -Float.MAX_VALUE;
+	/**
+	 * Handle of sounds whose source position is not tracked, they stay at
+	 * the position where they started.
+	 */
+	public static final int NO_HANDLE = -1;
 
+	/**
+	 * Own player of the sound, reused for every played SoundSample.
+	 */
+	private final SamplePlayer player = new SamplePlayer(null, 1);
 	/**
 	 * Sounds producer.
 	 */
 	private SoundProducer producer;
 	/**
-	 * Sounds source.
+	 * Handle of the sounds source or {@link #NO_HANDLE}.
+	 */
+	private int handle = NO_HANDLE;
+	/**
+	 * Last known coordinates of the sounds source.
 	 */
-	private SoundSource source;
+	private float sourceX, sourceY;
 	/**
 	 * Volume of the sound.
 	 */
@@ -75,27 +136,33 @@ public class Sound implements Comparable<Sound> {
 	 * Sounds current amplitude.
 	 */
 	private float amplitude;
+	/**
+	 * True if the sound is audible and gets mixed, false if it is virtual.
+	 */
+	private boolean audible;
 
 	/**
-	 * Creates a new Sound with a SoundProducer, its SoundSource, volume and
-	 * priority.
+	 * Creates a new Sound with a SoundProducer, the handle of its source,
+	 * volume and priority.
 	 * 
 	 * @param thatProducer
 	 *            SoundProducer of the sound
-	 * @param thatSource
-	 *            SoundSource of the producer
+	 * @param thatHandle
+	 *            Handle of the source of the producer or {@link #NO_HANDLE}
 	 * @param thatVolume
 	 *            Volume of the sound
 	 * @param thatPriority
 	 *            Priority of the sound
 	 */
-	public Sound(final SoundProducer thatProducer,
-			final SoundSource thatSource, final float thatVolume,
-			final float thatPriority) {
-		this.producer = thatProducer;
-		this.source = thatSource;
-		this.volume = thatVolume;
-		this.priority = thatPriority;
+	public Sound(final SoundProducer thatProducer, final int thatHandle,
+			final float thatVolume, final float thatPriority) {
+		reset(thatProducer, thatHandle, thatVolume, thatPriority);
+	}
+
+	/**
+	 * Creates a new unused Sound which must be reset before it gets played.
+	 */
+	public Sound() {
 	}
 
 	@Override
@@ -110,6 +177,15 @@ public class Sound implements Comparable<Sound> {
 		return 0;
 	}
 
+	/**
+	 * Gets the handle of the sounds source.
+	 * 
+	 * @return Handle of the source or {@link #NO_HANDLE}
+	 */
+	public final int getHandle() {
+		return handle;
+	}
+
 	/**
 	 * Returns if the sample is still alive.
 	 * 
@@ -119,6 +195,133 @@ public class Sound implements Comparable<Sound> {
 		return producer.isLive();
 	}
 
+	/**
+	 * Returns if the sound is audible since the last update. Virtual sounds
+	 * should be skipped instead of read.
+	 * 
+	 * @return True if the sound is audible, false if it is virtual
+	 */
+	public final boolean isAudible() {
+		return audible;
+	}
+
+	/**
+	 * Resets the Sound to play a SoundProducer from another source with a
+	 * volume and priority.
+	 * 
+	 * @param thatProducer
+	 *            SoundProducer of the sound
+	 * @param thatHandle
+	 *            Handle of the source of the producer or {@link #NO_HANDLE}
+	 * @param thatVolume
+	 *            Volume of the sound
+	 * @param thatPriority
+	 *            Priority of the sound
+	 */
+	public final void reset(final SoundProducer thatProducer,
+			final int thatHandle, final float thatVolume,
+			final float thatPriority) {
+		this.producer = thatProducer;
+		this.handle = thatHandle;
+		this.volume = thatVolume;
+		this.priority = thatPriority;
+		this.score = 0;
+		this.pan = 0;
+		this.amplitude = 0;
+		this.audible = false;
+	}
+
+	/**
+	 * Creates the attenuation curve for every bucket of squared distances
+	 * below the {@link #CULL_DISTANCE_SQR}, taken at the middle of the
+	 * bucket. Distances below the reference distance are not attenuated.
+	 * 
+	 * @return Attenuation table in decibel
+	 */
+	private static float[] createAttenuationTable() {
+		// One more bucket for squared distances rounded up to the limit
+		float[] table = new float[DISTANCE_SQR_BUCKETS + 1];
+		for (int b = 0; b < table.length; b++) {
+			float dist = (float) Math.max(
+					Math.sqrt((b + 0.5f) / DISTANCE_SQR_TO_BUCKET),
+					REFERENCE_DISTANCE);
+			table[b] = (float) (DECIBEL_FACTOR
+					* Math.log(1 + ROLLOFF_FACTOR
+							* (dist - REFERENCE_DISTANCE)
+							/ REFERENCE_DISTANCE) / L10);
+		}
+		return table;
+	}
+
+	/**
+	 * Creates the linear gain for every entry of the {@link #ATTENUATION}
+	 * table.
+	 * 
+	 * @return Gain table
+	 */
+	private static float[] createGainTable() {
+		float[] table = new float[ATTENUATION.length];
+		for (int b = 0; b < table.length; b++) {
+			table[b] = (float) Math.pow(10, -ATTENUATION[b] / DECIBEL_FACTOR);
+		}
+		return table;
+	}
+
+	/**
+	 * Resets the Sound to play a SoundSample with its own player from another
+	 * source with a rate, volume and priority.
+	 * 
+	 * @param sample
+	 *            SoundSample to play
+	 * @param rate
+	 *            Rate of the sample
+	 * @param thatHandle
+	 *            Handle of the source of the sample or {@link #NO_HANDLE}
+	 * @param thatVolume
+	 *            Volume of the sound
+	 * @param thatPriority
+	 *            Priority of the sound
+	 */
+	public final void reset(final SoundSample sample, final float rate,
+			final int thatHandle, final float thatVolume,
+			final float thatPriority) {
+		player.reset(sample, rate);
+		reset(player, thatHandle, thatVolume, thatPriority);
+	}
+
+	/**
+	 * Sets the position of the sounds source, applied with the next update.
+	 * 
+	 * @param x
+	 *            X-coord of the source
+	 * @param y
+	 *            Y-coord of the source
+	 */
+	public final void setSourcePosition(final float x, final float y) {
+		this.sourceX = x;
+		this.sourceY = y;
+	}
+
+	/**
+	 * Sets the interpolation of the own player of the sound.
+	 * 
+	 * @param interpolation
+	 *            {@link SamplePlayer#LINEAR} or {@link SamplePlayer#SINC}
+	 */
+	public final void setInterpolation(final int interpolation) {
+		player.setInterpolation(interpolation);
+	}
+
+	/**
+	 * Releases the producer and the handle of the source, so they are not
+	 * kept by an unused Sound.
+	 */
+	public final void clear() {
+		player.reset(null, 1);
+		producer = null;
+		handle = NO_HANDLE;
+	}
+
 	/**
 	 * Reads the next sounds in the buffer with a reading rate.
 	 * 
@@ -144,22 +347,29 @@ public class Sound implements Comparable<Sound> {
 	}
 
 	/**
-	 * Updates the sound.
+	 * Updates the sound with the last set position of its source. Sounds
+	 * beyond the audibility threshold become virtual. The attenuation is
+	 * looked up by the squared distance, so no square root is computed.
 	 * 
-	 * @param listener
-	 *            SoundListener of the sound
+	 * @param listenerX
+	 *            X-coord of the SoundListener of the sound
+	 * @param listenerY
+	 *            Y-coord of the SoundListener of the sound
 	 */
-	public final void update(final SoundListener listener) {
-		x = source.getX() - listener.getX();
-		y = source.getY() - listener.getY();
+	public final void update(final float listenerX, final float listenerY) {
+		x = sourceX - listenerX;
+		y = sourceY - listenerY;
 
 		float distSqr = x * x + y * y + z * z;
-		float dist = (float) Math.sqrt(distSqr);
+		audible = distSqr < CULL_DISTANCE_SQR && volume > 0;
+		if (!audible) {
+			score = VIRTUAL_SCORE;
+			return;
+		}
+		int bucket = (int) (distSqr * DISTANCE_SQR_TO_BUCKET);
 
 		// float dB = (float)(volume + (20 * (Math.log(1.0 / distSqr) / l10)));
-		float dB = (float) (volume - DECIBEL_FACTOR
-				* Math.log(1 + ROLLOFF_FACTOR * (dist - REFERENCE_DISTANCE)
-						/ REFERENCE_DISTANCE) / L10);
+		float dB = volume - ATTENUATION[bucket];
 		dB = Math.min(dB, DECIBEL_MINIMUM);
 		// dB = Math.max(dB, MIN_GAIN);
 
@@ -179,7 +389,16 @@ public class Sound implements Comparable<Sound> {
 			dd = 1;
 		}
 		pan = (p * dd);
-		amplitude = volume * 1f;
+		amplitude = volume * GAIN[bucket];
+	}
+
+	/**
+	 * Gets sounds score, higher scores are more important.
+	 * 
+	 * @return Sounds score
+	 */
+	protected final float getScore() {
+		return score;
 	}
 
 	/**
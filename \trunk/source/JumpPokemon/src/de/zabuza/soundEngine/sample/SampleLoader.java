@@ -4,8 +4,13 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -13,17 +18,61 @@ import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.UnsupportedAudioFileException;
 
 /**
- * Static SampleLoader utility class. Can load Samples from URLs
+ * Static SampleLoader utility class. Can load Samples from URLs. PCM .wav
+ * files are read directly, memory-mapped if they lie in the filesystem.
+ * Samples with more PCM data than a threshold are not decoded but streamed
+ * with a {@link StreamedSoundSample}.
  * 
  * @author Zabuza
  * 
  */
 public final class SampleLoader {
 
+	/**
+	 * Default amount of PCM bytes from which on samples are streamed.
+	 */
+	public static final long STREAM_THRESHOLD = 64 * 1024;
+
 	/**
 	 * Supported default sample size.
 	 */
 	private static final int SAMPLE_SIZE = 8;
+	/**
+	 * RIFF chunk id, as little-endian int.
+	 */
+	private static final int RIFF_ID = 0x46464952;
+	/**
+	 * WAVE format id, as little-endian int.
+	 */
+	private static final int WAVE_ID = 0x45564157;
+	/**
+	 * Format chunk id, as little-endian int.
+	 */
+	private static final int FMT_ID = 0x20746D66;
+	/**
+	 * Data chunk id, as little-endian int.
+	 */
+	private static final int DATA_ID = 0x61746164;
+	/**
+	 * Format tag of uncompressed PCM.
+	 */
+	private static final int FORMAT_PCM = 1;
+	/**
+	 * Size of the RIFF header including the WAVE format id.
+	 */
+	private static final int RIFF_HEADER_SIZE = 12;
+	/**
+	 * Size of a chunk header.
+	 */
+	private static final int CHUNK_HEADER_SIZE = 8;
+	/**
+	 * Minimal size of the format chunk.
+	 */
+	private static final int FMT_SIZE = 16;
+	/**
+	 * Offset of the bits per sample in the format chunk.
+	 */
+	private static final int FMT_BITS_OFFSET = 14;
 	/**
 	 * Size of the sample buffer.
 	 */
@@ -53,9 +102,14 @@ public final class SampleLoader {
 	 * Hexadezimal 80000000.
 	 */
 	private static final long HEX_80000000 = 0x80000000L;
+	/**
+	 * Amount of bits of a byte.
+	 */
+	private static final int BYTE_BITS = 8;
 
 	/**
-	 * Loads a SoundSample from an url.
+	 * Loads a SoundSample from an url. Samples with at least
+	 * {@link #STREAM_THRESHOLD} bytes of PCM data are streamed.
 	 * 
 	 * @param resourceName
 	 *            URL of the sample
@@ -68,13 +122,92 @@ public final class SampleLoader {
 	 */
 	public static SoundSample loadSample(final String resourceName)
 			throws UnsupportedAudioFileException, IOException {
-		// Hack to prevent "mark/reset not supported" on some systems
-		byte[] d = rip(SampleLoader.class.getResourceAsStream(resourceName));
+		return loadSample(resourceName, STREAM_THRESHOLD);
+	}
+
+	/**
+	 * Loads a SoundSample from an url.
+	 * 
+	 * @param resourceName
+	 *            URL of the sample
+	 * @param streamThreshold
+	 *            Amount of PCM bytes from which on a .wav sample is streamed
+	 *            instead of decoded
+	 * @return Loaded sample
+	 * @throws UnsupportedAudioFileException
+	 *             If sample is not supported, e.g. stereo samples, unsupported
+	 *             sample sizes or a unsupported encoding
+	 * @throws IOException
+	 *             If an IO Exception occurred
+	 */
+	public static SoundSample loadSample(final String resourceName,
+			final long streamThreshold) throws UnsupportedAudioFileException,
+			IOException {
+		return loadSample(read(resourceName), streamThreshold);
+	}
+
+	/**
+	 * Loads a SoundSample from the contents of a file.
+	 * 
+	 * @param file
+	 *            Contents of the file, the position is not changed
+	 * @param streamThreshold
+	 *            Amount of PCM bytes from which on a .wav sample is streamed
+	 *            instead of decoded
+	 * @return Loaded sample
+	 * @throws UnsupportedAudioFileException
+	 *             If sample is not supported, e.g. stereo samples, unsupported
+	 *             sample sizes or a unsupported encoding
+	 * @throws IOException
+	 *             If an IO Exception occurred
+	 */
+	static SoundSample loadSample(final ByteBuffer file,
+			final long streamThreshold) throws UnsupportedAudioFileException,
+			IOException {
+		SoundSample sample = readWave(file, streamThreshold);
+		if (sample != null) {
+			return sample;
+		}
+
+		// Let the AudioSystem decode all other formats
+		byte[] d = new byte[file.remaining()];
+		file.duplicate().get(d);
 		AudioInputStream ais = AudioSystem
 				.getAudioInputStream(new ByteArrayInputStream(d));
 		return buildSample(rip(ais), ais.getFormat());
 	}
 
+	/**
+	 * Reads the contents of a file from an url. Files which lie in the
+	 * filesystem are memory-mapped.
+	 * 
+	 * @param resourceName
+	 *            URL of the file
+	 * @return Contents of the file
+	 * @throws IOException
+	 *             If the file does not exist or an IO Exception occurred
+	 */
+	static ByteBuffer read(final String resourceName) throws IOException {
+		URL url = SampleLoader.class.getResource(resourceName);
+		if (url == null) {
+			throw new IOException("Sample not found: " + resourceName);
+		}
+		ByteBuffer file;
+		if ("file".equals(url.getProtocol())) {
+			try (FileChannel channel = FileChannel.open(
+					Paths.get(url.toURI()), StandardOpenOption.READ)) {
+				// The mapping stays valid after the channel is closed
+				file = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+						channel.size());
+			} catch (URISyntaxException e) {
+				throw new IOException(e);
+			}
+		} else {
+			file = ByteBuffer.wrap(rip(url.openStream()));
+		}
+		return file;
+	}
+
 	/**
 	 * Reorganizes audio sample data into the intenal sound format.
 	 * 
@@ -108,52 +241,66 @@ public final class SampleLoader {
 			throw new UnsupportedAudioFileException("Unsupported encoding");
 		}
 
-		// Wrap the data into a bytebuffer, and set up the byte order
-		ByteBuffer bb = ByteBuffer.wrap(b);
+		int bytes = sampleSize / SAMPLE_SIZE;
+		int s = b.length / bytes;
+		float[] buf = new float[s];
 
+		// Offsets of the low and high byte of a sample, depending on the byte
+		// order. Samples are decoded straight from the array, so the loops
+		// need no ByteBuffer calls and can be vectorized by the JIT compiler.
+		int lo = 0;
+		int hi = bytes - 1;
 		if (af.isBigEndian()) {
-			bb.order(ByteOrder.BIG_ENDIAN);
-		} else {
-			bb.order(ByteOrder.LITTLE_ENDIAN);
+			lo = bytes - 1;
+			hi = 0;
 		}
 
-		int s = b.length / (sampleSize / SAMPLE_SIZE);
-		float[] buf = new float[s];
-
-		// Six different cases for reordering the data.
-		// Can this be improved without slowing it down?
-
+		// Scaling by the reciprocal is exact since the divisors are powers
+		// of two.
 		if (sampleSize == SAMPLE_SIZE) {
+			float scale = 1f / HEX_80;
 			if (signed) {
 				for (int i = 0; i < s; i++) {
-					buf[i] = bb.get() / (float) HEX_80;
+					buf[i] = b[i] * scale;
 				}
 			} else {
 				for (int i = 0; i < s; i++) {
-					buf[i] = ((bb.get() & HEX_FF) - HEX_80) / (float) HEX_80;
+					buf[i] = ((b[i] & HEX_FF) - HEX_80) * scale;
 				}
 			}
 		} else if (sampleSize == SAMPLE_SIZE * 2) {
+			float scale = 1f / HEX_8000;
+			int bias = HEX_8000;
 			if (signed) {
-				for (int i = 0; i < s; i++) {
-					buf[i] = bb.getShort() / (float) HEX_8000;
-				}
-			} else {
-				for (int i = 0; i < s; i++) {
-					buf[i] = ((bb.getShort() & HEX_FFFF) - HEX_8000)
-							/ (float) HEX_8000;
+				bias = 0;
+			}
+			for (int i = 0; i < s; i++) {
+				int p = i * 2;
+				int v = (b[p + hi] << BYTE_BITS) | (b[p + lo] & HEX_FF);
+				if (!signed) {
+					v &= HEX_FFFF;
 				}
+				buf[i] = (v - bias) * scale;
 			}
 		} else if (sampleSize == SAMPLE_SIZE * 2 * 2) {
-			if (signed) {
-				for (int i = 0; i < s; i++) {
-					buf[i] = bb.getInt() / (float) HEX_80000000;
-				}
-			} else {
-				// Nasty.. check this.
-				for (int i = 0; i < s; i++) {
-					buf[i] = ((bb.getInt() & HEX_FFFFFFFF) - HEX_80000000)
-							/ (float) HEX_80000000;
+			float scale = 1f / HEX_80000000;
+			int mid1 = lo + 1;
+			int mid2 = lo + 2;
+			if (af.isBigEndian()) {
+				mid1 = lo - 1;
+				mid2 = lo - 2;
+			}
+			for (int i = 0; i < s; i++) {
+				int p = i * 2 * 2;
+				int v = (b[p + hi] << (BYTE_BITS * 3))
+						| ((b[p + mid2] & HEX_FF) << (BYTE_BITS * 2))
+						| ((b[p + mid1] & HEX_FF) << BYTE_BITS)
+						| (b[p + lo] & HEX_FF);
+				if (signed) {
+					buf[i] = v * scale;
+				} else {
+					// Nasty.. check this.
+					buf[i] = ((v & HEX_FFFFFFFF) - HEX_80000000) * scale;
 				}
 			}
 		}
@@ -162,6 +309,76 @@ public final class SampleLoader {
 		return new SoundSample(buf, rate);
 	}
 
+	/**
+	 * Reads a mono PCM .wav file by its RIFF chunks.
+	 * 
+	 * @param file
+	 *            Contents of the file, the position is not changed
+	 * @param streamThreshold
+	 *            Amount of PCM bytes from which on the sample is streamed
+	 *            instead of decoded
+	 * @return Loaded sample or null if the file is no mono PCM .wav file
+	 * @throws UnsupportedAudioFileException
+	 *             If sample is not supported
+	 */
+	private static SoundSample readWave(final ByteBuffer file,
+			final long streamThreshold) throws UnsupportedAudioFileException {
+		ByteBuffer bb = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		if (bb.remaining() < RIFF_HEADER_SIZE || bb.getInt() != RIFF_ID) {
+			return null;
+		}
+		bb.getInt();
+		if (bb.getInt() != WAVE_ID) {
+			return null;
+		}
+
+		int channels = 0;
+		int rate = 0;
+		int sampleSize = 0;
+		boolean format = false;
+		while (bb.remaining() >= CHUNK_HEADER_SIZE) {
+			int id = bb.getInt();
+			long size = bb.getInt() & HEX_FFFFFFFF;
+			int start = bb.position();
+			if (id == FMT_ID && size >= FMT_SIZE) {
+				if ((bb.getShort(start) & HEX_FFFF) != FORMAT_PCM) {
+					return null;
+				}
+				channels = bb.getShort(start + 2) & HEX_FFFF;
+				rate = bb.getInt(start + 2 * 2);
+				sampleSize = bb.getShort(start + FMT_BITS_OFFSET) & HEX_FFFF;
+				format = true;
+			} else if (id == DATA_ID) {
+				if (!format
+						|| channels != 1
+						|| !(sampleSize == SAMPLE_SIZE
+								|| sampleSize == SAMPLE_SIZE * 2 || sampleSize == SAMPLE_SIZE * 2 * 2)) {
+					return null;
+				}
+				// Truncated files end with their data
+				int length = (int) Math.min(size, bb.remaining());
+				bb.limit(start + length);
+				// Only 8 bit .wav samples are unsigned
+				boolean signed = sampleSize > SAMPLE_SIZE;
+				if (length >= streamThreshold) {
+					return new StreamedSoundSample(bb, rate, sampleSize,
+							signed, false);
+				}
+				byte[] b = new byte[length];
+				bb.get(b);
+				return buildSample(b, new AudioFormat(rate, sampleSize,
+						channels, signed, false));
+			}
+			// Chunks are padded to an even size
+			long next = start + size + (size & 1);
+			if (next > bb.limit()) {
+				return null;
+			}
+			bb.position((int) next);
+		}
+		return null;
+	}
+
 	/**
 	 * Rips the entire contents of an InputStream into a byte array.
 	 * 
@@ -1,22 +1,94 @@
 package de.zabuza.soundEngine.sample;
 
+import java.util.Arrays;
+
 import de.zabuza.soundEngine.SoundProducer;
 
 /**
- * SamplePlayer class. Plays SoundSamples.
+ * SamplePlayer class. Plays SoundSamples and converts them from their rate to
+ * the reading rate. The position in the sample is a fixed-point number, so it
+ * does not drift for long samples. Values between two samples are either
+ * interpolated linear or with a windowed sinc filter, see
+ * {@link #setInterpolation(int)}. If no conversion is needed the samples are
+ * copied. Samples which are played at their own speed are converted once for
+ * the reading rate, see {@link SoundSample#getConverted(int, int)}, and then
+ * copied as well.
  * 
  * @author Zabuza
  * 
  */
 public class SamplePlayer implements SoundProducer {
+
+	/**
+	 * Interpolation between the two neighboured samples.
+	 */
+	public static final int LINEAR = 0;
+	/**
+	 * Interpolation with a windowed sinc filter over {@link #SINC_TAPS}
+	 * samples, slower but with less aliasing.
+	 */
+	public static final int SINC = 1;
+
+	/**
+	 * Amount of fraction bits of the position.
+	 */
+	private static final int FRACTION_BITS = 32;
+	/**
+	 * Position of one sample.
+	 */
+	private static final long ONE = 1L << FRACTION_BITS;
+	/**
+	 * Bit mask of the fraction of the position.
+	 */
+	private static final long FRACTION_MASK = ONE - 1;
+	/**
+	 * Amount of lower fraction bits which are dropped before the fraction is
+	 * converted into a float, leaves the bits of the float mantissa.
+	 */
+	private static final int FLOAT_FRACTION_SHIFT = 8;
+	/**
+	 * Converts the shifted fraction of the position into a float if
+	 * multiplied with.
+	 */
+	private static final float FRACTION_TO_FLOAT = 1f / (1 << (FRACTION_BITS
+			- FLOAT_FRACTION_SHIFT));
+	/**
+	 * Amount of samples the sinc filter covers.
+	 */
+	private static final int SINC_TAPS = 8;
+	/**
+	 * Amount of bits of the precomputed filter phases.
+	 */
+	private static final int SINC_PHASE_BITS = 8;
+	/**
+	 * Amount of precomputed filter phases between two samples.
+	 */
+	private static final int SINC_PHASES = 1 << SINC_PHASE_BITS;
+	/**
+	 * Cutoff of the sinc filter relative to the samples nyquist frequency,
+	 * slightly below to damp the images of upsampled samples.
+	 */
+	private static final double SINC_CUTOFF = 0.95;
+	/**
+	 * Coefficients of the Blackman window.
+	 */
+	private static final double BLACKMAN_A0 = 0.42, BLACKMAN_A1 = 0.5,
+			BLACKMAN_A2 = 0.08;
+	/**
+	 * Filter coefficients, {@link #SINC_TAPS} for every phase, each phase sums
+	 * up to one.
+	 */
+	private static final float[] SINC_TABLE = createSincTable();
+
 	/**
 	 * Sample to play.
 	 */
 	private SoundSample sample;
 	/**
-	 * Position in the sample.
+	 * Position in the sample as fixed-point number with
+	 * {@link #FRACTION_BITS} fraction bits.
 	 */
-	private float pos = 0;
+	private long pos = 0;
 	/**
 	 * True if the sample is alive.
 	 */
@@ -25,6 +97,10 @@ public class SamplePlayer implements SoundProducer {
 	 * Rate if the sample.
 	 */
 	private float rate;
+	/**
+	 * Interpolation between samples, {@link #LINEAR} or {@link #SINC}.
+	 */
+	private int interpolation = LINEAR;
 
 	/**
 	 * Creates a new SamplePlayer with a SoundSample and a rate.
@@ -35,8 +111,39 @@ public class SamplePlayer implements SoundProducer {
 	 *            Rate of the sound
 	 */
 	public SamplePlayer(final SoundSample thatSample, final float thatRate) {
-		this.rate = thatRate;
-		this.sample = thatSample;
+		reset(thatSample, thatRate);
+	}
+
+	/**
+	 * Creates the filter coefficients of all phases of the windowed sinc.
+	 * 
+	 * @return Filter coefficients
+	 */
+	private static float[] createSincTable() {
+		float[] table = new float[SINC_PHASES * SINC_TAPS];
+		double[] row = new double[SINC_TAPS];
+		for (int p = 0; p < SINC_PHASES; p++) {
+			double fraction = p / (double) SINC_PHASES;
+			double sum = 0;
+			for (int k = 0; k < SINC_TAPS; k++) {
+				// Distance of the tap to the position
+				double x = k - (SINC_TAPS / 2 - 1) - fraction;
+				double sinc = 1;
+				if (x != 0) {
+					sinc = Math.sin(Math.PI * x * SINC_CUTOFF)
+							/ (Math.PI * x * SINC_CUTOFF);
+				}
+				double window = BLACKMAN_A0 + BLACKMAN_A1
+						* Math.cos(2 * Math.PI * x / SINC_TAPS) + BLACKMAN_A2
+						* Math.cos(2 * 2 * Math.PI * x / SINC_TAPS);
+				row[k] = sinc * window;
+				sum += row[k];
+			}
+			for (int k = 0; k < SINC_TAPS; k++) {
+				table[p * SINC_TAPS + k] = (float) (row[k] / sum);
+			}
+		}
+		return table;
 	}
 
 	@Override
@@ -44,30 +151,256 @@ public class SamplePlayer implements SoundProducer {
 		return alive;
 	}
 
+	/**
+	 * Converts a buffered SoundSample to a reading rate, as a SamplePlayer
+	 * would play it at the samples own speed.
+	 * 
+	 * @param thatSample
+	 *            Buffered SoundSample to convert
+	 * @param readRate
+	 *            Reading rate
+	 * @param thatInterpolation
+	 *            {@link #LINEAR} or {@link #SINC}
+	 * @return New SoundSample with the reading rate
+	 */
+	static SoundSample convert(final SoundSample thatSample,
+			final int readRate, final int thatInterpolation) {
+		SamplePlayer player = new SamplePlayer(thatSample, 1);
+		long step = player.getStep(readRate);
+		float[] buf = new float[player.getAmount(Integer.MAX_VALUE,
+				thatSample.getLength(), step)];
+		if (thatInterpolation == SINC) {
+			player.interpolateSinc(buf, step);
+		} else {
+			player.interpolateLinear(buf, step);
+		}
+		return new SoundSample(buf, readRate);
+	}
+
 	@Override
 	public final float read(final float[] buf, final int readRate) {
-		float step = (sample.getRate() * rate) / readRate;
+		long step = getStep(readRate);
+		if (step != ONE && pos == 0 && rate == 1 && sample.getBuf() != null) {
+			// Played at its own speed, the sample is converted once and then
+			// only copied
+			sample = sample.getConverted(readRate, interpolation);
+			step = ONE;
+		}
 
-		for (int i = 0; i < buf.length; i++) {
-			if (pos >= sample.getBuf().length) {
-				buf[i] = 0;
-				alive = false;
-			} else {
-				buf[i] = sample.getBuf()[(int) pos];
-			}
-			pos += step;
+		int amount;
+		if (step == ONE) {
+			// Same rate, no conversion needed
+			amount = copy(buf);
+		} else if (interpolation == SINC) {
+			amount = interpolateSinc(buf, step);
+		} else {
+			amount = interpolateLinear(buf, step);
+		}
+
+		if (amount < buf.length) {
+			Arrays.fill(buf, amount, buf.length, 0);
+			alive = false;
 		}
 
 		return 1;
 	}
 
+	/**
+	 * Resets the SamplePlayer to play a SoundSample from its start. Used to
+	 * reuse a player instead of creating a new one.
+	 * 
+	 * @param thatSample
+	 *            SoundSample to play
+	 * @param thatRate
+	 *            Rate of the sound
+	 */
+	public final void reset(final SoundSample thatSample, final float thatRate) {
+		this.rate = thatRate;
+		this.sample = thatSample;
+		this.pos = 0;
+		this.alive = true;
+	}
+
+	/**
+	 * Sets the interpolation between samples.
+	 * 
+	 * @param thatInterpolation
+	 *            {@link #LINEAR} or {@link #SINC}
+	 */
+	public final void setInterpolation(final int thatInterpolation) {
+		this.interpolation = thatInterpolation;
+	}
+
 	@Override
 	public final void skip(final int samplesToSkip, final int readRate) {
-		float step = sample.getRate() / readRate;
-		pos += step * samplesToSkip;
+		pos += getStep(readRate) * samplesToSkip;
 
-		if (pos >= sample.getBuf().length) {
+		if (pos >= (long) sample.getLength() << FRACTION_BITS) {
 			alive = false;
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Copies the next values of the sample into a buffer, used if the sample
+	 * has the reading rate.
+	 * 
+	 * @param buf
+	 *            Buffer to fill
+	 * @return Amount of values which were filled until the sample ended
+	 */
+	private int copy(final float[] buf) {
+		int index = (int) (pos >>> FRACTION_BITS);
+		int amount = Math.max(0,
+				Math.min(buf.length, sample.getLength() - index));
+		float[] data = sample.getBuf();
+		if (data != null) {
+			System.arraycopy(data, index, buf, 0, amount);
+		} else {
+			for (int i = 0; i < amount; i++) {
+				buf[i] = sample.get(index + i);
+			}
+		}
+		pos += ONE * amount;
+		return amount;
+	}
+
+	/**
+	 * Fills a buffer with values which are interpolated linear between the
+	 * two neighboured samples.
+	 * 
+	 * @param buf
+	 *            Buffer to fill
+	 * @param step
+	 *            Amount the position advances for every value
+	 * @return Amount of values which were filled until the sample ended
+	 */
+	private int interpolateLinear(final float[] buf, final long step) {
+		int length = sample.getLength();
+		float[] data = sample.getBuf();
+		int amount = getAmount(buf.length, length, step);
+		long p = pos;
+		// The last value is interpolated with itself
+		int last = length - 1;
+		if (data != null) {
+			// Values before the last sample always have a next one, so the
+			// loop over them needs no check
+			int inner = getAmount(amount, last, step);
+			for (int i = 0; i < inner; i++) {
+				int index = (int) (p >>> FRACTION_BITS);
+				// Converting an int is much cheaper than converting a long
+				float fraction = ((int) p >>> FLOAT_FRACTION_SHIFT)
+						* FRACTION_TO_FLOAT;
+				float current = data[index];
+				buf[i] = current + (data[index + 1] - current) * fraction;
+				p += step;
+			}
+			for (int i = inner; i < amount; i++) {
+				buf[i] = data[last];
+				p += step;
+			}
+		} else {
+			for (int i = 0; i < amount; i++) {
+				int index = (int) (p >>> FRACTION_BITS);
+				float fraction = ((int) p >>> FLOAT_FRACTION_SHIFT)
+						* FRACTION_TO_FLOAT;
+				float current = sample.get(index);
+				float next = sample.get(Math.min(index + 1, last));
+				buf[i] = current + (next - current) * fraction;
+				p += step;
+			}
+		}
+		pos = p;
+		return amount;
+	}
+
+	/**
+	 * Fills a buffer with values which are interpolated by the windowed sinc
+	 * filter over the surrounding samples.
+	 * 
+	 * @param buf
+	 *            Buffer to fill
+	 * @param step
+	 *            Amount the position advances for every value
+	 * @return Amount of values which were filled until the sample ended
+	 */
+	private int interpolateSinc(final float[] buf, final long step) {
+		int length = sample.getLength();
+		float[] data = sample.getBuf();
+		int amount = getAmount(buf.length, length, step);
+		long p = pos;
+		for (int i = 0; i < amount; i++) {
+			int index = (int) (p >>> FRACTION_BITS);
+			int phase = (int) ((p & FRACTION_MASK) >>> (FRACTION_BITS
+					- SINC_PHASE_BITS));
+			int first = index - (SINC_TAPS / 2 - 1);
+			int coefficient = phase * SINC_TAPS;
+			float value = 0;
+			if (data != null && first >= 0 && first + SINC_TAPS <= length) {
+				for (int k = 0; k < SINC_TAPS; k++) {
+					value += data[first + k] * SINC_TABLE[coefficient + k];
+				}
+			} else {
+				for (int k = 0; k < SINC_TAPS; k++) {
+					value += valueAt(data, first + k, length)
+							* SINC_TABLE[coefficient + k];
+				}
+			}
+			buf[i] = value;
+			p += step;
+		}
+		pos = p;
+		return amount;
+	}
+
+	/**
+	 * Gets the amount of values which can be read before the sample ends.
+	 * 
+	 * @param max
+	 *            Maximal amount of values
+	 * @param length
+	 *            Length of the sample
+	 * @param step
+	 *            Amount the position advances for every value
+	 * @return Amount of values, at most max
+	 */
+	private int getAmount(final int max, final int length, final long step) {
+		long remaining = ((long) length << FRACTION_BITS) - pos;
+		if (remaining <= 0) {
+			return 0;
+		}
+		// Values are read while the position is below the end
+		return (int) Math.min(max, (remaining + step - 1) / step);
+	}
+
+	/**
+	 * Gets the amount the position advances for every read value.
+	 * 
+	 * @param readRate
+	 *            Reading rate
+	 * @return Step as fixed-point number
+	 */
+	private long getStep(final int readRate) {
+		return Math.round((double) sample.getRate() * rate / readRate * ONE);
+	}
+
+	/**
+	 * Gets a value of the sample, 0 outside of it.
+	 * 
+	 * @param data
+	 *            Buffer of the sample or null if it is streamed
+	 * @param index
+	 *            Index of the value
+	 * @param length
+	 *            Length of the sample
+	 * @return Value of the sample
+	 */
+	private float valueAt(final float[] data, final int index, final int length) {
+		if (index < 0 || index >= length) {
+			return 0;
+		}
+		if (data != null) {
+			return data[index];
+		}
+		return sample.get(index);
+	}
+}
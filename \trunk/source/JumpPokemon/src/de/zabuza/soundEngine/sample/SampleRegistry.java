@@ -0,0 +1,303 @@
+package de.zabuza.soundEngine.sample;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * SampleRegistry class. Loads every sample only once and keeps it by its
+ * resource name. Samples are identified by a hash of their file contents, so
+ * equal files share one {@link SoundSample}, and are converted once to the
+ * output rate. Converted samples are kept in an optional cache directory
+ * between runs, from where they are memory-mapped instead of decoded again.
+ *
+ * @author Zabuza
+ *
+ */
+public class SampleRegistry {
+
+	/**
+	 * Algorithm of the content hash.
+	 */
+	private static final String HASH_ALGORITHM = "SHA-1";
+	/**
+	 * Version of the cache files, must be increased if the conversion
+	 * changes.
+	 */
+	private static final int CACHE_VERSION = 1;
+	/**
+	 * Suffix of the cache files.
+	 */
+	private static final String CACHE_SUFFIX = ".pcm";
+	/**
+	 * Suffix of cache files which are still written.
+	 */
+	private static final String TEMP_SUFFIX = ".tmp";
+	/**
+	 * Amount of bytes of a float value.
+	 */
+	private static final int FLOAT_BYTES = Float.SIZE / Byte.SIZE;
+	/**
+	 * Size of the buffer used for converting.
+	 */
+	private static final int BUF_SIZE = 4096;
+	/**
+	 * Radix of the hash in file names.
+	 */
+	private static final int HEX_RADIX = 16;
+	/**
+	 * Bits of a hex digit.
+	 */
+	private static final int HEX_BITS = 4;
+	/**
+	 * Hexadezimal F.
+	 */
+	private static final int HEX_F = 0xF;
+
+	/**
+	 * Rate of the converted samples.
+	 */
+	private final int outputRate;
+	/**
+	 * Directory of the cache files, null if there is no cache.
+	 */
+	private final Path cacheDir;
+	/**
+	 * Loaded samples by their resource name.
+	 */
+	private final Map<String, SoundSample> samplesByName =
+			new HashMap<String, SoundSample>();
+	/**
+	 * Loaded samples by the hash of their file contents.
+	 */
+	private final Map<String, SoundSample> samplesByHash =
+			new HashMap<String, SoundSample>();
+
+	/**
+	 * Creates a new SampleRegistry.
+	 *
+	 * @param thatOutputRate
+	 *            Rate to which all samples are converted
+	 * @param thatCacheDir
+	 *            Directory for the converted samples or null if they should
+	 *            not be cached between runs
+	 */
+	public SampleRegistry(final int thatOutputRate, final Path thatCacheDir) {
+		this.outputRate = thatOutputRate;
+		this.cacheDir = thatCacheDir;
+	}
+
+	/**
+	 * Gets a sample, converted to the output rate. The sample is only loaded
+	 * if neither it nor a sample with the same contents was loaded before.
+	 *
+	 * @param resourceName
+	 *            URL of the sample
+	 * @return Converted sample
+	 * @throws UnsupportedAudioFileException
+	 *             If sample is not supported, e.g. stereo samples, unsupported
+	 *             sample sizes or a unsupported encoding
+	 * @throws IOException
+	 *             If an IO Exception occurred
+	 */
+	public final synchronized SoundSample get(final String resourceName)
+			throws UnsupportedAudioFileException, IOException {
+		SoundSample sample = samplesByName.get(resourceName);
+		if (sample != null) {
+			return sample;
+		}
+
+		ByteBuffer file = SampleLoader.read(resourceName);
+		String hash = hash(file);
+		sample = samplesByHash.get(hash);
+		if (sample == null) {
+			sample = loadCached(hash);
+			if (sample == null) {
+				// Decode completely, the converted values are streamed
+				// from the cache instead
+				float[] values = convert(SampleLoader.loadSample(file,
+						Long.MAX_VALUE));
+				if (storeCached(hash, values)) {
+					sample = loadCached(hash);
+				}
+				if (sample == null) {
+					sample = new SoundSample(values, outputRate);
+				}
+			}
+			samplesByHash.put(hash, sample);
+		}
+		samplesByName.put(resourceName, sample);
+		return sample;
+	}
+
+	/**
+	 * Gets the amount of different samples, samples with equal contents are
+	 * counted once.
+	 *
+	 * @return Amount of different samples
+	 */
+	public final synchronized int getSampleCount() {
+		return samplesByHash.size();
+	}
+
+	/**
+	 * Converts a decoded sample to the output rate.
+	 *
+	 * @param sample
+	 *            Decoded sample
+	 * @return Values of the sample at the output rate
+	 */
+	private float[] convert(final SoundSample sample) {
+		if (sample.getRate() == outputRate) {
+			return sample.getBuf();
+		}
+		int length = (int) Math.ceil(sample.getLength() * (double) outputRate
+				/ sample.getRate());
+		float[] values = new float[length];
+		float[] buf = new float[BUF_SIZE];
+
+		SamplePlayer player = new SamplePlayer(sample, 1);
+		player.setInterpolation(SamplePlayer.SINC);
+		for (int i = 0; i < length; i += BUF_SIZE) {
+			player.read(buf, outputRate);
+			System.arraycopy(buf, 0, values, i,
+					Math.min(BUF_SIZE, length - i));
+		}
+		return values;
+	}
+
+	/**
+	 * Gets the cache file of a sample.
+	 *
+	 * @param hash
+	 *            Hash of the samples file contents
+	 * @return Cache file of the sample
+	 */
+	private Path getCacheFile(final String hash) {
+		return cacheDir.resolve(hash + "-" + outputRate + "-v" + CACHE_VERSION
+				+ CACHE_SUFFIX);
+	}
+
+	/**
+	 * Creates the hash of file contents.
+	 *
+	 * @param file
+	 *            Contents of the file, the position is not changed
+	 * @return Hash as hexadecimal string
+	 */
+	private static String hash(final ByteBuffer file) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform must support the algorithm
+			throw new IllegalStateException(e);
+		}
+		digest.update(file.duplicate());
+
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest()) {
+			sb.append(Character.forDigit((b >> HEX_BITS) & HEX_F, HEX_RADIX));
+			sb.append(Character.forDigit(b & HEX_F, HEX_RADIX));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Loads a converted sample from the cache. Long samples are memory-mapped
+	 * and streamed, see {@link SampleLoader#STREAM_THRESHOLD}.
+	 *
+	 * @param hash
+	 *            Hash of the samples file contents
+	 * @return Converted sample or null if it is not cached
+	 */
+	private SoundSample loadCached(final String hash) {
+		if (cacheDir == null) {
+			return null;
+		}
+		Path path = getCacheFile(hash);
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size % FLOAT_BYTES != 0 || size > Integer.MAX_VALUE) {
+				return null;
+			}
+			if (size >= SampleLoader.STREAM_THRESHOLD) {
+				// The mapping stays valid after the channel is closed
+				return new StreamedSoundSample(channel.map(
+						FileChannel.MapMode.READ_ONLY, 0, size), outputRate);
+			}
+			ByteBuffer bb = ByteBuffer.allocate((int) size);
+			while (bb.hasRemaining() && channel.read(bb) >= 0) {
+				// Read until the buffer is full
+			}
+			bb.flip();
+			float[] values = new float[(int) (size / FLOAT_BYTES)];
+			bb.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(values);
+			return new SoundSample(values, outputRate);
+		} catch (IOException e) {
+			System.out.println("Failed to read cached sample " + path);
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Stores a converted sample in the cache. The file is written completely
+	 * before it is moved to its name, so other runs never see parts of it.
+	 *
+	 * @param hash
+	 *            Hash of the samples file contents
+	 * @param values
+	 *            Values of the converted sample
+	 * @return True if the sample was stored
+	 */
+	private boolean storeCached(final String hash, final float[] values) {
+		if (cacheDir == null) {
+			return false;
+		}
+		Path temp = null;
+		try {
+			Files.createDirectories(cacheDir);
+			temp = Files.createTempFile(cacheDir, hash, TEMP_SUFFIX);
+			ByteBuffer bb = ByteBuffer.allocate(values.length * FLOAT_BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			bb.asFloatBuffer().put(values);
+			try (FileChannel channel = FileChannel.open(temp,
+					StandardOpenOption.WRITE)) {
+				while (bb.hasRemaining()) {
+					channel.write(bb);
+				}
+			}
+			Files.move(temp, getCacheFile(hash),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException e) {
+			System.out.println("Failed to cache sample " + hash);
+			e.printStackTrace();
+			if (temp != null) {
+				try {
+					Files.deleteIfExists(temp);
+				} catch (IOException e2) {
+					e2.printStackTrace();
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -1,20 +1,39 @@
 package de.zabuza.soundEngine.sample;
 
 /**
- * SoundSample class. Representates a .wav mono sound sample
+ * SoundSample class. Representates a .wav mono sound sample. The sample is
+ * either decoded into a buffer or, see {@link StreamedSoundSample}, decoded on
+ * demand.
  * 
  * @author Zabuza
  * 
  */
 public class SoundSample {
 	/**
-	 * Buffer of the sample.
+	 * Buffer of the sample, null if the sample is decoded on demand.
 	 */
 	private final float[] buf;
+	/**
+	 * Amount of values of the sample.
+	 */
+	private final int length;
 	/**
 	 * Rate of the sample.
 	 */
 	private final float rate;
+	/**
+	 * Last copy of the sample which was converted to another rate, null if
+	 * none was needed yet.
+	 */
+	private SoundSample converted;
+	/**
+	 * Reading rate of the converted copy.
+	 */
+	private int convertedRate;
+	/**
+	 * Interpolation of the converted copy.
+	 */
+	private int convertedInterpolation;
 
 	/**
 	 * Creates a new SoundSample with a sound buffer and a rate.
@@ -26,18 +45,77 @@ public class SoundSample {
 	 */
 	public SoundSample(final float[] thatBuf, final float thatRate) {
 		this.buf = thatBuf;
+		this.length = thatBuf.length;
+		this.rate = thatRate;
+	}
+
+	/**
+	 * Creates a new SoundSample without a buffer, used by samples which
+	 * decode their values on demand.
+	 * 
+	 * @param thatLength
+	 *            Amount of values of the sample
+	 * @param thatRate
+	 *            Rate of the sample
+	 */
+	protected SoundSample(final int thatLength, final float thatRate) {
+		this.buf = null;
+		this.length = thatLength;
 		this.rate = thatRate;
 	}
 
+	/**
+	 * Gets a value of the sample.
+	 * 
+	 * @param index
+	 *            Index of the value, between 0 and the length
+	 * @return Value of the sample
+	 */
+	protected float get(final int index) {
+		return buf[index];
+	}
+
+	/**
+	 * Gets a copy of the sample which is converted to a reading rate, so
+	 * playing it at its own speed only copies values. The last copy is kept
+	 * and reused as long as the rate and interpolation do not change.
+	 * 
+	 * @param readRate
+	 *            Reading rate
+	 * @param interpolation
+	 *            {@link SamplePlayer#LINEAR} or {@link SamplePlayer#SINC}
+	 * @return Converted copy of the buffered sample
+	 */
+	protected final synchronized SoundSample getConverted(final int readRate,
+			final int interpolation) {
+		if (converted == null || convertedRate != readRate
+				|| convertedInterpolation != interpolation) {
+			converted = SamplePlayer.convert(this, readRate, interpolation);
+			convertedRate = readRate;
+			convertedInterpolation = interpolation;
+		}
+		return converted;
+	}
+
 	/**
 	 * Gets the samples buffer.
 	 * 
-	 * @return Samples buffer
+	 * @return Samples buffer or null if the sample is decoded on demand, then
+	 *         {@link #get(int)} must be used
 	 */
 	protected final float[] getBuf() {
 		return buf;
 	}
 
+	/**
+	 * Gets the amount of values of the sample.
+	 * 
+	 * @return Amount of values
+	 */
+	protected final int getLength() {
+		return length;
+	}
+
 	/**
 	 * Gets the samples rate.
 	 * 
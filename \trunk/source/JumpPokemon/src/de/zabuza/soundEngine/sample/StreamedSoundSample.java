@@ -0,0 +1,135 @@
+package de.zabuza.soundEngine.sample;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * StreamedSoundSample class. Representates a mono sound sample whose PCM data
+ * stays encoded, usually in a memory-mapped file, and is decoded on demand.
+ * Used for long samples which would take four bytes per value as a decoded
+ * buffer. Can also stream already decoded float values, like the converted
+ * samples of the {@link SampleRegistry} cache.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class StreamedSoundSample extends SoundSample {
+
+	/**
+	 * Amount of bits of a byte.
+	 */
+	private static final int BYTE_BITS = 8;
+	/**
+	 * Hexadezimal FF.
+	 */
+	private static final int HEX_FF = 0xFF;
+	/**
+	 * Hexadezimal 80.
+	 */
+	private static final int HEX_80 = 0x80;
+	/**
+	 * Hexadezimal FFFF.
+	 */
+	private static final int HEX_FFFF = 0xFFFF;
+	/**
+	 * Hexadezimal 8000.
+	 */
+	private static final int HEX_8000 = 0x8000;
+	/**
+	 * Hexadezimal FFFFFFFF.
+	 */
+	private static final long HEX_FFFFFFFF = 0xFFFFFFFFL;
+	/**
+	 * Hexadezimal 80000000.
+	 */
+	private static final long HEX_80000000 = 0x80000000L;
+
+	/**
+	 * Encoded PCM data, only accessed with absolute reads.
+	 */
+	private final ByteBuffer pcm;
+	/**
+	 * Amount of bytes of a value, 1, 2 or 4.
+	 */
+	private final int sampleBytes;
+	/**
+	 * True if the values are signed.
+	 */
+	private final boolean signed;
+	/**
+	 * True if the values are already decoded floats.
+	 */
+	private final boolean floating;
+
+	/**
+	 * Creates a new StreamedSoundSample on encoded PCM data.
+	 * 
+	 * @param thatPcm
+	 *            Encoded PCM data between position and limit
+	 * @param thatRate
+	 *            Rate of the sample
+	 * @param sampleSize
+	 *            Amount of bits of a value, 8, 16 or 32
+	 * @param thatSigned
+	 *            True if the values are signed
+	 * @param bigEndian
+	 *            True if the values are stored in big-endian byte order
+	 */
+	public StreamedSoundSample(final ByteBuffer thatPcm, final float thatRate,
+			final int sampleSize, final boolean thatSigned,
+			final boolean bigEndian) {
+		super(thatPcm.remaining() / (sampleSize / BYTE_BITS), thatRate);
+		this.pcm = thatPcm.slice();
+		if (bigEndian) {
+			this.pcm.order(ByteOrder.BIG_ENDIAN);
+		} else {
+			this.pcm.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		this.sampleBytes = sampleSize / BYTE_BITS;
+		this.signed = thatSigned;
+		this.floating = false;
+	}
+
+	/**
+	 * Creates a new StreamedSoundSample on little-endian float values.
+	 * 
+	 * @param thatValues
+	 *            Float values between position and limit
+	 * @param thatRate
+	 *            Rate of the sample
+	 */
+	public StreamedSoundSample(final ByteBuffer thatValues,
+			final float thatRate) {
+		super(thatValues.remaining() / (Float.SIZE / BYTE_BITS), thatRate);
+		this.pcm = thatValues.slice().order(ByteOrder.LITTLE_ENDIAN);
+		this.sampleBytes = Float.SIZE / BYTE_BITS;
+		this.signed = true;
+		this.floating = true;
+	}
+
+	@Override
+	protected final float get(final int index) {
+		if (floating) {
+			return pcm.getFloat(index * 2 * 2);
+		}
+		// Same conversion as the SampleLoader uses for decoded buffers
+		if (sampleBytes == 1) {
+			if (signed) {
+				return pcm.get(index) / (float) HEX_80;
+			}
+			return ((pcm.get(index) & HEX_FF) - HEX_80) / (float) HEX_80;
+		}
+		if (sampleBytes == 2) {
+			if (signed) {
+				return pcm.getShort(index * 2) / (float) HEX_8000;
+			}
+			return ((pcm.getShort(index * 2) & HEX_FFFF) - HEX_8000)
+					/ (float) HEX_8000;
+		}
+		if (signed) {
+			return pcm.getInt(index * 2 * 2) / (float) HEX_80000000;
+		}
+		return ((pcm.getInt(index * 2 * 2) & HEX_FFFFFFFF) - HEX_80000000)
+				/ (float) HEX_80000000;
+	}
+}
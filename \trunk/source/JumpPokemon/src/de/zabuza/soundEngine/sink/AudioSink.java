@@ -0,0 +1,53 @@
+package de.zabuza.soundEngine.sink;
+
+/**
+ * Interface for AudioSinks. Takes the mixed sound of a SoundEngine as
+ * interleaved little-endian 16 bit stereo samples, either to play it in real
+ * time or to keep it, as fast as it is rendered.
+ * 
+ * @author Zabuza
+ * 
+ */
+public interface AudioSink {
+
+	/**
+	 * Gets the amount of bytes which can be written without blocking. Sinks
+	 * which are not real time never block.
+	 * 
+	 * @return Amount of bytes
+	 */
+	int available();
+
+	/**
+	 * Closes the sink and releases its resources.
+	 */
+	void close();
+
+	/**
+	 * Gets the size of the buffer of the sink, the most bytes which can be
+	 * queued.
+	 * 
+	 * @return Size of the buffer in bytes
+	 */
+	int getBufferSize();
+
+	/**
+	 * Returns if the sink plays the samples in real time. Otherwise it takes
+	 * them as fast as they are rendered.
+	 * 
+	 * @return True if the sink plays in real time
+	 */
+	boolean isRealTime();
+
+	/**
+	 * Writes samples to the sink, blocks while a real time sink is full.
+	 * 
+	 * @param buf
+	 *            Buffer with the samples
+	 * @param off
+	 *            Offset of the first byte in the buffer
+	 * @param len
+	 *            Amount of bytes to write
+	 */
+	void write(byte[] buf, int off, int len);
+}
@@ -0,0 +1,166 @@
+package de.zabuza.soundEngine.sink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * FileSink class. Writes the sound into a .wav file as fast as it is
+ * rendered, used for offline rendering. The sizes in the header are completed
+ * when the sink is closed.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class FileSink implements AudioSink {
+
+	/**
+	 * Size of the buffer which is reported, the sink never gets full.
+	 */
+	private static final int BUFFER_SIZE = Integer.MAX_VALUE;
+	/**
+	 * Size of the .wav header.
+	 */
+	private static final int HEADER_SIZE = 44;
+	/**
+	 * Size of the format chunk.
+	 */
+	private static final int FMT_SIZE = 16;
+	/**
+	 * Offset of the RIFF size in the header.
+	 */
+	private static final int RIFF_SIZE_OFFSET = 4;
+	/**
+	 * Offset of the data size in the header.
+	 */
+	private static final int DATA_SIZE_OFFSET = 40;
+	/**
+	 * Format tag of uncompressed PCM.
+	 */
+	private static final short FORMAT_PCM = 1;
+	/**
+	 * Amount of channels, stereo.
+	 */
+	private static final short CHANNELS = 2;
+	/**
+	 * Amount of bits of a sample.
+	 */
+	private static final short SAMPLE_BIT_SIZE = 16;
+	/**
+	 * Bytes of a stereo frame with 16 bit samples.
+	 */
+	private static final short FRAME_BYTES = CHANNELS * SAMPLE_BIT_SIZE
+			/ Byte.SIZE;
+
+	/**
+	 * Channel of the file.
+	 */
+	private final FileChannel channel;
+	/**
+	 * Amount of written bytes of samples.
+	 */
+	private long size = 0;
+	/**
+	 * True if writing failed, further samples are dropped.
+	 */
+	private boolean failed = false;
+
+	/**
+	 * Creates a new FileSink and writes the header of the .wav file. An
+	 * existing file is replaced.
+	 * 
+	 * @param path
+	 *            Path of the file
+	 * @param rate
+	 *            Rate of the sound
+	 * @throws IOException
+	 *             If the file could not be created
+	 */
+	public FileSink(final Path path, final int rate) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(
+				ByteOrder.LITTLE_ENDIAN);
+		header.put("RIFF".getBytes("US-ASCII")).putInt(0);
+		header.put("WAVE".getBytes("US-ASCII"));
+		header.put("fmt ".getBytes("US-ASCII")).putInt(FMT_SIZE);
+		header.putShort(FORMAT_PCM).putShort(CHANNELS).putInt(rate);
+		header.putInt(rate * FRAME_BYTES).putShort(FRAME_BYTES);
+		header.putShort(SAMPLE_BIT_SIZE);
+		header.put("data".getBytes("US-ASCII")).putInt(0);
+		header.flip();
+		writeFully(header, 0);
+	}
+
+	@Override
+	public final int available() {
+		return BUFFER_SIZE;
+	}
+
+	@Override
+	public final void close() {
+		try {
+			if (!failed) {
+				ByteBuffer number = ByteBuffer.allocate(Integer.SIZE
+						/ Byte.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+				number.putInt(0, (int) (HEADER_SIZE - RIFF_SIZE_OFFSET
+						- Integer.SIZE / Byte.SIZE + size));
+				writeFully(number, RIFF_SIZE_OFFSET);
+				number.clear();
+				number.putInt(0, (int) size);
+				writeFully(number, DATA_SIZE_OFFSET);
+			}
+			channel.close();
+		} catch (IOException e) {
+			System.out.println("Failed to complete the sound file");
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public final int getBufferSize() {
+		return BUFFER_SIZE;
+	}
+
+	@Override
+	public final boolean isRealTime() {
+		return false;
+	}
+
+	@Override
+	public final void write(final byte[] buf, final int off, final int len) {
+		if (failed) {
+			return;
+		}
+		try {
+			writeFully(ByteBuffer.wrap(buf, off, len), HEADER_SIZE + size);
+			size += len;
+		} catch (IOException e) {
+			System.out.println("Failed to write the sound file");
+			e.printStackTrace();
+			failed = true;
+		}
+	}
+
+	/**
+	 * Writes all remaining bytes of a buffer at a position of the file.
+	 * 
+	 * @param bb
+	 *            Buffer to write
+	 * @param position
+	 *            Position in the file
+	 * @throws IOException
+	 *             If an IO Exception occurred
+	 */
+	private void writeFully(final ByteBuffer bb, final long position)
+			throws IOException {
+		long pos = position;
+		while (bb.hasRemaining()) {
+			pos += channel.write(bb, pos);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package de.zabuza.soundEngine.sink;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.Mixer;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * LineSink class. Plays the sound in real time on a {@link SourceDataLine} of
+ * the systems default mixer.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class LineSink implements AudioSink {
+
+	/**
+	 * Amount of bits of a sample.
+	 */
+	private static final int SAMPLE_BIT_SIZE = 16;
+	/**
+	 * Amount of channels, stereo.
+	 */
+	private static final int CHANNELS = 2;
+
+	/**
+	 * Line which plays the sound.
+	 */
+	private final SourceDataLine sdl;
+
+	/**
+	 * Creates a new LineSink and starts its line.
+	 * 
+	 * @param rate
+	 *            Rate of the sound
+	 * @param bufferSize
+	 *            Requested size of the lines buffer in bytes, the line may
+	 *            choose another one
+	 * @throws LineUnavailableException
+	 *             If line can not be opened. This situation arises most
+	 *             commonly when a requested line is already in use by another
+	 *             application.
+	 */
+	public LineSink(final int rate, final int bufferSize)
+			throws LineUnavailableException {
+		Mixer mixer = AudioSystem.getMixer(null);
+
+		sdl = (SourceDataLine) mixer
+				.getLine(new Line.Info(SourceDataLine.class));
+		sdl.open(new AudioFormat(rate, SAMPLE_BIT_SIZE, CHANNELS, true, false),
+				bufferSize);
+		sdl.start();
+	}
+
+	@Override
+	public final int available() {
+		return sdl.available();
+	}
+
+	@Override
+	public final void close() {
+		sdl.close();
+	}
+
+	@Override
+	public final int getBufferSize() {
+		return sdl.getBufferSize();
+	}
+
+	@Override
+	public final boolean isRealTime() {
+		return true;
+	}
+
+	@Override
+	public final void write(final byte[] buf, final int off, final int len) {
+		sdl.write(buf, off, len);
+	}
+}
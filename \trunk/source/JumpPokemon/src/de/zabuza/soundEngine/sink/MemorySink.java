@@ -0,0 +1,91 @@
+package de.zabuza.soundEngine.sink;
+
+import java.util.Arrays;
+
+/**
+ * MemorySink class. Keeps the sound in memory as fast as it is rendered, used
+ * for offline rendering and benchmarks. The memory grows with the written
+ * samples until it is cleared.
+ * 
+ * @author Zabuza
+ * 
+ */
+public class MemorySink implements AudioSink {
+
+	/**
+	 * Size of the buffer which is reported, the sink never gets full.
+	 */
+	private static final int BUFFER_SIZE = Integer.MAX_VALUE;
+
+	/**
+	 * Written samples, only the first {@link #size} bytes are used.
+	 */
+	private byte[] data;
+	/**
+	 * Amount of written bytes.
+	 */
+	private int size = 0;
+
+	/**
+	 * Creates a new MemorySink.
+	 * 
+	 * @param initialCapacity
+	 *            Initial capacity in bytes
+	 */
+	public MemorySink(final int initialCapacity) {
+		data = new byte[initialCapacity];
+	}
+
+	@Override
+	public final int available() {
+		return BUFFER_SIZE;
+	}
+
+	/**
+	 * Discards all written samples, the memory is kept.
+	 */
+	public final void clear() {
+		size = 0;
+	}
+
+	@Override
+	public final void close() {
+	}
+
+	@Override
+	public final int getBufferSize() {
+		return BUFFER_SIZE;
+	}
+
+	/**
+	 * Gets the amount of written bytes since the last clear.
+	 * 
+	 * @return Amount of written bytes
+	 */
+	public final int getSize() {
+		return size;
+	}
+
+	@Override
+	public final boolean isRealTime() {
+		return false;
+	}
+
+	/**
+	 * Gets a copy of the written samples since the last clear.
+	 * 
+	 * @return Written samples
+	 */
+	public final byte[] toByteArray() {
+		return Arrays.copyOf(data, size);
+	}
+
+	@Override
+	public final void write(final byte[] buf, final int off, final int len) {
+		if (size + len > data.length) {
+			data = Arrays.copyOf(data, Math.max(size + len, data.length * 2));
+		}
+		System.arraycopy(buf, off, data, size, len);
+		size += len;
+	}
+}
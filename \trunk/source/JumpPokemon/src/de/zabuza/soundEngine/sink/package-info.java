@@ -0,0 +1,5 @@
+/**
+ * This is the package of all sinks which take
+ * the mixed sound from the portable SoundEngine.
+ */
+package de.zabuza.soundEngine.sink;
@@ -0,0 +1,381 @@
+package de.zabuza.soundEngine.synth;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.Track;
+
+import de.zabuza.soundEngine.StereoSoundProducer;
+
+/**
+ * MusicCache class. Renders looping Midi {@link Sequence}s once with a
+ * {@link SequenceSynth} into 16 bit stereo samples, which are then played by
+ * a {@link RenderedMusic} without any synthesis. Sequences are identified by
+ * a hash of their events. The rendered samples are kept in an optional cache
+ * directory between runs, from where they are memory-mapped.
+ *
+ * @author Zabuza
+ *
+ */
+public class MusicCache {
+
+	/**
+	 * Algorithm of the content hash.
+	 */
+	private static final String HASH_ALGORITHM = "SHA-1";
+	/**
+	 * Version of the cache files, must be increased if the synthesizer
+	 * changes.
+	 */
+	private static final int CACHE_VERSION = 1;
+	/**
+	 * Suffix of the cache files.
+	 */
+	private static final String CACHE_SUFFIX = ".pcm";
+	/**
+	 * Suffix of cache files which are still written.
+	 */
+	private static final String TEMP_SUFFIX = ".tmp";
+	/**
+	 * Amount of frames which are rendered at once.
+	 */
+	private static final int BLOCK_SIZE = 4096;
+	/**
+	 * Time in seconds the notes fade out after the end of a loop. The fading
+	 * is added to the start, so the loop is seamless.
+	 */
+	private static final int TAIL_TIME = 1;
+	/**
+	 * Radix of the hash in file names.
+	 */
+	private static final int HEX_RADIX = 16;
+	/**
+	 * Bits of a hex digit.
+	 */
+	private static final int HEX_BITS = 4;
+	/**
+	 * Hexadezimal F.
+	 */
+	private static final int HEX_F = 0xF;
+
+	/**
+	 * Rate the music is rendered with.
+	 */
+	private final int rate;
+	/**
+	 * Directory of the cache files, null if there is no cache.
+	 */
+	private final Path cacheDir;
+	/**
+	 * Rendered samples by the hash of their sequence.
+	 */
+	private final Map<String, ByteBuffer> rendered =
+			new HashMap<String, ByteBuffer>();
+	/**
+	 * Hashes of the sequences which are rendered at the moment.
+	 */
+	private final Set<String> rendering = new HashSet<String>();
+
+	/**
+	 * Creates a new MusicCache.
+	 *
+	 * @param thatRate
+	 *            Rate the music is rendered with
+	 * @param thatCacheDir
+	 *            Directory for the rendered music or null if it should not be
+	 *            cached between runs
+	 */
+	public MusicCache(final int thatRate, final Path thatCacheDir) {
+		this.rate = thatRate;
+		this.cacheDir = thatCacheDir;
+	}
+
+	/**
+	 * Gets the rendered music of a sequence, looping from its start.
+	 *
+	 * @param sequence
+	 *            Sequence of the music
+	 * @return Rendered music or null if the sequence is not rendered yet
+	 */
+	public final synchronized StereoSoundProducer get(final Sequence sequence) {
+		String hash = hash(sequence);
+		ByteBuffer pcm = rendered.get(hash);
+		if (pcm == null && !rendering.contains(hash)) {
+			pcm = loadCached(hash);
+			if (pcm != null) {
+				rendered.put(hash, pcm);
+			}
+		}
+		if (pcm == null) {
+			return null;
+		}
+		return new RenderedMusic(pcm, rate);
+	}
+
+	/**
+	 * Renders a sequence in a background thread, unless it is already
+	 * rendered or rendering. Afterwards {@link #get(Sequence)} returns it.
+	 *
+	 * @param sequence
+	 *            Sequence to render, must not be changed anymore
+	 */
+	public final synchronized void prerender(final Sequence sequence) {
+		final String hash = hash(sequence);
+		if (rendered.containsKey(hash) || !rendering.add(hash)) {
+			return;
+		}
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				ByteBuffer pcm = null;
+				try {
+					pcm = render(sequence, hash);
+				} finally {
+					finish(hash, pcm);
+				}
+			}
+		}, "MusicCache");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Completes the rendering of a sequence.
+	 *
+	 * @param hash
+	 *            Hash of the sequence
+	 * @param pcm
+	 *            Rendered samples or null if the rendering failed
+	 */
+	private synchronized void finish(final String hash, final ByteBuffer pcm) {
+		rendering.remove(hash);
+		if (pcm != null) {
+			rendered.put(hash, pcm);
+		}
+	}
+
+	/**
+	 * Gets the cache file of a sequence.
+	 *
+	 * @param hash
+	 *            Hash of the sequence
+	 * @return Cache file of the sequence
+	 */
+	private Path getCacheFile(final String hash) {
+		return cacheDir.resolve(hash + "-" + rate + "-v" + CACHE_VERSION
+				+ CACHE_SUFFIX);
+	}
+
+	/**
+	 * Creates the hash of the timing and all events of a sequence.
+	 *
+	 * @param sequence
+	 *            Sequence to hash
+	 * @return Hash as hexadecimal string
+	 */
+	private static String hash(final Sequence sequence) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform must support the algorithm
+			throw new IllegalStateException(e);
+		}
+		ByteBuffer number = ByteBuffer.allocate(Long.SIZE / Byte.SIZE);
+		number.putFloat(0, sequence.getDivisionType());
+		digest.update(number.array(), 0, Float.SIZE / Byte.SIZE);
+		number.putInt(0, sequence.getResolution());
+		digest.update(number.array(), 0, Integer.SIZE / Byte.SIZE);
+		for (Track track : sequence.getTracks()) {
+			number.putInt(0, track.size());
+			digest.update(number.array(), 0, Integer.SIZE / Byte.SIZE);
+			for (int i = 0; i < track.size(); i++) {
+				MidiEvent event = track.get(i);
+				number.putLong(0, event.getTick());
+				digest.update(number.array());
+				digest.update(event.getMessage().getMessage(), 0, event
+						.getMessage().getLength());
+			}
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest()) {
+			sb.append(Character.forDigit((b >> HEX_BITS) & HEX_F, HEX_RADIX));
+			sb.append(Character.forDigit(b & HEX_F, HEX_RADIX));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Maps the rendered samples of a sequence from the cache.
+	 *
+	 * @param hash
+	 *            Hash of the sequence
+	 * @return Rendered samples or null if they are not cached
+	 */
+	private ByteBuffer loadCached(final String hash) {
+		if (cacheDir == null) {
+			return null;
+		}
+		Path path = getCacheFile(hash);
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size == 0 || size % RenderedMusic.FRAME_BYTES != 0
+					|| size > Integer.MAX_VALUE) {
+				return null;
+			}
+			// The mapping stays valid after the channel is closed
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		} catch (IOException e) {
+			System.out.println("Failed to read cached music " + path);
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Renders a sequence into the cache. If there is no cache, or it can not
+	 * be written, the sequence is rendered into memory.
+	 *
+	 * @param sequence
+	 *            Sequence to render
+	 * @param hash
+	 *            Hash of the sequence
+	 * @return Rendered samples
+	 */
+	private ByteBuffer render(final Sequence sequence, final String hash) {
+		if (cacheDir != null) {
+			Path temp = null;
+			try {
+				Files.createDirectories(cacheDir);
+				temp = Files.createTempFile(cacheDir, hash, TEMP_SUFFIX);
+				MappedByteBuffer pcm;
+				try (FileChannel channel = FileChannel.open(temp,
+						StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+					SequenceSynth synth = new SequenceSynth(sequence, rate,
+							false);
+					pcm = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+							(long) synth.getLength()
+									* RenderedMusic.FRAME_BYTES);
+					render(synth, pcm);
+					pcm.force();
+				}
+				// The file is moved completely, so other runs never see parts
+				// of it. The mapping stays valid.
+				Files.move(temp, getCacheFile(hash),
+						StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+				return pcm;
+			} catch (IOException e) {
+				System.out.println("Failed to cache music " + hash);
+				e.printStackTrace();
+				if (temp != null) {
+					try {
+						Files.deleteIfExists(temp);
+					} catch (IOException e2) {
+						e2.printStackTrace();
+					}
+				}
+			}
+		}
+
+		SequenceSynth synth = new SequenceSynth(sequence, rate, false);
+		ByteBuffer pcm = ByteBuffer.allocateDirect(synth.getLength()
+				* RenderedMusic.FRAME_BYTES);
+		render(synth, pcm);
+		return pcm;
+	}
+
+	/**
+	 * Renders one loop of a sequence into 16 bit stereo samples. The notes
+	 * which fade out after the end are added to the start.
+	 *
+	 * @param synth
+	 *            SequenceSynth of the sequence, at its start
+	 * @param pcm
+	 *            Buffer for all frames of the loop
+	 */
+	private void render(final SequenceSynth synth, final ByteBuffer pcm) {
+		pcm.order(ByteOrder.LITTLE_ENDIAN);
+		int length = synth.getLength();
+		int tail = Math.min(length, TAIL_TIME * rate);
+
+		// The start stays in memory until the fading is added
+		float[] headLeft = new float[tail];
+		float[] headRight = new float[tail];
+		synth.read(headLeft, headRight, rate);
+
+		float[] left = new float[BLOCK_SIZE];
+		float[] right = new float[BLOCK_SIZE];
+		for (int pos = tail; pos < length; pos += BLOCK_SIZE) {
+			if (length - pos < BLOCK_SIZE) {
+				left = new float[length - pos];
+				right = new float[length - pos];
+			}
+			synth.read(left, right, rate);
+			write(pcm, pos, left, right);
+		}
+
+		float[] tailLeft = new float[tail];
+		float[] tailRight = new float[tail];
+		synth.read(tailLeft, tailRight, rate);
+		for (int i = 0; i < tail; i++) {
+			headLeft[i] += tailLeft[i];
+			headRight[i] += tailRight[i];
+		}
+		write(pcm, 0, headLeft, headRight);
+	}
+
+	/**
+	 * Writes a stereo buffer as clamped 16 bit samples.
+	 *
+	 * @param pcm
+	 *            Buffer of all frames
+	 * @param frame
+	 *            First frame to write
+	 * @param left
+	 *            Left buffer
+	 * @param right
+	 *            Right buffer
+	 */
+	private static void write(final ByteBuffer pcm, final int frame,
+			final float[] left, final float[] right) {
+		for (int i = 0; i < left.length; i++) {
+			int index = (frame + i) * RenderedMusic.FRAME_BYTES;
+			pcm.putShort(index, toShort(left[i]));
+			pcm.putShort(index + 2, toShort(right[i]));
+		}
+	}
+
+	/**
+	 * Converts a sample into a clamped 16 bit sample.
+	 *
+	 * @param sample
+	 *            Sample from -1 to 1
+	 * @return 16 bit sample
+	 */
+	private static short toShort(final float sample) {
+		float clamped = Math.max(-1, Math.min(1, sample));
+		return (short) (clamped * Short.MAX_VALUE);
+	}
+}
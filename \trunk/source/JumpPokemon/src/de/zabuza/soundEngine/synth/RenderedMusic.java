@@ -0,0 +1,99 @@
+package de.zabuza.soundEngine.synth;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import de.zabuza.soundEngine.StereoSoundProducer;
+import de.zabuza.soundEngine.mixer.MixKernels;
+
+/**
+ * RenderedMusic class. Loops music which was rendered beforehand into
+ * interleaved little-endian 16 bit stereo samples, usually in a memory-mapped
+ * file of the {@link MusicCache}. The samples are shared, every RenderedMusic
+ * only has its own position.
+ *
+ * @author Zabuza
+ *
+ */
+public class RenderedMusic implements StereoSoundProducer {
+
+	/**
+	 * Bytes of a stereo frame with 16 bit samples.
+	 */
+	static final int FRAME_BYTES = 4;
+	/**
+	 * Factor which converts a 16 bit sample into a float.
+	 */
+	static final float SHORT_TO_FLOAT = 1f / Short.MAX_VALUE;
+
+	/**
+	 * Amount of bits of the fraction of the fixed-point position.
+	 */
+	private static final int FRACTION_BITS = 32;
+
+	/**
+	 * Rendered samples, only accessed with absolute reads.
+	 */
+	private final ByteBuffer pcm;
+	/**
+	 * Rate the music was rendered with.
+	 */
+	private final int rate;
+	/**
+	 * Amount of frames of a loop as fixed-point number.
+	 */
+	private final long length;
+	/**
+	 * Current position as fixed-point number of frames.
+	 */
+	private long pos = 0;
+
+	/**
+	 * Creates a new RenderedMusic which plays rendered samples from their
+	 * start.
+	 *
+	 * @param thatPcm
+	 *            Rendered samples between position and limit
+	 * @param thatRate
+	 *            Rate the music was rendered with
+	 */
+	public RenderedMusic(final ByteBuffer thatPcm, final int thatRate) {
+		this.pcm = thatPcm.slice().order(ByteOrder.LITTLE_ENDIAN);
+		this.rate = thatRate;
+		this.length = (long) (pcm.remaining() / FRAME_BYTES) << FRACTION_BITS;
+	}
+
+	@Override
+	public final float read(final float[] leftBuf, final float[] rightBuf,
+			final int readRate) {
+		long step = getStep(readRate);
+		for (int i = 0; i < leftBuf.length; i++) {
+			int index = (int) (pos >>> FRACTION_BITS) * FRAME_BYTES;
+			leftBuf[i] = pcm.getShort(index) * SHORT_TO_FLOAT;
+			rightBuf[i] = pcm.getShort(index + 2) * SHORT_TO_FLOAT;
+			pos += step;
+			if (pos >= length) {
+				pos -= length;
+			}
+		}
+		return MixKernels.peak(leftBuf, rightBuf, leftBuf.length);
+	}
+
+	@Override
+	public final void skip(final int samplesToSkip, final int readRate) {
+		if (length > 0) {
+			pos = (pos + getStep(readRate) * samplesToSkip) % length;
+		}
+	}
+
+	/**
+	 * Gets the amount the position advances for every read sample.
+	 *
+	 * @param readRate
+	 *            Reading rate
+	 * @return Step as fixed-point number of frames
+	 */
+	private long getStep(final int readRate) {
+		return ((long) rate << FRACTION_BITS) / readRate;
+	}
+}
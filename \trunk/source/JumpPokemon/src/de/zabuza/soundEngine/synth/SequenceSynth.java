@@ -0,0 +1,575 @@
+package de.zabuza.soundEngine.synth;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.sound.midi.MetaMessage;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+
+import de.zabuza.soundEngine.StereoSoundProducer;
+import de.zabuza.soundEngine.mixer.MixKernels;
+
+/**
+ * SequenceSynth class. Small software synthesizer which renders a Midi
+ * {@link Sequence} in the mixer thread. Every instrument family of General
+ * Midi gets a simple waveform and envelope, the drum channel plays noise. All
+ * events are converted to sample frames beforehand, so the rendering is
+ * deterministic. At the end of the sequence all notes are released.
+ *
+ * @author Zabuza
+ *
+ */
+public class SequenceSynth implements StereoSoundProducer {
+
+	/**
+	 * Amount of Midi channels.
+	 */
+	private static final int CHANNELS = 16;
+	/**
+	 * Midi channel of the drums.
+	 */
+	private static final int DRUM_CHANNEL = 9;
+	/**
+	 * Maximal amount of notes which are played at once.
+	 */
+	private static final int MAX_VOICES = 48;
+	/**
+	 * Tempo of a sequence without tempo messages, in microseconds per quarter
+	 * note.
+	 */
+	private static final int DEFAULT_TEMPO = 500000;
+	/**
+	 * Factor which converts seconds into microseconds.
+	 */
+	private static final double SEC_TO_MICRO = 1000000;
+	/**
+	 * Type of the tempo meta message.
+	 */
+	private static final int META_TEMPO = 0x51;
+	/**
+	 * Number of the volume controller.
+	 */
+	private static final int CC_VOLUME = 7;
+	/**
+	 * Number of the pan controller.
+	 */
+	private static final int CC_PAN = 10;
+	/**
+	 * Number of the expression controller.
+	 */
+	private static final int CC_EXPRESSION = 11;
+	/**
+	 * Number of the all sound off controller.
+	 */
+	private static final int CC_ALL_SOUND_OFF = 120;
+	/**
+	 * Number of the reset all controllers controller.
+	 */
+	private static final int CC_RESET = 121;
+	/**
+	 * Number of the all notes off controller.
+	 */
+	private static final int CC_ALL_NOTES_OFF = 123;
+	/**
+	 * Maximal value of Midi data.
+	 */
+	private static final float DATA_MAX = 127;
+	/**
+	 * Volume of a channel without volume messages.
+	 */
+	private static final int DEFAULT_VOLUME = 100;
+	/**
+	 * Pan of the center.
+	 */
+	private static final int PAN_CENTER = 64;
+	/**
+	 * Pitch bend value of no bend.
+	 */
+	private static final int BEND_CENTER = 8192;
+	/**
+	 * Range of the pitch bend in semitones.
+	 */
+	private static final int BEND_RANGE = 2;
+	/**
+	 * Key of the concert pitch A4.
+	 */
+	private static final int A4_KEY = 69;
+	/**
+	 * Frequency of the concert pitch A4.
+	 */
+	private static final double A4_FREQUENCY = 440;
+	/**
+	 * Amount of semitones of an octave.
+	 */
+	private static final double SEMITONES = 12;
+	/**
+	 * Bits of data in a Midi data byte.
+	 */
+	private static final int DATA_BITS = 7;
+	/**
+	 * Shift of the first data byte in a packed message.
+	 */
+	private static final int DATA1_SHIFT = 8;
+	/**
+	 * Shift of the second data byte in a packed message.
+	 */
+	private static final int DATA2_SHIFT = 16;
+	/**
+	 * Hexadezimal FF.
+	 */
+	private static final int HEX_FF = 0xFF;
+	/**
+	 * Hexadezimal F0, the command of a status byte.
+	 */
+	private static final int HEX_F0 = 0xF0;
+	/**
+	 * Hexadezimal 0F, the channel of a status byte.
+	 */
+	private static final int HEX_0F = 0x0F;
+	/**
+	 * Gain of a note with full velocity.
+	 */
+	private static final float VOICE_GAIN = 0.15f;
+	/**
+	 * Shift which converts a program into its General Midi family.
+	 */
+	private static final int FAMILY_SHIFT = 3;
+	/**
+	 * Waveforms of the General Midi families, piano, chromatic percussion,
+	 * organ, guitar, bass, strings, ensemble, brass, reed, pipe, synth lead,
+	 * synth pad, synth effects, ethnic, percussive and sound effects.
+	 */
+	private static final int[] FAMILY_WAVEFORMS = { SynthVoice.TRIANGLE,
+			SynthVoice.SINE, SynthVoice.SQUARE, SynthVoice.SAW,
+			SynthVoice.TRIANGLE, SynthVoice.SAW, SynthVoice.SAW,
+			SynthVoice.SAW, SynthVoice.SQUARE, SynthVoice.SINE,
+			SynthVoice.SQUARE, SynthVoice.TRIANGLE, SynthVoice.SINE,
+			SynthVoice.TRIANGLE, SynthVoice.SINE, SynthVoice.NOISE };
+	/**
+	 * Attack times of the General Midi families in seconds.
+	 */
+	private static final float[] FAMILY_ATTACKS = { 0.005f, 0.002f, 0.01f,
+			0.005f, 0.005f, 0.05f, 0.05f, 0.02f, 0.02f, 0.02f, 0.01f, 0.2f,
+			0.1f, 0.005f, 0.002f, 0.01f };
+	/**
+	 * Decay times of the General Midi families in seconds.
+	 */
+	private static final float[] FAMILY_DECAYS = { 1.5f, 0.8f, 1f, 1f, 1f,
+			1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 0.3f, 0.5f };
+	/**
+	 * Sustain levels of the General Midi families.
+	 */
+	private static final float[] FAMILY_SUSTAINS = { 0, 0, 1, 0.2f, 0.8f,
+			0.8f, 0.8f, 0.8f, 0.8f, 0.8f, 0.8f, 0.8f, 0.6f, 0.2f, 0, 0 };
+	/**
+	 * Attack time of the drums in seconds.
+	 */
+	private static final float DRUM_ATTACK = 0.001f;
+	/**
+	 * Decay time of the drums in seconds.
+	 */
+	private static final float DRUM_DECAY = 0.12f;
+	/**
+	 * Release time of all notes in seconds.
+	 */
+	private static final float RELEASE = 0.15f;
+
+	/**
+	 * Rate the sequence is rendered with.
+	 */
+	private final int rate;
+	/**
+	 * True if the sequence starts again after its end.
+	 */
+	private final boolean loop;
+	/**
+	 * Frames of all events in order.
+	 */
+	private final int[] eventFrames;
+	/**
+	 * Status and data bytes of all events, packed into one int each.
+	 */
+	private final int[] eventMessages;
+	/**
+	 * Amount of frames of the sequence.
+	 */
+	private final int length;
+	/**
+	 * Index of the next event.
+	 */
+	private int eventIndex = 0;
+	/**
+	 * Current frame in the sequence.
+	 */
+	private int frame = 0;
+	/**
+	 * True if the end of a sequence which does not loop was reached.
+	 */
+	private boolean ended = false;
+	/**
+	 * Voices which play the notes.
+	 */
+	private final SynthVoice[] voices = new SynthVoice[MAX_VOICES];
+	/**
+	 * Attack steps and decay factors of the families.
+	 */
+	private final float[] attackSteps, decayFactors;
+	/**
+	 * Attack step and decay factor of the drums.
+	 */
+	private final float drumAttackStep, drumDecayFactor;
+	/**
+	 * Release factor of all notes.
+	 */
+	private final float releaseFactor;
+	/**
+	 * Programs of all channels.
+	 */
+	private final int[] programs = new int[CHANNELS];
+	/**
+	 * Volumes of all channels.
+	 */
+	private final int[] volumes = new int[CHANNELS];
+	/**
+	 * Expressions of all channels.
+	 */
+	private final int[] expressions = new int[CHANNELS];
+	/**
+	 * Pans of all channels.
+	 */
+	private final int[] pans = new int[CHANNELS];
+	/**
+	 * Pitch bend factors of all channels.
+	 */
+	private final float[] bends = new float[CHANNELS];
+	/**
+	 * Buffers which take the skipped samples.
+	 */
+	private float[] skipLeft = new float[0], skipRight = new float[0];
+
+	/**
+	 * Creates a new SequenceSynth for a Midi Sequence.
+	 *
+	 * @param sequence
+	 *            Sequence to render
+	 * @param thatRate
+	 *            Rate to render with, must be the reading rate
+	 * @param thatLoop
+	 *            True if the sequence starts again after its end, false if
+	 *            only silence follows
+	 */
+	public SequenceSynth(final Sequence sequence, final int thatRate,
+			final boolean thatLoop) {
+		this.rate = thatRate;
+		this.loop = thatLoop;
+
+		// Merge all tracks into one list in order of time
+		List<MidiEvent> events = new ArrayList<MidiEvent>();
+		for (Track track : sequence.getTracks()) {
+			for (int i = 0; i < track.size(); i++) {
+				events.add(track.get(i));
+			}
+		}
+		Collections.sort(events, new Comparator<MidiEvent>() {
+			@Override
+			public int compare(final MidiEvent e1, final MidiEvent e2) {
+				return Long.compare(e1.getTick(), e2.getTick());
+			}
+		});
+
+		// Convert the ticks into frames with the tempo changes
+		int[] frames = new int[events.size()];
+		int[] messages = new int[events.size()];
+		int count = 0;
+		boolean ppq = sequence.getDivisionType() == Sequence.PPQ;
+		double framesPerTick = getFramesPerTick(sequence, DEFAULT_TEMPO);
+		double time = 0;
+		long lastTick = 0;
+		for (MidiEvent event : events) {
+			time += (event.getTick() - lastTick) * framesPerTick;
+			lastTick = event.getTick();
+			MidiMessage message = event.getMessage();
+			if (message instanceof ShortMessage) {
+				ShortMessage shortMessage = (ShortMessage) message;
+				frames[count] = (int) time;
+				messages[count] = shortMessage.getStatus()
+						| (shortMessage.getData1() << DATA1_SHIFT)
+						| (shortMessage.getData2() << DATA2_SHIFT);
+				count++;
+			} else if (ppq && message instanceof MetaMessage
+					&& ((MetaMessage) message).getType() == META_TEMPO) {
+				byte[] data = ((MetaMessage) message).getData();
+				if (data.length >= 2 + 1) {
+					int tempo = ((data[0] & HEX_FF) << DATA2_SHIFT)
+							| ((data[1] & HEX_FF) << DATA1_SHIFT)
+							| (data[2] & HEX_FF);
+					framesPerTick = getFramesPerTick(sequence, tempo);
+				}
+			}
+		}
+		this.eventFrames = Arrays.copyOf(frames, count);
+		this.eventMessages = Arrays.copyOf(messages, count);
+		this.length = Math.max(1, (int) (time + (sequence.getTickLength()
+				- lastTick) * framesPerTick));
+
+		// Envelopes of the families
+		attackSteps = new float[FAMILY_WAVEFORMS.length];
+		decayFactors = new float[FAMILY_WAVEFORMS.length];
+		for (int i = 0; i < FAMILY_WAVEFORMS.length; i++) {
+			attackSteps[i] = getAttackStep(FAMILY_ATTACKS[i]);
+			decayFactors[i] = getFadeFactor(FAMILY_DECAYS[i]);
+		}
+		drumAttackStep = getAttackStep(DRUM_ATTACK);
+		drumDecayFactor = getFadeFactor(DRUM_DECAY);
+		releaseFactor = getFadeFactor(RELEASE);
+
+		for (int i = 0; i < MAX_VOICES; i++) {
+			voices[i] = new SynthVoice();
+		}
+		resetChannels();
+	}
+
+	/**
+	 * Gets the amount of frames per tick of a sequence.
+	 *
+	 * @param sequence
+	 *            Sequence with the timing
+	 * @param tempo
+	 *            Tempo in microseconds per quarter note, only used for
+	 *            sequences which are divided in quarter notes
+	 * @return Amount of frames per tick
+	 */
+	private double getFramesPerTick(final Sequence sequence, final int tempo) {
+		if (sequence.getDivisionType() == Sequence.PPQ) {
+			return (double) tempo * rate
+					/ (SEC_TO_MICRO * sequence.getResolution());
+		}
+		return rate / (sequence.getDivisionType() * sequence.getResolution());
+	}
+
+	/**
+	 * Gets the step of the envelope which rises to the full level in a time.
+	 *
+	 * @param time
+	 *            Time in seconds
+	 * @return Step per sample
+	 */
+	private float getAttackStep(final float time) {
+		return 1f / Math.max(1, time * rate);
+	}
+
+	/**
+	 * Gets the factor of the envelope which fades to silence in a time.
+	 *
+	 * @param time
+	 *            Time in seconds
+	 * @return Factor per sample
+	 */
+	private float getFadeFactor(final float time) {
+		return (float) Math.pow(SynthVoice.SILENCE, 1.0 / (time * rate));
+	}
+
+	/**
+	 * Gets the amount of frames of the sequence, the length of a loop.
+	 *
+	 * @return Amount of frames
+	 */
+	public final int getLength() {
+		return length;
+	}
+
+	@Override
+	public final float read(final float[] leftBuf, final float[] rightBuf,
+			final int readRate) {
+		Arrays.fill(leftBuf, 0);
+		Arrays.fill(rightBuf, 0);
+
+		int pos = 0;
+		while (pos < leftBuf.length) {
+			if (!ended && frame >= length) {
+				// Let all notes fade out at the end
+				for (SynthVoice voice : voices) {
+					voice.release();
+				}
+				if (loop) {
+					frame = 0;
+					eventIndex = 0;
+					resetChannels();
+				} else {
+					ended = true;
+				}
+			}
+			while (eventIndex < eventFrames.length
+					&& eventFrames[eventIndex] <= frame) {
+				apply(eventMessages[eventIndex]);
+				eventIndex++;
+			}
+
+			// Render until the next event or the end
+			int next = length;
+			if (ended) {
+				next = Integer.MAX_VALUE;
+			} else if (eventIndex < eventFrames.length) {
+				next = eventFrames[eventIndex];
+			}
+			int end = (int) Math.min(leftBuf.length, (long) pos + next - frame);
+			renderVoices(leftBuf, rightBuf, pos, end);
+			frame += end - pos;
+			pos = end;
+		}
+
+		return MixKernels.peak(leftBuf, rightBuf, leftBuf.length);
+	}
+
+	/**
+	 * Skips samples with a reading rate. The skipped samples are rendered,
+	 * since the notes depend on all events before.
+	 *
+	 * @param samplesToSkip
+	 *            Samples to skip
+	 * @param readRate
+	 *            Reading rate
+	 */
+	@Override
+	public final void skip(final int samplesToSkip, final int readRate) {
+		if (skipLeft.length != samplesToSkip) {
+			skipLeft = new float[samplesToSkip];
+			skipRight = new float[samplesToSkip];
+		}
+		read(skipLeft, skipRight, readRate);
+	}
+
+	/**
+	 * Applies a Midi message.
+	 *
+	 * @param message
+	 *            Status and data bytes packed into one int
+	 */
+	private void apply(final int message) {
+		int command = message & HEX_F0;
+		int channel = message & HEX_0F;
+		int data1 = (message >>> DATA1_SHIFT) & HEX_FF;
+		int data2 = (message >>> DATA2_SHIFT) & HEX_FF;
+
+		if (command == ShortMessage.NOTE_ON && data2 > 0) {
+			noteOn(channel, data1, data2);
+		} else if (command == ShortMessage.NOTE_ON
+				|| command == ShortMessage.NOTE_OFF) {
+			for (SynthVoice voice : voices) {
+				if (voice.isHeld() && voice.getChannel() == channel
+						&& voice.getKey() == data1) {
+					voice.release();
+				}
+			}
+		} else if (command == ShortMessage.PROGRAM_CHANGE) {
+			programs[channel] = data1;
+		} else if (command == ShortMessage.PITCH_BEND) {
+			int bend = (data1 | (data2 << DATA_BITS)) - BEND_CENTER;
+			bends[channel] = (float) Math.pow(2, bend
+					/ (double) BEND_CENTER * BEND_RANGE / SEMITONES);
+		} else if (command == ShortMessage.CONTROL_CHANGE) {
+			if (data1 == CC_VOLUME) {
+				volumes[channel] = data2;
+			} else if (data1 == CC_PAN) {
+				pans[channel] = data2;
+			} else if (data1 == CC_EXPRESSION) {
+				expressions[channel] = data2;
+			} else if (data1 == CC_RESET) {
+				expressions[channel] = (int) DATA_MAX;
+				bends[channel] = 1;
+			} else if (data1 == CC_ALL_SOUND_OFF
+					|| data1 == CC_ALL_NOTES_OFF) {
+				for (SynthVoice voice : voices) {
+					if (voice.isActive() && voice.getChannel() == channel) {
+						voice.release();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Starts a note in a free voice or in the quietest voice.
+	 *
+	 * @param channel
+	 *            Midi channel of the note
+	 * @param key
+	 *            Key of the note
+	 * @param velocity
+	 *            Velocity of the note
+	 */
+	private void noteOn(final int channel, final int key, final int velocity) {
+		SynthVoice free = null;
+		for (SynthVoice voice : voices) {
+			if (!voice.isActive()) {
+				free = voice;
+				break;
+			}
+			if (free == null || voice.getLoudness() < free.getLoudness()) {
+				free = voice;
+			}
+		}
+
+		float gain = velocity / DATA_MAX * VOICE_GAIN;
+		float step = (float) (A4_FREQUENCY
+				* Math.pow(2, (key - A4_KEY) / SEMITONES) / rate);
+		if (channel == DRUM_CHANNEL) {
+			free.start(channel, key, gain, SynthVoice.NOISE, step,
+					drumAttackStep, drumDecayFactor, 0, releaseFactor);
+		} else {
+			int family = programs[channel] >> FAMILY_SHIFT;
+			free.start(channel, key, gain, FAMILY_WAVEFORMS[family], step,
+					attackSteps[family], decayFactors[family],
+					FAMILY_SUSTAINS[family], releaseFactor);
+		}
+	}
+
+	/**
+	 * Adds the next samples of all voices to a stereo buffer.
+	 *
+	 * @param leftBuf
+	 *            Left buffer to add to
+	 * @param rightBuf
+	 *            Right buffer to add to
+	 * @param from
+	 *            First index to add to
+	 * @param to
+	 *            Index after the last one to add to
+	 */
+	private void renderVoices(final float[] leftBuf, final float[] rightBuf,
+			final int from, final int to) {
+		if (from >= to) {
+			return;
+		}
+		for (SynthVoice voice : voices) {
+			if (!voice.isActive()) {
+				continue;
+			}
+			int channel = voice.getChannel();
+			float gain = volumes[channel] / DATA_MAX * expressions[channel]
+					/ DATA_MAX;
+			float pan = (pans[channel] - PAN_CENTER) / (float) PAN_CENTER;
+			voice.render(leftBuf, rightBuf, from, to,
+					gain * Math.min(1, 1 - pan), gain * Math.min(1, 1 + pan),
+					bends[channel]);
+		}
+	}
+
+	/**
+	 * Resets the programs and controllers of all channels.
+	 */
+	private void resetChannels() {
+		Arrays.fill(programs, 0);
+		Arrays.fill(volumes, DEFAULT_VOLUME);
+		Arrays.fill(expressions, (int) DATA_MAX);
+		Arrays.fill(pans, PAN_CENTER);
+		Arrays.fill(bends, 1);
+	}
+}
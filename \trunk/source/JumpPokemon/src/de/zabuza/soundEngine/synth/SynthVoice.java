@@ -0,0 +1,320 @@
+package de.zabuza.soundEngine.synth;
+
+/**
+ * SynthVoice class. Plays a single note of the {@link SequenceSynth} with an
+ * oscillator and an attack, decay, sustain and release envelope.
+ *
+ * @author Zabuza
+ *
+ */
+final class SynthVoice {
+
+	/**
+	 * Sine waveform.
+	 */
+	static final int SINE = 0;
+	/**
+	 * Triangle waveform.
+	 */
+	static final int TRIANGLE = 1;
+	/**
+	 * Square waveform.
+	 */
+	static final int SQUARE = 2;
+	/**
+	 * Sawtooth waveform.
+	 */
+	static final int SAW = 3;
+	/**
+	 * White noise, used for drums.
+	 */
+	static final int NOISE = 4;
+	/**
+	 * Level below which a decayed or released voice is silent.
+	 */
+	static final float SILENCE = 0.0001f;
+
+	/**
+	 * Amount of bits of the index into the sine table.
+	 */
+	private static final int SINE_BITS = 10;
+	/**
+	 * Size of the sine table.
+	 */
+	private static final int SINE_SIZE = 1 << SINE_BITS;
+	/**
+	 * One period of a sine.
+	 */
+	private static final float[] SINE_TABLE = createSineTable();
+	/**
+	 * Gain of the square and sawtooth waveforms, which are louder than the
+	 * others.
+	 */
+	private static final float SHARP_GAIN = 0.5f;
+	/**
+	 * Multiplier of the linear congruential noise generator.
+	 */
+	private static final int NOISE_MULTIPLIER = 1103515245;
+	/**
+	 * Increment of the linear congruential noise generator.
+	 */
+	private static final int NOISE_INCREMENT = 12345;
+	/**
+	 * Shift which drops the weak lower bits of the noise generator.
+	 */
+	private static final int NOISE_SHIFT = 8;
+	/**
+	 * Start state of the noise generator, so every note sounds the same.
+	 */
+	private static final int NOISE_SEED = 1;
+	/**
+	 * Factor which scales the shifted noise into -1 to 1.
+	 */
+	private static final float NOISE_TO_FLOAT = 1f / (1 << (Integer.SIZE
+			- NOISE_SHIFT - 1));
+
+	/**
+	 * Midi channel of the note.
+	 */
+	private int channel;
+	/**
+	 * Key of the note.
+	 */
+	private int key;
+	/**
+	 * True if the voice is playing.
+	 */
+	private boolean active = false;
+	/**
+	 * True if the note was released.
+	 */
+	private boolean released;
+	/**
+	 * True while the envelope rises.
+	 */
+	private boolean attacking;
+	/**
+	 * Waveform of the oscillator.
+	 */
+	private int waveform;
+	/**
+	 * Phase of the oscillator, from 0 to 1.
+	 */
+	private float phase;
+	/**
+	 * Amount the phase advances per sample without pitch bend.
+	 */
+	private float step;
+	/**
+	 * Gain of the note, from its velocity.
+	 */
+	private float gain;
+	/**
+	 * Current level of the envelope.
+	 */
+	private float level;
+	/**
+	 * Amount the level rises per sample while attacking.
+	 */
+	private float attackStep;
+	/**
+	 * Factor which moves the level towards the sustain per sample.
+	 */
+	private float decayFactor;
+	/**
+	 * Sustain level of the envelope.
+	 */
+	private float sustain;
+	/**
+	 * Factor which lowers the level per sample after the release.
+	 */
+	private float releaseFactor;
+	/**
+	 * State of the noise generator.
+	 */
+	private int noise;
+
+	/**
+	 * Creates one period of a sine.
+	 *
+	 * @return Sine table
+	 */
+	private static float[] createSineTable() {
+		float[] table = new float[SINE_SIZE];
+		for (int i = 0; i < SINE_SIZE; i++) {
+			table[i] = (float) Math.sin(2 * Math.PI * i / SINE_SIZE);
+		}
+		return table;
+	}
+
+	/**
+	 * Starts a note.
+	 *
+	 * @param thatChannel
+	 *            Midi channel of the note
+	 * @param thatKey
+	 *            Key of the note
+	 * @param thatGain
+	 *            Gain of the note
+	 * @param thatWaveform
+	 *            Waveform of the oscillator
+	 * @param thatStep
+	 *            Amount the phase advances per sample
+	 * @param thatAttackStep
+	 *            Amount the level rises per sample while attacking
+	 * @param thatDecayFactor
+	 *            Factor which moves the level towards the sustain per sample
+	 * @param thatSustain
+	 *            Sustain level
+	 * @param thatReleaseFactor
+	 *            Factor which lowers the level per sample after the release
+	 */
+	void start(final int thatChannel, final int thatKey, final float thatGain,
+			final int thatWaveform, final float thatStep,
+			final float thatAttackStep, final float thatDecayFactor,
+			final float thatSustain, final float thatReleaseFactor) {
+		this.channel = thatChannel;
+		this.key = thatKey;
+		this.gain = thatGain;
+		this.waveform = thatWaveform;
+		this.step = thatStep;
+		this.attackStep = thatAttackStep;
+		this.decayFactor = thatDecayFactor;
+		this.sustain = thatSustain;
+		this.releaseFactor = thatReleaseFactor;
+		this.phase = 0;
+		this.noise = NOISE_SEED;
+		this.level = 0;
+		this.active = true;
+		this.released = false;
+		this.attacking = true;
+	}
+
+	/**
+	 * Releases the note, the voice fades out and stops.
+	 */
+	void release() {
+		released = true;
+		attacking = false;
+	}
+
+	/**
+	 * Stops the voice immediately.
+	 */
+	void stop() {
+		active = false;
+	}
+
+	/**
+	 * Gets the Midi channel of the note.
+	 *
+	 * @return Midi channel
+	 */
+	int getChannel() {
+		return channel;
+	}
+
+	/**
+	 * Gets the key of the note.
+	 *
+	 * @return Key of the note
+	 */
+	int getKey() {
+		return key;
+	}
+
+	/**
+	 * Gets the current level of the envelope multiplied with the gain.
+	 *
+	 * @return Current loudness of the voice
+	 */
+	float getLoudness() {
+		return level * gain;
+	}
+
+	/**
+	 * Returns if the voice is playing.
+	 *
+	 * @return True if the voice is playing
+	 */
+	boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * Returns if the note is held and not released.
+	 *
+	 * @return True if the note is held
+	 */
+	boolean isHeld() {
+		return active && !released;
+	}
+
+	/**
+	 * Adds the next samples of the voice to a stereo buffer. Stops the voice
+	 * once it is silent.
+	 *
+	 * @param leftBuf
+	 *            Left buffer to add to
+	 * @param rightBuf
+	 *            Right buffer to add to
+	 * @param from
+	 *            First index to add to
+	 * @param to
+	 *            Index after the last one to add to
+	 * @param leftGain
+	 *            Gain of the left channel
+	 * @param rightGain
+	 *            Gain of the right channel
+	 * @param bend
+	 *            Factor of the pitch bend
+	 */
+	void render(final float[] leftBuf, final float[] rightBuf, final int from,
+			final int to, final float leftGain, final float rightGain,
+			final float bend) {
+		float bentStep = step * bend;
+		for (int i = from; i < to; i++) {
+			if (released) {
+				level *= releaseFactor;
+			} else if (attacking) {
+				level += attackStep;
+				if (level >= 1) {
+					level = 1;
+					attacking = false;
+				}
+			} else {
+				level = sustain + (level - sustain) * decayFactor;
+			}
+
+			float value;
+			if (waveform == SINE) {
+				value = SINE_TABLE[(int) (phase * SINE_SIZE)];
+			} else if (waveform == TRIANGLE) {
+				value = 1 - 2 * 2 * Math.abs(phase - 0.5f);
+			} else if (waveform == SQUARE) {
+				if (phase < 0.5f) {
+					value = SHARP_GAIN;
+				} else {
+					value = -SHARP_GAIN;
+				}
+			} else if (waveform == SAW) {
+				value = (2 * phase - 1) * SHARP_GAIN;
+			} else {
+				noise = noise * NOISE_MULTIPLIER + NOISE_INCREMENT;
+				value = (noise >> NOISE_SHIFT) * NOISE_TO_FLOAT;
+			}
+			phase += bentStep;
+			if (phase >= 1) {
+				phase -= (int) phase;
+			}
+
+			value *= level * gain;
+			leftBuf[i] += value * leftGain;
+			rightBuf[i] += value * rightGain;
+		}
+
+		if (level < SILENCE && !attacking && (released || sustain < SILENCE)) {
+			active = false;
+		}
+	}
+}
@@ -0,0 +1,5 @@
+/**
+ * This is the package of the software synthesizer
+ * and the rendered music from the portable SoundEngine.
+ */
+package de.zabuza.soundEngine.synth;